@@ -174,6 +174,14 @@ public class EntitlementCacheUpdateServlet extends HttpServlet {
 
         if (authenticate(username, password, remoteIp)) {
 
+            // invalidateSubject and invalidateResource parameters are forwarded with the request,
+            // so that only the matching decisions are removed from the PEP cache
+            if (log.isDebugEnabled()) {
+                log.debug("PEP cache update requested for subject : " +
+                        req.getParameter(EntitlementConstants.INVALIDATE_SUBJECT) + " and resource : " +
+                        req.getParameter(EntitlementConstants.INVALIDATE_RESOURCE));
+            }
+
             RequestDispatcher requestDispatcher = req.getRequestDispatcher("/updateCacheAuth.do");
             String subjectScope = servletConfig.getServletContext().getInitParameter("subjectScope");
             String subjectAttributeName = servletConfig.getServletContext().getInitParameter("subjectAttributeName");
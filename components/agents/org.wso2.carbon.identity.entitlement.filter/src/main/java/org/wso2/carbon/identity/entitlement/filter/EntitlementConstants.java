@@ -37,8 +37,14 @@ public class EntitlementConstants {
 
     public static final String INVALIDATION_INTERVAL = "invalidationInterval";
 
+    public static final String NEGATIVE_INVALIDATION_INTERVAL = "negativeInvalidationInterval";
+
     public static final String MAX_CACHE_ENTRIES = "maxCacheEntries";
 
+    public static final String INVALIDATE_SUBJECT = "invalidateSubject";
+
+    public static final String INVALIDATE_RESOURCE = "invalidateResource";
+
     public static final String JSON = "json";
 
     public static final String SOAP = "soap";
@@ -51,6 +51,7 @@ public class EntitlementFilter implements Filter {
     private String reuseSession;
     private String cacheType;
     private int invalidationInterval;
+    private int negativeInvalidationInterval;
     private int maxCacheEntries;
     private String subjectScope;
     private String subjectAttributeName;
@@ -98,6 +99,12 @@ public class EntitlementFilter implements Filter {
         } else {
             invalidationInterval = 0;
         }
+        if (filterConfig.getInitParameter(EntitlementConstants.NEGATIVE_INVALIDATION_INTERVAL) != null) {
+            negativeInvalidationInterval = Integer.parseInt(filterConfig.getInitParameter(
+                    EntitlementConstants.NEGATIVE_INVALIDATION_INTERVAL));
+        } else {
+            negativeInvalidationInterval = invalidationInterval;
+        }
 
         if (filterConfig.getInitParameter(EntitlementConstants.THRIFT_HOST) != null) {
             thriftHost = filterConfig.getInitParameter(EntitlementConstants.THRIFT_HOST);
@@ -148,7 +155,8 @@ public class EntitlementFilter implements Filter {
         }
 
         appToPDPClientConfigMap.put("EntitlementMediator", clientConfigMap);
-        PEPProxyConfig config = new PEPProxyConfig(appToPDPClientConfigMap, "EntitlementMediator", cacheType, invalidationInterval, maxCacheEntries);
+        PEPProxyConfig config = new PEPProxyConfig(appToPDPClientConfigMap, "EntitlementMediator", cacheType, invalidationInterval,
+                negativeInvalidationInterval, maxCacheEntries);
 
         try {
             pepProxy = new PEPProxy(config);
@@ -174,7 +182,7 @@ public class EntitlementFilter implements Filter {
 
         if (((HttpServletRequest) servletRequest).getRequestURI().contains("/updateCacheAuth.do")) {
             try {
-                pepProxy.clear();
+                updateCache((HttpServletRequest) servletRequest);
             } catch (Exception e) {
                 log.error("Error while Making the Decision ", e);
             }
@@ -201,6 +209,9 @@ public class EntitlementFilter implements Filter {
     public void destroy() {
 
         filterConfig = null;
+        if (pepProxy != null) {
+            pepProxy.destroy();
+        }
         pepProxy = null;
         client = null;
         remoteServiceUrl = null;
@@ -211,6 +222,7 @@ public class EntitlementFilter implements Filter {
         reuseSession = null;
         cacheType = null;
         invalidationInterval = 0;
+        negativeInvalidationInterval = 0;
         maxCacheEntries = 0;
         subjectScope = null;
         subjectAttributeName = null;
@@ -247,6 +259,26 @@ public class EntitlementFilter implements Filter {
         return subject;
     }
 
+    /**
+     * Removes the cached decisions of the subject and/or resource given in the request. All cached
+     * decisions are removed if neither is given
+     */
+    private void updateCache(HttpServletRequest request) {
+        String subject = request.getParameter(EntitlementConstants.INVALIDATE_SUBJECT);
+        String resource = request.getParameter(EntitlementConstants.INVALIDATE_RESOURCE);
+        if (subject != null && subject.trim().length() == 0) {
+            subject = null;
+        }
+        if (resource != null && resource.trim().length() == 0) {
+            resource = null;
+        }
+        if (subject == null && resource == null) {
+            pepProxy.clear();
+        } else {
+            pepProxy.invalidate(subject, resource);
+        }
+    }
+
     private String findResource(HttpServletRequest request) {
         return request.getRequestURI();
     }
@@ -262,7 +294,7 @@ public class EntitlementFilter implements Filter {
         try {
             if (decision.equals(EntitlementConstants.PERMIT)) {
                 if (((HttpServletRequest) servletRequest).getRequestURI().contains("/updateCacheAuth.do")) {
-                    pepProxy.clear();
+                    updateCache((HttpServletRequest) servletRequest);
                     log.info("PEP cache has been updated");
                     servletResponse.getWriter().print("PEP cache has been updated");
                 } else {
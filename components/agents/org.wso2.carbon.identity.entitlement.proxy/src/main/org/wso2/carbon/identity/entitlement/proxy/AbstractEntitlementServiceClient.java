@@ -22,12 +22,30 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.impl.llom.util.AXIOMUtil;
 
 import javax.xml.namespace.QName;
+import java.util.ArrayList;
 import java.util.List;
 
 public abstract class AbstractEntitlementServiceClient {
 
     public abstract String getDecision(Attribute[] attributes, String appId) throws Exception;
 
+    /**
+     * Gets the decisions for a set of requests. Clients that can send all requests to the PDP in
+     * a single call override this, otherwise decisions are retrieved one by one
+     *
+     * @param attributes XACML 3.0 Attribute Sets, one for each request
+     * @param appId      app id
+     * @return the Entitlement Decisions in the same order as the requests
+     * @throws Exception
+     */
+    public List<String> getDecisions(List<Attribute[]> attributes, String appId) throws Exception {
+        List<String> decisions = new ArrayList<String>();
+        for (Attribute[] attrs : attributes) {
+            decisions.add(getDecision(attrs, appId));
+        }
+        return decisions;
+    }
+
     public abstract boolean subjectCanActOnResource(String subjectType, String alias,
                                                     String actionId, String resourceId, String domainId, String appId) throws Exception;
 
@@ -20,6 +20,7 @@ package org.wso2.carbon.identity.entitlement.proxy;
 
 import org.wso2.carbon.identity.entitlement.proxy.exception.EntitlementProxyException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -38,7 +39,8 @@ public class PEPProxy {
     public PEPProxy(PEPProxyConfig config) throws EntitlementProxyException {
         defaultAppId = config.getDefaultAppId();
         if (config.getCacheType() != null && (config.getCacheType().equals("simple") || config.getCacheType().equals("carbon"))) {
-            cache = new PEPProxyCache(config.getCacheType(), config.getInvalidationInterval(), config.getMaxCacheEntries());
+            cache = new PEPProxyCache(config.getCacheType(), config.getInvalidationInterval(),
+                    config.getNegativeInvalidationInterval(), config.getMaxCacheEntries());
         }
         appToPDPClientMap = PEPProxyFactory.getAppToPDPClientMap(config.getAppToPDPClientConfigMap());
     }
@@ -74,8 +76,10 @@ public class PEPProxy {
             if (decision != null) {
                 return decision;
             } else {
+                long start = System.nanoTime();
                 decision = appProxy.getDecision(attributes, appId);
-                cache.put(key, decision);
+                cache.recordLoadTime(System.nanoTime() - start);
+                cache.put(key, decision, attributes);
                 return decision;
             }
         } else {
@@ -84,6 +88,62 @@ public class PEPProxy {
 
     }
 
+    /**
+     * This method is used to get the Entitlement decisions for a set of requests using The Default AppID
+     *
+     * @param attributes XACML 3.0 Attribute Sets, one for each request
+     * @return the Entitlement Decisions in the same order as the requests
+     * @throws Exception
+     */
+    public List<String> getDecisions(List<Attribute[]> attributes) throws Exception {
+        return getDecisions(attributes, defaultAppId);
+    }
+
+    /**
+     * This method is used to get the Entitlement decisions for a set of requests using The Provided AppID.
+     * Requests that are not found in the cache are sent to the PDP in a single call
+     *
+     * @param attributes XACML 3.0 Attribute Sets, one for each request
+     * @param appId      specific appID in the PDP Proxy
+     * @return the Entitlement Decisions in the same order as the requests
+     * @throws Exception
+     */
+    public List<String> getDecisions(List<Attribute[]> attributes, String appId) throws Exception {
+        AbstractEntitlementServiceClient appProxy;
+        if (!appToPDPClientMap.containsKey(appId)) {
+            throw new EntitlementProxyException("Invalid App Id");
+        } else {
+            appProxy = appToPDPClientMap.get(appId);
+        }
+        if (cache == null) {
+            return appProxy.getDecisions(attributes, appId);
+        }
+
+        String[] decisions = new String[attributes.size()];
+        String[] keys = new String[attributes.size()];
+        List<Integer> missed = new ArrayList<Integer>();
+        List<Attribute[]> missedAttributes = new ArrayList<Attribute[]>();
+        for (int i = 0; i < decisions.length; i++) {
+            keys[i] = generateKey(attributes.get(i));
+            decisions[i] = cache.get(keys[i]);
+            if (decisions[i] == null) {
+                missed.add(i);
+                missedAttributes.add(attributes.get(i));
+            }
+        }
+        if (!missed.isEmpty()) {
+            long start = System.nanoTime();
+            List<String> results = appProxy.getDecisions(missedAttributes, appId);
+            cache.recordLoadTime(System.nanoTime() - start);
+            for (int i = 0; i < missed.size(); i++) {
+                int index = missed.get(i);
+                decisions[index] = results.get(i);
+                cache.put(keys[index], decisions[index], attributes.get(index));
+            }
+        }
+        return Arrays.asList(decisions);
+    }
+
     /**
      * This method is used to get the Entitlement decision for the provided subject,resource,action and environment using the default appID of the PDP defaultProxy
      *
@@ -228,4 +288,37 @@ public class PEPProxy {
         }
     }
 
+    /**
+     * This method is used to remove the cached decisions of a subject and/or a resource
+     *
+     * @param subject  subject of the decisions to be removed, or null to match any subject
+     * @param resource resource of the decisions to be removed, or null to match any resource
+     */
+    public void invalidate(String subject, String resource) {
+        if (cache != null) {
+            cache.invalidate(subject, resource);
+        }
+    }
+
+    /**
+     * This method is used to get the statistics of the decision cache
+     *
+     * @return statistics of the decision cache, or null if caching is disabled
+     */
+    public PEPProxyCacheStatisticsMBean getCacheStatistics() {
+        if (cache != null) {
+            return cache.getStatistics();
+        }
+        return null;
+    }
+
+    /**
+     * This method is used to release the resources held by the PEP Proxy
+     */
+    public void destroy() {
+        if (cache != null) {
+            cache.destroy();
+        }
+    }
+
 }
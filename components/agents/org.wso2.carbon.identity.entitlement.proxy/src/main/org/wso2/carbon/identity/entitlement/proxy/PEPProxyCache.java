@@ -24,61 +24,97 @@ import org.apache.commons.logging.LogFactory;
 import javax.cache.Cache;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
-import java.util.Calendar;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Decision cache of the PEP proxy. The "simple" cache is a size bounded LRU cache that is split
+ * in to independently locked segments, so that concurrent requests for different keys do not
+ * contend for the same lock. Permit decisions and other decisions can be kept for different
+ * periods of time.
+ */
 class PEPProxyCache {
 
     private static Log log = LogFactory.getLog(PEPProxyCache.class);
 
-    private SimpleCache<String, EntitlementDecision> simpleCache;
+    private static final int SEGMENT_COUNT = 16;
+    private static final AtomicInteger instanceCount = new AtomicInteger();
+
+    private Segment[] segments;
     private boolean isCarbonCache = false;
-    private int invalidationInterval = 0;
+    private long invalidationInterval = 0;
+    private long negativeInvalidationInterval = 0;
+    private PEPProxyCacheStatistics statistics = new PEPProxyCacheStatistics(this);
+    private ObjectName objectName;
 
     PEPProxyCache(String enableCaching, int invalidationInterval, int maxEntries) {
+        this(enableCaching, invalidationInterval, invalidationInterval, maxEntries);
+    }
+
+    PEPProxyCache(String enableCaching, int invalidationInterval, int negativeInvalidationInterval,
+                  int maxEntries) {
         if (enableCaching.equalsIgnoreCase("simple")) {
-            simpleCache = new SimpleCache<String, EntitlementDecision>(maxEntries);
+            // entries are spread over the segments, each segment holds its share of the maximum
+            int segmentEntries = (maxEntries + SEGMENT_COUNT - 1) / SEGMENT_COUNT;
+            segments = new Segment[SEGMENT_COUNT];
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                segments[i] = new Segment(segmentEntries);
+            }
             this.invalidationInterval = invalidationInterval;
+            this.negativeInvalidationInterval = negativeInvalidationInterval;
         } else if (enableCaching.equalsIgnoreCase("carbon")) {
             isCarbonCache = true;
-//            carbonCache = getCommonCache(ProxyConstants.DECISION_CACHE);
         }
+        registerStatistics();
     }
 
     /**
      * Return an instance of a named cache that is common to all tenants.
      *
-     * @param name the name of the cache.
      * @return the named cache instance.
      */
     private Cache<IdentityCacheKey, IdentityCacheEntry> getCommonCache() {
-        // TODO Should verify the cache creation done per tenant or as below
-
-        // We create a single cache for all tenants. It is not a good choice to create per-tenant
-        // caches in this case. We qualify tenants by adding the tenant identifier in the cache key.
-//	    PrivilegedCarbonContext currentContext = PrivilegedCarbonContext.getCurrentContext();
-//	    PrivilegedCarbonContext.startTenantFlow();
-//		try {
-//			currentContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-//			return CacheManager.getInstance().getCache(name);
-//		} finally {
-//		    PrivilegedCarbonContext.endTenantFlow();
-//		}
-
         CacheManager manager = Caching.getCacheManagerFactory().getCacheManager(ProxyConstants.DECISION_CACHE);
         Cache<IdentityCacheKey, IdentityCacheEntry> cache = manager.getCache(ProxyConstants.DECISION_CACHE);
         return cache;
     }
 
     void put(String key, String entry) {
-        if (simpleCache != null) {
-            EntitlementDecision entitlementDecision = new EntitlementDecision(entry, Calendar.getInstance().getTimeInMillis());
-            simpleCache.put(key, entitlementDecision);
+        put(key, entry, null);
+    }
+
+    /**
+     * Puts the decision in to the cache
+     *
+     * @param key        cache key of the request
+     * @param entry      XACML response
+     * @param attributes attributes of the request. Subject and resource values of the request are
+     *                   kept with the entry, so that the entry can be invalidated by them
+     */
+    void put(String key, String entry, Attribute[] attributes) {
+        if (segments != null) {
+            long timeToLive = isPermit(entry) ? invalidationInterval : negativeInvalidationInterval;
+            if (timeToLive <= 0) {
+                return;
+            }
+            EntitlementDecision entitlementDecision = new EntitlementDecision(entry,
+                    System.currentTimeMillis() + timeToLive,
+                    getValues(attributes, ProxyConstants.SUBJECT_CATEGORY),
+                    getValues(attributes, ProxyConstants.RESOURCE_CATEGORY));
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                segment.put(key, entitlementDecision);
+            }
         } else if (isCarbonCache) {
             Cache<IdentityCacheKey, IdentityCacheEntry> carbonCache = getCommonCache();
             if (carbonCache != null) {
-                //int tenantId = CarbonContext.getCurrentContext().getTenantId();
                 IdentityCacheKey identityKey = new IdentityCacheKey(key);
                 IdentityCacheEntry identityEntry = new IdentityCacheEntry(entry);
                 carbonCache.put(identityKey, identityEntry);
@@ -87,30 +123,101 @@ class PEPProxyCache {
     }
 
     String get(String key) {
-        if (simpleCache != null) {
-            EntitlementDecision entitlementDecision = (EntitlementDecision) simpleCache.get(key);
-            if (entitlementDecision != null &&
-                    (entitlementDecision.getCachedTime() + (long) invalidationInterval >
-                            Calendar.getInstance().getTimeInMillis())) {
-                return entitlementDecision.getResponse();
+        String response = null;
+        if (segments != null) {
+            Segment segment = segmentFor(key);
+            synchronized (segment) {
+                EntitlementDecision entitlementDecision = segment.get(key);
+                if (entitlementDecision != null) {
+                    if (entitlementDecision.getExpiryTime() > System.currentTimeMillis()) {
+                        response = entitlementDecision.getResponse();
+                    } else {
+                        segment.remove(key);
+                    }
+                }
             }
         } else if (isCarbonCache) {
             Cache<IdentityCacheKey, IdentityCacheEntry> carbonCache = getCommonCache();
             if (carbonCache != null) {
-                //int tenantId = CarbonContext.getCurrentContext().getTenantId();
                 IdentityCacheKey identityKey = new IdentityCacheKey(key);
                 IdentityCacheEntry identityCacheEntry = (IdentityCacheEntry) carbonCache.get(identityKey);
                 if (identityCacheEntry != null) {
-                    return identityCacheEntry.getCacheEntry();
+                    response = identityCacheEntry.getCacheEntry();
                 }
             }
         }
-        return null;
+        if (response != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return response;
+    }
+
+    /**
+     * Records the time taken to retrieve a decision from the PDP for a cache miss
+     *
+     * @param loadTimeNanos time taken in nanoseconds
+     */
+    void recordLoadTime(long loadTimeNanos) {
+        statistics.recordLoad(loadTimeNanos);
+    }
+
+    /**
+     * Removes the decisions of the given subject and/or resource. If both are null, or the cache
+     * can not find entries by them, all decisions are removed
+     *
+     * @param subject  subject value, or null to match any subject
+     * @param resource resource value, or null to match any resource
+     */
+    void invalidate(String subject, String resource) {
+        if (segments == null || (subject == null && resource == null)) {
+            clear();
+            return;
+        }
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Iterator<EntitlementDecision> iterator = segment.values().iterator(); iterator.hasNext(); ) {
+                    EntitlementDecision entitlementDecision = iterator.next();
+                    if ((subject == null || contains(entitlementDecision.getSubjects(), subject)) &&
+                            (resource == null || contains(entitlementDecision.getResources(), resource))) {
+                        iterator.remove();
+                        count++;
+                    }
+                }
+            }
+        }
+        statistics.recordInvalidation(count);
+        if (log.isDebugEnabled()) {
+            log.debug(count + " PEP cache entries are invalidated for subject : " + subject +
+                    " and resource : " + resource);
+        }
+    }
+
+    int size() {
+        if (segments == null) {
+            return 0;
+        }
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
     }
 
     void clear() {
-        if (simpleCache != null) {
-            simpleCache = new SimpleCache<String, EntitlementDecision>(simpleCache.maxEntries);
+        if (segments != null) {
+            int count = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    count += segment.size();
+                    segment.clear();
+                }
+            }
+            statistics.recordInvalidation(count);
         } else if (isCarbonCache) {
             Cache<IdentityCacheKey, IdentityCacheEntry> carbonCache = getCommonCache();
             if (carbonCache != null) {
@@ -119,37 +226,95 @@ class PEPProxyCache {
         }
     }
 
-    private class SimpleCache<K, V> extends LinkedHashMap<K, V> {
+    /**
+     * Unregisters the statistics of this cache from the MBean server
+     */
+    void destroy() {
+        if (objectName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (Exception e) {
+                log.warn("Error while unregistering PEP cache statistics MBean " + objectName, e);
+            }
+            objectName = null;
+        }
+    }
+
+    PEPProxyCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void registerStatistics() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("org.wso2.carbon.identity.entitlement.proxy:type=PEPProxyCache,name=" +
+                    "PEPProxyCache-" + instanceCount.incrementAndGet());
+            mBeanServer.registerMBean(statistics, name);
+            objectName = name;
+        } catch (Exception e) {
+            log.warn("Error while registering PEP cache statistics MBean", e);
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash & 0x7fffffff) % SEGMENT_COUNT];
+    }
+
+    private boolean isPermit(String response) {
+        return response != null && response.contains(">Permit<");
+    }
+
+    private String[] getValues(Attribute[] attributes, String category) {
+        if (attributes == null) {
+            return new String[0];
+        }
+        List<String> values = new ArrayList<String>();
+        for (Attribute attribute : attributes) {
+            if (attribute != null && category.equals(attribute.getCategory()) && attribute.getValue() != null) {
+                values.add(attribute.getValue());
+            }
+        }
+        return values.toArray(new String[values.size()]);
+    }
+
+    private boolean contains(String[] values, String value) {
+        for (String v : values) {
+            if (v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One lock stripe of the cache. Access ordered, so that the least recently used entry of the
+     * segment is removed once the segment is full. Must be accessed while holding its monitor.
+     */
+    private class Segment extends LinkedHashMap<String, EntitlementDecision> {
 
         private static final long serialVersionUID = 1L;
 
         private int maxEntries;
 
-        public SimpleCache(int maxEntries) {
-            // removeEldestEntry() is called after a put(). To allow maxEntries in
-            // cache, capacity should be maxEntries + 1 (for the entry which will be
-            // removed). Load factor is taken as 1 because size is fixed. This is
-            // less space efficient when very less entries are present, but there
-            // will be no effect on time complexity for get(). The third parameter
-            // in the base class constructor says that this map is
-            // insertion-order oriented.
-            super(maxEntries + 1, 1, false);
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
             this.maxEntries = maxEntries;
         }
 
         @Override
-        protected boolean removeEldestEntry(Entry<K, V> eldest) {
-            // After size exceeds max entries, this statement returns true and the
-            // oldest value will be removed. Behaves like a queue, the first
-            // inserted value will go away.
-            return size() > maxEntries;
+        protected boolean removeEldestEntry(Entry<String, EntitlementDecision> eldest) {
+            if (size() > maxEntries) {
+                statistics.recordEviction();
+                return true;
+            }
+            return false;
         }
-
-
     }
 
     /**
-     * Encapsulate the XACML Decision with XACML response and time stamp
+     * Encapsulate the XACML Decision with XACML response and expiry time
      */
     private class EntitlementDecision {
 
@@ -159,21 +324,37 @@ class PEPProxyCache {
         private String response;
 
         /**
-         * time stamp
+         * time stamp after which the decision is not valid
+         */
+        private long expiryTime;
+
+        /**
+         * subject and resource values of the request
          */
-        private long cachedTime;
+        private String[] subjects;
+        private String[] resources;
 
-        EntitlementDecision(String response, long cachedTime) {
+        EntitlementDecision(String response, long expiryTime, String[] subjects, String[] resources) {
             this.response = response;
-            this.cachedTime = cachedTime;
+            this.expiryTime = expiryTime;
+            this.subjects = subjects;
+            this.resources = resources;
         }
 
         public String getResponse() {
             return response;
         }
 
-        public long getCachedTime() {
-            return cachedTime;
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+
+        public String[] getSubjects() {
+            return subjects;
+        }
+
+        public String[] getResources() {
+            return resources;
         }
     }
 
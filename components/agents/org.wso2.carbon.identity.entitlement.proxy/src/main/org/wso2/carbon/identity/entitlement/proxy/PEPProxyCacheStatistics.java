@@ -0,0 +1,125 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.carbon.identity.entitlement.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the PEP proxy decision cache. Registered with the platform MBean server by
+ * the cache
+ */
+public class PEPProxyCacheStatistics implements PEPProxyCacheStatisticsMBean {
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong totalLoadTime = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final PEPProxyCache cache;
+
+    PEPProxyCacheStatistics(PEPProxyCache cache) {
+        this.cache = cache;
+    }
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void recordLoad(long loadTimeNanos) {
+        loadCount.incrementAndGet();
+        totalLoadTime.addAndGet(loadTimeNanos);
+    }
+
+    void recordEviction() {
+        evictionCount.incrementAndGet();
+    }
+
+    void recordInvalidation(int count) {
+        invalidationCount.addAndGet(count);
+    }
+
+    @Override
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    @Override
+    public long getTotalLoadTimeMillis() {
+        return totalLoadTime.get() / 1000000L;
+    }
+
+    @Override
+    public double getAverageLoadTimeMillis() {
+        long loads = loadCount.get();
+        if (loads == 0) {
+            return 0;
+        }
+        return (double) totalLoadTime.get() / loads / 1000000d;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long hits = hitCount.get();
+        long requests = hits + missCount.get();
+        if (requests == 0) {
+            return 0;
+        }
+        return (double) hits / requests;
+    }
+
+    @Override
+    public int getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        loadCount.set(0);
+        totalLoadTime.set(0);
+        evictionCount.set(0);
+        invalidationCount.set(0);
+    }
+}
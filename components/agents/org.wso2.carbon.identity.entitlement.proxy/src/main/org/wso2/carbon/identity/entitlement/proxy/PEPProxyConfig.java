@@ -26,14 +26,23 @@ public class PEPProxyConfig {
     private String defaultAppId;
     private String cacheType;
     private int invalidationInterval;
+    private int negativeInvalidationInterval;
     private int maxCacheEntries;
 
     public PEPProxyConfig(Map<String, Map<String, String>> appToPDPClientConfigMap, String defaultAppId,
                           String cacheType, int invalidationInterval, int maxCacheEntries) {
+        this(appToPDPClientConfigMap, defaultAppId, cacheType, invalidationInterval, invalidationInterval,
+                maxCacheEntries);
+    }
+
+    public PEPProxyConfig(Map<String, Map<String, String>> appToPDPClientConfigMap, String defaultAppId,
+                          String cacheType, int invalidationInterval, int negativeInvalidationInterval,
+                          int maxCacheEntries) {
         this.defaultAppId = defaultAppId;
         this.appToPDPClientConfigMap = appToPDPClientConfigMap;
         this.cacheType = cacheType;
         this.invalidationInterval = invalidationInterval;
+        this.negativeInvalidationInterval = negativeInvalidationInterval;
         this.maxCacheEntries = maxCacheEntries;
         if (this.maxCacheEntries > ProxyConstants.MAX_CACHE_SIZE || this.maxCacheEntries < 0) {
             this.maxCacheEntries = ProxyConstants.MAX_CACHE_SIZE;
@@ -52,6 +61,10 @@ public class PEPProxyConfig {
         return invalidationInterval;
     }
 
+    public int getNegativeInvalidationInterval() {
+        return negativeInvalidationInterval;
+    }
+
     public Map<String, Map<String, String>> getAppToPDPClientConfigMap() {
         return appToPDPClientConfigMap;
     }
@@ -33,6 +33,8 @@ public final class ProxyConstants {
     public final static String SESSION_TIME_OUT = "50977";
 
     public static final String SUBJECT_ID = "urn:oasis:names:tc:xacml:1.0:subject:subject-id";
+    public static final String SUBJECT_CATEGORY = "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject";
+    public static final String RESOURCE_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:resource";
 
     public final static String TRUST_STORE = "javax.net.ssl.trustStore";
     public final static String TRUST_STORE_PASSWORD = "javax.net.ssl.trustStorePassword";
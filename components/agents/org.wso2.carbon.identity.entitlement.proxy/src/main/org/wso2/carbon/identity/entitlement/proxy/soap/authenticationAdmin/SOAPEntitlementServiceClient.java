@@ -67,6 +67,19 @@ public class SOAPEntitlementServiceClient extends AbstractEntitlementServiceClie
         return result;
     }
 
+    @Override
+    public List<String> getDecisions(List<Attribute[]> attributes, String appId) throws Exception {
+        String[] xacmlRequests = new String[attributes.size()];
+        for (int i = 0; i < xacmlRequests.length; i++) {
+            xacmlRequests[i] = XACMLRequetBuilder.buildXACML3Request(attributes.get(i));
+        }
+        EntitlementServiceStub stub = getEntitlementStub(serverUrl);
+        Authenticator authenticator = getAuthenticator(serverUrl, userName, password);
+        String[] results = getDecisions(xacmlRequests, stub, authenticator);
+        stub._getServiceClient().cleanupTransport();
+        return getDecisionList(results);
+    }
+
     @Override
     public boolean subjectCanActOnResource(String subjectType, String alias, String actionId,
                                            String resourceId, String domainId, String appId) throws Exception {
@@ -219,6 +232,30 @@ public class SOAPEntitlementServiceClient extends AbstractEntitlementServiceClie
         }
     }
 
+    private String[] getDecisions(String[] requests, EntitlementServiceStub stub,
+                                  Authenticator authenticator) throws Exception {
+        try {
+            return stub.getDecisions(requests);
+        } catch (AxisFault e) {
+            if (ProxyConstants.SESSION_TIME_OUT.equals(e.getFaultCode().getLocalPart())) {
+                setAuthCookie(true, stub, authenticator);
+                return stub.getDecisions(requests);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private List<String> getDecisionList(String[] results) {
+        List<String> list = new ArrayList<String>();
+        if (results != null) {
+            for (String result : results) {
+                list.add(result);
+            }
+        }
+        return list;
+    }
+
     private EntitledAttributesDTO[] getEntitledAttributes(String subjectName, String resourceName,
                                                           String subjectId, String action, boolean enableChildSearch,
                                                           EntitlementServiceStub stub, Authenticator authenticator) throws Exception {
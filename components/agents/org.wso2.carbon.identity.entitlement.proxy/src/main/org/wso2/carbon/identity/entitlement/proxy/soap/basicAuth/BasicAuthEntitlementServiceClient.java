@@ -125,6 +125,24 @@ public class BasicAuthEntitlementServiceClient extends AbstractEntitlementServic
         }
     }
 
+    @Override
+    public List<String> getDecisions(List<Attribute[]> attributes, String appId) throws Exception {
+        EntitlementServiceStub stub = null;
+        try {
+            String[] xacmlRequests = new String[attributes.size()];
+            for (int i = 0; i < xacmlRequests.length; i++) {
+                xacmlRequests[i] = XACMLRequetBuilder.buildXACML3Request(attributes.get(i));
+            }
+            stub = getEntitlementStub(serverUrl);
+            return getDecisionList(stub.getDecisions(xacmlRequests));
+        } finally {
+            if (stub != null) {
+                stub._getServiceClient().cleanupTransport();
+                serviceStubPool.returnObject(stub);
+            }
+        }
+    }
+
     @Override
     public boolean subjectCanActOnResource(String subjectType, String alias, String actionId,
                                            String resourceId, String domainId, String appId) throws Exception {
@@ -286,6 +304,16 @@ public class BasicAuthEntitlementServiceClient extends AbstractEntitlementServic
         return results.getEntitledAttributesDTOs();
     }
 
+    private List<String> getDecisionList(String[] results) {
+        List<String> list = new ArrayList<String>();
+        if (results != null) {
+            for (String result : results) {
+                list.add(result);
+            }
+        }
+        return list;
+    }
+
     private List<String> getResources(EntitledAttributesDTO[] entitledAttrs) {
         List<String> list = new ArrayList<String>();
         if (entitledAttrs != null) {
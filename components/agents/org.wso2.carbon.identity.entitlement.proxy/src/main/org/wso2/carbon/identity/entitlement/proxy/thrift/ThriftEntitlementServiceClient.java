@@ -31,6 +31,7 @@ import org.wso2.carbon.identity.entitlement.proxy.exception.EntitlementProxyExce
 import org.wso2.carbon.identity.entitlement.proxy.generatedCode.EntitlementException;
 import org.wso2.carbon.identity.entitlement.proxy.generatedCode.EntitlementThriftClient;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -67,6 +68,21 @@ public class ThriftEntitlementServiceClient extends AbstractEntitlementServiceCl
         return getDecision(xacmlRequest, client, authenticator);
     }
 
+    @Override
+    public List<String> getDecisions(List<Attribute[]> attributes, String appId) throws Exception {
+        List<String> xacmlRequests = new ArrayList<String>();
+        for (Attribute[] attrs : attributes) {
+            xacmlRequests.add(XACMLRequetBuilder.buildXACML3Request(attrs));
+        }
+        EntitlementThriftClient.Client client = getThriftClient(appId);
+        try {
+            Authenticator authenticator = getAuthenticator(serverUrl, userName, password);
+            return getDecisions(xacmlRequests, client, authenticator);
+        } finally {
+            client.getInputProtocol().getTransport().close();
+        }
+    }
+
     @Override
     public boolean subjectCanActOnResource(String subjectType, String alias, String actionId,
                                            String resourceId, String domainId, String appId) throws Exception {
@@ -139,6 +155,21 @@ public class ThriftEntitlementServiceClient extends AbstractEntitlementServiceCl
         }
     }
 
+    private List<String> getDecisions(List<String> xacmlRequests, EntitlementThriftClient.Client client,
+                                      Authenticator authenticator) throws Exception {
+        try {
+            return client.getDecisions(xacmlRequests, authenticator.getSessionId(false));
+        } catch (TException e) {
+            throw new EntitlementProxyException("Error while getting decisions from PDP using ThriftEntitlementServiceClient", e);
+        } catch (EntitlementException e) {
+            try {
+                return client.getDecisions(xacmlRequests, authenticator.getSessionId(true));
+            } catch (Exception e1) {
+                throw new EntitlementProxyException("Error while attempting to re-authenticate the Thrift client in ", e1);
+            }
+        }
+    }
+
     private Authenticator getAuthenticator(String serverUrl, String userName, String password)
             throws Exception {
         if (reuseSession) {
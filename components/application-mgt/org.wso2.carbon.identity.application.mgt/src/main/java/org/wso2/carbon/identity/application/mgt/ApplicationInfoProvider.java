@@ -18,6 +18,8 @@
 
 package org.wso2.carbon.identity.application.mgt;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
@@ -28,6 +30,7 @@ import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCac
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheEntry;
 import org.wso2.carbon.identity.application.mgt.cache.IdentityServiceProviderCacheKey;
 import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
+import org.wso2.carbon.identity.application.mgt.dao.impl.ApplicationDAOImpl;
 import org.wso2.carbon.identity.application.mgt.dao.impl.FileBasedApplicationDAO;
 import org.wso2.carbon.identity.application.mgt.internal.ApplicationManagementServiceComponent;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
@@ -37,6 +40,7 @@ import java.util.Map;
 
 public class ApplicationInfoProvider {
 
+    private static Log log = LogFactory.getLog(ApplicationInfoProvider.class);
     private static ApplicationInfoProvider appInfo = new ApplicationInfoProvider();
 
     /**
@@ -243,18 +247,7 @@ public class ApplicationInfoProvider {
             serviceProvider = appDAO.getApplication(serviceProviderName, tenantDomain);
 
             if (serviceProvider != null) {
-                // if "Authentication Type" is "Default" we must get the steps from the default SP
-                AuthenticationStep[] authenticationSteps = serviceProvider
-                        .getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps();
-
-                if (authenticationSteps == null || authenticationSteps.length == 0) {
-                    ServiceProvider defaultSP = ApplicationManagementServiceComponent
-                            .getFileBasedSPs().get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
-                    authenticationSteps = defaultSP.getLocalAndOutBoundAuthenticationConfig()
-                            .getAuthenticationSteps();
-                    serviceProvider.getLocalAndOutBoundAuthenticationConfig()
-                            .setAuthenticationSteps(authenticationSteps);
-                }
+                setDefaultAuthenticationSteps(serviceProvider);
             }
         }
 
@@ -290,4 +283,63 @@ public class ApplicationInfoProvider {
         }
         return serviceProvider;
     }
+
+    /**
+     * Loads all the service providers of the tenant into the service provider cache, so that the
+     * first authentication request of each service provider does not have to load it from the
+     * database.
+     *
+     * @param tenantDomain
+     * @throws IdentityApplicationManagementException
+     */
+    public void warmUpServiceProviderCache(String tenantDomain)
+            throws IdentityApplicationManagementException {
+
+        ApplicationDAO appDAO = ApplicationMgtSystemConfig.getInstance().getApplicationDAO();
+        if (!(appDAO instanceof ApplicationDAOImpl)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Service provider cache warm up is not supported by " + appDAO.getClass().getName());
+            }
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<ServiceProvider> serviceProviders = ((ApplicationDAOImpl) appDAO).getAllApplications(tenantDomain);
+        long loadTime = System.currentTimeMillis() - startTime;
+
+        for (ServiceProvider serviceProvider : serviceProviders) {
+            setDefaultAuthenticationSteps(serviceProvider);
+            IdentityServiceProviderCacheKey cacheKey = new IdentityServiceProviderCacheKey(
+                    tenantDomain, serviceProvider.getApplicationName());
+            IdentityServiceProviderCacheEntry entry = new IdentityServiceProviderCacheEntry();
+            entry.setServiceProvider(serviceProvider);
+            IdentityServiceProviderCache.getInstance().addToCache(cacheKey, entry);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + serviceProviders.size() + " service providers of tenant " + tenantDomain +
+                    " in " + loadTime + "ms" + (serviceProviders.isEmpty() ? "" : ", " +
+                    ((double) loadTime / serviceProviders.size()) + "ms per service provider"));
+        }
+    }
+
+    /**
+     * If "Authentication Type" is "Default" the steps are taken from the default service provider
+     *
+     * @param serviceProvider
+     */
+    private void setDefaultAuthenticationSteps(ServiceProvider serviceProvider) {
+
+        AuthenticationStep[] authenticationSteps = serviceProvider
+                .getLocalAndOutBoundAuthenticationConfig().getAuthenticationSteps();
+
+        if (authenticationSteps == null || authenticationSteps.length == 0) {
+            ServiceProvider defaultSP = ApplicationManagementServiceComponent
+                    .getFileBasedSPs().get(IdentityApplicationConstants.DEFAULT_SP_CONFIG);
+            authenticationSteps = defaultSP.getLocalAndOutBoundAuthenticationConfig()
+                    .getAuthenticationSteps();
+            serviceProvider.getLocalAndOutBoundAuthenticationConfig()
+                    .setAuthenticationSteps(authenticationSteps);
+        }
+    }
 }
@@ -64,6 +64,13 @@ public class ApplicationMgtDBQueries {
             + "ON SP_AUTH_STEP.ID=SP_FEDERATED_IDP.ID "
             + "WHERE APP_ID = ?";
     public static String LOAD_STEP_ID_BY_APP_ID = "SELECT ID FROM SP_AUTH_STEP WHERE APP_ID = ?";
+    public static String LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID = "SELECT S.STEP_ORDER, S.IS_SUBJECT_STEP, "
+            + "S.IS_ATTRIBUTE_STEP, I.NAME, A.NAME, A.DISPLAY_NAME, I.IS_FEDERATION_HUB, I.TENANT_ID "
+            + "FROM SP_AUTH_STEP S INNER JOIN SP_FEDERATED_IDP F ON S.ID = F.ID "
+            + "INNER JOIN IDP_AUTHENTICATOR A ON F.AUTHENTICATOR_ID = A.ID "
+            + "INNER JOIN IDP I ON A.IDP_ID = I.ID "
+            + "WHERE S.APP_ID = ? AND ((I.TENANT_ID = ? AND A.TENANT_ID = ?) "
+            + "OR (I.TENANT_ID = ? AND I.NAME LIKE 'SHARED_%' AND A.TENANT_ID = ?))";
     public static String LOAD_HUB_IDP_BY_NAME = "SELECT IS_FEDERATION_HUB FROM IDP WHERE NAME = ? AND TENANT_ID = ?";
 
     public static String LOAD_CLAIM_MAPPING_BY_APP_ID = "SELECT IDP_CLAIM, SP_CLAIM, IS_REQUESTED,DEFAULT_VALUE FROM SP_CLAIM_MAPPING WHERE APP_ID = ? AND TENANT_ID = ?";
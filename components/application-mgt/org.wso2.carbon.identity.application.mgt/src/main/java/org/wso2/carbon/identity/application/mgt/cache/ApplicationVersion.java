@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.application.mgt.cache;
+
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the applications of a tenant on this node. It is incremented once a change to an
+ * application of the tenant has been written to the database, so data built from the applications
+ * with an older version must be built again.
+ */
+public class ApplicationVersion {
+
+    private static final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+
+    private ApplicationVersion() {
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @return current version of the applications of the tenant
+     */
+    public static long getVersion(String tenantDomain) {
+        return getTenantVersion(tenantDomain).get();
+    }
+
+    /**
+     * Records that an application of the tenant has been changed
+     *
+     * @param tenantDomain tenant domain
+     */
+    public static void incrementVersion(String tenantDomain) {
+        getTenantVersion(tenantDomain).incrementAndGet();
+    }
+
+    private static AtomicLong getTenantVersion(String tenantDomain) {
+
+        String tenantKey = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        if (tenantDomain != null && !tenantDomain.trim().isEmpty()) {
+            tenantKey = tenantDomain.toLowerCase();
+        }
+        AtomicLong version = versions.get(tenantKey);
+        if (version == null) {
+            version = new AtomicLong();
+            AtomicLong existing = versions.putIfAbsent(tenantKey, version);
+            if (existing != null) {
+                version = existing;
+            }
+        }
+        return version;
+    }
+}
@@ -32,6 +32,7 @@ import org.wso2.carbon.identity.application.mgt.ApplicationConstants;
 import org.wso2.carbon.identity.application.mgt.ApplicationMgtDBQueries;
 import org.wso2.carbon.identity.application.mgt.ApplicationMgtSystemConfig;
 import org.wso2.carbon.identity.application.mgt.ApplicationMgtUtil;
+import org.wso2.carbon.identity.application.mgt.cache.ApplicationVersion;
 import org.wso2.carbon.identity.application.mgt.dao.ApplicationDAO;
 import org.wso2.carbon.identity.application.mgt.dao.IdentityProviderDAO;
 import org.wso2.carbon.identity.application.mgt.internal.ApplicationManagementServiceComponent;
@@ -232,6 +233,7 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             if (!connection.getAutoCommit()) {
                 connection.commit();
             }
+            ApplicationVersion.incrementVersion(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
         } catch (IdentityException | SQLException | UserStoreException e) {
             try {
                 if (connection != null) {
@@ -525,38 +527,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         }
     }
 
-    /**
-     * @param applicationId
-     * @param connection
-     * @return
-     * @throws SQLException
-     */
-    private InboundProvisioningConfig getInboundProvisioningConfiguration(int applicationId,
-                                                                          Connection connection, int tenantID) throws SQLException {
-
-        PreparedStatement inboundProConfigPrepStmt = null;
-        InboundProvisioningConfig inBoundProvisioningConfig = new InboundProvisioningConfig();
-        ResultSet resultSet = null;
-
-        try {
-
-            inboundProConfigPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_PRO_USERSTORE_BY_APP_ID);
-            // PROVISIONING_USERSTORE_DOMAIN
-            inboundProConfigPrepStmt.setInt(1, tenantID);
-            inboundProConfigPrepStmt.setInt(2, applicationId);
-            resultSet = inboundProConfigPrepStmt.executeQuery();
-
-            while (resultSet.next()) {
-                inBoundProvisioningConfig.setProvisioningUserStore(resultSet.getString(1));
-            }
-
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(inboundProConfigPrepStmt);
-        }
-        return inBoundProvisioningConfig;
-    }
-
     /**
      * @param applicationId
      * @param connection
@@ -1035,7 +1005,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
     public ServiceProvider getApplication(String applicationName, String tenantDomain)
             throws IdentityApplicationManagementException {
 
-        int applicationId = 0;
         int tenantID = MultitenantConstants.SUPER_TENANT_ID;
         if (tenantDomain != null) {
             try {
@@ -1050,62 +1019,135 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         try {
             connection = IdentityApplicationManagementUtil.getDBConnection();
 
-            // Load basic application data
-            ServiceProvider serviceProvider = getBasicApplicationData(applicationName, connection,
-                    tenantID);
+            ServiceProvider serviceProvider = getApplication(applicationName, connection, tenantID);
 
-            if ((serviceProvider == null || serviceProvider.getApplicationName() == null)
-                    && ApplicationConstants.LOCAL_SP.equals(applicationName)) {
+            if (serviceProvider == null && ApplicationConstants.LOCAL_SP.equals(applicationName)) {
                 ServiceProvider localServiceProvider = new ServiceProvider();
                 localServiceProvider.setApplicationName(applicationName);
                 localServiceProvider.setDescription("Local Service Provider");
                 createApplication(localServiceProvider, tenantDomain);
-                serviceProvider = getBasicApplicationData(applicationName, connection, tenantID);
-            }
-
-            if (serviceProvider == null) {
-                return null;
+                serviceProvider = getApplication(applicationName, connection, tenantID);
             }
 
-            applicationId = serviceProvider.getApplicationID();
+            return serviceProvider;
 
-            serviceProvider.setInboundAuthenticationConfig(getInboundAuthenticationConfig(
-                    applicationId, connection, tenantID));
-            serviceProvider
-                    .setLocalAndOutBoundAuthenticationConfig(getLocalAndOutboundAuthenticationConfig(
-                            applicationId, connection, tenantID));
+        } catch (SQLException | IdentityException e) {
+            throw new IdentityApplicationManagementException("Failed to load service provider "
+                    + applicationName, e);
+        } finally {
+            IdentityApplicationManagementUtil.closeConnection(connection);
+        }
+    }
 
-            serviceProvider.setInboundProvisioningConfig(getInboundProvisioningConfiguration(
-                    applicationId, connection, tenantID));
+    /**
+     * Loads all the service providers of a tenant over a single connection. Used to warm up the
+     * service provider cache.
+     *
+     * @param tenantDomain
+     * @return service providers of the tenant
+     * @throws IdentityApplicationManagementException
+     */
+    public List<ServiceProvider> getAllApplications(String tenantDomain)
+            throws IdentityApplicationManagementException {
 
-            serviceProvider.setOutboundProvisioningConfig(getOutboundProvisioningConfiguration(
-                    applicationId, connection, tenantID));
+        int tenantID;
+        try {
+            tenantID = ApplicationManagementServiceComponentHolder.getRealmService()
+                    .getTenantManager().getTenantId(tenantDomain);
+        } catch (UserStoreException e) {
+            throw new IdentityApplicationManagementException("Error while reading tenant id of "
+                    + tenantDomain, e);
+        }
 
-            // Load Claim Mapping
-            serviceProvider.setClaimConfig(getClaimConfiguration(applicationId, connection,
-                    tenantID));
+        List<ServiceProvider> serviceProviders = new ArrayList<ServiceProvider>();
+        Connection connection = null;
+        PreparedStatement getAppNamesStmt = null;
+        ResultSet appNameResultSet = null;
+        try {
+            connection = IdentityApplicationManagementUtil.getDBConnection();
 
-            // Load Role Mappings
-            List<RoleMapping> roleMappings = getRoleMappingOfApplication(applicationId, connection,
-                    tenantID);
-            PermissionsAndRoleConfig permissionAndRoleConfig = new PermissionsAndRoleConfig();
-            permissionAndRoleConfig.setRoleMappings(roleMappings
-                    .toArray(new RoleMapping[roleMappings.size()]));
-            serviceProvider.setPermissionAndRoleConfig(permissionAndRoleConfig);
+            List<String> applicationNames = new ArrayList<String>();
+            try {
+                getAppNamesStmt = connection
+                        .prepareStatement(ApplicationMgtDBQueries.LOAD_APP_NAMES_BY_TENANT);
+                getAppNamesStmt.setInt(1, tenantID);
+                appNameResultSet = getAppNamesStmt.executeQuery();
+                while (appNameResultSet.next()) {
+                    applicationNames.add(appNameResultSet.getString(1));
+                }
+            } finally {
+                IdentityApplicationManagementUtil.closeResultSet(appNameResultSet);
+                IdentityApplicationManagementUtil.closeStatement(getAppNamesStmt);
+            }
 
-            RequestPathAuthenticatorConfig[] requestPathAuthenticators = getRequestPathAuthenticators(
-                    applicationId, connection, tenantID);
-            serviceProvider.setRequestPathAuthenticatorConfigs(requestPathAuthenticators);
-            return serviceProvider;
+            for (String applicationName : applicationNames) {
+                ServiceProvider serviceProvider = getApplication(applicationName, connection, tenantID);
+                if (serviceProvider != null) {
+                    serviceProviders.add(serviceProvider);
+                }
+            }
+            return serviceProviders;
 
         } catch (SQLException | IdentityException e) {
-            throw new IdentityApplicationManagementException("Failed to update service provider "
-                    + applicationId, e);
+            throw new IdentityApplicationManagementException("Failed to load service providers of "
+                    + tenantDomain, e);
         } finally {
             IdentityApplicationManagementUtil.closeConnection(connection);
         }
     }
 
+    /**
+     * Loads a complete service provider. The number of queries is fixed and does not grow with the
+     * number of authentication steps or identity providers of the service provider.
+     *
+     * @param applicationName
+     * @param connection
+     * @param tenantID
+     * @return service provider, or null if there is no such service provider
+     * @throws SQLException
+     * @throws IdentityApplicationManagementException
+     */
+    private ServiceProvider getApplication(String applicationName, Connection connection, int tenantID)
+            throws SQLException, IdentityApplicationManagementException {
+
+        // Load basic application data along with the flags of the claim, local and outbound
+        // authentication and inbound provisioning configurations stored in the same row
+        ServiceProvider serviceProvider = getBasicApplicationData(applicationName, connection,
+                tenantID);
+
+        if (serviceProvider == null) {
+            return null;
+        }
+
+        int applicationId = serviceProvider.getApplicationID();
+
+        serviceProvider.setInboundAuthenticationConfig(getInboundAuthenticationConfig(
+                applicationId, connection, tenantID));
+        serviceProvider.setLocalAndOutBoundAuthenticationConfig(getLocalAndOutboundAuthenticationConfig(
+                applicationId, serviceProvider.getLocalAndOutBoundAuthenticationConfig(), connection,
+                tenantID));
+
+        serviceProvider.setOutboundProvisioningConfig(getOutboundProvisioningConfiguration(
+                applicationId, connection, tenantID));
+
+        // Load Claim Mapping
+        serviceProvider.setClaimConfig(getClaimConfiguration(applicationId,
+                serviceProvider.getClaimConfig(), connection, tenantID));
+
+        // Load Role Mappings
+        List<RoleMapping> roleMappings = getRoleMappingOfApplication(applicationId, connection,
+                tenantID);
+        PermissionsAndRoleConfig permissionAndRoleConfig = new PermissionsAndRoleConfig();
+        permissionAndRoleConfig.setRoleMappings(roleMappings
+                .toArray(new RoleMapping[roleMappings.size()]));
+        serviceProvider.setPermissionAndRoleConfig(permissionAndRoleConfig);
+
+        RequestPathAuthenticatorConfig[] requestPathAuthenticators = getRequestPathAuthenticators(
+                applicationId, connection, tenantID);
+        serviceProvider.setRequestPathAuthenticatorConfigs(requestPathAuthenticators);
+        return serviceProvider;
+    }
+
     /**
      * @param applicationName
      * @param connection
@@ -1172,9 +1214,15 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                         .equals(basicAppDataResultSet.getString(12)));
                 localAndOutboundAuthenticationConfig.setSubjectClaimUri(basicAppDataResultSet
                         .getString(13));
+                localAndOutboundAuthenticationConfig.setAuthenticationType(basicAppDataResultSet
+                        .getString(8));
                 serviceProvider
                         .setLocalAndOutBoundAuthenticationConfig(localAndOutboundAuthenticationConfig);
 
+                InboundProvisioningConfig inboundProvisioningConfig = new InboundProvisioningConfig();
+                inboundProvisioningConfig.setProvisioningUserStore(basicAppDataResultSet.getString(9));
+                serviceProvider.setInboundProvisioningConfig(inboundProvisioningConfig);
+
                 serviceProvider.setSaasApp("1".equals(basicAppDataResultSet.getString(14)));
 
                 if (debugMode) {
@@ -1193,39 +1241,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
 
     }
 
-    /**
-     * @param applicationid
-     * @param connection
-     * @return
-     * @throws SQLException
-     */
-    private String getAuthenticationType(int applicationid, Connection connection)
-            throws SQLException {
-
-        int tenantID = CarbonContext.getThreadLocalCarbonContext().getTenantId();
-
-        PreparedStatement authTypeStmt = null;
-        ResultSet authTypeResultSet = null;
-        try {
-            authTypeStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_AUTH_TYPE_BY_APP_ID);
-            authTypeStmt.setInt(1, applicationid);
-            authTypeStmt.setInt(2, tenantID);
-            authTypeResultSet = authTypeStmt.executeQuery();
-
-            if (authTypeResultSet.next()) {
-                return authTypeResultSet.getString(1);
-            }
-
-            return ApplicationConstants.AUTH_TYPE_DEFAULT;
-
-        } finally {
-            IdentityApplicationManagementUtil.closeResultSet(authTypeResultSet);
-            IdentityApplicationManagementUtil.closeStatement(authTypeStmt);
-        }
-
-    }
-
     /**
      * This method will be heavily used by the Authentication Framework. The framework would ask for
      * application data with the given client key and secrete
@@ -1459,13 +1474,19 @@ public class ApplicationDAOImpl implements ApplicationDAO {
     }
 
     /**
+     * Loads the authentication steps of the application, along with the identity providers and
+     * authenticators of each step, in a single query.
+     *
      * @param applicationId
+     * @param localAndOutboundConfiguration configuration already populated from the basic
+     *                                      application data
      * @param connection
      * @return
      * @throws SQLException
      */
     private LocalAndOutboundAuthenticationConfig getLocalAndOutboundAuthenticationConfig(
-            int applicationId, Connection connection, int tenantId) throws SQLException {
+            int applicationId, LocalAndOutboundAuthenticationConfig localAndOutboundConfiguration,
+            Connection connection, int tenantId) throws SQLException {
         PreparedStatement getStepInfoPrepStmt = null;
         ResultSet stepInfoResultSet = null;
 
@@ -1475,14 +1496,20 @@ public class ApplicationDAOImpl implements ApplicationDAO {
 
         try {
             getStepInfoPrepStmt = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_STEPS_INFO_BY_APP_ID);
-            // STEP_ORDER, AUTHENTICATOR_ID, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP
+                    .prepareStatement(ApplicationMgtDBQueries.LOAD_STEPS_AND_AUTHENTICATORS_BY_APP_ID);
+            // STEP_ORDER, IS_SUBJECT_STEP, IS_ATTRIBUTE_STEP, IDP_NAME, AUTHENTICATOR_NAME,
+            // AUTHENTICATOR_DISPLAY_NAME, IS_FEDERATION_HUB, IDP_TENANT_ID
             getStepInfoPrepStmt.setInt(1, applicationId);
+            getStepInfoPrepStmt.setInt(2, tenantId);
+            getStepInfoPrepStmt.setInt(3, tenantId);
+            getStepInfoPrepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
+            getStepInfoPrepStmt.setInt(5, MultitenantConstants.SUPER_TENANT_ID);
             stepInfoResultSet = getStepInfoPrepStmt.executeQuery();
 
             Map<String, AuthenticationStep> authSteps = new HashMap<String, AuthenticationStep>();
             Map<String, Map<String, List<FederatedAuthenticatorConfig>>> stepFedIdPAuthenticators = new HashMap<String, Map<String, List<FederatedAuthenticatorConfig>>>();
             Map<String, List<LocalAuthenticatorConfig>> stepLocalAuth = new HashMap<String, List<LocalAuthenticatorConfig>>();
+            Set<String> federationHubIdPs = new HashSet<String>();
 
             while (stepInfoResultSet.next()) {
 
@@ -1499,47 +1526,41 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                             new HashMap<String, List<FederatedAuthenticatorConfig>>());
                 }
 
-                int authenticatorId = stepInfoResultSet.getInt(2);
-                Map<String, String> authenticatorInfo = getAuthenticatorInfo(connection, tenantId,
-                        authenticatorId);
+                String idpName = stepInfoResultSet.getString(4);
 
-                if (authenticatorInfo != null
-                        && authenticatorInfo.get(ApplicationConstants.IDP_NAME) != null
-                        && ApplicationConstants.LOCAL_IDP_NAME.equals(authenticatorInfo
-                        .get("idpName"))) {
+                if (ApplicationConstants.LOCAL_IDP_NAME.equals(idpName)) {
                     LocalAuthenticatorConfig localAuthenticator = new LocalAuthenticatorConfig();
-                    localAuthenticator.setName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_NAME));
-                    localAuthenticator.setDisplayName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME));
+                    localAuthenticator.setName(stepInfoResultSet.getString(5));
+                    localAuthenticator.setDisplayName(stepInfoResultSet.getString(6));
                     stepLocalAuth.get(step).add(localAuthenticator);
                 } else {
                     Map<String, List<FederatedAuthenticatorConfig>> stepFedIdps = stepFedIdPAuthenticators
                             .get(step);
 
-                    if (!stepFedIdps.containsKey(authenticatorInfo
-                            .get(ApplicationConstants.IDP_NAME))) {
-                        stepFedIdps.put(authenticatorInfo.get(ApplicationConstants.IDP_NAME),
-                                new ArrayList<FederatedAuthenticatorConfig>());
+                    if (!stepFedIdps.containsKey(idpName)) {
+                        stepFedIdps.put(idpName, new ArrayList<FederatedAuthenticatorConfig>());
                     }
 
-                    List<FederatedAuthenticatorConfig> idpAuths = stepFedIdps.get(authenticatorInfo
-                            .get(ApplicationConstants.IDP_NAME));
+                    List<FederatedAuthenticatorConfig> idpAuths = stepFedIdps.get(idpName);
                     FederatedAuthenticatorConfig fedAuthenticator = new FederatedAuthenticatorConfig();
-                    fedAuthenticator.setName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_NAME));
-                    fedAuthenticator.setDisplayName(authenticatorInfo
-                            .get(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME));
+                    fedAuthenticator.setName(stepInfoResultSet.getString(5));
+                    fedAuthenticator.setDisplayName(stepInfoResultSet.getString(6));
                     idpAuths.add(fedAuthenticator);
+
+                    // shared identity providers of the super tenant are never federation hubs of
+                    // the tenant
+                    if ("1".equals(stepInfoResultSet.getString(7))
+                            && stepInfoResultSet.getInt(8) == tenantId) {
+                        federationHubIdPs.add(idpName);
+                    }
                 }
 
-                authStep.setSubjectStep("1".equals(stepInfoResultSet.getString(3)));
-                authStep.setAttributeStep("1".equals(stepInfoResultSet.getString(4)));
+                authStep.setSubjectStep("1".equals(stepInfoResultSet.getString(2)));
+                authStep.setAttributeStep("1".equals(stepInfoResultSet.getString(3)));
 
                 authSteps.put(step, authStep);
             }
 
-            LocalAndOutboundAuthenticationConfig localAndOutboundConfiguration = new LocalAndOutboundAuthenticationConfig();
             AuthenticationStep[] authenticationSteps = new AuthenticationStep[authSteps.size()];
 
             int authStepCount = 0;
@@ -1572,7 +1593,7 @@ public class ApplicationDAOImpl implements ApplicationDAO {
                         List<FederatedAuthenticatorConfig> fedAuthenticators = idpEntry.getValue();
                         IdentityProvider idp = new IdentityProvider();
                         idp.setIdentityProviderName(idpName);
-                        idp.setFederationHub(isFederationHubIdP(idpName, connection, tenantId));
+                        idp.setFederationHub(federationHubIdPs.contains(idpName));
                         idp.setFederatedAuthenticatorConfigs(fedAuthenticators
                                 .toArray(new FederatedAuthenticatorConfig[fedAuthenticators.size()]));
                         idp.setDefaultAuthenticatorConfig(idp.getFederatedAuthenticatorConfigs()[0]);
@@ -1594,47 +1615,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
 
             localAndOutboundConfiguration.setAuthenticationSteps(authenticationSteps);
 
-            String authType = getAuthenticationType(applicationId, connection);
-            localAndOutboundConfiguration.setAuthenticationType(authType);
-
-            PreparedStatement loadSendAuthListOfIdPs = null;
-            ResultSet sendAuthListOfIdPsResultSet = null;
-
-            try {
-                loadSendAuthListOfIdPs = connection
-                        .prepareStatement(ApplicationMgtDBQueries.LOAD_SEND_AUTH_LIST_OF_IDPS_BY_APP_ID);
-                loadSendAuthListOfIdPs.setInt(1, tenantId);
-                loadSendAuthListOfIdPs.setInt(2, applicationId);
-                sendAuthListOfIdPsResultSet = loadSendAuthListOfIdPs.executeQuery();
-
-                if (sendAuthListOfIdPsResultSet.next()) {
-                    localAndOutboundConfiguration.setAlwaysSendBackAuthenticatedListOfIdPs("1"
-                            .equals(sendAuthListOfIdPsResultSet.getString(1)));
-                }
-            } finally {
-                IdentityApplicationManagementUtil.closeStatement(loadSendAuthListOfIdPs);
-                IdentityApplicationManagementUtil.closeResultSet(sendAuthListOfIdPsResultSet);
-            }
-
-            PreparedStatement loadSubjectClaimUri = null;
-            ResultSet subjectClaimUriResultSet = null;
-
-            try {
-                loadSubjectClaimUri = connection
-                        .prepareStatement(ApplicationMgtDBQueries.LOAD_SUBJECT_CLAIM_URI_BY_APP_ID);
-                loadSubjectClaimUri.setInt(1, tenantId);
-                loadSubjectClaimUri.setInt(2, applicationId);
-                subjectClaimUriResultSet = loadSubjectClaimUri.executeQuery();
-
-                if (subjectClaimUriResultSet.next()) {
-                    localAndOutboundConfiguration.setSubjectClaimUri(subjectClaimUriResultSet
-                            .getString(1));
-                }
-            } finally {
-                IdentityApplicationManagementUtil.closeStatement(loadSubjectClaimUri);
-                IdentityApplicationManagementUtil.closeResultSet(subjectClaimUriResultSet);
-            }
-
             return localAndOutboundConfiguration;
         } finally {
             IdentityApplicationManagementUtil.closeStatement(getStepInfoPrepStmt);
@@ -1642,41 +1622,17 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         }
     }
 
-    private boolean isFederationHubIdP(String idPName, Connection connection, int tenantId)
-            throws SQLException {
-
-        PreparedStatement get = null;
-        ResultSet resultSet = null;
-
-        try {
-            get = connection.prepareStatement(ApplicationMgtDBQueries.LOAD_HUB_IDP_BY_NAME);
-
-            get.setString(1, CharacterEncoder.getSafeText(idPName));
-            get.setInt(2, tenantId);
-            resultSet = get.executeQuery();
-
-            if (resultSet.next()) {
-                return "1".equals(resultSet.getString(1));
-            }
-
-            return false;
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(get);
-            IdentityApplicationManagementUtil.closeResultSet(resultSet);
-        }
-
-    }
-
     /**
      * @param applicationId
+     * @param claimConfig   claim configuration already populated from the basic application data
      * @param connection
      * @return
      * @throws IdentityApplicationManagementException
      */
-    private ClaimConfig getClaimConfiguration(int applicationId, Connection connection, int tenantID)
+    private ClaimConfig getClaimConfiguration(int applicationId, ClaimConfig claimConfig,
+                                              Connection connection, int tenantID)
             throws IdentityApplicationManagementException {
 
-        ClaimConfig claimConfig = new ClaimConfig();
         ArrayList<ClaimMapping> claimMappingList = new ArrayList<ClaimMapping>();
 
         if (debugMode) {
@@ -1741,70 +1697,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             IdentityApplicationManagementUtil.closeResultSet(resultSet);
         }
 
-        PreparedStatement loadRoleClaim = null;
-        ResultSet roleResultSet = null;
-
-        try {
-            loadRoleClaim = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_ROLE_CLAIM_BY_APP_ID);
-            loadRoleClaim.setInt(1, tenantID);
-            loadRoleClaim.setInt(2, applicationId);
-            roleResultSet = loadRoleClaim.executeQuery();
-
-            while (roleResultSet.next()) {
-                claimConfig.setRoleClaimURI(roleResultSet.getString(1));
-            }
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(loadRoleClaim);
-            IdentityApplicationManagementUtil.closeResultSet(roleResultSet);
-        }
-
-        PreparedStatement loadClaimDialect = null;
-        ResultSet claimDialectResultSet = null;
-
-        try {
-            loadClaimDialect = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_CLAIM_DIALECT_BY_APP_ID);
-            loadClaimDialect.setInt(1, tenantID);
-            loadClaimDialect.setInt(2, applicationId);
-            claimDialectResultSet = loadClaimDialect.executeQuery();
-
-            if (claimDialectResultSet.next()) {
-                claimConfig.setLocalClaimDialect("1".equals(claimDialectResultSet.getString(1)));
-            }
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(loadClaimDialect);
-            IdentityApplicationManagementUtil.closeResultSet(claimDialectResultSet);
-        }
-
-        PreparedStatement loadSendLocalSubId = null;
-        ResultSet sendLocalSubIdResultSet = null;
-
-        try {
-            loadSendLocalSubId = connection
-                    .prepareStatement(ApplicationMgtDBQueries.LOAD_SEND_LOCAL_SUB_ID_BY_APP_ID);
-            loadSendLocalSubId.setInt(1, tenantID);
-            loadSendLocalSubId.setInt(2, applicationId);
-            sendLocalSubIdResultSet = loadSendLocalSubId.executeQuery();
-
-            if (sendLocalSubIdResultSet.next()) {
-                claimConfig.setAlwaysSendMappedLocalSubjectId("1".equals(sendLocalSubIdResultSet
-                        .getString(1)));
-            }
-        } catch (SQLException e) {
-            throw new IdentityApplicationManagementException(
-                    "Error while retrieving all application");
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(loadSendLocalSubId);
-            IdentityApplicationManagementUtil.closeResultSet(sendLocalSubIdResultSet);
-        }
-
         return claimConfig;
     }
 
@@ -2049,6 +1941,7 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             if (!connection.getAutoCommit()) {
                 connection.commit();
             }
+            ApplicationVersion.incrementVersion(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
 
         } catch (SQLException | IdentityException e) {
             log.error(e.getMessage(), e);
@@ -2100,6 +1993,7 @@ public class ApplicationDAOImpl implements ApplicationDAO {
             if (!connection.getAutoCommit()) {
                 connection.commit();
             }
+            ApplicationVersion.incrementVersion(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
 
         } catch (SQLException e) {
             log.error(e.getMessage(), e);
@@ -2551,39 +2445,6 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return authId;
     }
 
-    /**
-     * @param conn
-     * @param tenantId
-     * @param authenticatorId
-     * @return
-     * @throws SQLException
-     */
-    private Map<String, String> getAuthenticatorInfo(Connection conn, int tenantId,
-                                                     int authenticatorId) throws SQLException {
-        PreparedStatement prepStmt = null;
-        ResultSet rs = null;
-        String sqlStmt = ApplicationMgtDBQueries.LOAD_IDP_AND_AUTHENTICATOR_NAMES;
-        Map<String, String> returnData = new HashMap<String, String>();
-        try {
-            prepStmt = conn.prepareStatement(sqlStmt);
-            prepStmt.setInt(1, authenticatorId);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setInt(3, tenantId);
-            prepStmt.setInt(4, MultitenantConstants.SUPER_TENANT_ID);
-            prepStmt.setInt(5, MultitenantConstants.SUPER_TENANT_ID);
-            rs = prepStmt.executeQuery();
-            while (rs.next()) {
-                returnData.put(ApplicationConstants.IDP_NAME, rs.getString(1));
-                returnData.put(ApplicationConstants.IDP_AUTHENTICATOR_NAME, rs.getString(2));
-                returnData
-                        .put(ApplicationConstants.IDP_AUTHENTICATOR_DISPLAY_NAME, rs.getString(3));
-            }
-        } finally {
-            IdentityApplicationManagementUtil.closeStatement(prepStmt);
-        }
-        return returnData;
-    }
-
     /**
      * @param conn
      * @param tenantId
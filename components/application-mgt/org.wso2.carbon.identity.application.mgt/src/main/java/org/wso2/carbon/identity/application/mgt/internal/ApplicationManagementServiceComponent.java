@@ -25,13 +25,16 @@ import org.apache.commons.logging.LogFactory;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.identity.application.common.model.ServiceProvider;
+import org.wso2.carbon.identity.application.mgt.ApplicationInfoProvider;
 import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
 import org.wso2.carbon.identity.application.mgt.ApplicationManagementServiceImpl;
 import org.wso2.carbon.identity.application.mgt.ApplicationMgtSystemConfig;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.ConfigurationContextService;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -56,6 +59,7 @@ import java.util.Map;
  * unbind="unsetConfigurationContextService"
  */
 public class ApplicationManagementServiceComponent {
+    private static final String CACHE_WARM_UP_ENABLED = "ApplicationMgt.CacheWarmUp.Enable";
     private static Log log = LogFactory.getLog(ApplicationManagementServiceComponent.class);
     private static BundleContext bundleContext;
     private static Map<String, ServiceProvider> fileBasedSPs = new HashMap<String, ServiceProvider>();
@@ -83,6 +87,11 @@ public class ApplicationManagementServiceComponent {
             ApplicationMgtSystemConfig.getInstance();
             buildFileBasedSPList();
 
+            String cacheWarmUpEnabled = IdentityUtil.getProperty(CACHE_WARM_UP_ENABLED);
+            if (cacheWarmUpEnabled == null || Boolean.parseBoolean(cacheWarmUpEnabled.trim())) {
+                warmUpServiceProviderCache();
+            }
+
             log.info("Identity ApplicationManagementComponent bundle is activated");
         } catch (Exception e) {
             log.error("Error while activating ApplicationManagementComponent bundle", e);
@@ -137,6 +146,26 @@ public class ApplicationManagementServiceComponent {
         ApplicationManagementServiceComponentHolder.setConfigContextService(null);
     }
 
+    /**
+     * Loads the service providers of the super tenant into the service provider cache without
+     * holding up the activation of the bundle
+     */
+    private void warmUpServiceProviderCache() {
+        Thread warmUpThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ApplicationInfoProvider.getInstance().warmUpServiceProviderCache(
+                            MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+                } catch (Exception e) {
+                    log.error("Error while warming up the service provider cache", e);
+                }
+            }
+        }, "ServiceProviderCacheWarmUp");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
     private void buildFileBasedSPList() {
         String spConfigDirPath = CarbonUtils.getCarbonConfigDirPath() + File.separator + "identity"
                 + File.separator + "service-providers";
@@ -31,16 +31,53 @@ import org.wso2.carbon.identity.application.authentication.framework.util.Framew
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.application.common.model.*;
 import org.wso2.carbon.identity.application.mgt.ApplicationInfoProvider;
+import org.wso2.carbon.identity.application.mgt.cache.ApplicationVersion;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the authentication sequence of a service provider. The sequence built for a service provider is
+ * kept as a template per tenant, request type and client id, and each request gets its own copy of the
+ * template. Templates of a tenant are built again once a change to one of its applications has been
+ * written, are removed when an identity provider of the tenant is changed, and expire after
+ * SequenceConfigCache.Timeout seconds so that changes made on other nodes of a cluster are picked up.
+ */
 public class UIBasedConfigurationBuilder {
 
+    private static final int DEFAULT_TEMPLATE_TIMEOUT = 300;
+
     private static Log log = LogFactory.getLog(UIBasedConfigurationBuilder.class);
 
     private static volatile UIBasedConfigurationBuilder instance;
 
+    private final ConcurrentMap<String, ConcurrentMap<String, SequenceTemplate>> sequenceTemplates =
+            new ConcurrentHashMap<String, ConcurrentMap<String, SequenceTemplate>>();
+    private boolean templateCacheEnabled = true;
+    private long templateTimeout = DEFAULT_TEMPLATE_TIMEOUT * 1000L;
+
+    private UIBasedConfigurationBuilder() {
+
+        String enabled = IdentityUtil.getProperty("SequenceConfigCache.Enable");
+        if (enabled != null) {
+            templateCacheEnabled = Boolean.parseBoolean(enabled.trim());
+        }
+
+        String timeout = IdentityUtil.getProperty("SequenceConfigCache.Timeout");
+        if (timeout != null) {
+            try {
+                templateTimeout = Integer.parseInt(timeout.trim()) * 1000L;
+            } catch (NumberFormatException e) {
+                log.warn("Invalid SequenceConfigCache.Timeout : " + timeout + ". Using the default value "
+                        + DEFAULT_TEMPLATE_TIMEOUT + " seconds");
+            }
+        }
+    }
+
     public static UIBasedConfigurationBuilder getInstance() {
         if (instance == null) {
             synchronized (UIBasedConfigurationBuilder.class) {
@@ -56,14 +93,77 @@ public class UIBasedConfigurationBuilder {
     public SequenceConfig getSequence(String reqType, String clientId, String tenantDomain)
             throws FrameworkException {
 
-        SequenceConfig sequenceConfig = null;
-        ApplicationInfoProvider appInfo = ApplicationInfoProvider.getInstance();
-
         // special case for OpenID Connect, these clients are stored as OAuth2 clients
         if ("oidc".equals(reqType)) {
             reqType = "oauth2";
         }
 
+        if (!templateCacheEnabled) {
+            return buildSequence(reqType, clientId, tenantDomain);
+        }
+
+        ConcurrentMap<String, SequenceTemplate> tenantTemplates = getTenantTemplates(tenantDomain);
+        String templateKey = reqType + ":" + clientId;
+        SequenceTemplate template = tenantTemplates.get(templateKey);
+        // version is read before the application is, so a change written while building is not missed
+        long applicationVersion = ApplicationVersion.getVersion(tenantDomain);
+
+        if (template == null || template.isExpired() || template.getApplicationVersion() != applicationVersion) {
+            if (log.isDebugEnabled()) {
+                log.debug("Building the authentication sequence of " + clientId + " for " + reqType
+                        + " in tenant " + tenantDomain);
+            }
+            template = new SequenceTemplate(buildSequence(reqType, clientId, tenantDomain), applicationVersion,
+                    System.currentTimeMillis() + templateTimeout);
+            tenantTemplates.put(templateKey, template);
+        }
+
+        return new SequenceConfig(template.getSequenceConfig());
+    }
+
+    /**
+     * Removes the sequence templates of the tenant
+     *
+     * @param tenantDomain tenant domain
+     */
+    public void clearSequenceTemplates(String tenantDomain) {
+        sequenceTemplates.remove(getTenantKey(tenantDomain));
+    }
+
+    /**
+     * Removes the sequence templates of all the tenants
+     */
+    public void clearSequenceTemplates() {
+        sequenceTemplates.clear();
+    }
+
+    private ConcurrentMap<String, SequenceTemplate> getTenantTemplates(String tenantDomain) {
+
+        String tenantKey = getTenantKey(tenantDomain);
+        ConcurrentMap<String, SequenceTemplate> tenantTemplates = sequenceTemplates.get(tenantKey);
+        if (tenantTemplates == null) {
+            tenantTemplates = new ConcurrentHashMap<String, SequenceTemplate>();
+            ConcurrentMap<String, SequenceTemplate> existing =
+                    sequenceTemplates.putIfAbsent(tenantKey, tenantTemplates);
+            if (existing != null) {
+                tenantTemplates = existing;
+            }
+        }
+        return tenantTemplates;
+    }
+
+    private String getTenantKey(String tenantDomain) {
+        if (tenantDomain == null || tenantDomain.trim().isEmpty()) {
+            return MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        return tenantDomain.toLowerCase();
+    }
+
+    private SequenceConfig buildSequence(String reqType, String clientId, String tenantDomain)
+            throws FrameworkException {
+
+        SequenceConfig sequenceConfig = null;
+        ApplicationInfoProvider appInfo = ApplicationInfoProvider.getInstance();
         ServiceProvider serviceProvider;
 
         try {
@@ -78,6 +178,9 @@ public class UIBasedConfigurationBuilder {
 
         sequenceConfig = new SequenceConfig();
         sequenceConfig.setApplicationId(serviceProvider.getApplicationName());
+        sequenceConfig.setRequestType(reqType);
+        sequenceConfig.setRelyingParty(clientId);
+        sequenceConfig.setTenantDomain(tenantDomain);
         sequenceConfig.setApplicationConfig(new ApplicationConfig(serviceProvider));
 
         // setting request path authenticators
@@ -211,4 +314,31 @@ public class UIBasedConfigurationBuilder {
         }
     }
 
+    /**
+     * Sequence built for a service provider, which is only copied and never handed out to a request
+     */
+    private static class SequenceTemplate {
+
+        private final SequenceConfig sequenceConfig;
+        private final long applicationVersion;
+        private final long expiryTime;
+
+        SequenceTemplate(SequenceConfig sequenceConfig, long applicationVersion, long expiryTime) {
+            this.sequenceConfig = sequenceConfig;
+            this.applicationVersion = applicationVersion;
+            this.expiryTime = expiryTime;
+        }
+
+        SequenceConfig getSequenceConfig() {
+            return sequenceConfig;
+        }
+
+        long getApplicationVersion() {
+            return applicationVersion;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+    }
 }
@@ -119,6 +119,27 @@ public class ApplicationConfig implements Serializable {
         }
     }
 
+    /**
+     * Creates an application config sharing the service provider and the claim, role and permission
+     * mappings of the given config, which are not modified during authentication.
+     *
+     * @param template application config to copy
+     */
+    public ApplicationConfig(ApplicationConfig template) {
+        this.serviceProvider = template.serviceProvider;
+        this.applicationID = template.applicationID;
+        this.applicationName = template.applicationName;
+        this.roleClaim = template.roleClaim;
+        this.alwaysSendMappedLocalSubjectId = template.alwaysSendMappedLocalSubjectId;
+        this.mappedSubjectIDSelected = template.mappedSubjectIDSelected;
+        this.subjectClaimUri = template.subjectClaimUri;
+        this.permissions = template.permissions;
+        this.claimMappings = template.claimMappings;
+        this.roleMappings = template.roleMappings;
+        this.requestedClaims = template.requestedClaims;
+        this.isSaaSApp = template.isSaaSApp;
+    }
+
     public int getApplicationID() {
         return applicationID;
     }
@@ -53,6 +53,21 @@ public class AuthenticatorConfig implements Serializable {
         this.parameterMap = parameterMap;
     }
 
+    /**
+     * Creates an authenticator config sharing the authenticator, parameters and IdPs of the given config,
+     * which are not modified during authentication. The authenticator state is not copied.
+     *
+     * @param template authenticator config to copy
+     */
+    public AuthenticatorConfig(AuthenticatorConfig template) {
+        this.name = template.name;
+        this.enabled = template.enabled;
+        this.applicationAuthenticator = template.applicationAuthenticator;
+        this.parameterMap = template.parameterMap;
+        this.idps = template.idps;
+        this.idpNames = template.idpNames;
+    }
+
     public String getName() {
         return name;
     }
@@ -34,6 +34,9 @@ public class SequenceConfig implements Serializable {
     private boolean isForceAuthn;
     private boolean isCheckAuthn;
     private String applicationId;
+    private String requestType;
+    private String relyingParty;
+    private String tenantDomain;
     private Map<Integer, StepConfig> stepMap = new Hashtable<Integer, StepConfig>();
     private List<AuthenticatorConfig> reqPathAuthenticators = new ArrayList<AuthenticatorConfig>();
     private ApplicationConfig applicationConfig = null;
@@ -48,6 +51,36 @@ public class SequenceConfig implements Serializable {
     public SequenceConfig() {
     }
 
+    /**
+     * Creates a sequence with fresh steps, request path authenticators and application config from the
+     * given sequence. Only the configuration of the template is copied, not the authentication state.
+     *
+     * @param template sequence to copy
+     */
+    public SequenceConfig(SequenceConfig template) {
+        this.name = template.name;
+        this.isForceAuthn = template.isForceAuthn;
+        this.isCheckAuthn = template.isCheckAuthn;
+        this.applicationId = template.applicationId;
+        this.requestType = template.requestType;
+        this.relyingParty = template.relyingParty;
+        this.tenantDomain = template.tenantDomain;
+
+        for (Map.Entry<Integer, StepConfig> entry : template.stepMap.entrySet()) {
+            this.stepMap.put(entry.getKey(), new StepConfig(entry.getValue()));
+        }
+
+        if (template.reqPathAuthenticators != null) {
+            for (AuthenticatorConfig reqPathAuthenticator : template.reqPathAuthenticators) {
+                this.reqPathAuthenticators.add(new AuthenticatorConfig(reqPathAuthenticator));
+            }
+        }
+
+        if (template.applicationConfig != null) {
+            this.applicationConfig = new ApplicationConfig(template.applicationConfig);
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -105,6 +138,36 @@ public class SequenceConfig implements Serializable {
         this.applicationId = applicationId;
     }
 
+    /**
+     * @return request type of the service provider this sequence was built for
+     */
+    public String getRequestType() {
+        return requestType;
+    }
+
+    public void setRequestType(String requestType) {
+        this.requestType = requestType;
+    }
+
+    /**
+     * @return client id of the service provider this sequence was built for
+     */
+    public String getRelyingParty() {
+        return relyingParty;
+    }
+
+    public void setRelyingParty(String relyingParty) {
+        this.relyingParty = relyingParty;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public void setTenantDomain(String tenantDomain) {
+        this.tenantDomain = tenantDomain;
+    }
+
     public boolean isCompleted() {
         return completed;
     }
@@ -49,6 +49,25 @@ public class StepConfig implements Serializable {
     public StepConfig() {
     }
 
+    /**
+     * Creates a step with the configuration of the given step and a copy of its authenticators.
+     * The authentication state of the given step is not copied.
+     *
+     * @param template step to copy
+     */
+    public StepConfig(StepConfig template) {
+        this.order = template.order;
+        this.loginPage = template.loginPage;
+        this.subjectIdentifierStep = template.subjectIdentifierStep;
+        this.subjectAttributeStep = template.subjectAttributeStep;
+        this.multiOption = template.multiOption;
+        this.authenticatorMappings = new ArrayList<String>(template.authenticatorMappings);
+
+        for (AuthenticatorConfig authenticatorConfig : template.authenticatorList) {
+            this.authenticatorList.add(new AuthenticatorConfig(authenticatorConfig));
+        }
+    }
+
     /**
      * @return
      */
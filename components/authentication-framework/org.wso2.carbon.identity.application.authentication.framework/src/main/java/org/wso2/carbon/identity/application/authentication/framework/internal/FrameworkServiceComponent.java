@@ -26,13 +26,16 @@ import org.osgi.service.component.ComponentContext;
 import org.osgi.service.http.HttpService;
 import org.wso2.carbon.identity.application.authentication.framework.*;
 import org.wso2.carbon.identity.application.authentication.framework.config.ConfigurationFacade;
+import org.wso2.carbon.identity.application.authentication.framework.config.builder.UIBasedConfigurationBuilder;
 import org.wso2.carbon.identity.application.authentication.framework.listener.AuthenticationEndpointTenantActivityListener;
+import org.wso2.carbon.identity.application.authentication.framework.listener.SequenceConfigIdPMgtListener;
 import org.wso2.carbon.identity.application.authentication.framework.servlet.CommonAuthenticationServlet;
 import org.wso2.carbon.identity.application.common.ApplicationAuthenticatorService;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.LocalAuthenticatorConfig;
 import org.wso2.carbon.identity.application.common.model.Property;
 import org.wso2.carbon.identity.application.common.model.RequestPathAuthenticatorConfig;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtLister;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.stratos.common.listeners.TenantMgtListener;
 import org.wso2.carbon.user.core.service.RealmService;
@@ -109,6 +112,10 @@ public class FrameworkServiceComponent {
         bundleContext = ctxt.getBundleContext();
         bundleContext.registerService(ApplicationAuthenticationService.class.getName(), new ApplicationAuthenticationService(), null);
 
+        // Register the listener which keeps the authentication sequence templates up to date
+        bundleContext.registerService(IdentityProviderMgtLister.class.getName(),
+                new SequenceConfigIdPMgtListener(), null);
+
         boolean tenantDropdownEnabled = ConfigurationFacade.getInstance().getTenantDropdownEnabled();
 
         if (tenantDropdownEnabled) {
@@ -189,6 +196,8 @@ public class FrameworkServiceComponent {
     protected void setAuthenticator(ApplicationAuthenticator authenticator) {
 
         authenticators.add(authenticator);
+        // sequence templates hold the authenticators which were available when they were built
+        UIBasedConfigurationBuilder.getInstance().clearSequenceTemplates();
 
         Property[] configProperties = null;
 
@@ -225,6 +234,7 @@ public class FrameworkServiceComponent {
     protected void unsetAuthenticator(ApplicationAuthenticator authenticator) {
 
         authenticators.remove(authenticator);
+        UIBasedConfigurationBuilder.getInstance().clearSequenceTemplates();
         String authenticatorName = authenticator.getName();
         ApplicationAuthenticatorService appAuthenticatorService = ApplicationAuthenticatorService.getInstance();
 
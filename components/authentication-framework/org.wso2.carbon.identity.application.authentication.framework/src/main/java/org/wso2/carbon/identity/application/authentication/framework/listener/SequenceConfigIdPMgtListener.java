@@ -0,0 +1,64 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* WSO2 Inc. licenses this file to you under the Apache License,
+* Version 2.0 (the "License"); you may not use this file except
+* in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.application.authentication.framework.listener;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.application.authentication.framework.config.builder.UIBasedConfigurationBuilder;
+import org.wso2.carbon.identity.application.common.model.IdentityProvider;
+import org.wso2.carbon.idp.mgt.listener.IdentityProviderMgtLister;
+
+/**
+ * Removes the authentication sequence templates of the tenant when one of its identity providers is
+ * changed, since the templates hold the identity providers of the authentication steps
+ */
+public class SequenceConfigIdPMgtListener implements IdentityProviderMgtLister {
+
+    private static final Log log = LogFactory.getLog(SequenceConfigIdPMgtListener.class);
+
+    @Override
+    public void updateResidentIdP(IdentityProvider identityProvider) {
+        clearSequenceTemplates(identityProvider.getIdentityProviderName());
+    }
+
+    @Override
+    public void addIdP(IdentityProvider identityProvider) {
+        // a new identity provider is not used by any sequence template yet
+    }
+
+    @Override
+    public void deleteIdP(String idPName) {
+        clearSequenceTemplates(idPName);
+    }
+
+    @Override
+    public void updateIdP(String oldIdPName, IdentityProvider identityProvider) {
+        clearSequenceTemplates(oldIdPName);
+    }
+
+    private void clearSequenceTemplates(String idPName) {
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        if (log.isDebugEnabled()) {
+            log.debug("Clearing authentication sequence templates of tenant " + tenantDomain
+                    + " as identity provider " + idPName + " is changed");
+        }
+        UIBasedConfigurationBuilder.getInstance().clearSequenceTemplates(tenantDomain);
+    }
+}
@@ -0,0 +1,583 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.application.authentication.framework.ApplicationAuthenticator;
+import org.wso2.carbon.identity.application.authentication.framework.AuthenticatorStateInfo;
+import org.wso2.carbon.identity.application.authentication.framework.cache.SessionContextCacheEntry;
+import org.wso2.carbon.identity.application.authentication.framework.config.ConfigurationFacade;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.AuthenticatorConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.SequenceConfig;
+import org.wso2.carbon.identity.application.authentication.framework.config.model.StepConfig;
+import org.wso2.carbon.identity.application.authentication.framework.context.SessionContext;
+import org.wso2.carbon.identity.application.authentication.framework.exception.FrameworkException;
+import org.wso2.carbon.identity.application.authentication.framework.internal.FrameworkServiceComponent;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedIdPData;
+import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
+import org.wso2.carbon.identity.application.common.model.Claim;
+import org.wso2.carbon.identity.application.common.model.ClaimMapping;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializes session data into a compact binary format.
+ * <p/>
+ * A session context is written field by field. An authenticated sequence is written as the request type,
+ * relying party and tenant domain it was built for, together with the authentication state of its steps,
+ * and its configuration is rebuilt from the service provider when the session is read. Other session data
+ * and the state of the authenticators are written with Java serialization.
+ * <p/>
+ * Format : 'W' 'S' version flags payload, where the payload is deflated when the compressed flag is set.
+ * Compression is enabled with JDBCPersistenceManager.SessionDataPersist.Serializer.Compress.
+ */
+public class CompactSessionSerializer implements SessionSerializer {
+
+    private static final byte[] MAGIC = {'W', 'S'};
+    private static final byte VERSION = 1;
+    private static final byte FLAG_COMPRESSED = 0x01;
+    private static final int HEADER_LENGTH = 4;
+
+    private static final byte ENTRY_SERIALIZED = 0;
+    private static final byte ENTRY_SESSION_CONTEXT = 1;
+    private static final byte SEQUENCE_SERIALIZED = 0;
+    private static final byte SEQUENCE_REFERENCE = 1;
+
+    private static final int NULL_REFERENCE = -1;
+    private static final int NEW_REFERENCE = -2;
+    private static final int NULL_LENGTH = -1;
+
+    private static Log log = LogFactory.getLog(CompactSessionSerializer.class);
+
+    private boolean compress;
+    private JavaSessionSerializer javaSerializer = new JavaSessionSerializer();
+
+    public CompactSessionSerializer() {
+        this(Boolean.parseBoolean(IdentityUtil.getProperty(
+                "JDBCPersistenceManager.SessionDataPersist.Serializer.Compress")));
+    }
+
+    public CompactSessionSerializer(boolean compress) {
+        this.compress = compress;
+    }
+
+    @Override
+    public byte[] serialize(Object entry) throws IOException {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        baos.write(MAGIC);
+        baos.write(VERSION);
+        baos.write(compress ? FLAG_COMPRESSED : 0);
+
+        DeflaterOutputStream deflater = null;
+        DataOutputStream out;
+        if (compress) {
+            deflater = new DeflaterOutputStream(baos);
+            out = new DataOutputStream(deflater);
+        } else {
+            out = new DataOutputStream(baos);
+        }
+
+        new EntryWriter(out).writeEntry(entry);
+        out.flush();
+        if (deflater != null) {
+            deflater.finish();
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+
+        if (!canDeserialize(data)) {
+            throw new IOException("Session data is not in the compact format");
+        }
+        if (data[2] > VERSION) {
+            throw new IOException("Unsupported session data format version : " + data[2]);
+        }
+
+        InputStream in = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        if ((data[3] & FLAG_COMPRESSED) != 0) {
+            in = new InflaterInputStream(in);
+        }
+        return new EntryReader(new DataInputStream(in)).readEntry();
+    }
+
+    @Override
+    public boolean canDeserialize(byte[] data) {
+        return data.length >= HEADER_LENGTH && data[0] == MAGIC[0] && data[1] == MAGIC[1];
+    }
+
+    /**
+     * Writes an entry. Users and authenticators referred from more than one place are written once.
+     */
+    private class EntryWriter {
+
+        private DataOutputStream out;
+        private Map<Object, Integer> references = new IdentityHashMap<Object, Integer>();
+
+        EntryWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeEntry(Object entry) throws IOException {
+
+            if (!(entry instanceof SessionContextCacheEntry)) {
+                out.writeByte(ENTRY_SERIALIZED);
+                writeSerialized(entry);
+                return;
+            }
+
+            out.writeByte(ENTRY_SESSION_CONTEXT);
+            SessionContextCacheEntry sessionEntry = (SessionContextCacheEntry) entry;
+            writeString(sessionEntry.getLoggedInUser());
+
+            SessionContext sessionContext = sessionEntry.getContext();
+            out.writeBoolean(sessionContext != null);
+            if (sessionContext == null) {
+                return;
+            }
+            out.writeBoolean(sessionContext.isRememberMe());
+
+            Map<String, AuthenticatedIdPData> authenticatedIdPs = sessionContext.getAuthenticatedIdPs();
+            out.writeInt(authenticatedIdPs != null ? authenticatedIdPs.size() : 0);
+            if (authenticatedIdPs != null) {
+                for (Map.Entry<String, AuthenticatedIdPData> idp : authenticatedIdPs.entrySet()) {
+                    writeString(idp.getKey());
+                    writeAuthenticatedIdP(idp.getValue());
+                }
+            }
+
+            Map<String, SequenceConfig> sequences = sessionContext.getAuthenticatedSequences();
+            out.writeInt(sequences != null ? sequences.size() : 0);
+            if (sequences != null) {
+                for (Map.Entry<String, SequenceConfig> sequence : sequences.entrySet()) {
+                    writeString(sequence.getKey());
+                    writeSequence(sequence.getValue());
+                }
+            }
+        }
+
+        private void writeAuthenticatedIdP(AuthenticatedIdPData idpData) throws IOException {
+            out.writeBoolean(idpData != null);
+            if (idpData != null) {
+                writeString(idpData.getIdpName());
+                writeAuthenticator(idpData.getAuthenticator());
+                writeUser(idpData.getUser());
+            }
+        }
+
+        private void writeSequence(SequenceConfig sequenceConfig) throws IOException {
+
+            if (sequenceConfig == null || sequenceConfig.getRequestType() == null
+                    || sequenceConfig.getRelyingParty() == null) {
+                out.writeByte(SEQUENCE_SERIALIZED);
+                writeSerialized(sequenceConfig);
+                return;
+            }
+
+            out.writeByte(SEQUENCE_REFERENCE);
+            writeString(sequenceConfig.getRequestType());
+            writeString(sequenceConfig.getRelyingParty());
+            writeString(sequenceConfig.getTenantDomain());
+            out.writeBoolean(sequenceConfig.isCompleted());
+            out.writeBoolean(sequenceConfig.isForceAuthn());
+            out.writeBoolean(sequenceConfig.isCheckAuthn());
+            out.writeBoolean(sequenceConfig.getApplicationConfig() != null
+                    && sequenceConfig.getApplicationConfig().isMappedSubjectIDSelected());
+            writeUser(sequenceConfig.getAuthenticatedUser());
+            writeString(sequenceConfig.getAuthenticatedUserTenantDomain());
+            writeString(sequenceConfig.getAuthenticatedIdPs());
+            writeAuthenticator(sequenceConfig.getAuthenticatedReqPathAuthenticator());
+
+            Map<Integer, StepConfig> stepMap = sequenceConfig.getStepMap();
+            out.writeInt(stepMap.size());
+            for (Map.Entry<Integer, StepConfig> step : stepMap.entrySet()) {
+                StepConfig stepConfig = step.getValue();
+                out.writeInt(step.getKey());
+                out.writeBoolean(stepConfig.isCompleted());
+                out.writeBoolean(stepConfig.isRetrying());
+                writeString(stepConfig.getAuthenticatedIdP());
+                writeUser(stepConfig.getAuthenticatedUser());
+                writeAuthenticator(stepConfig.getAuthenticatedAutenticator());
+            }
+        }
+
+        private void writeAuthenticator(AuthenticatorConfig authenticatorConfig) throws IOException {
+
+            if (!writeReference(authenticatorConfig)) {
+                return;
+            }
+            writeString(authenticatorConfig.getName());
+            out.writeBoolean(authenticatorConfig.isEnabled());
+            writeStringList(authenticatorConfig.getIdpNames());
+            writeStringMap(authenticatorConfig.getParameterMap());
+            writeSerialized(authenticatorConfig.getAuthenticatorStateInfo());
+        }
+
+        private void writeUser(AuthenticatedUser user) throws IOException {
+
+            if (!writeReference(user)) {
+                return;
+            }
+            writeString(user.getUserName());
+            writeString(user.getUserStoreDomain());
+            writeString(user.getTenantDomain());
+            writeString(user.getAuthenticatedSubjectIdentifier());
+
+            Map<ClaimMapping, String> attributes = user.getUserAttributes();
+            out.writeInt(attributes != null ? attributes.size() : 0);
+            if (attributes != null) {
+                for (Map.Entry<ClaimMapping, String> attribute : attributes.entrySet()) {
+                    ClaimMapping claimMapping = attribute.getKey();
+                    writeClaim(claimMapping.getLocalClaim());
+                    writeClaim(claimMapping.getRemoteClaim());
+                    writeString(claimMapping.getDefaultValue());
+                    out.writeBoolean(claimMapping.isRequested());
+                    writeString(attribute.getValue());
+                }
+            }
+        }
+
+        private void writeClaim(Claim claim) throws IOException {
+            out.writeBoolean(claim != null);
+            if (claim != null) {
+                writeString(claim.getClaimUri());
+                out.writeInt(claim.getClaimId());
+            }
+        }
+
+        /**
+         * @return true if the object has to be written, false if it is null or has already been written
+         */
+        private boolean writeReference(Object object) throws IOException {
+
+            if (object == null) {
+                out.writeInt(NULL_REFERENCE);
+                return false;
+            }
+            Integer index = references.get(object);
+            if (index != null) {
+                out.writeInt(index);
+                return false;
+            }
+            references.put(object, references.size());
+            out.writeInt(NEW_REFERENCE);
+            return true;
+        }
+
+        private void writeSerialized(Object object) throws IOException {
+            if (object == null) {
+                out.writeInt(NULL_LENGTH);
+                return;
+            }
+            byte[] bytes = javaSerializer.serialize(object);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL_LENGTH);
+                return;
+            }
+            byte[] bytes = value.getBytes("UTF-8");
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeStringList(List<String> values) throws IOException {
+            out.writeInt(values != null ? values.size() : NULL_LENGTH);
+            if (values != null) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        private void writeStringMap(Map<String, String> values) throws IOException {
+            out.writeInt(values != null ? values.size() : NULL_LENGTH);
+            if (values != null) {
+                for (Map.Entry<String, String> value : values.entrySet()) {
+                    writeString(value.getKey());
+                    writeString(value.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an entry written by the {@link EntryWriter}
+     */
+    private class EntryReader {
+
+        private DataInputStream in;
+        private List<Object> references = new ArrayList<Object>();
+
+        EntryReader(DataInputStream in) {
+            this.in = in;
+        }
+
+        Object readEntry() throws IOException, ClassNotFoundException {
+
+            byte entryType = in.readByte();
+            if (entryType == ENTRY_SERIALIZED) {
+                return readSerialized();
+            } else if (entryType != ENTRY_SESSION_CONTEXT) {
+                throw new IOException("Unknown session data type : " + entryType);
+            }
+
+            SessionContextCacheEntry sessionEntry = new SessionContextCacheEntry();
+            sessionEntry.setLoggedInUser(readString());
+            if (!in.readBoolean()) {
+                return sessionEntry;
+            }
+
+            SessionContext sessionContext = new SessionContext();
+            sessionContext.setRememberMe(in.readBoolean());
+
+            int idpCount = in.readInt();
+            for (int i = 0; i < idpCount; i++) {
+                String idpName = readString();
+                AuthenticatedIdPData idpData = readAuthenticatedIdP();
+                if (idpData != null) {
+                    sessionContext.getAuthenticatedIdPs().put(idpName, idpData);
+                }
+            }
+
+            int sequenceCount = in.readInt();
+            for (int i = 0; i < sequenceCount; i++) {
+                String applicationName = readString();
+                SequenceConfig sequenceConfig = readSequence();
+                if (sequenceConfig != null) {
+                    sessionContext.getAuthenticatedSequences().put(applicationName, sequenceConfig);
+                }
+            }
+
+            sessionEntry.setContext(sessionContext);
+            return sessionEntry;
+        }
+
+        private AuthenticatedIdPData readAuthenticatedIdP() throws IOException, ClassNotFoundException {
+
+            if (!in.readBoolean()) {
+                return null;
+            }
+            AuthenticatedIdPData idpData = new AuthenticatedIdPData();
+            idpData.setIdpName(readString());
+            idpData.setAuthenticator(readAuthenticator());
+            idpData.setUser(readUser());
+            return idpData;
+        }
+
+        private SequenceConfig readSequence() throws IOException, ClassNotFoundException {
+
+            byte sequenceType = in.readByte();
+            if (sequenceType == SEQUENCE_SERIALIZED) {
+                return (SequenceConfig) readSerialized();
+            } else if (sequenceType != SEQUENCE_REFERENCE) {
+                throw new IOException("Unknown sequence type : " + sequenceType);
+            }
+
+            String requestType = readString();
+            String relyingParty = readString();
+            String tenantDomain = readString();
+
+            SequenceConfig sequenceConfig = null;
+            try {
+                sequenceConfig = ConfigurationFacade.getInstance().getSequenceConfig(requestType, relyingParty,
+                        tenantDomain);
+            } catch (FrameworkException e) {
+                log.warn("Error while building the authentication sequence of " + relyingParty + " for "
+                        + requestType + " in tenant " + tenantDomain + ". The sequence is removed from the session",
+                        e);
+            }
+
+            // the state is read even when the sequence can not be built, to reach the next sequence
+            SequenceConfig state = sequenceConfig != null ? sequenceConfig : new SequenceConfig();
+            state.setCompleted(in.readBoolean());
+            state.setForceAuthn(in.readBoolean());
+            state.setCheckAuthn(in.readBoolean());
+            boolean mappedSubjectIDSelected = in.readBoolean();
+            if (state.getApplicationConfig() != null) {
+                state.getApplicationConfig().setMappedSubjectIDSelected(mappedSubjectIDSelected);
+            }
+            state.setAuthenticatedUser(readUser());
+            state.setAuthenticatedUserTenantDomain(readString());
+            state.setAuthenticatedIdPs(readString());
+            state.setAuthenticatedReqPathAuthenticator(readAuthenticator());
+
+            Map<Integer, StepConfig> stepMap = new Hashtable<Integer, StepConfig>();
+            int stepCount = in.readInt();
+            for (int i = 0; i < stepCount; i++) {
+                int order = in.readInt();
+                StepConfig stepConfig = state.getStepMap().get(order);
+                if (stepConfig == null) {
+                    stepConfig = new StepConfig();
+                    stepConfig.setOrder(order);
+                }
+                stepConfig.setCompleted(in.readBoolean());
+                stepConfig.setRetrying(in.readBoolean());
+                stepConfig.setAuthenticatedIdP(readString());
+                stepConfig.setAuthenticatedUser(readUser());
+                stepConfig.setAuthenticatedAutenticator(readAuthenticator());
+                stepMap.put(order, stepConfig);
+            }
+            state.setStepMap(stepMap);
+
+            return sequenceConfig;
+        }
+
+        private AuthenticatorConfig readAuthenticator() throws IOException, ClassNotFoundException {
+
+            int reference = in.readInt();
+            if (reference != NEW_REFERENCE) {
+                return (AuthenticatorConfig) getReference(reference);
+            }
+
+            AuthenticatorConfig authenticatorConfig = new AuthenticatorConfig();
+            references.add(authenticatorConfig);
+            authenticatorConfig.setName(readString());
+            authenticatorConfig.setEnabled(in.readBoolean());
+            List<String> idpNames = readStringList();
+            if (idpNames != null) {
+                authenticatorConfig.getIdpNames().addAll(idpNames);
+            }
+            authenticatorConfig.setParameterMap(readStringMap());
+            authenticatorConfig.setAuthenticatorStateInfo((AuthenticatorStateInfo) readSerialized());
+
+            if (authenticatorConfig.getName() != null) {
+                for (ApplicationAuthenticator appAuthenticator : FrameworkServiceComponent.authenticators) {
+                    if (authenticatorConfig.getName().equalsIgnoreCase(appAuthenticator.getName())) {
+                        authenticatorConfig.setApplicationAuthenticator(appAuthenticator);
+                        break;
+                    }
+                }
+            }
+            return authenticatorConfig;
+        }
+
+        private AuthenticatedUser readUser() throws IOException {
+
+            int reference = in.readInt();
+            if (reference != NEW_REFERENCE) {
+                return (AuthenticatedUser) getReference(reference);
+            }
+
+            AuthenticatedUser user = new AuthenticatedUser();
+            references.add(user);
+            user.setUserName(readString());
+            user.setUserStoreDomain(readString());
+            user.setTenantDomain(readString());
+            user.setAuthenticatedSubjectIdentifier(readString());
+
+            int attributeCount = in.readInt();
+            Map<ClaimMapping, String> attributes = new HashMap<ClaimMapping, String>();
+            for (int i = 0; i < attributeCount; i++) {
+                ClaimMapping claimMapping = new ClaimMapping();
+                claimMapping.setLocalClaim(readClaim());
+                claimMapping.setRemoteClaim(readClaim());
+                claimMapping.setDefaultValue(readString());
+                claimMapping.setRequested(in.readBoolean());
+                attributes.put(claimMapping, readString());
+            }
+            user.setUserAttributes(attributes);
+            return user;
+        }
+
+        private Claim readClaim() throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            Claim claim = new Claim();
+            claim.setClaimUri(readString());
+            claim.setClaimId(in.readInt());
+            return claim;
+        }
+
+        private Object getReference(int reference) throws IOException {
+            if (reference == NULL_REFERENCE) {
+                return null;
+            }
+            if (reference < 0 || reference >= references.size()) {
+                throw new IOException("Invalid reference in session data : " + reference);
+            }
+            return references.get(reference);
+        }
+
+        private Object readSerialized() throws IOException, ClassNotFoundException {
+            int length = in.readInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return javaSerializer.deserialize(bytes);
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, "UTF-8");
+        }
+
+        private List<String> readStringList() throws IOException {
+            int size = in.readInt();
+            if (size == NULL_LENGTH) {
+                return null;
+            }
+            List<String> values = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private Map<String, String> readStringMap() throws IOException {
+            int size = in.readInt();
+            if (size == NULL_LENGTH) {
+                return null;
+            }
+            Map<String, String> values = new HashMap<String, String>();
+            for (int i = 0; i < size; i++) {
+                values.put(readString(), readString());
+            }
+            return values;
+        }
+    }
+}
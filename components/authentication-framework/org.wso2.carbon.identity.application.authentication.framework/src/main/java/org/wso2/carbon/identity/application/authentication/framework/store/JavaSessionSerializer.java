@@ -0,0 +1,62 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Serializes session data with Java serialization
+ */
+public class JavaSessionSerializer implements SessionSerializer {
+
+    private static final int STREAM_MAGIC_FIRST = 0xAC;
+    private static final int STREAM_MAGIC_SECOND = 0xED;
+
+    @Override
+    public byte[] serialize(Object entry) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        try {
+            oos.writeObject(entry);
+            oos.flush();
+        } finally {
+            oos.close();
+        }
+        return baos.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+        try {
+            return ois.readObject();
+        } finally {
+            ois.close();
+        }
+    }
+
+    @Override
+    public boolean canDeserialize(byte[] data) {
+        return data.length > 1 && (data[0] & 0xFF) == STREAM_MAGIC_FIRST && (data[1] & 0xFF) == STREAM_MAGIC_SECOND;
+    }
+}
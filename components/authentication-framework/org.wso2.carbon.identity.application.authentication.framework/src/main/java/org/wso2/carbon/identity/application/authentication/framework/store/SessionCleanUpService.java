@@ -21,29 +21,49 @@ package org.wso2.carbon.identity.application.authentication.framework.store;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
+import org.wso2.carbon.identity.core.util.ClusterTaskLock;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Database cleanup. Timer task is running for pre-defined period to clear the
- * invalid sessions
+ * invalid sessions. Expired session data is scanned in chunks ordered by the creation time and each
+ * chunk is deleted in its own short transaction. In a cluster only the node holding the cleanup lock
+ * runs the task.
  */
 public final class SessionCleanUpService {
 
     private static final int NUM_THREADS = 1;
+    private static final String TASK_NAME = "SessionDataCleanUp";
+    private static final String SQL_SELECT_EXPIRED_SESSIONS = "SELECT SESSION_ID, SESSION_TYPE, TIME_CREATED FROM " +
+            "IDN_AUTH_SESSION_STORE WHERE TIME_CREATED < ? AND (TIME_CREATED > ? OR (TIME_CREATED = ? AND " +
+            "(SESSION_ID > ? OR (SESSION_ID = ? AND SESSION_TYPE > ?)))) ORDER BY TIME_CREATED, SESSION_ID, " +
+            "SESSION_TYPE";
+    // the expiry condition is checked again since the rows are deleted in a later transaction than the select
+    private static final String SQL_DELETE_EXPIRED_SESSION = "DELETE FROM IDN_AUTH_SESSION_STORE WHERE " +
+            "SESSION_ID = ? AND SESSION_TYPE = ? AND TIME_CREATED < ?";
     private static Log log = LogFactory.getLog(SessionCleanUpService.class);
     private final ScheduledExecutorService scheduler;
     private final long initialDelay;
     private final long delayBetweenRuns;
 
     /**
-     * @param initialDelay
-     * @param delayBetweenRuns
+     * @param initialDelay     delay of the first run in minutes
+     * @param delayBetweenRuns delay between two runs in minutes
      */
     public SessionCleanUpService(long initialDelay, long delayBetweenRuns) {
         this.initialDelay = initialDelay;
@@ -55,34 +75,148 @@ public final class SessionCleanUpService {
      *
      */
     public void activateCleanUp() {
-        Runnable DatabaseCleanUpTask = new DatabaseCleanUpTask();
+        Runnable DatabaseCleanUpTask = new DatabaseCleanUpTask(delayBetweenRuns * 60 * 1000);
         scheduler.scheduleWithFixedDelay(DatabaseCleanUpTask, initialDelay, delayBetweenRuns,
                 TimeUnit.MINUTES);
 
     }
 
+    private static long getLongProperty(String name, long defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null && value.trim().length() > 0) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + name + ". Using the default value " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      *
      *
      */
     private static final class DatabaseCleanUpTask implements Runnable {
 
+        private final int chunkSize =
+                (int) getLongProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.ChunkSize", 1000);
+        private final long chunkPause =
+                getLongProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.ChunkPause", 100);
+        private final long leasePeriod;
+
+        private DatabaseCleanUpTask(long leasePeriod) {
+            this.leasePeriod = leasePeriod;
+        }
+
         public void run() {
 
+            if (!ClusterTaskLock.tryAcquire(TASK_NAME, leasePeriod)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Session Data cleanup task is running on another node");
+                }
+                return;
+            }
             log.debug("Start running the Session Data cleanup task.");
-            Date date = new Date();
-            String sessionDataTimeoutPeriod = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.TimeOut");
-            if (sessionDataTimeoutPeriod == null || sessionDataTimeoutPeriod.trim().length() == 0) {
-                // set default value to 2 weeks
-                sessionDataTimeoutPeriod = "20160";
+            try {
+                Date date = new Date();
+                String sessionDataTimeoutPeriod = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.TimeOut");
+                if (sessionDataTimeoutPeriod == null || sessionDataTimeoutPeriod.trim().length() == 0) {
+                    // set default value to 2 weeks
+                    sessionDataTimeoutPeriod = "20160";
+                }
+
+                long sessionTimeout = Long.parseLong(sessionDataTimeoutPeriod);
+
+                Timestamp timestamp = new Timestamp((date.getTime() - (sessionTimeout * 60 * 1000)));
+                SessionDataStore sessionDataStore = SessionDataStore.getInstance();
+                if (chunkSize <= 0 || sessionDataStore.isCustomCleanUpQuery()) {
+                    // a configured cleanup query is run as it is
+                    sessionDataStore.removeExpiredSessionData(timestamp);
+                } else {
+                    int count = removeExpiredSessionData(timestamp);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Session Data cleanup task removed " + count + " session data entries");
+                    }
+                }
+                log.debug("Stop running the Session Data cleanup task.");
+                log.info("Session Data cleanup task is running successfully for removing expired Data");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error while running the Session Data cleanup task", e);
+            } finally {
+                ClusterTaskLock.release(TASK_NAME);
             }
+        }
+
+        private int removeExpiredSessionData(Timestamp timestamp) throws IdentityException, SQLException,
+                InterruptedException {
+
+            Timestamp lastTimeCreated = new Timestamp(0);
+            String lastSessionId = "";
+            String lastSessionType = "";
+            int count = 0;
+            boolean hasMore = true;
+            while (hasMore) {
+                List<String[]> expiredSessions = new ArrayList<String[]>();
+                Connection connection = null;
+                PreparedStatement prepStmt = null;
+                ResultSet resultSet = null;
+                try {
+                    connection = JDBCPersistenceManager.getInstance().getDBConnection();
+                    prepStmt = connection.prepareStatement(SQL_SELECT_EXPIRED_SESSIONS);
+                    prepStmt.setMaxRows(chunkSize);
+                    prepStmt.setTimestamp(1, timestamp);
+                    prepStmt.setTimestamp(2, lastTimeCreated);
+                    prepStmt.setTimestamp(3, lastTimeCreated);
+                    prepStmt.setString(4, lastSessionId);
+                    prepStmt.setString(5, lastSessionId);
+                    prepStmt.setString(6, lastSessionType);
+                    resultSet = prepStmt.executeQuery();
+                    while (resultSet.next() && expiredSessions.size() < chunkSize) {
+                        lastSessionId = resultSet.getString(1);
+                        lastSessionType = resultSet.getString(2);
+                        lastTimeCreated = resultSet.getTimestamp(3);
+                        expiredSessions.add(new String[]{lastSessionId, lastSessionType});
+                    }
+                    connection.commit();
+                    IdentityDatabaseUtil.closeAllConnections(null, resultSet, prepStmt);
+                    resultSet = null;
+                    prepStmt = null;
 
-            long sessionTimeout = Long.parseLong(sessionDataTimeoutPeriod);
+                    if (!expiredSessions.isEmpty()) {
+                        prepStmt = connection.prepareStatement(SQL_DELETE_EXPIRED_SESSION);
+                        for (String[] session : expiredSessions) {
+                            prepStmt.setString(1, session[0]);
+                            prepStmt.setString(2, session[1]);
+                            prepStmt.setTimestamp(3, timestamp);
+                            prepStmt.addBatch();
+                        }
+                        prepStmt.executeBatch();
+                        connection.commit();
+                        count += expiredSessions.size();
+                    }
+                } catch (SQLException e) {
+                    IdentityDatabaseUtil.rollBack(connection);
+                    throw e;
+                } finally {
+                    IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+                }
+                hasMore = expiredSessions.size() == chunkSize && pauseAndRenewLease();
+            }
+            return count;
+        }
 
-            Timestamp timestamp = new Timestamp((date.getTime() - (sessionTimeout * 60 * 1000)));
-            SessionDataStore.getInstance().removeExpiredSessionData(timestamp);
-            log.debug("Stop running the Session Data cleanup task.");
-            log.info("Session Data cleanup task is running successfully for removing expired Data");
+        private boolean pauseAndRenewLease() throws InterruptedException {
+            if (chunkPause > 0) {
+                Thread.sleep(chunkPause);
+            }
+            if (!ClusterTaskLock.tryAcquire(TASK_NAME, leasePeriod)) {
+                log.warn("Session Data cleanup task lost its lock. Stopping the current run");
+                return false;
+            }
+            return true;
         }
     }
 }
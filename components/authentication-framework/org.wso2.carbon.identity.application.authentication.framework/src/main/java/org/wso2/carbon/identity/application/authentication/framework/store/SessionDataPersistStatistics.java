@@ -0,0 +1,121 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the session data written to the database by the session data persist tasks
+ */
+public class SessionDataPersistStatistics {
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong overflowCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong totalFlushLag = new AtomicLong();
+    private final AtomicLong maxFlushLag = new AtomicLong();
+
+    void recordQueued() {
+        queuedCount.incrementAndGet();
+        queueDepth.incrementAndGet();
+    }
+
+    void recordCoalesced() {
+        coalescedCount.incrementAndGet();
+    }
+
+    void recordOverflow() {
+        overflowCount.incrementAndGet();
+    }
+
+    void recordDequeued(int count) {
+        queueDepth.addAndGet(-count);
+    }
+
+    void recordFlushed(long flushLagMillis) {
+        flushedCount.incrementAndGet();
+        totalFlushLag.addAndGet(flushLagMillis);
+        long current;
+        while (flushLagMillis > (current = maxFlushLag.get())) {
+            if (maxFlushLag.compareAndSet(current, flushLagMillis)) {
+                break;
+            }
+        }
+    }
+
+    void recordBatch() {
+        batchCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of session data changes waiting to be written
+     */
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return number of changes which replaced a change of the same session data before it was written
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return number of changes written by the caller because the queue was full
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds from queuing a change until it was written
+     */
+    public double getAverageFlushLagMillis() {
+        long flushed = flushedCount.get();
+        return flushed == 0 ? 0 : (double) totalFlushLag.get() / flushed;
+    }
+
+    public long getMaxFlushLagMillis() {
+        return maxFlushLag.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SessionDataPersist : queueDepth=" + getQueueDepth() + ", queued=" + getQueuedCount() +
+                ", coalesced=" + getCoalescedCount() + ", overflow=" + getOverflowCount() + ", flushed=" +
+                getFlushedCount() + ", batches=" + getBatchCount() + ", averageFlushLag=" +
+                getAverageFlushLagMillis() + "ms, maxFlushLag=" + getMaxFlushLagMillis() + "ms";
+    }
+}
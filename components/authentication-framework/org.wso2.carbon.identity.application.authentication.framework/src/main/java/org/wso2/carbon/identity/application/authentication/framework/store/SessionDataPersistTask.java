@@ -21,18 +21,101 @@ package org.wso2.carbon.identity.application.authentication.framework.store;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.concurrent.BlockingDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Task to persist and remove session data
+ * Task to persist and remove session data. Changes queued to the task are kept for the flush interval,
+ * during which a later change to the same session data replaces the earlier one, and are then written
+ * in batches.
  */
 public class SessionDataPersistTask implements Runnable {
 
     private static Log log = LogFactory.getLog(SessionDataPersistTask.class);
-    private BlockingDeque<SessionContextDO> sessionContextQueue;
 
-    public SessionDataPersistTask(BlockingDeque<SessionContextDO> sessionContextQueue) {
-        this.sessionContextQueue = sessionContextQueue;
+    private final Map<String, SessionContextDO> pendingEntries = new LinkedHashMap<String, SessionContextDO>();
+    private final Map<String, SessionContextDO> inFlightEntries = new HashMap<String, SessionContextDO>();
+    private final int capacity;
+    private final int batchSize;
+    private final long flushInterval;
+    private final SessionDataPersistStatistics statistics;
+
+    /**
+     * @param capacity      maximum number of changes kept by the task
+     * @param batchSize     maximum number of changes written in a batch
+     * @param flushInterval time in milliseconds a change is kept before it is written
+     * @param statistics    statistics to update
+     */
+    public SessionDataPersistTask(int capacity, int batchSize, long flushInterval,
+                                  SessionDataPersistStatistics statistics) {
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Queues a change to be written. A session data entry of null removes the session data.
+     *
+     * @param sessionContextDO change to write
+     * @return false if the change could not be queued since the task is full
+     */
+    public synchronized boolean offer(SessionContextDO sessionContextDO) {
+
+        String key = getKey(sessionContextDO.getKey(), sessionContextDO.getType());
+        SessionContextDO existing = pendingEntries.get(key);
+        if (existing != null) {
+            // the earlier change has not been written yet and is replaced by this change
+            sessionContextDO.setQueuedTime(existing.getQueuedTime());
+            pendingEntries.put(key, sessionContextDO);
+            statistics.recordCoalesced();
+            return true;
+        }
+
+        if (pendingEntries.size() >= capacity) {
+            return false;
+        }
+        pendingEntries.put(key, sessionContextDO);
+        statistics.recordQueued();
+        if (pendingEntries.size() == 1 || pendingEntries.size() >= batchSize) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * @param key  session data key
+     * @param type session data type
+     * @return the change of the session data which has not been committed yet, or null if there is none
+     */
+    public synchronized SessionContextDO getPendingEntry(String key, String type) {
+
+        String taskKey = getKey(key, type);
+        SessionContextDO pendingEntry = pendingEntries.get(taskKey);
+        if (pendingEntry == null) {
+            pendingEntry = inFlightEntries.get(taskKey);
+        }
+        return pendingEntry;
+    }
+
+    /**
+     * Waits until the batch which is being written does not contain a change of the session data, so that a
+     * change written by the caller is not overwritten by the older change of the batch
+     *
+     * @param key  session data key
+     * @param type session data type
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void awaitInFlightEntry(String key, String type) throws InterruptedException {
+
+        String taskKey = getKey(key, type);
+        while (inFlightEntries.containsKey(taskKey)) {
+            wait();
+        }
     }
 
     @Override
@@ -43,22 +126,75 @@ public class SessionDataPersistTask implements Runnable {
         while (true) {
 
             try {
-                SessionContextDO sessionContextDO = sessionContextQueue.take();
-                if (sessionContextDO != null) {
-                    if (sessionContextDO.getEntry() == null) {
-                        log.debug("Session Data removing Task is started to run");
-                        SessionDataStore.getInstance().removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType());
-                    } else {
-                        log.debug("Session Data persisting Task is started to run");
-                        SessionDataStore.getInstance().persistSessionData(sessionContextDO.getKey(),
-                                sessionContextDO.getType(), sessionContextDO.getEntry());
-                    }
+                List<SessionContextDO> batch = takeBatch();
+                if (log.isDebugEnabled()) {
+                    log.debug("Persisting a batch of " + batch.size() + " session data changes");
+                }
+                try {
+                    SessionDataStore.getInstance().persistSessionData(batch);
+                } finally {
+                    completeBatch(batch);
                 }
+
+                long currentTime = System.currentTimeMillis();
+                for (SessionContextDO sessionContextDO : batch) {
+                    statistics.recordFlushed(currentTime - sessionContextDO.getQueuedTime());
+                }
+                statistics.recordBatch();
             } catch (InterruptedException e) {
                 //ignore
                 log.error(e);
+            } catch (RuntimeException e) {
+                // keep the consumer running for the changes queued later
+                log.error("Error while persisting session data", e);
             }
+        }
+    }
+
+    /**
+     * Waits until the oldest change has been kept for the flush interval or a full batch is queued, and
+     * moves the changes to write to the in flight changes, which are visible until the batch is committed
+     */
+    private synchronized List<SessionContextDO> takeBatch() throws InterruptedException {
 
+        while (true) {
+            if (pendingEntries.isEmpty()) {
+                wait();
+                continue;
+            }
+            if (pendingEntries.size() >= batchSize) {
+                break;
+            }
+            long waitTime = pendingEntries.values().iterator().next().getQueuedTime() + flushInterval
+                    - System.currentTimeMillis();
+            if (waitTime <= 0) {
+                break;
+            }
+            wait(waitTime);
         }
+
+        List<SessionContextDO> batch = new ArrayList<SessionContextDO>(Math.min(batchSize, pendingEntries.size()));
+        Iterator<SessionContextDO> iterator = pendingEntries.values().iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            SessionContextDO sessionContextDO = iterator.next();
+            batch.add(sessionContextDO);
+            inFlightEntries.put(getKey(sessionContextDO.getKey(), sessionContextDO.getType()), sessionContextDO);
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private synchronized void completeBatch(List<SessionContextDO> batch) {
+
+        for (SessionContextDO sessionContextDO : batch) {
+            inFlightEntries.remove(getKey(sessionContextDO.getKey(), sessionContextDO.getType()));
+        }
+        // the changes are no longer queued, whether or not they were written
+        statistics.recordDequeued(batch.size());
+        notifyAll();
+    }
+
+    private String getKey(String key, String type) {
+        return type + ":" + key;
     }
 }
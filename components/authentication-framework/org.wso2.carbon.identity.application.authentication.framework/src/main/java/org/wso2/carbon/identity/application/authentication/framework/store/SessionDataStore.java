@@ -20,17 +20,19 @@ package org.wso2.carbon.identity.application.authentication.framework.store;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 
 import java.io.*;
 import java.sql.*;
-import java.util.concurrent.BlockingDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -45,8 +47,39 @@ public class SessionDataStore {
     private static final String SQL_DELETE_SERIALIZED_OBJECT = "DELETE FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID = ? AND SESSION_TYPE=?";
     private static final String SQL_DELETE_SERIALIZED_OBJECT_TASK = "DELETE FROM IDN_AUTH_SESSION_STORE WHERE TIME_CREATED<?";
     private static final String SQL_SELECT_TIME_CREATED = "SELECT TIME_CREATED FROM IDN_AUTH_SESSION_STORE WHERE SESSION_ID =? AND SESSION_TYPE =?";
+    private static final String SQL_UPDATE_SESSION_OBJECT =
+            "UPDATE IDN_AUTH_SESSION_STORE SET SESSION_OBJECT =? WHERE SESSION_ID =? AND SESSION_TYPE=?";
+
+    // upserts keep the creation time of existing session data. Parameters are the session id, session type,
+    // session object and creation time
+    private static final String SQL_UPSERT_MYSQL = "INSERT INTO IDN_AUTH_SESSION_STORE(SESSION_ID, SESSION_TYPE, " +
+            "SESSION_OBJECT, TIME_CREATED) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE SESSION_OBJECT=VALUES(SESSION_OBJECT)";
+    private static final String SQL_UPSERT_POSTGRESQL = "INSERT INTO IDN_AUTH_SESSION_STORE(SESSION_ID, SESSION_TYPE, " +
+            "SESSION_OBJECT, TIME_CREATED) VALUES (?, ?, ?, ?) ON CONFLICT (SESSION_ID, SESSION_TYPE) DO UPDATE SET " +
+            "SESSION_OBJECT=EXCLUDED.SESSION_OBJECT";
+    // merge statements take the session object twice. Parameters are the session id, session type, session
+    // object, session object and creation time
+    private static final String SQL_MERGE_ORACLE = "MERGE INTO IDN_AUTH_SESSION_STORE T USING (SELECT ? SESSION_ID, ? " +
+            "SESSION_TYPE FROM DUAL) S ON (T.SESSION_ID=S.SESSION_ID AND T.SESSION_TYPE=S.SESSION_TYPE) WHEN MATCHED " +
+            "THEN UPDATE SET T.SESSION_OBJECT=? WHEN NOT MATCHED THEN INSERT (SESSION_ID, SESSION_TYPE, SESSION_OBJECT, " +
+            "TIME_CREATED) VALUES (S.SESSION_ID, S.SESSION_TYPE, ?, ?)";
+    private static final String SQL_MERGE_MSSQL = "MERGE INTO IDN_AUTH_SESSION_STORE WITH (HOLDLOCK) AS T USING " +
+            "(VALUES (?, ?)) AS S (SESSION_ID, SESSION_TYPE) ON (T.SESSION_ID=S.SESSION_ID AND " +
+            "T.SESSION_TYPE=S.SESSION_TYPE) WHEN MATCHED THEN UPDATE SET T.SESSION_OBJECT=? WHEN NOT MATCHED THEN " +
+            "INSERT (SESSION_ID, SESSION_TYPE, SESSION_OBJECT, TIME_CREATED) VALUES (S.SESSION_ID, S.SESSION_TYPE, ?, ?);";
+    private static final String SQL_MERGE_DB2 = "MERGE INTO IDN_AUTH_SESSION_STORE T USING (VALUES (CAST(? AS " +
+            "VARCHAR(100)), CAST(? AS VARCHAR(100)))) AS S (SESSION_ID, SESSION_TYPE) ON (T.SESSION_ID=S.SESSION_ID " +
+            "AND T.SESSION_TYPE=S.SESSION_TYPE) WHEN MATCHED THEN UPDATE SET T.SESSION_OBJECT=? WHEN NOT MATCHED THEN " +
+            "INSERT (SESSION_ID, SESSION_TYPE, SESSION_OBJECT, TIME_CREATED) VALUES (S.SESSION_ID, S.SESSION_TYPE, ?, ?)";
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_FLUSH_INTERVAL = 200;
+    private static final int DEFAULT_STATISTICS_LOG_INTERVAL = 300;
+
     private static int maxPoolSize = 100;
-    private static BlockingDeque<SessionContextDO> sessionContextQueue = new LinkedBlockingDeque<SessionContextDO>();
+    private static SessionDataPersistTask[] persistTasks;
+    private static SessionDataPersistStatistics persistStatistics = new SessionDataPersistStatistics();
     private static Log log = LogFactory.getLog(SessionDataStore.class);
     static {
 
@@ -59,10 +92,45 @@ public class SessionDataStore {
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
 
+            // session data is partitioned among the consumers by key, so that the changes of a session are
+            // written in order
+            int queueCapacity = getIntProperty("JDBCPersistenceManager.SessionDataPersist.Queue.Capacity",
+                    DEFAULT_QUEUE_CAPACITY);
+            int batchSize = getIntProperty("JDBCPersistenceManager.SessionDataPersist.Queue.BatchSize",
+                    DEFAULT_BATCH_SIZE);
+            int flushInterval = getIntProperty("JDBCPersistenceManager.SessionDataPersist.Queue.FlushInterval",
+                    DEFAULT_FLUSH_INTERVAL);
+            int taskCapacity = Math.max(1, queueCapacity / maxPoolSize);
+
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
+            persistTasks = new SessionDataPersistTask[maxPoolSize];
 
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new SessionDataPersistTask(sessionContextQueue));
+                persistTasks[i] = new SessionDataPersistTask(taskCapacity, batchSize, flushInterval,
+                        persistStatistics);
+                threadPool.execute(persistTasks[i]);
+            }
+
+            int statisticsLogInterval = getIntProperty(
+                    "JDBCPersistenceManager.SessionDataPersist.Statistics.LogInterval", DEFAULT_STATISTICS_LOG_INTERVAL);
+            if (statisticsLogInterval > 0) {
+                ScheduledExecutorService statisticsLogger = Executors.newSingleThreadScheduledExecutor(
+                        new ThreadFactory() {
+                            @Override
+                            public Thread newThread(Runnable runnable) {
+                                Thread thread = new Thread(runnable, "SessionDataPersistStatisticsLogger");
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                statisticsLogger.scheduleWithFixedDelay(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (log.isDebugEnabled()) {
+                            log.debug(persistStatistics.toString());
+                        }
+                    }
+                }, statisticsLogInterval, statisticsLogInterval, TimeUnit.SECONDS);
             }
         }
 
@@ -76,6 +144,13 @@ public class SessionDataStore {
     private String sqlCheck;
     private String sqlSelect;
     private String sqlDeleteTask;
+    private SessionSerializer sessionSerializer;
+    private SessionSerializer javaSerializer = new JavaSessionSerializer();
+    private boolean customUpdateQuery;
+    private boolean customCleanUpQuery;
+    private boolean upsertResolved;
+    private String sqlUpsert;
+    private boolean mergeUpsert;
 
     private SessionDataStore() {
         try {
@@ -95,6 +170,7 @@ public class SessionDataStore {
             }
             if (sqlUpdate != null && sqlUpdate.trim().length() > 0) {
                 this.sqlUpdate = sqlUpdate;
+                customUpdateQuery = true;
             } else {
                 this.sqlUpdate = SQL_UPDATE_SERIALIZED_OBJECT;
             }
@@ -115,6 +191,7 @@ public class SessionDataStore {
             }
             if (sqlDeleteTask != null && sqlDeleteTask.trim().length() > 0) {
                 this.sqlDeleteTask = sqlDeleteTask;
+                customCleanUpQuery = true;
             } else {
                 this.sqlDeleteTask = SQL_DELETE_SERIALIZED_OBJECT_TASK;
             }
@@ -127,6 +204,25 @@ public class SessionDataStore {
             log.info("Session Data Persistence of Authentication framework is not enabled.");
         }
 
+        // session data is written with the configured serializer. Data written with Java serialization
+        // can still be read after changing the serializer
+        sessionSerializer = javaSerializer;
+        String serializerClass = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.Serializer");
+        if (serializerClass != null && serializerClass.trim().length() > 0) {
+            try {
+                sessionSerializer = (SessionSerializer) Class.forName(serializerClass.trim()).newInstance();
+            } catch (ClassNotFoundException e) {
+                log.error("Session serializer class " + serializerClass + " is not found. Using Java serialization",
+                        e);
+            } catch (InstantiationException e) {
+                log.error("Error while creating the session serializer " + serializerClass
+                        + ". Using Java serialization", e);
+            } catch (IllegalAccessException e) {
+                log.error("Error while creating the session serializer " + serializerClass
+                        + ". Using Java serialization", e);
+            }
+        }
+
         if (Boolean.parseBoolean(IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.Enable"))) {
             String sessionCleanupPeriod = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.CleanUp.Period");
             if (sessionCleanupPeriod == null || sessionCleanupPeriod.trim().length() == 0) {
@@ -154,12 +250,39 @@ public class SessionDataStore {
     }
 
 
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null && value.trim().length() > 0) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + name + " : " + value + ". Using the default value " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return statistics of the session data written by the session data persist tasks
+     */
+    public SessionDataPersistStatistics getPersistStatistics() {
+        return persistStatistics;
+    }
+
     public Object getSessionData(String key, String type) {
 
         if (!enablePersist) {
             return null;
         }
 
+        if (maxPoolSize > 0) {
+            // a change which is not written yet is newer than the session data in the database
+            SessionContextDO pendingEntry = getPersistTask(key, type).getPendingEntry(key, type);
+            if (pendingEntry != null) {
+                return pendingEntry.getEntry();
+            }
+        }
+
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
@@ -184,9 +307,6 @@ public class SessionDataStore {
         } catch (IOException e) {
             //ignore
             log.error("Error while retrieving session data", e);
-        } catch (IdentityApplicationManagementException e) {
-            //ignore
-            log.error("Error while retrieving session data", e);
         } finally {
             try {
                 if (resultSet != null) {
@@ -213,7 +333,7 @@ public class SessionDataStore {
         }
 
         if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, entry));
+            queueSessionData(new SessionContextDO(key, type, entry));
         } else {
             persistSessionData(key, type, entry);
         }
@@ -226,12 +346,39 @@ public class SessionDataStore {
         }
 
         if (maxPoolSize > 0) {
-            sessionContextQueue.push(new SessionContextDO(key, type, null));
+            queueSessionData(new SessionContextDO(key, type, null));
         } else {
             removeSessionData(key, type);
         }
     }
 
+    private void queueSessionData(SessionContextDO sessionContextDO) {
+
+        if (getPersistTask(sessionContextDO.getKey(), sessionContextDO.getType()).offer(sessionContextDO)) {
+            return;
+        }
+
+        // the queue is full, hence the change is written by the caller
+        persistStatistics.recordOverflow();
+        try {
+            getPersistTask(sessionContextDO.getKey(), sessionContextDO.getType())
+                    .awaitInFlightEntry(sessionContextDO.getKey(), sessionContextDO.getType());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for the session data batch to be written", e);
+        }
+        if (sessionContextDO.getEntry() == null) {
+            removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType());
+        } else {
+            persistSessionData(sessionContextDO.getKey(), sessionContextDO.getType(), sessionContextDO.getEntry());
+        }
+    }
+
+    private SessionDataPersistTask getPersistTask(String key, String type) {
+        int hash = (type + ":" + key).hashCode() & Integer.MAX_VALUE;
+        return persistTasks[hash % persistTasks.length];
+    }
+
     public void removeExpiredSessionData(Timestamp timestamp) {
 
         Connection connection = null;
@@ -264,6 +411,13 @@ public class SessionDataStore {
 
     }
 
+    /**
+     * @return true if the query removing expired session data is configured in identity.xml
+     */
+    boolean isCustomCleanUpQuery() {
+        return customCleanUpQuery;
+    }
+
     private boolean isExist(String key, String type) {
 
         if (!enablePersist) {
@@ -309,9 +463,224 @@ public class SessionDataStore {
 
     public void persistSessionData(String key, String type, Object entry) {
 
-        if (!enablePersist) {
+        List<SessionContextDO> sessionContextDOs = new ArrayList<SessionContextDO>(1);
+        sessionContextDOs.add(new SessionContextDO(key, type, entry));
+        persistSessionData(sessionContextDOs);
+    }
+
+    /**
+     * Writes the given changes in a single transaction. A session data entry of null removes the session data.
+     * If the batch fails, the changes are written one by one.
+     *
+     * @param sessionContextDOs changes to write, with at most one change for a session data key
+     */
+    public void persistSessionData(List<SessionContextDO> sessionContextDOs) {
+
+        if (!enablePersist || sessionContextDOs.isEmpty()) {
+            return;
+        }
+
+        List<SessionContextDO> storedEntries = new ArrayList<SessionContextDO>();
+        List<SessionContextDO> removedEntries = new ArrayList<SessionContextDO>();
+        for (SessionContextDO sessionContextDO : sessionContextDOs) {
+            if (sessionContextDO.getEntry() != null) {
+                storedEntries.add(sessionContextDO);
+            } else {
+                removedEntries.add(sessionContextDO);
+            }
+        }
+
+        boolean batchFailed = false;
+        Connection connection = null;
+        try {
+            connection = jdbcPersistenceManager.getDBConnection();
+            connection.setAutoCommit(false);
+            if (!removedEntries.isEmpty()) {
+                removeSessionData(connection, removedEntries);
+            }
+            if (!storedEntries.isEmpty() && !customUpdateQuery) {
+                storeSessionData(connection, storedEntries);
+            }
+            connection.commit();
+        } catch (IdentityException e) {
+            log.error("Error while storing session data", e);
+            return;
+        } catch (SQLException e) {
+            log.error("Error while storing a batch of session data. Storing them one by one", e);
+            batchFailed = true;
+            rollback(connection);
+        } catch (IOException e) {
+            log.error("Error while storing a batch of session data. Storing them one by one", e);
+            batchFailed = true;
+            rollback(connection);
+        } finally {
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                log.error("Error while closing the stream", e);
+            }
+        }
+
+        if (batchFailed) {
+            for (SessionContextDO sessionContextDO : removedEntries) {
+                removeSessionData(sessionContextDO.getKey(), sessionContextDO.getType());
+            }
+        }
+        if (batchFailed || customUpdateQuery) {
+            // a configured update query is run as it is
+            for (SessionContextDO sessionContextDO : storedEntries) {
+                persistSessionDataEntry(sessionContextDO.getKey(), sessionContextDO.getType(),
+                        sessionContextDO.getEntry());
+            }
+        }
+    }
+
+    private void removeSessionData(Connection connection, List<SessionContextDO> sessionContextDOs)
+            throws SQLException {
+
+        PreparedStatement preparedStatement = null;
+        try {
+            preparedStatement = connection.prepareStatement(sqlDelete);
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                preparedStatement.setString(1, sessionContextDO.getKey());
+                preparedStatement.setString(2, sessionContextDO.getType());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        } finally {
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+        }
+    }
+
+    private void storeSessionData(Connection connection, List<SessionContextDO> sessionContextDOs)
+            throws SQLException, IOException {
+
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        resolveUpsertQuery(connection);
+
+        PreparedStatement preparedStatement = null;
+        if (sqlUpsert != null) {
+            try {
+                preparedStatement = connection.prepareStatement(sqlUpsert);
+                for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                    byte[] sessionObject = sessionSerializer.serialize(sessionContextDO.getEntry());
+                    preparedStatement.setString(1, sessionContextDO.getKey());
+                    preparedStatement.setString(2, sessionContextDO.getType());
+                    setBinary(preparedStatement, 3, sessionObject);
+                    if (mergeUpsert) {
+                        setBinary(preparedStatement, 4, sessionObject);
+                        preparedStatement.setTimestamp(5, timestamp);
+                    } else {
+                        preparedStatement.setTimestamp(4, timestamp);
+                    }
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            } finally {
+                if (preparedStatement != null) {
+                    preparedStatement.close();
+                }
+            }
+            return;
+        }
+
+        // update the existing session data and insert the rest
+        List<SessionContextDO> newEntries = new ArrayList<SessionContextDO>();
+        try {
+            preparedStatement = connection.prepareStatement(SQL_UPDATE_SESSION_OBJECT);
+            for (SessionContextDO sessionContextDO : sessionContextDOs) {
+                setBlobObject(preparedStatement, sessionContextDO.getEntry(), 1);
+                preparedStatement.setString(2, sessionContextDO.getKey());
+                preparedStatement.setString(3, sessionContextDO.getType());
+                preparedStatement.addBatch();
+            }
+            int[] updateCounts = preparedStatement.executeBatch();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] == 0) {
+                    newEntries.add(sessionContextDOs.get(i));
+                }
+            }
+        } finally {
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+        }
+
+        if (newEntries.isEmpty()) {
             return;
         }
+        preparedStatement = null;
+        try {
+            preparedStatement = connection.prepareStatement(sqlStore);
+            for (SessionContextDO sessionContextDO : newEntries) {
+                preparedStatement.setString(1, sessionContextDO.getKey());
+                preparedStatement.setString(2, sessionContextDO.getType());
+                setBlobObject(preparedStatement, sessionContextDO.getEntry(), 3);
+                preparedStatement.setTimestamp(4, timestamp);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        } finally {
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+        }
+    }
+
+    /**
+     * Finds the upsert query of the database, or the configured one. If the database has no known upsert
+     * query, session data is updated and then inserted if it does not exist.
+     */
+    private synchronized void resolveUpsertQuery(Connection connection) throws SQLException {
+
+        if (upsertResolved) {
+            return;
+        }
+
+        String configuredUpsert = IdentityUtil.getProperty("JDBCPersistenceManager.SessionDataPersist.SQL.Upsert");
+        if (configuredUpsert != null && configuredUpsert.trim().length() > 0) {
+            sqlUpsert = configuredUpsert;
+        } else {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String driverName = metaData.getDriverName();
+            if (driverName.contains("MySQL")) {
+                sqlUpsert = SQL_UPSERT_MYSQL;
+            } else if (driverName.contains("PostgreSQL") && (metaData.getDatabaseMajorVersion() > 9 ||
+                    (metaData.getDatabaseMajorVersion() == 9 && metaData.getDatabaseMinorVersion() >= 5))) {
+                sqlUpsert = SQL_UPSERT_POSTGRESQL;
+            } else if (driverName.contains("MS SQL") || driverName.contains("Microsoft")) {
+                sqlUpsert = SQL_MERGE_MSSQL;
+                mergeUpsert = true;
+            } else if (driverName.contains("Oracle")) {
+                sqlUpsert = SQL_MERGE_ORACLE;
+                mergeUpsert = true;
+            } else if (driverName.contains("DB2") || driverName.contains("IBM Data Server")) {
+                sqlUpsert = SQL_MERGE_DB2;
+                mergeUpsert = true;
+            }
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Session data is stored with " + (sqlUpsert != null ? sqlUpsert : "update and insert queries"));
+        }
+        upsertResolved = true;
+    }
+
+    private void rollback(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.error("Error while rolling back session data", e);
+            }
+        }
+    }
+
+    private void persistSessionDataEntry(String key, String type, Object entry) {
 
         boolean isExist = isExist(key, type);
 
@@ -411,40 +780,34 @@ public class SessionDataStore {
     private void setBlobObject(PreparedStatement prepStmt, Object value, int index)
             throws SQLException, IOException {
         if (value != null) {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ObjectOutputStream oos = new ObjectOutputStream(baos);
-            oos.writeObject(value);
-            oos.flush();
-            oos.close();
-            InputStream inputStream = new ByteArrayInputStream(baos.toByteArray());
-            if (inputStream != null) {
-                prepStmt.setBinaryStream(index, inputStream, inputStream.available());
-            } else {
-                prepStmt.setBinaryStream(index, inputStream, 0);
-            }
+            setBinary(prepStmt, index, sessionSerializer.serialize(value));
         } else {
             prepStmt.setBinaryStream(index, null, 0);
         }
     }
 
-    private Object getBlobObject(InputStream is) throws IdentityApplicationManagementException,
-            IOException, ClassNotFoundException {
+    private void setBinary(PreparedStatement prepStmt, int index, byte[] bytes) throws SQLException {
+        prepStmt.setBinaryStream(index, new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    private Object getBlobObject(InputStream is) throws IOException, ClassNotFoundException {
         if (is != null) {
-            BufferedReader br = null;
-            Object object = null;
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int length;
             try {
-                ObjectInput ois = new ObjectInputStream(is);
-                object = ois.readObject();
-            } finally {
-                if (br != null) {
-                    try {
-                        br.close();
-                    } catch (IOException e) {
-                        throw new IdentityApplicationManagementException(e);
-                    }
+                while ((length = is.read(buffer)) != -1) {
+                    baos.write(buffer, 0, length);
                 }
+            } finally {
+                is.close();
+            }
+
+            byte[] bytes = baos.toByteArray();
+            if (sessionSerializer.canDeserialize(bytes)) {
+                return sessionSerializer.deserialize(bytes);
             }
-            return object;
+            return javaSerializer.deserialize(bytes);
         }
         return null;
     }
@@ -0,0 +1,49 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.application.authentication.framework.store;
+
+import java.io.IOException;
+
+/**
+ * Converts the session data persisted by the {@link SessionDataStore} to and from bytes. The serializer
+ * used to store session data can be set with JDBCPersistenceManager.SessionDataPersist.Serializer.
+ */
+public interface SessionSerializer {
+
+    /**
+     * @param entry session data to serialize
+     * @return serialized session data
+     * @throws IOException if the session data can not be serialized
+     */
+    byte[] serialize(Object entry) throws IOException;
+
+    /**
+     * @param data serialized session data
+     * @return session data
+     * @throws IOException            if the data is not valid
+     * @throws ClassNotFoundException if a class of the session data can not be found
+     */
+    Object deserialize(byte[] data) throws IOException, ClassNotFoundException;
+
+    /**
+     * @param data serialized session data
+     * @return whether the data was written by this serializer
+     */
+    boolean canDeserialize(byte[] data);
+}
@@ -54,6 +54,28 @@ public class EntitlementService implements XACMLHandler {
         }
     }
 
+    /**
+     * Evaluates the given XACML requests in a single call and returns the Responses in the same
+     * order. Requests are evaluated in parallel by the EntitlementEngine
+     *
+     * @param requests XACML requests as String Objects
+     * @return XACML responses as String Objects
+     * @throws EntitlementException throws
+     */
+    public String[] getDecisions(String[] requests) throws EntitlementException {
+
+        if (requests == null || requests.length == 0) {
+            return new String[0];
+        }
+        try {
+            EntitlementEngine entitlementEngine = EntitlementEngine.getInstance();
+            return entitlementEngine.evaluate(requests);
+        } catch (Exception e) {
+            log.error("Error occurred while evaluating XACML requests", e);
+            throw new EntitlementException("Error occurred while evaluating XACML requests");
+        }
+    }
+
     /**
      * Evaluates the given XACML request and returns the Response that the EntitlementEngine will
      * hand back to the PEP. Here PEP does not need construct the XACML request before sending it to the
@@ -236,16 +236,30 @@ public class PDPConstants {
 
     public static final String MAX_POLICY_REFERENCE_ENTRIES = "PDP.References.MaxPolicyEntries";
 
+    public static final String POLICY_LOADING_THREAD_POOL_SIZE = "PDP.PolicyLoading.ThreadPoolSize";
+
     public static final int MAX_NO_OF_IN_MEMORY_POLICIES = 10;
 
     public static final String DECISION_CACHING = "PDP.DecisionCaching.Enable";
 
     public static final String DECISION_CACHING_INTERVAL = "PDP.DecisionCaching.CachingInterval";
 
+    public static final String DECISION_INVALIDATION_CHECK_INTERVAL = "PDP.DecisionCaching.InvalidationCheckInterval";
+
     public static final String ATTRIBUTE_CACHING = "PDP.AttributeCaching.Enable";
 
     public static final String ATTRIBUTE_CACHING_INTERVAL = "PDP.AttributeCaching.CachingInterval";
 
+    public static final String ATTRIBUTE_FINDER_THREAD_POOL_SIZE = "PDP.AttributeFinder.ThreadPoolSize";
+
+    public static final String ATTRIBUTE_FINDER_QUEUE_SIZE = "PDP.AttributeFinder.QueueSize";
+
+    public static final String ATTRIBUTE_FINDER_TIMEOUT = "PDP.AttributeFinder.Timeout";
+
+    public static final String ATTRIBUTE_FINDER_FAILURE_THRESHOLD = "PDP.AttributeFinder.CircuitBreaker.FailureThreshold";
+
+    public static final String ATTRIBUTE_FINDER_CIRCUIT_OPEN_INTERVAL = "PDP.AttributeFinder.CircuitBreaker.OpenInterval";
+
     public static final String RESOURCE_CACHING = "PDP.ResourceCaching.Enable";
 
     public static final String RESOURCE_CACHING_INTERVAL = "PDP.DecisionCaching.CachingInterval";
@@ -258,6 +272,11 @@ public class PDPConstants {
 
     public static final String MULTIPLE_DECISION_PROFILE_ENABLE = "PDP.Multiple.Decision.Profile.Enable";
 
+    public static final String BATCH_EVALUATION_THREAD_POOL_SIZE = "PDP.BatchEvaluation.ThreadPoolSize";
+
+    public static final String BATCH_EVALUATION_SHARE_SUBJECT_ATTRIBUTES =
+            "PDP.BatchEvaluation.ShareSubjectAttributes";
+
     public static final String FILESYSTEM_POLICY_PATH = "PAP.Policy.Add.Start.Policy.File.Path";
 
     public static final String START_UP_POLICY_ADDING = "PAP.Policy.Add.Start.Enable";
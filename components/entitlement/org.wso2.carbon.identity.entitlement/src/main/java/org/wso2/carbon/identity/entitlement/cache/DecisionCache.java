@@ -27,30 +27,50 @@ import org.wso2.carbon.identity.entitlement.PDPConstants;
 /**
  * Decision cache
  */
-public class DecisionCache extends EntitlementBaseCache<IdentityCacheKey, String> {
+public class DecisionCache extends EntitlementBaseCache<IdentityCacheKey, DecisionCacheEntry> {
+
+    private DecisionCacheStatistics statistics = new DecisionCacheStatistics();
 
     public DecisionCache(int timeOut) {
         super(CachingConstants.LOCAL_CACHE_PREFIX + PDPConstants.PDP_DECISION_CACHE, timeOut);
     }
 
-    public void addToCache(String key, String decision) {
+    /**
+     * Adds the decision to the cache
+     *
+     * @param key        decision cache key of the request
+     * @param decision   XACML response as String
+     * @param generation decision cache generation of the tenant when the decision was evaluated
+     */
+    public void addToCache(String key, String decision, int generation) {
 
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, key);
-        addToCache(cacheKey, decision);
+        addToCache(cacheKey, new DecisionCacheEntry(decision, generation));
     }
 
-    public String getFromCache(String key) {
+    /**
+     * Returns the cached decision if it belongs to the given generation. Entries of older
+     * generations are removed.
+     *
+     * @param key        decision cache key of the request
+     * @param generation current decision cache generation of the tenant
+     * @return XACML response as String or null
+     */
+    public String getFromCache(String key, int generation) {
 
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, key);
-
-
-        Object entry = getValueFromCache(cacheKey);
+        DecisionCacheEntry entry = getValueFromCache(cacheKey);
         if (entry != null) {
-            return (String) entry;
+            if (entry.getGeneration() == generation) {
+                statistics.recordHit();
+                return entry.getDecision();
+            }
+            clearCacheEntry(cacheKey);
+            statistics.recordInvalidation();
         }
-
+        statistics.recordMiss();
         return null;
     }
 
@@ -58,4 +78,8 @@ public class DecisionCache extends EntitlementBaseCache<IdentityCacheKey, String
         clear();
     }
 
+    public DecisionCacheStatistics getStatistics() {
+        return statistics;
+    }
+
 }
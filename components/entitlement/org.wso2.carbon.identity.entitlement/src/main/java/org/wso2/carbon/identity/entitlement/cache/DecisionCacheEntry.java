@@ -0,0 +1,45 @@
+/*
+*  Copyright (c)  WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import java.io.Serializable;
+
+/**
+ * Decision cache entry which is stamped with the decision cache generation of the tenant at
+ * the time that the decision was evaluated. Entries of older generations are stale.
+ */
+public class DecisionCacheEntry implements Serializable {
+
+    private static final long serialVersionUID = -2573529373414928137L;
+    private String decision;
+    private int generation;
+
+    public DecisionCacheEntry(String decision, int generation) {
+        this.decision = decision;
+        this.generation = generation;
+    }
+
+    public String getDecision() {
+        return decision;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+*  Copyright (c)  WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.cache;
+
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.xacml3.Attributes;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds compact decision cache keys. Keys are 128 bit digests of the canonical form of the
+ * request, so that requests which differ only in white spaces, ordering of the attributes or
+ * namespace prefixes share the same cache entry.
+ */
+public class DecisionCacheKeyBuilder {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final int KEY_LENGTH = 16;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private DecisionCacheKeyBuilder() {
+    }
+
+    /**
+     * Builds the key from the attributes of the request
+     *
+     * @param requestCtx Balana Object model for request
+     * @return cache key or null if request can not be canonicalized, i.e it contains
+     * &lt;Content&gt; elements or multiple requests references
+     */
+    public static String getKey(AbstractRequestCtx requestCtx) {
+
+        if (requestCtx.getAttributesSet() == null) {
+            return null;
+        }
+
+        if (requestCtx instanceof org.wso2.balana.ctx.xacml3.RequestCtx &&
+                ((org.wso2.balana.ctx.xacml3.RequestCtx) requestCtx).getMultiRequests() != null) {
+            return null;
+        }
+
+        List<String> tuples = new ArrayList<String>();
+        for (Attributes attributes : requestCtx.getAttributesSet()) {
+            if (attributes.getContent() != null) {
+                return null;
+            }
+            String category = String.valueOf(attributes.getCategory());
+            for (Attribute attribute : attributes.getAttributes()) {
+                List<String> values = new ArrayList<String>();
+                for (AttributeValue value : attribute.getAttributeValues()) {
+                    values.add(value.encode());
+                }
+                Collections.sort(values);
+                StringBuilder tuple = new StringBuilder();
+                appendComponent(tuple, category);
+                appendComponent(tuple, String.valueOf(attribute.getId()));
+                appendComponent(tuple, String.valueOf(attribute.getType()));
+                appendComponent(tuple, attribute.getIssuer());
+                appendComponent(tuple, Boolean.toString(attribute.isIncludeInResult()));
+                for (String value : values) {
+                    appendComponent(tuple, value);
+                }
+                tuples.add(tuple.toString());
+            }
+        }
+        Collections.sort(tuples);
+
+        List<String> components = new ArrayList<String>();
+        components.add(Integer.toString(requestCtx.getXacmlVersion()));
+        if (requestCtx instanceof org.wso2.balana.ctx.xacml3.RequestCtx) {
+            org.wso2.balana.ctx.xacml3.RequestCtx xacml3RequestCtx =
+                    (org.wso2.balana.ctx.xacml3.RequestCtx) requestCtx;
+            components.add(Boolean.toString(xacml3RequestCtx.isReturnPolicyIdList()));
+            components.add(Boolean.toString(xacml3RequestCtx.isCombinedDecision()));
+        }
+        components.addAll(tuples);
+        return digest(components.toArray(new String[components.size()]));
+    }
+
+    /**
+     * Builds the key from the given values. Values are length prefixed, therefore different
+     * combinations of values never share the same key.
+     *
+     * @param values values of the request
+     * @return cache key
+     */
+    public static String getKey(String... values) {
+        return digest(values);
+    }
+
+    private static void appendComponent(StringBuilder builder, String component) {
+        if (component == null) {
+            builder.append("-1:");
+        } else {
+            builder.append(component.length()).append(':').append(component);
+        }
+    }
+
+    private static String digest(String[] components) {
+
+        StringBuilder builder = new StringBuilder();
+        for (String component : components) {
+            appendComponent(builder, component);
+        }
+
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available in every JVM
+            throw new IllegalStateException("Digest algorithm " + DIGEST_ALGORITHM + " is not available", e);
+        }
+        byte[] digest = messageDigest.digest(builder.toString().getBytes(UTF_8));
+
+        char[] key = new char[KEY_LENGTH * 2];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            key[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0x0f];
+            key[2 * i + 1] = HEX_DIGITS[digest[i] & 0x0f];
+        }
+        return new String(key);
+    }
+}
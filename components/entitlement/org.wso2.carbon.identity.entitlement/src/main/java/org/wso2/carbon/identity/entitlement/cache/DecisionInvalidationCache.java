@@ -21,17 +21,38 @@ package org.wso2.carbon.identity.entitlement.cache;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.internal.EntitlementServiceComponent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- *
+ * Shared cache that is used to notify the PDPs of the cluster that the cached decisions are no
+ * longer valid.
+ * <p/>
+ * Each node keeps a local decision cache generation per tenant. It is incremented when the
+ * decisions are invalidated on this node and when the shared counter is found to be changed by
+ * a background check, so that evaluating threads do not need to read the shared cache.
  */
 public class DecisionInvalidationCache extends EntitlementBaseCache<IdentityCacheKey, IdentityCacheEntry> {
 
     private static final Object lock = new Object();
     private static DecisionInvalidationCache decisionInvalidationCache = null;
     private static Log log = LogFactory.getLog(DecisionInvalidationCache.class);
+    private static final long DEFAULT_CHECK_INTERVAL = 1;
     private int myHashCode;
+    /**
+     * local decision cache generations against the tenant id
+     */
+    private Map<Integer, TenantGeneration> generations = new ConcurrentHashMap<Integer, TenantGeneration>();
+    private volatile ScheduledExecutorService invalidationChecker;
 
     private DecisionInvalidationCache() {
         super(PDPConstants.PDP_DECISION_INVALIDATION_CACHE);
@@ -58,9 +79,17 @@ public class DecisionInvalidationCache extends EntitlementBaseCache<IdentityCach
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
 
         IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, "");
-        int valueToCache = myHashCode + 1;
+        // shared value must always be changed, so that other nodes notice the invalidation
+        IdentityCacheEntry sharedEntry = getValueFromCache(cacheKey);
+        int valueToCache = Math.max(myHashCode, sharedEntry != null ? sharedEntry.getHashEntry() : 0) + 1;
         IdentityCacheEntry cacheEntry = new IdentityCacheEntry(valueToCache);
         addToCache(cacheKey, cacheEntry);
+
+        TenantGeneration generation = generations.get(tenantId);
+        if (generation != null) {
+            generation.sharedHashCode = valueToCache;
+            generation.generation.incrementAndGet();
+        }
         if (log.isDebugEnabled()) {
             log.debug("My Hash code of Decision cache is : " + myHashCode);
             log.debug("Adding Shared Hash of Decision cache : " + valueToCache);
@@ -88,4 +117,128 @@ public class DecisionInvalidationCache extends EntitlementBaseCache<IdentityCach
 
         return false;
     }
+
+    /**
+     * Returns the local decision cache generation of the current tenant. This does not read the
+     * shared cache.
+     *
+     * @return decision cache generation
+     */
+    public int getGeneration() {
+
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        TenantGeneration generation = generations.get(tenantId);
+        if (generation == null || invalidationChecker == null) {
+            synchronized (lock) {
+                generation = generations.get(tenantId);
+                if (generation == null) {
+                    generation = new TenantGeneration(CarbonContext.getThreadLocalCarbonContext().getTenantDomain());
+                    generations.put(tenantId, generation);
+                }
+                startInvalidationChecker();
+            }
+        }
+        return generation.generation.get();
+    }
+
+    /**
+     * Starts the background check of the shared counters of the tenants that use generations
+     */
+    private void startInvalidationChecker() {
+
+        if (invalidationChecker != null) {
+            return;
+        }
+
+        long interval = DEFAULT_CHECK_INTERVAL;
+        String intervalProperty = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties().
+                getProperty(PDPConstants.DECISION_INVALIDATION_CHECK_INTERVAL);
+        if (intervalProperty != null) {
+            try {
+                interval = Long.parseLong(intervalProperty.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + PDPConstants.DECISION_INVALIDATION_CHECK_INTERVAL +
+                        ". Using default value : " + DEFAULT_CHECK_INTERVAL);
+            }
+        }
+
+        invalidationChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "EntitlementDecisionInvalidationCheck");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        invalidationChecker.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (Map.Entry<Integer, TenantGeneration> entry : generations.entrySet()) {
+                    try {
+                        checkSharedHashCode(entry.getKey(), entry.getValue());
+                    } catch (Exception e) {
+                        log.error("Error while checking decision cache invalidation for tenantId : " +
+                                entry.getKey(), e);
+                    }
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background check of the shared counters. It is started again when a generation is
+     * read next time
+     */
+    public void stopInvalidationChecker() {
+
+        synchronized (lock) {
+            if (invalidationChecker != null) {
+                invalidationChecker.shutdownNow();
+                invalidationChecker = null;
+            }
+            // changes made while the check is stopped are not noticed
+            for (TenantGeneration generation : generations.values()) {
+                generation.generation.incrementAndGet();
+            }
+        }
+    }
+
+    private void checkSharedHashCode(int tenantId, TenantGeneration generation) {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext context = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            context.setTenantId(tenantId);
+            context.setTenantDomain(generation.tenantDomain);
+            IdentityCacheEntry entry = getValueFromCache(new IdentityCacheKey(tenantId, ""));
+            if (entry == null) {
+                return;
+            }
+            int hashCode = entry.getHashEntry();
+            if (generation.sharedHashCode != hashCode) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Shared Hash code of Decision cache is changed from : " +
+                            generation.sharedHashCode + " to : " + hashCode + " for tenantId : " + tenantId);
+                }
+                generation.sharedHashCode = hashCode;
+                generation.generation.incrementAndGet();
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Local decision cache generation of a tenant
+     */
+    private static class TenantGeneration {
+
+        private final String tenantDomain;
+        private final AtomicInteger generation = new AtomicInteger();
+        private volatile int sharedHashCode;
+
+        private TenantGeneration(String tenantDomain) {
+            this.tenantDomain = tenantDomain;
+        }
+    }
 }
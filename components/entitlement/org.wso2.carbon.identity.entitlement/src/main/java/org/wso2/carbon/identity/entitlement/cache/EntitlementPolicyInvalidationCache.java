@@ -23,15 +23,27 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
- *
+ * Shared cache that is used to notify the PDPs of the cluster about the policy changes.
+ * A counter is kept per tenant and the identifiers of the changed policies are kept against each
+ * value of the counter, so that the PDPs can reload only the changed policies.
  */
 public class EntitlementPolicyInvalidationCache extends EntitlementBaseCache<IdentityCacheKey, IdentityCacheEntry> {
 
     private static final Object lock = new Object();
+    private static final String POLICY_CHANGE_KEY_PREFIX = "POLICY_CHANGE_";
+    /**
+     * max number of policy changes that are merged when reloading. if the PDP has missed more
+     * changes, all the policies are reloaded
+     */
+    private static final int MAX_POLICY_CHANGES = 100;
     private static EntitlementPolicyInvalidationCache entitlementPolicyCache = null;
     private static Log log = LogFactory.getLog(EntitlementPolicyInvalidationCache.class);
-    private int myHashCode;
+    private volatile int myHashCode;
 
     private EntitlementPolicyInvalidationCache() {
         super(PDPConstants.ENTITLEMENT_POLICY_INVALIDATION_CACHE);
@@ -53,17 +65,48 @@ public class EntitlementPolicyInvalidationCache extends EntitlementBaseCache<Ide
         return entitlementPolicyCache;
     }
 
+    /**
+     * Notifies that all the policies of the current tenant must be reloaded
+     */
     public void invalidateCache() {
+        invalidateCache(null);
+    }
+
+    /**
+     * Notifies that the given policy of the current tenant has been changed
+     *
+     * @param policyId identifier of the changed policy. If <code>null</code>, all the policies
+     *                 must be reloaded
+     */
+    public void invalidateCache(String policyId) {
 
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
 
         IdentityCacheKey cacheKey = new IdentityCacheKey(tenantId, "");
-        int valueToCache = myHashCode + 1;
+        // shared value must always be changed, so that the changes of other nodes are not overwritten
+        IdentityCacheEntry sharedEntry = getValueFromCache(cacheKey);
+        int valueToCache = Math.max(myHashCode, sharedEntry != null ? sharedEntry.getHashEntry() : 0) + 1;
+
+        // policy changes must be available before the counter is updated
+        IdentityCacheKey changeKey = new IdentityCacheKey(tenantId, POLICY_CHANGE_KEY_PREFIX + valueToCache);
+        IdentityCacheEntry changeEntry = getValueFromCache(changeKey);
+        if (policyId != null && (changeEntry == null || changeEntry.getCacheEntrySet() != null)) {
+            // another node may have written the changes of the same value
+            Set<String> policyIds = new HashSet<String>();
+            if (changeEntry != null) {
+                policyIds.addAll(changeEntry.getCacheEntrySet());
+            }
+            policyIds.add(policyId);
+            addToCache(changeKey, new IdentityCacheEntry(policyIds));
+        } else {
+            clearCacheEntry(changeKey);
+        }
+
         IdentityCacheEntry cacheEntry = new IdentityCacheEntry(valueToCache);
         addToCache(cacheKey, cacheEntry);
         if (log.isDebugEnabled()) {
             log.debug("My Hash code of Policy cache is : " + myHashCode);
-            log.debug("Adding Shared Hash of Policy cache : " + valueToCache);
+            log.debug("Adding Shared Hash of Policy cache : " + valueToCache + " for policy : " + policyId);
         }
     }
 
@@ -91,4 +134,53 @@ public class EntitlementPolicyInvalidationCache extends EntitlementBaseCache<Ide
 
         return false;
     }
+
+    /**
+     * Returns the policies that have been changed since the last check.
+     *
+     * @return empty set if no policy has been changed, identifiers of the changed policies or
+     * <code>null</code> if all the policies must be reloaded
+     */
+    public Set<String> getInvalidatedPolicies() {
+
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        IdentityCacheEntry entry = getValueFromCache(new IdentityCacheKey(tenantId, ""));
+        if (entry == null || entry.getHashEntry() <= myHashCode) {
+            return Collections.emptySet();
+        }
+        return getInvalidatedPolicies(tenantId, entry.getHashEntry());
+    }
+
+    private synchronized Set<String> getInvalidatedPolicies(int tenantId, int hashCode) {
+
+        // changes may have been taken by another thread while waiting
+        if (hashCode <= myHashCode) {
+            return Collections.emptySet();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("My Hash code of Policy cache is : " + myHashCode);
+            log.debug("Shared Hash code of Policy cache is : " + hashCode);
+        }
+
+        Set<String> policyIds = null;
+        if (hashCode - myHashCode <= MAX_POLICY_CHANGES) {
+            policyIds = new HashSet<String>();
+            for (int i = myHashCode + 1; i <= hashCode; i++) {
+                IdentityCacheEntry changeEntry = getValueFromCache(new IdentityCacheKey(tenantId,
+                        POLICY_CHANGE_KEY_PREFIX + i));
+                if (changeEntry == null || changeEntry.getCacheEntrySet() == null) {
+                    // change is not known or all the policies have been changed
+                    policyIds = null;
+                    break;
+                }
+                policyIds.addAll(changeEntry.getCacheEntrySet());
+            }
+        }
+
+        myHashCode = hashCode;
+        if (Integer.MAX_VALUE == myHashCode) {
+            myHashCode = 0;
+        }
+        return policyIds;
+    }
 }
@@ -30,10 +30,13 @@ import org.wso2.carbon.base.ServerConfigurationException;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.entitlement.EntitlementUtil;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
+import org.wso2.carbon.identity.entitlement.cache.DecisionInvalidationCache;
 import org.wso2.carbon.identity.entitlement.dto.PolicyDTO;
 import org.wso2.carbon.identity.entitlement.listener.CacheClearingUserOperationListener;
 import org.wso2.carbon.identity.entitlement.listener.UserOperationsNotificationListener;
 import org.wso2.carbon.identity.entitlement.pap.store.PAPPolicyStore;
+import org.wso2.carbon.identity.entitlement.pdp.EntitlementEngine;
+import org.wso2.carbon.identity.entitlement.pip.CarbonAttributeFinder;
 import org.wso2.carbon.identity.entitlement.thrift.EntitlementService;
 import org.wso2.carbon.identity.entitlement.thrift.ThriftConfigConstants;
 import org.wso2.carbon.identity.entitlement.thrift.ThriftEntitlementServiceImpl;
@@ -270,6 +273,9 @@ public class EntitlementServiceComponent {
      * @param ctxt
      */
     protected void deactivate(ComponentContext ctxt) {
+        DecisionInvalidationCache.getInstance().stopInvalidationChecker();
+        CarbonAttributeFinder.shutdownLookupPools();
+        EntitlementEngine.shutdownBatchEvaluationPool();
         if (log.isDebugEnabled()) {
             log.debug("Identity Entitlement bundle is deactivated");
         }
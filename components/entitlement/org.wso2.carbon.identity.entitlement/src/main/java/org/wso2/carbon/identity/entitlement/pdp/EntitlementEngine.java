@@ -24,17 +24,24 @@ import org.wso2.balana.Balana;
 import org.wso2.balana.PDP;
 import org.wso2.balana.PDPConfig;
 import org.wso2.balana.ParsingException;
+import org.wso2.balana.XACMLConstants;
+import org.wso2.balana.attr.AttributeValue;
 import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
 import org.wso2.balana.ctx.RequestCtxFactory;
 import org.wso2.balana.ctx.ResponseCtx;
 import org.wso2.balana.finder.*;
 import org.wso2.balana.finder.impl.CurrentEnvModule;
 import org.wso2.balana.finder.impl.SelectorModule;
+import org.wso2.balana.xacml3.Attributes;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.EntitlementUtil;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 import org.wso2.carbon.identity.entitlement.cache.DecisionCache;
+import org.wso2.carbon.identity.entitlement.cache.DecisionCacheKeyBuilder;
+import org.wso2.carbon.identity.entitlement.cache.DecisionCacheStatistics;
 import org.wso2.carbon.identity.entitlement.cache.DecisionInvalidationCache;
 import org.wso2.carbon.identity.entitlement.cache.EntitlementEngineCache;
 import org.wso2.carbon.identity.entitlement.cache.SimpleDecisionCache;
@@ -53,6 +60,12 @@ import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 public class EntitlementEngine {
 
@@ -74,6 +87,9 @@ public class EntitlementEngine {
     private static EntitlementEngine entitlementEngine;
     private DecisionCache decisionCache = null;
     private SimpleDecisionCache simpleDecisionCache = null;
+    private boolean shareSubjectAttributes = true;
+    private static volatile boolean batchEvaluationPoolCreated;
+    private static ExecutorService batchEvaluationPool;
 
     private EntitlementEngine(int tenantId) {
 
@@ -122,6 +138,11 @@ public class EntitlementEngine {
             }
         }
 
+        String shareAttributes = properties.getProperty(PDPConstants.BATCH_EVALUATION_SHARE_SUBJECT_ATTRIBUTES);
+        if (shareAttributes != null) {
+            shareSubjectAttributes = Boolean.parseBoolean(shareAttributes.trim());
+        }
+
         //init caches
         decisionCache = new DecisionCache(pdpDecisionCachingInterval);
         simpleDecisionCache = new SimpleDecisionCache(pdpDecisionCachingInterval);
@@ -220,39 +241,276 @@ public class EntitlementEngine {
      */
 
     public String evaluate(String xacmlRequest) throws EntitlementException, ParsingException {
+        return evaluate(xacmlRequest, null);
+    }
+
+    /**
+     * Evaluates the given XACML requests and returns the Responses in the same order. Requests are
+     * grouped by their subject attributes and groups are evaluated in parallel. Requests of a
+     * group are evaluated one after the other by the same thread, so that subject attribute values
+     * retrieved from PIP attribute finders are shared among them
+     *
+     * @param xacmlRequests XACML requests as Strings
+     * @return XACML responses as Strings
+     * @throws EntitlementException throws, if any of the requests can not be evaluated
+     */
+    public String[] evaluate(String[] xacmlRequests) throws EntitlementException {
+
+        final String[] xacmlResponses = new String[xacmlRequests.length];
+        final AbstractRequestCtx[] requestCtxs = new AbstractRequestCtx[xacmlRequests.length];
+        Map<String, List<Integer>> subjectGroups = new LinkedHashMap<String, List<Integer>>();
+
+        for (int i = 0; i < xacmlRequests.length; i++) {
+            requestCtxs[i] = getRequestCtx(xacmlRequests[i]);
+            String subjectKey = null;
+            if (requestCtxs[i] != null) {
+                subjectKey = getSubjectKey(requestCtxs[i]);
+            }
+            if (subjectKey == null) {
+                // requests without a known subject are evaluated on their own
+                subjectKey = "#" + i;
+            }
+            List<Integer> group = subjectGroups.get(subjectKey);
+            if (group == null) {
+                group = new ArrayList<Integer>();
+                subjectGroups.put(subjectKey, group);
+            }
+            group.add(i);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug(xacmlRequests.length + " XACML requests are evaluated as " + subjectGroups.size() +
+                    " subject groups");
+        }
+
+        ExecutorService evaluationPool = getBatchEvaluationPool();
+        if (subjectGroups.size() == 1 || evaluationPool == null) {
+            for (List<Integer> group : subjectGroups.values()) {
+                evaluateGroup(xacmlRequests, requestCtxs, xacmlResponses, group);
+            }
+            return xacmlResponses;
+        }
+
+        final String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        final String[] requests = xacmlRequests;
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (final List<Integer> group : subjectGroups.values()) {
+            futures.add(evaluationPool.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    try {
+                        PrivilegedCarbonContext context = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                        context.setTenantId(tenantId);
+                        context.setTenantDomain(tenantDomain);
+                        evaluateGroup(requests, requestCtxs, xacmlResponses, group);
+                        return null;
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                }
+            }));
+        }
+
+        try {
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EntitlementException("Interrupted while evaluating XACML requests", e);
+        } catch (ExecutionException e) {
+            throw new EntitlementException("Error while evaluating XACML requests", e.getCause());
+        } finally {
+            for (Future<Object> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return xacmlResponses;
+    }
+
+    /**
+     * Evaluates the requests of one subject group
+     *
+     * @param xacmlRequests  XACML requests of the batch
+     * @param requestCtxs    parsed requests of the batch
+     * @param xacmlResponses XACML responses of the batch
+     * @param group          indexes of the requests that belong to the group
+     * @throws EntitlementException throws, if any of the requests can not be evaluated
+     */
+    private void evaluateGroup(String[] xacmlRequests, AbstractRequestCtx[] requestCtxs,
+                               String[] xacmlResponses, List<Integer> group) throws EntitlementException {
+
+        boolean shareAttributes = shareSubjectAttributes && group.size() > 1;
+        if (shareAttributes) {
+            CarbonAttributeFinder.startSubjectScope();
+        }
+        try {
+            for (int i : group) {
+                try {
+                    xacmlResponses[i] = evaluate(xacmlRequests[i], requestCtxs[i]);
+                } catch (ParsingException e) {
+                    throw new EntitlementException("Error while evaluating XACML request", e);
+                }
+            }
+        } finally {
+            if (shareAttributes) {
+                CarbonAttributeFinder.endSubjectScope();
+            }
+        }
+    }
+
+    /**
+     * Builds a key from the subject category attributes of the request. Requests having the same
+     * key contain identical subject attributes
+     *
+     * @param requestCtx Balana Object model for request
+     * @return key or null, if the request does not contain subject attributes
+     */
+    private String getSubjectKey(AbstractRequestCtx requestCtx) {
+
+        List<String> values = new ArrayList<String>();
+        for (Attributes attributes : requestCtx.getAttributesSet()) {
+            if (!XACMLConstants.SUBJECT_CATEGORY.equals(attributes.getCategory().toString())) {
+                continue;
+            }
+            if (attributes.getContent() != null) {
+                return null;
+            }
+            for (Attribute attribute : attributes.getAttributes()) {
+                for (AttributeValue value : attribute.getAttributeValues()) {
+                    values.add(attribute.getId() + "|" + attribute.getType() + "|" +
+                            attribute.getIssuer() + "|" + value.encode());
+                }
+            }
+        }
+        if (values.isEmpty()) {
+            return null;
+        }
+        Collections.sort(values);
+        return DecisionCacheKeyBuilder.getKey(values.toArray(new String[values.size()]));
+    }
+
+    /**
+     * Returns the thread pool that is used to evaluate batches of XACML requests. The pool is shared by
+     * all tenants and is sized once from the entitlement configuration
+     *
+     * @return ExecutorService or null, if batches are evaluated in the calling thread
+     */
+    private static ExecutorService getBatchEvaluationPool() {
+        if (!batchEvaluationPoolCreated) {
+            synchronized (lock) {
+                if (!batchEvaluationPoolCreated) {
+                    int batchEvaluationThreads = Runtime.getRuntime().availableProcessors();
+                    String batchThreads = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties().
+                            getProperty(PDPConstants.BATCH_EVALUATION_THREAD_POOL_SIZE);
+                    if (batchThreads != null) {
+                        try {
+                            batchEvaluationThreads = Integer.parseInt(batchThreads.trim());
+                        } catch (NumberFormatException e) {
+                            log.error("Invalid value for " + PDPConstants.BATCH_EVALUATION_THREAD_POOL_SIZE +
+                                    " : " + batchThreads);
+                        }
+                    }
+                    if (batchEvaluationThreads > 1) {
+                        batchEvaluationPool = Executors.newFixedThreadPool(batchEvaluationThreads,
+                                new ThreadFactory() {
+                                    @Override
+                                    public Thread newThread(Runnable runnable) {
+                                        Thread thread = new Thread(runnable, "EntitlementBatchEvaluation");
+                                        thread.setDaemon(true);
+                                        return thread;
+                                    }
+                                });
+                    }
+                    batchEvaluationPoolCreated = true;
+                }
+            }
+        }
+        return batchEvaluationPool;
+    }
+
+    /**
+     * Stops the threads that evaluate batches of XACML requests
+     */
+    public static void shutdownBatchEvaluationPool() {
+        synchronized (lock) {
+            if (batchEvaluationPool != null) {
+                batchEvaluationPool.shutdownNow();
+                batchEvaluationPool = null;
+            }
+            batchEvaluationPoolCreated = false;
+        }
+    }
+
+    /**
+     * Evaluates the given XACML request, using the already parsed request if available
+     *
+     * @param xacmlRequest XACML request as String
+     * @param requestCtx   Balana Object model for request or null, if the request is not parsed yet
+     * @return XACML response as String
+     * @throws EntitlementException throws
+     * @throws ParsingException     throws
+     */
+    private String evaluate(String xacmlRequest, AbstractRequestCtx requestCtx)
+            throws EntitlementException, ParsingException {
 
         if (log.isDebugEnabled()) {
             log.debug("XACML Request : " + xacmlRequest);
         }
 
         String xacmlResponse;
+        String cacheKey = null;
+        int cacheGeneration = 0;
 
-        if ((xacmlResponse = getFromCache(xacmlRequest, false)) != null) {
-            if (log.isDebugEnabled()) {
-                log.debug("XACML Response : " + xacmlResponse);
+        if (pdpDecisionCacheEnable) {
+            // generation is taken before evaluating, so that a decision evaluated against changed
+            // policies is never cached as a valid decision
+            cacheGeneration = DecisionInvalidationCache.getInstance().getGeneration();
+            // cache key is built from the parsed request, so that semantically identical
+            // requests share the same entry
+            if (requestCtx == null) {
+                requestCtx = getRequestCtx(xacmlRequest);
+            }
+            if (requestCtx != null) {
+                cacheKey = DecisionCacheKeyBuilder.getKey(requestCtx);
+            }
+            if (cacheKey == null) {
+                cacheKey = DecisionCacheKeyBuilder.getKey(xacmlRequest);
+            }
+            if ((xacmlResponse = getFromCache(cacheKey, cacheGeneration, false)) != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("XACML Response : " + xacmlResponse);
+                }
+                return xacmlResponse;
             }
-            return xacmlResponse;
         }
 
         Map<PIPExtension, Properties> extensions = EntitlementServiceComponent.getEntitlementConfig()
                 .getExtensions();
 
         if (extensions != null && !extensions.isEmpty()) {
-            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
-            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
-            AbstractRequestCtx requestCtx = RequestCtxFactory.getFactory().
-                    getRequestCtx(xacmlRequestElement);
+            if (requestCtx == null) {
+                PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
+                Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
+                requestCtx = RequestCtxFactory.getFactory().getRequestCtx(xacmlRequestElement);
+            }
             Set<PIPExtension> pipExtensions = extensions.keySet();
             for (PIPExtension pipExtension : pipExtensions) {
                 pipExtension.update(requestCtx);
             }
             ResponseCtx responseCtx = pdp.evaluate(requestCtx);
             xacmlResponse = responseCtx.encode();
+        } else if (requestCtx != null) {
+            xacmlResponse = pdp.evaluate(requestCtx).encode();
         } else {
             xacmlResponse = pdp.evaluate(xacmlRequest);
         }
 
-        addToCache(xacmlRequest, xacmlResponse, false);
+        if (cacheKey != null) {
+            addToCache(cacheKey, xacmlResponse, cacheGeneration, false);
+        }
 
         if (log.isDebugEnabled()) {
             log.debug("XACML Response : " + xacmlResponse);
@@ -262,6 +520,26 @@ public class EntitlementEngine {
 
     }
 
+    /**
+     * Parses the XACML request in to the Balana object model
+     *
+     * @param xacmlRequest XACML request as String
+     * @return Balana Object model for request or null if request can not be parsed. Such requests
+     * are evaluated by the PDP as Strings, so that the PDP builds the error response
+     */
+    private AbstractRequestCtx getRequestCtx(String xacmlRequest) {
+        try {
+            PolicyRequestBuilder policyRequestBuilder = new PolicyRequestBuilder();
+            Element xacmlRequestElement = policyRequestBuilder.getXacmlRequest(xacmlRequest);
+            return RequestCtxFactory.getFactory().getRequestCtx(xacmlRequestElement);
+        } catch (Exception e) {
+            if (log.isDebugEnabled()) {
+                log.debug("XACML request can not be parsed to build the decision cache key", e);
+            }
+            return null;
+        }
+    }
+
     /**
      * Evaluates XACML request directly. This is used by advance search module.
      * Therefore caching and logging has not be implemented for this
@@ -294,10 +572,10 @@ public class EntitlementEngine {
             environmentValue = environment[0];
         }
         String response;
-        String request = (subject != null ? subject : "") + (resource != null ? resource : "") +
-                (action != null ? action : "") + (environmentValue != null ? environmentValue : "");
+        String request = DecisionCacheKeyBuilder.getKey(subject, resource, action, environmentValue);
+        int cacheGeneration = pdpDecisionCacheEnable ? DecisionInvalidationCache.getInstance().getGeneration() : 0;
 
-        if ((response = getFromCache(request, true)) != null) {
+        if ((response = getFromCache(request, cacheGeneration, true)) != null) {
             if (log.isDebugEnabled()) {
                 log.debug("XACML Request : " + EntitlementUtil.
                         createSimpleXACMLRequest(subject, resource, action, environmentValue));
@@ -316,7 +594,7 @@ public class EntitlementEngine {
 
         response = pdp.evaluate(requestAsString);
 
-        addToCache(request, response, true);
+        addToCache(request, response, cacheGeneration, true);
 
         if (log.isDebugEnabled()) {
             log.debug("XACML Response : " + response);
@@ -363,29 +641,42 @@ public class EntitlementEngine {
         return carbonPolicyFinder;
     }
 
+    /**
+     * This method returns the statistics of the decision cache for the current tenant
+     *
+     * @return DecisionCacheStatistics
+     */
+    public DecisionCacheStatistics getDecisionCacheStatistics() {
+        return decisionCache.getStatistics();
+    }
+
+    /**
+     * This method returns the statistics of the simple decision cache for the current tenant
+     *
+     * @return DecisionCacheStatistics
+     */
+    public DecisionCacheStatistics getSimpleDecisionCacheStatistics() {
+        return simpleDecisionCache.getStatistics();
+    }
+
     /**
      * get entry from decision caching
      *
-     * @param request     XACML request as String
+     * @param cacheKey    decision cache key of the request
+     * @param generation  current decision cache generation of the tenant
      * @param simpleCache whether using simple cache or not
      * @return XACML response as String
      */
-    private String getFromCache(String request, boolean simpleCache) {
+    private String getFromCache(String cacheKey, int generation, boolean simpleCache) {
 
         if (pdpDecisionCacheEnable) {
 
-            String tenantRequest = tenantId + "+" + request;
             String decision;
 
-            if (DecisionInvalidationCache.getInstance().isInvalidate()) {
-                decisionCache.clearCache();
-                simpleDecisionCache.clearCache();
-            }
-
             if (simpleCache) {
-                decision = simpleDecisionCache.getFromCache(tenantRequest);
+                decision = simpleDecisionCache.getFromCache(cacheKey, generation);
             } else {
-                decision = decisionCache.getFromCache(tenantRequest);
+                decision = decisionCache.getFromCache(cacheKey, generation);
             }
             return decision;
         }
@@ -399,17 +690,17 @@ public class EntitlementEngine {
     /**
      * put entry in to cache
      *
-     * @param request     XACML request as String
+     * @param cacheKey    decision cache key of the request
      * @param response    XACML response as String
+     * @param generation  decision cache generation of the tenant when the decision was evaluated
      * @param simpleCache whether using simple cache or not
      */
-    private void addToCache(String request, String response, boolean simpleCache) {
+    private void addToCache(String cacheKey, String response, int generation, boolean simpleCache) {
         if (pdpDecisionCacheEnable) {
-            String tenantRequest = tenantId + "+" + request;
             if (simpleCache) {
-                simpleDecisionCache.addToCache(tenantRequest, response);
+                simpleDecisionCache.addToCache(cacheKey, response, generation);
             } else {
-                decisionCache.addToCache(tenantRequest, response);
+                decisionCache.addToCache(cacheKey, response, generation);
             }
         } else {
             if (log.isDebugEnabled()) {
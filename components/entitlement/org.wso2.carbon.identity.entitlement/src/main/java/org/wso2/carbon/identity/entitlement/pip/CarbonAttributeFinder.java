@@ -21,12 +21,16 @@ package org.wso2.carbon.identity.entitlement.pip;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.balana.ParsingException;
+import org.wso2.balana.XACMLConstants;
 import org.wso2.balana.attr.AttributeValue;
 import org.wso2.balana.attr.BagAttribute;
 import org.wso2.balana.cond.EvaluationResult;
 import org.wso2.balana.ctx.EvaluationCtx;
 import org.wso2.balana.ctx.Status;
 import org.wso2.balana.finder.AttributeFinderModule;
+import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.EntitlementUtil;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 import org.wso2.carbon.identity.entitlement.cache.DecisionInvalidationCache;
@@ -40,6 +44,20 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * CarbonAttributeFinder registers with sun-xacml engine as an AttributeFinderModule and delegate
@@ -54,11 +72,60 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
     protected int tenantId;
     private Map<String, List<PIPAttributeFinder>> attrFinders = new HashMap<String, List<PIPAttributeFinder>>();
     private PIPAttributeCache attributeFinderCache = null;
+    /**
+     * subject attribute values that have been already retrieved by the current thread, for a set
+     * of requests that are evaluated for the same subject
+     */
+    private static ThreadLocal<Map<String, Set<String>>> subjectAttributes =
+            new ThreadLocal<Map<String, Set<String>>>();
+    /**
+     * attribute lookups that are in progress, so that identical concurrent lookups call the PIP
+     * attribute finder only once. Lookups are joined on the key of the attribute cache, hence only
+     * by requests with the same context
+     */
+    private ConcurrentMap<String, LookupTask> inFlightLookups = new ConcurrentHashMap<String, LookupTask>();
+    private ConcurrentMap<PIPAttributeFinder, CircuitBreaker> circuitBreakers =
+            new ConcurrentHashMap<PIPAttributeFinder, CircuitBreaker>();
+    private long lookupTimeout = 0;
+    private int failureThreshold = 0;
+    private long openInterval = DEFAULT_CIRCUIT_OPEN_INTERVAL;
+    private static final long DEFAULT_CIRCUIT_OPEN_INTERVAL = 30000;
+    /**
+     * thread pool of each PIP attribute finder, so that a finder which does not respond can only
+     * exhaust its own threads and queue
+     */
+    private static final ConcurrentMap<PIPAttributeFinder, ExecutorService> lookupPools =
+            new ConcurrentHashMap<PIPAttributeFinder, ExecutorService>();
+    private static volatile int lookupPoolSize = 0;
+    private static volatile int lookupQueueSize = 0;
+    private static final ThreadLocal<Boolean> inLookupThread = new ThreadLocal<Boolean>() {
+        @Override
+        protected Boolean initialValue() {
+            return false;
+        }
+    };
 
     public CarbonAttributeFinder(int tenantId) {
         this.tenantId = tenantId;
     }
 
+    /**
+     * Starts sharing subject attribute values among the requests evaluated by the current thread.
+     * All requests that are evaluated until {@link #endSubjectScope()} is called must contain the
+     * same subject attributes, so that the values retrieved from PIP attribute finders for the
+     * subject category can be reused without calling them again
+     */
+    public static void startSubjectScope() {
+        subjectAttributes.set(new HashMap<String, Set<String>>());
+    }
+
+    /**
+     * Stops sharing subject attribute values in the current thread
+     */
+    public static void endSubjectScope() {
+        subjectAttributes.remove();
+    }
+
     /**
      * Registers PIP attribute handlers with the PDP against their supported attributes. This PIP
      * attribute handlers are picked from pip-config.xml file - which should be inside
@@ -80,6 +147,48 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
             }
             attributeFinderCache = new PIPAttributeCache(attributeCachingInterval);
         }
+
+        String lookupThreads = properties.getProperty(PDPConstants.ATTRIBUTE_FINDER_THREAD_POOL_SIZE);
+        if (lookupThreads != null) {
+            try {
+                lookupPoolSize = Integer.parseInt(lookupThreads.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + PDPConstants.ATTRIBUTE_FINDER_THREAD_POOL_SIZE + " : " + lookupThreads);
+            }
+        }
+        lookupQueueSize = lookupPoolSize;
+        String queueSize = properties.getProperty(PDPConstants.ATTRIBUTE_FINDER_QUEUE_SIZE);
+        if (queueSize != null) {
+            try {
+                lookupQueueSize = Integer.parseInt(queueSize.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + PDPConstants.ATTRIBUTE_FINDER_QUEUE_SIZE + " : " + queueSize);
+            }
+        }
+        String timeout = properties.getProperty(PDPConstants.ATTRIBUTE_FINDER_TIMEOUT);
+        if (timeout != null) {
+            try {
+                lookupTimeout = Long.parseLong(timeout.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + PDPConstants.ATTRIBUTE_FINDER_TIMEOUT + " : " + timeout);
+            }
+        }
+        String threshold = properties.getProperty(PDPConstants.ATTRIBUTE_FINDER_FAILURE_THRESHOLD);
+        if (threshold != null) {
+            try {
+                failureThreshold = Integer.parseInt(threshold.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + PDPConstants.ATTRIBUTE_FINDER_FAILURE_THRESHOLD + " : " + threshold);
+            }
+        }
+        String interval = properties.getProperty(PDPConstants.ATTRIBUTE_FINDER_CIRCUIT_OPEN_INTERVAL);
+        if (interval != null) {
+            try {
+                openInterval = Long.parseLong(interval.trim());
+            } catch (NumberFormatException e) {
+                log.error("Invalid value for " + PDPConstants.ATTRIBUTE_FINDER_CIRCUIT_OPEN_INTERVAL + " : " + interval);
+            }
+        }
         // clear decision cache
         if (designators != null && !designators.isEmpty()) {
             Set<PIPAttributeFinder> pipAttributeFinders = designators.keySet();
@@ -143,8 +252,16 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
 
         try {
 
-            for (Iterator iterator = finders.iterator(); iterator.hasNext(); ) {
-                PIPAttributeFinder pipAttributeFinder = (PIPAttributeFinder) iterator.next();
+            Map<String, Set<String>> sharedAttributes = subjectAttributes.get();
+            boolean subjectCategory = XACMLConstants.SUBJECT_CATEGORY.equals(category.toString());
+            String lookupKey = null;
+            String[] subjectKeys = new String[finders.size()];
+            Object[] results = new Object[finders.size()];
+
+            // first start the lookups of all finders, so that independent finders are queried
+            // in parallel when a thread pool is configured
+            for (int i = 0; i < finders.size(); i++) {
+                PIPAttributeFinder pipAttributeFinder = finders.get(i);
                 if (log.isDebugEnabled()) {
                     log.debug(String.format(
                             "Finding attributes with the PIP attribute handler %1$s",
@@ -152,29 +269,47 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
                 }
 
                 Set<String> attrs = null;
-                String key = null;
-
-                if (attributeFinderCache != null && !pipAttributeFinder.overrideDefaultCache()) {
-
-                    key = attributeType.toString() + attributeId.toString() + category.toString() +
-                            encodeContext(context);
-
-                    if (issuer != null) {
-                        key += issuer;
-                    }
 
-                    if (key != null) {
-                        attrs = attributeFinderCache.getFromCache(tenantId, key);
+                if (sharedAttributes != null && subjectCategory) {
+                    subjectKeys[i] = pipAttributeFinder.getClass().getName() + attributeType.toString() +
+                            attributeId.toString() + (issuer != null ? issuer : "");
+                    attrs = sharedAttributes.get(subjectKeys[i]);
+                    if (attrs != null && log.isDebugEnabled()) {
+                        log.debug("Subject attribute values are reused for the attribute " + attributeId);
                     }
                 }
 
                 if (attrs == null) {
-                    attrs = pipAttributeFinder.getAttributeValues(attributeType, attributeId, category,
-                            issuer, context);
-                    if (attributeFinderCache != null && key != null
-                            && !pipAttributeFinder.overrideDefaultCache()) {
-                        attributeFinderCache.addToCache(tenantId, key, attrs);
+                    if (lookupKey == null) {
+                        lookupKey = attributeType.toString() + attributeId.toString() + category.toString() +
+                                encodeContext(context);
+                        if (issuer != null) {
+                            lookupKey += issuer;
+                        }
                     }
+                    if (attributeFinderCache != null && !pipAttributeFinder.overrideDefaultCache()) {
+                        attrs = attributeFinderCache.getFromCache(tenantId, lookupKey);
+                    }
+                }
+
+                if (attrs != null) {
+                    results[i] = attrs;
+                } else {
+                    results[i] = lookup(pipAttributeFinder, attributeType, attributeId, category, issuer,
+                            context, lookupKey, pipAttributeFinder.getClass().getName() + "|" + lookupKey);
+                }
+            }
+
+            for (int i = 0; i < finders.size(); i++) {
+                Set<String> attrs;
+                if (results[i] instanceof LookupTask) {
+                    attrs = getLookupResult(finders.get(i), (LookupTask) results[i]);
+                } else {
+                    attrs = (Set<String>) results[i];
+                }
+
+                if (subjectKeys[i] != null && attrs != null) {
+                    sharedAttributes.put(subjectKeys[i], attrs);
                 }
 
                 if (attrs != null) {
@@ -219,6 +354,131 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
         return new EvaluationResult(new BagAttribute(attributeType, attrBag));
     }
 
+    /**
+     * Starts retrieving attribute values from the given PIP attribute finder. Identical lookups
+     * that are already in progress are joined instead of calling the attribute finder again.
+     *
+     * @return lookup of the attribute values
+     * @throws Exception if the circuit of the attribute finder is open
+     */
+    private LookupTask lookup(final PIPAttributeFinder pipAttributeFinder, final URI attributeType,
+                              final URI attributeId, final URI category, final String issuer,
+                              final EvaluationCtx context, final String lookupKey,
+                              final String flightKey) throws Exception {
+
+        LookupTask inFlight = inFlightLookups.get(flightKey);
+        if (inFlight != null) {
+            if (log.isDebugEnabled()) {
+                log.debug("Joining the attribute lookup in progress for the attribute " + attributeId);
+            }
+            return inFlight;
+        }
+
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(pipAttributeFinder);
+        if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            throw new EntitlementException("PIP attribute finder " + pipAttributeFinder.getClass().getName() +
+                    " is not called as it has failed repeatedly");
+        }
+
+        final String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+        ExecutorService lookupPool = inLookupThread.get() ? null : getLookupPool(pipAttributeFinder);
+        final boolean async = lookupPool != null;
+        final AtomicBoolean failureRecorded = new AtomicBoolean();
+        LookupTask task = new LookupTask(new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+                if (async) {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    inLookupThread.set(true);
+                }
+                try {
+                    if (async) {
+                        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                        carbonContext.setTenantId(tenantId);
+                        carbonContext.setTenantDomain(tenantDomain);
+                    }
+                    Set<String> attrs = pipAttributeFinder.getAttributeValues(attributeType, attributeId,
+                            category, issuer, context);
+                    if (attributeFinderCache != null && !pipAttributeFinder.overrideDefaultCache()) {
+                        attributeFinderCache.addToCache(tenantId, lookupKey, attrs);
+                    }
+                    if (circuitBreaker != null) {
+                        circuitBreaker.recordSuccess();
+                    }
+                    return attrs;
+                } catch (Exception e) {
+                    // the failure has already been recorded if the lookup timed out
+                    if (circuitBreaker != null && failureRecorded.compareAndSet(false, true)) {
+                        circuitBreaker.recordFailure();
+                    }
+                    throw e;
+                } finally {
+                    if (async) {
+                        inLookupThread.remove();
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                }
+            }
+        }, flightKey, circuitBreaker, failureRecorded);
+
+        inFlight = inFlightLookups.putIfAbsent(flightKey, task);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        if (async) {
+            try {
+                lookupPool.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the threads and the queue of the attribute finder are exhausted
+                task.reject(new EntitlementException("PIP attribute finder " +
+                        pipAttributeFinder.getClass().getName() + " is not called as too many lookups are pending"));
+            }
+        } else {
+            task.run();
+        }
+        return task;
+    }
+
+    /**
+     * Waits for the attribute values of a lookup, at most for the configured timeout
+     *
+     * @return attribute values
+     * @throws Exception if the lookup fails or times out
+     */
+    private Set<String> getLookupResult(PIPAttributeFinder pipAttributeFinder, LookupTask task)
+            throws Exception {
+        try {
+            if (lookupTimeout > 0 && !task.isDone()) {
+                return task.get(lookupTimeout, TimeUnit.MILLISECONDS);
+            }
+            return task.get();
+        } catch (TimeoutException e) {
+            // requests which joined the lookup do not record the same failure again
+            task.recordFailure();
+            throw new EntitlementException("PIP attribute finder " + pipAttributeFinder.getClass().getName() +
+                    " did not respond within " + lookupTimeout + "ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CircuitBreaker getCircuitBreaker(PIPAttributeFinder pipAttributeFinder) {
+        if (failureThreshold <= 0) {
+            return null;
+        }
+        CircuitBreaker circuitBreaker = circuitBreakers.get(pipAttributeFinder);
+        if (circuitBreaker == null) {
+            circuitBreaker = new CircuitBreaker(failureThreshold, openInterval);
+            CircuitBreaker existing = circuitBreakers.putIfAbsent(pipAttributeFinder, circuitBreaker);
+            if (existing != null) {
+                circuitBreaker = existing;
+            }
+        }
+        return circuitBreaker;
+    }
     /*
      * (non-Javadoc)
      *
@@ -270,6 +530,41 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
         }
     }
 
+    /**
+     * Stops the threads which query PIP attribute finders
+     */
+    public static void shutdownLookupPools() {
+        for (ExecutorService lookupPool : lookupPools.values()) {
+            lookupPool.shutdownNow();
+        }
+        lookupPools.clear();
+    }
+
+    private static ExecutorService getLookupPool(PIPAttributeFinder pipAttributeFinder) {
+
+        if (lookupPoolSize <= 0) {
+            return null;
+        }
+        ExecutorService lookupPool = lookupPools.get(pipAttributeFinder);
+        if (lookupPool == null) {
+            lookupPool = new ThreadPoolExecutor(lookupPoolSize, lookupPoolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(Math.max(lookupQueueSize, 1)), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "PIPAttributeFinderLookup");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            ExecutorService existing = lookupPools.putIfAbsent(pipAttributeFinder, lookupPool);
+            if (existing != null) {
+                lookupPool.shutdown();
+                lookupPool = existing;
+            }
+        }
+        return lookupPool;
+    }
+
     /**
      * Converts DOM object to String. This is a helper method for creating cache key
      *
@@ -282,4 +577,84 @@ public class CarbonAttributeFinder extends AttributeFinderModule {
         evaluationCtx.getRequestCtx().encode(stream);
         return stream.toString();
     }
+
+    /**
+     * Attribute lookup in progress, which is removed from the in-flight lookups when it is done.
+     * A failure of the lookup is recorded only once, however many requests wait for it.
+     */
+    private class LookupTask extends FutureTask<Set<String>> {
+
+        private final String flightKey;
+        private final CircuitBreaker circuitBreaker;
+        private final AtomicBoolean failureRecorded;
+
+        LookupTask(Callable<Set<String>> callable, String flightKey, CircuitBreaker circuitBreaker,
+                   AtomicBoolean failureRecorded) {
+            super(callable);
+            this.flightKey = flightKey;
+            this.circuitBreaker = circuitBreaker;
+            this.failureRecorded = failureRecorded;
+        }
+
+        void recordFailure() {
+            if (circuitBreaker != null && failureRecorded.compareAndSet(false, true)) {
+                circuitBreaker.recordFailure();
+            }
+        }
+
+        void reject(Exception e) {
+            setException(e);
+        }
+
+        @Override
+        protected void done() {
+            inFlightLookups.remove(flightKey, this);
+        }
+    }
+
+    /**
+     * Stops calling a PIP attribute finder for a while after it has failed for a number of
+     * consecutive lookups. Once the interval is over, a single lookup is let through and the
+     * circuit is closed again if it succeeds.
+     */
+    private static class CircuitBreaker {
+
+        private final int failureThreshold;
+        private final long openInterval;
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicBoolean trial = new AtomicBoolean();
+        private volatile long openUntil = 0;
+
+        CircuitBreaker(int failureThreshold, long openInterval) {
+            this.failureThreshold = failureThreshold;
+            this.openInterval = openInterval;
+        }
+
+        boolean allowRequest() {
+            if (openUntil == 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+            // half open, only one lookup is let through
+            return trial.compareAndSet(false, true);
+        }
+
+        void recordSuccess() {
+            failures.set(0);
+            openUntil = 0;
+            trial.set(false);
+        }
+
+        void recordFailure() {
+            if (failures.incrementAndGet() >= failureThreshold) {
+                if (openUntil == 0 && log.isDebugEnabled()) {
+                    log.debug("Opening the circuit of a PIP attribute finder for " + openInterval + "ms");
+                }
+                openUntil = System.currentTimeMillis() + openInterval;
+                trial.set(false);
+            }
+        }
+    }
 }
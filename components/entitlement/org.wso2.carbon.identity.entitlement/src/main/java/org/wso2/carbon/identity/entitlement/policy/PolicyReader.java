@@ -50,8 +50,11 @@ public class PolicyReader implements ErrorHandler {
     private static final Object lock = new Object();
     private static Log log = LogFactory.getLog(PolicyReader.class);
     private static volatile PolicyReader reader;
-    // the builder used to create DOM documents
-    private DocumentBuilder builder;
+    // the factory used to create DOM document builders
+    private DocumentBuilderFactory factory;
+    // the builders used to create DOM documents. Document builders are not thread safe, therefore
+    // each thread uses its own builder, so that policies can be parsed concurrently
+    private ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>();
 
     // policy finder module to find  policies
     private PolicyFinder policyFinder;
@@ -60,16 +63,32 @@ public class PolicyReader implements ErrorHandler {
 
         this.policyFinder = policyFinder;
         // create the factory
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory = DocumentBuilderFactory.newInstance();
         factory.setIgnoringComments(true);
         factory.setNamespaceAware(true);
         // now use the factory to create the document builder
-        try {
-            builder = factory.newDocumentBuilder();
-            builder.setErrorHandler(this);
-        } catch (ParserConfigurationException pce) {
-            throw new IllegalArgumentException("Filed to setup repository: ");
+        getBuilder();
+    }
+
+    /**
+     * Returns the document builder of the current thread
+     *
+     * @return DocumentBuilder
+     */
+    private DocumentBuilder getBuilder() {
+        DocumentBuilder builder = builders.get();
+        if (builder == null) {
+            try {
+                synchronized (factory) {
+                    builder = factory.newDocumentBuilder();
+                }
+                builder.setErrorHandler(this);
+            } catch (ParserConfigurationException pce) {
+                throw new IllegalArgumentException("Filed to setup repository: ");
+            }
+            builders.set(builder);
         }
+        return builder;
     }
 
     /**
@@ -95,7 +114,7 @@ public class PolicyReader implements ErrorHandler {
         InputStream stream = null;
         try {
             stream = new ByteArrayInputStream(policy.getBytes("UTF-8"));
-            handleDocument(builder.parse(stream));
+            handleDocument(getBuilder().parse(stream));
         } catch (Exception e) {
             return false;
         }
@@ -103,14 +122,16 @@ public class PolicyReader implements ErrorHandler {
     }
 
     /**
-     * @param policy
-     * @return
+     * Parses the policy. This can be called concurrently.
+     *
+     * @param policy policy as a String
+     * @return policy as AbstractPolicy object of Balana or null if policy can not be parsed
      */
-    public synchronized AbstractPolicy getPolicy(String policy) {
+    public AbstractPolicy getPolicy(String policy) {
         InputStream stream = null;
         try {
             stream = new ByteArrayInputStream(policy.getBytes("UTF-8"));
-            return handleDocument(builder.parse(stream));
+            return handleDocument(getBuilder().parse(stream));
         } catch (Exception e) {
             log.error("Error while parsing the policy", e);
             return null;
@@ -128,7 +149,7 @@ public class PolicyReader implements ErrorHandler {
         PolicyTarget policyTarget = new PolicyTarget();
         try {
             stream = new ByteArrayInputStream(policy.getBytes("UTF-8"));
-            AbstractPolicy abstractPolicy = handleDocument(builder.parse(stream));
+            AbstractPolicy abstractPolicy = handleDocument(getBuilder().parse(stream));
             policyTarget.setTarget(abstractPolicy.getTarget());
             policyTarget.setPolicyId(abstractPolicy.getId().toString());
             return policyTarget;
@@ -0,0 +1,461 @@
+/*
+*  Copyright (c)  WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.entitlement.policy.collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.balana.AbstractPolicy;
+import org.wso2.balana.AbstractTarget;
+import org.wso2.balana.MatchResult;
+import org.wso2.balana.Policy;
+import org.wso2.balana.PolicyReference;
+import org.wso2.balana.PolicySet;
+import org.wso2.balana.TargetMatch;
+import org.wso2.balana.VersionConstraints;
+import org.wso2.balana.XACMLConstants;
+import org.wso2.balana.attr.AttributeValue;
+import org.wso2.balana.attr.xacml3.AttributeDesignator;
+import org.wso2.balana.combine.PolicyCombiningAlgorithm;
+import org.wso2.balana.cond.Evaluatable;
+import org.wso2.balana.ctx.AbstractRequestCtx;
+import org.wso2.balana.ctx.Attribute;
+import org.wso2.balana.ctx.EvaluationCtx;
+import org.wso2.balana.xacml3.AllOf;
+import org.wso2.balana.xacml3.AnyOf;
+import org.wso2.balana.xacml3.Attributes;
+import org.wso2.balana.xacml3.Target;
+import org.wso2.carbon.identity.entitlement.EntitlementException;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Policy collection that indexes the target of each policy, so that only the candidate policies
+ * are matched against the request at evaluation time.
+ * <p/>
+ * A XACML 3.0 policy is indexed by one of its <code>AnyOf</code> elements when every
+ * <code>AllOf</code> of it contains a <code>string-equal</code> match of a literal value against an
+ * attribute designator. Such a policy can only apply when the request carries one of those
+ * attribute values. Policies that can not be indexed (no target, XACML 2.0 targets or complex
+ * matches) are kept in a wildcard bucket and always matched. If the request does not carry an
+ * indexed attribute at all, the value may still come from a PIP, therefore all the policies
+ * indexed under that attribute are matched as in the <code>SimplePolicyCollection</code>.
+ * <p/>
+ * Policies are returned in the order that they were added, like the other collections.
+ * This can be enabled with <code>PDP.Policy.Collection</code> property in entitlement.properties
+ */
+public class IndexedPolicyCollection implements PolicyCollection {
+
+    private static final String STRING_EQUAL_FUNCTION = "urn:oasis:names:tc:xacml:1.0:function:string-equal";
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private static Log log = LogFactory.getLog(IndexedPolicyCollection.class);
+
+    /**
+     * the actual collection of policies, in the order that they were added
+     */
+    private LinkedHashMap<URI, AbstractPolicy> policyCollection = new LinkedHashMap<URI, AbstractPolicy>();
+
+    /**
+     * index built from the policy collection. This is rebuilt lazily after policies are added and
+     * replaced as a whole, therefore evaluating threads never see a partially built index
+     */
+    private volatile PolicyIndex policyIndex = new PolicyIndex();
+
+    private volatile boolean indexStale = false;
+
+    /**
+     * the optional combining algorithm used when wrapping multiple policies
+     * if no algorithm is defined, only one applicable algorithm is used
+     */
+    private PolicyCombiningAlgorithm combiningAlg;
+
+    /**
+     * the optional policy id used when wrapping multiple policies
+     */
+    private URI parentId;
+
+    @Override
+    public void init(Properties properties) throws Exception {
+        String parentIdProperty = properties.getProperty("parentId");
+        if (parentIdProperty != null) {
+            parentId = new URI(parentIdProperty);
+        }
+    }
+
+    @Override
+    public synchronized boolean addPolicy(AbstractPolicy policy) {
+        boolean replaced = policyCollection.put(policy.getId(), policy) != null;
+        indexStale = true;
+        return replaced;
+    }
+
+    @Override
+    public AbstractPolicy getEffectivePolicy(EvaluationCtx context) throws EntitlementException {
+
+        PolicyIndex index = getPolicyIndex();
+
+        // setup a list of matching policies
+        ArrayList<AbstractPolicy> list = new ArrayList<AbstractPolicy>();
+
+        for (IndexedPolicy indexedPolicy : index.getCandidates(context)) {
+
+            AbstractPolicy policy = indexedPolicy.policy;
+
+            // see if we match
+            MatchResult match = policy.match(context);
+            int result = match.getResult();
+
+            // if there was an error, we stop right away
+            if (result == MatchResult.INDETERMINATE) {
+                log.error(match.getStatus().getMessage());
+                throw new EntitlementException(match.getStatus().getMessage());
+            }
+
+            // if we matched, we keep track of the matching policy...
+            if (result == MatchResult.MATCH) {
+                // ...first checking if this is the first match and if
+                // we automatically nest policies
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Matching XACML policy found " + policy.getId().toString());
+                }
+
+                if ((combiningAlg == null) && (list.size() > 0)) {
+                    log.error("Too many applicable top-level policies");
+                    throw new EntitlementException("Too many applicable top-level policies");
+                }
+
+                list.add(policy);
+            }
+        }
+
+        // no errors happened during the search, so now take the right
+        // action based on how many policies we found
+        switch (list.size()) {
+            case 0:
+                if (log.isDebugEnabled()) {
+                    log.debug("No matching XACML policy found");
+                }
+                return null;
+            case 1:
+                return list.get(0);
+            default:
+                return new PolicySet(parentId, combiningAlg, null, list);
+        }
+    }
+
+    @Override
+    public synchronized AbstractPolicy getPolicy(URI policyId) {
+        return policyCollection.get(policyId);
+    }
+
+    @Override
+    public AbstractPolicy getPolicy(URI identifier, int type, VersionConstraints constraints) {
+
+        AbstractPolicy policy = getPolicy(identifier);
+
+        if (policy != null) {
+            // we found a valid version, so see if it's the right kind,
+            // and if it is then we return it
+            if (type == PolicyReference.POLICY_REFERENCE) {
+                if (policy instanceof Policy)
+                    return policy;
+            } else {
+                if (policy instanceof PolicySet)
+                    return policy;
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void setPolicyCombiningAlgorithm(PolicyCombiningAlgorithm algorithm) {
+        this.combiningAlg = algorithm;
+    }
+
+    /**
+     * Returns the current index, rebuilding it first if policies have been added since it was
+     * built.
+     *
+     * @return current policy index
+     */
+    private PolicyIndex getPolicyIndex() {
+        if (indexStale) {
+            synchronized (this) {
+                if (indexStale) {
+                    policyIndex = new PolicyIndex(policyCollection.values());
+                    indexStale = false;
+                    if (log.isDebugEnabled()) {
+                        log.debug("Policy index is rebuilt for " + policyCollection.size() + " policies");
+                    }
+                }
+            }
+        }
+        return policyIndex;
+    }
+
+    /**
+     * Builds the key of an attribute dimension, i.e category, attribute id and data type.
+     */
+    private static String getDimensionKey(URI category, URI attributeId, URI dataType) {
+        return category + KEY_SEPARATOR + attributeId + KEY_SEPARATOR + dataType;
+    }
+
+    /**
+     * Extracts the index entries of the policy target, as a map of dimension key to attribute
+     * values. Returns null when the target can not be indexed.
+     *
+     * @param target policy target
+     * @return map of dimension key to attribute values or null
+     */
+    private static Map<String, Set<String>> getIndexEntries(AbstractTarget target) {
+
+        if (!(target instanceof Target)) {
+            return null;
+        }
+
+        List<AnyOf> anyOfs = ((Target) target).getAnyOfSelections();
+        if (anyOfs == null) {
+            return null;
+        }
+
+        // all the AnyOf elements must match, therefore any one of them is enough to index the
+        // policy. The first indexable one is used
+        for (AnyOf anyOf : anyOfs) {
+            Map<String, Set<String>> entries = getIndexEntries(anyOf);
+            if (entries != null) {
+                return entries;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Set<String>> getIndexEntries(AnyOf anyOf) {
+
+        List<AllOf> allOfs = anyOf.getAllOfSelections();
+        if (allOfs == null || allOfs.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Set<String>> entries = new HashMap<String, Set<String>>();
+        for (AllOf allOf : allOfs) {
+            boolean indexed = false;
+            List<TargetMatch> matches = allOf.getMatches();
+            if (matches != null) {
+                for (TargetMatch match : matches) {
+                    if (match.getMatchFunction() == null || !STRING_EQUAL_FUNCTION.equals(
+                            match.getMatchFunction().getIdentifier().toString())) {
+                        continue;
+                    }
+                    Evaluatable evaluatable = match.getMatchEvaluatable();
+                    Evaluatable value = match.getMatchValue();
+                    if (!(evaluatable instanceof AttributeDesignator) || !(value instanceof AttributeValue)) {
+                        continue;
+                    }
+                    AttributeDesignator designator = (AttributeDesignator) evaluatable;
+                    if (designator.getIssuer() != null) {
+                        // issuer of request attributes must be matched as well. leave it to Balana
+                        continue;
+                    }
+                    String dimension = getDimensionKey(designator.getCategory(), designator.getId(),
+                            designator.getType());
+                    Set<String> values = entries.get(dimension);
+                    if (values == null) {
+                        values = new HashSet<String>();
+                        entries.put(dimension, values);
+                    }
+                    values.add(((AttributeValue) value).encode());
+                    indexed = true;
+                    break;
+                }
+            }
+            if (!indexed) {
+                // this AllOf can match any request, so does the AnyOf
+                return null;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Policy with the order that it was added to the collection
+     */
+    private static class IndexedPolicy {
+
+        private final AbstractPolicy policy;
+
+        private final int order;
+
+        private IndexedPolicy(AbstractPolicy policy, int order) {
+            this.policy = policy;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Comparator to keep the candidates in the order that policies were added
+     */
+    private static class OrderComparator implements Comparator<IndexedPolicy> {
+
+        @Override
+        public int compare(IndexedPolicy o1, IndexedPolicy o2) {
+            return o1.order < o2.order ? -1 : (o1.order == o2.order ? 0 : 1);
+        }
+    }
+
+    /**
+     * Immutable index of the policies
+     */
+    private static class PolicyIndex {
+
+        private static final Comparator<IndexedPolicy> ORDER_COMPARATOR = new OrderComparator();
+
+        /**
+         * all the policies, used when request can not be looked up in the index
+         */
+        private final List<IndexedPolicy> allPolicies = new ArrayList<IndexedPolicy>();
+
+        /**
+         * policies that must be matched for every request
+         */
+        private final List<IndexedPolicy> wildcardPolicies = new ArrayList<IndexedPolicy>();
+
+        /**
+         * dimension key -> attribute value -> policies
+         */
+        private final Map<String, Map<String, List<IndexedPolicy>>> valueIndex =
+                new HashMap<String, Map<String, List<IndexedPolicy>>>();
+
+        /**
+         * dimension key -> policies that are indexed under the dimension
+         */
+        private final Map<String, List<IndexedPolicy>> dimensionIndex =
+                new HashMap<String, List<IndexedPolicy>>();
+
+        private PolicyIndex() {
+        }
+
+        private PolicyIndex(Iterable<AbstractPolicy> policies) {
+
+            int order = 0;
+            for (AbstractPolicy policy : policies) {
+                IndexedPolicy indexedPolicy = new IndexedPolicy(policy, order++);
+                allPolicies.add(indexedPolicy);
+
+                Map<String, Set<String>> entries = getIndexEntries(policy.getTarget());
+                if (entries == null) {
+                    wildcardPolicies.add(indexedPolicy);
+                    continue;
+                }
+
+                for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+                    List<IndexedPolicy> dimensionPolicies = dimensionIndex.get(entry.getKey());
+                    Map<String, List<IndexedPolicy>> values = valueIndex.get(entry.getKey());
+                    if (dimensionPolicies == null) {
+                        dimensionPolicies = new ArrayList<IndexedPolicy>();
+                        dimensionIndex.put(entry.getKey(), dimensionPolicies);
+                        values = new HashMap<String, List<IndexedPolicy>>();
+                        valueIndex.put(entry.getKey(), values);
+                    }
+                    dimensionPolicies.add(indexedPolicy);
+                    for (String value : entry.getValue()) {
+                        List<IndexedPolicy> valuePolicies = values.get(value);
+                        if (valuePolicies == null) {
+                            valuePolicies = new ArrayList<IndexedPolicy>();
+                            values.put(value, valuePolicies);
+                        }
+                        valuePolicies.add(indexedPolicy);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the policies that may apply to the request, in the order that they were added
+         *
+         * @param context XACML request ctx
+         * @return candidate policies
+         */
+        private List<IndexedPolicy> getCandidates(EvaluationCtx context) {
+
+            if (dimensionIndex.isEmpty()) {
+                return allPolicies;
+            }
+
+            AbstractRequestCtx requestCtx = context.getRequestCtx();
+            if (context.getXacmlVersion() != XACMLConstants.XACML_VERSION_3_0 || requestCtx == null
+                    || requestCtx.getAttributesSet() == null) {
+                return allPolicies;
+            }
+
+            // collect request attribute values by dimension
+            Map<String, Set<String>> requestValues = new HashMap<String, Set<String>>();
+            for (Attributes attributes : requestCtx.getAttributesSet()) {
+                for (Attribute attribute : attributes.getAttributes()) {
+                    String dimension = getDimensionKey(attributes.getCategory(), attribute.getId(),
+                            attribute.getType());
+                    if (!dimensionIndex.containsKey(dimension)) {
+                        continue;
+                    }
+                    Set<String> values = requestValues.get(dimension);
+                    if (values == null) {
+                        values = new HashSet<String>();
+                        requestValues.put(dimension, values);
+                    }
+                    for (AttributeValue value : attribute.getAttributeValues()) {
+                        values.add(value.encode());
+                    }
+                }
+            }
+
+            Set<IndexedPolicy> candidates = new HashSet<IndexedPolicy>(wildcardPolicies);
+            for (Map.Entry<String, List<IndexedPolicy>> entry : dimensionIndex.entrySet()) {
+                Set<String> values = requestValues.get(entry.getKey());
+                if (values == null) {
+                    // attribute is not in the request, it may be resolved by a PIP
+                    candidates.addAll(entry.getValue());
+                    continue;
+                }
+                Map<String, List<IndexedPolicy>> policiesByValue = valueIndex.get(entry.getKey());
+                for (String value : values) {
+                    List<IndexedPolicy> policies = policiesByValue.get(value);
+                    if (policies != null) {
+                        candidates.addAll(policies);
+                    }
+                }
+            }
+
+            List<IndexedPolicy> orderedCandidates = new ArrayList<IndexedPolicy>(candidates);
+            Collections.sort(orderedCandidates, ORDER_COMPARATOR);
+            return orderedCandidates;
+        }
+    }
+}
@@ -45,6 +45,17 @@ public abstract class AbstractPolicyFinderModule implements PolicyFinderModule {
         EntitlementPolicyInvalidationCache.getInstance().invalidateCache();
     }
 
+    /**
+     * This method can be called by the module when a single policy is updated, so that only
+     * that policy is reloaded by the PDPs
+     *
+     * @param policyId identifier of the updated policy
+     */
+    public static void invalidateCache(String policyId) {
+        DecisionInvalidationCache.getInstance().invalidateCache();
+        EntitlementPolicyInvalidationCache.getInstance().invalidateCache(policyId);
+    }
+
     @Override
     public String[] getOrderedPolicyIdentifiers() {
 
@@ -27,6 +27,7 @@ import org.wso2.balana.ctx.Status;
 import org.wso2.balana.finder.PolicyFinder;
 import org.wso2.balana.finder.PolicyFinderResult;
 import org.wso2.carbon.context.CarbonContext;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.identity.entitlement.EntitlementException;
 import org.wso2.carbon.identity.entitlement.PDPConstants;
 import org.wso2.carbon.identity.entitlement.cache.DecisionInvalidationCache;
@@ -39,26 +40,66 @@ import org.wso2.carbon.identity.entitlement.policy.store.DefaultPolicyDataStore;
 import org.wso2.carbon.identity.entitlement.policy.store.PolicyDataStore;
 
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Policy finder of the WSO2 entitlement engine.  This an implementation of <code>PolicyFinderModule</code>
  * of Balana engine. Extensions can be plugged with this.
+ * <p/>
+ * Policies are loaded in to a new policy collection, which then replaces the current one. When
+ * policies are changed, the new collection is built by a background thread re-parsing only the
+ * changed policies, while the requests are evaluated against the current collection.
  */
 public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModule {
 
     private static Log log = LogFactory.getLog(CarbonPolicyFinder.class);
+    /**
+     * thread that reloads the policies after they are changed
+     */
+    private static ExecutorService reloadExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "EntitlementPolicyReload");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
     public PolicyReader policyReader;
     private List<PolicyFinderModule> finderModules = null;
-    private PolicyCollection policyCollection;
+    private volatile PolicyCollection policyCollection;
     private PolicyFinder finder;
     /**
      * this is a flag to keep whether init it has finished or not.
      */
     private volatile boolean initFinish;
     private EntitlementPolicyInvalidationCache policyInvalidationCache = EntitlementPolicyInvalidationCache.getInstance();
-    private LinkedHashMap<URI, AbstractPolicy> policyReferenceCache = null;
+    private Map<URI, AbstractPolicy> policyReferenceCache = null;
     private int maxReferenceCacheEntries = PDPConstants.MAX_NO_OF_IN_MEMORY_POLICIES;
+    /**
+     * number of threads that parse policies when they are loaded. Policies are parsed by the
+     * loading thread if this is not greater than one
+     */
+    private int policyLoadingThreads = 1;
+    /**
+     * parsed policies of the current collection against the policy content. These are reused
+     * when the policies are reloaded
+     */
+    private Map<String, AbstractPolicy> parsedPolicies = new HashMap<String, AbstractPolicy>();
+    private final Object reloadLock = new Object();
+    /**
+     * changed policies that are waiting to be reloaded. <code>null</code> if all the policies must be
+     * reloaded
+     */
+    private Set<String> pendingPolicyIds = new HashSet<String>();
+    private boolean reloadScheduled;
+    private final Object pendingLock = new Object();
 
     @Override
     public void init(PolicyFinder finder) {
@@ -87,7 +128,18 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
             }
         }
 
-        policyReferenceCache = new LinkedHashMap<URI, AbstractPolicy>() {
+        String loadingThreads = EntitlementServiceComponent.getEntitlementConfig().getEngineProperties().
+                getProperty(PDPConstants.POLICY_LOADING_THREAD_POOL_SIZE);
+
+        if (loadingThreads != null) {
+            try {
+                policyLoadingThreads = Integer.parseInt(loadingThreads.trim());
+            } catch (Exception e) {
+                //ignore
+            }
+        }
+
+        policyReferenceCache = Collections.synchronizedMap(new LinkedHashMap<URI, AbstractPolicy>() {
 
             @Override
             protected boolean removeEldestEntry(Map.Entry eldest) {
@@ -95,9 +147,8 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
                 return size() > maxReferenceCacheEntries;
             }
 
-        };
+        });
 
-        PolicyCombiningAlgorithm policyCombiningAlgorithm = null;
         // get registered finder modules
         Map<PolicyFinderModule, Properties> finderModules = EntitlementServiceComponent.
                 getEntitlementConfig().getPolicyFinderModules();
@@ -106,56 +157,231 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
             this.finderModules = new ArrayList<PolicyFinderModule>(finderModules.keySet());
         }
 
-        PolicyCollection tempPolicyCollection = null;
-
-        // get policy collection
-        Map<PolicyCollection, Properties> policyCollections = EntitlementServiceComponent.
-                getEntitlementConfig().getPolicyCollections();
-        if (policyCollections != null && policyCollections.size() > 0) {
-            tempPolicyCollection = policyCollections.entrySet().iterator().next().getKey();
-        } else {
-            tempPolicyCollection = new SimplePolicyCollection();
-        }
-
         // get policy reader
         policyReader = PolicyReader.getInstance(finder);
 
-        if (this.finderModules != null && this.finderModules.size() > 0) {
-            // find policy combining algorithm.
+        loadPolicies(null);
 
-            // here we can get policy data store by using EntitlementAdminEngine. But we are not
-            // use it here.  As we need not to have a dependant on EntitlementAdminEngine
-            PolicyDataStore policyDataStore;
-            Map<PolicyDataStore, Properties> dataStoreModules = EntitlementServiceComponent.
-                    getEntitlementConfig().getPolicyDataStore();
-            if (dataStoreModules != null && dataStoreModules.size() > 0) {
-                policyDataStore = dataStoreModules.entrySet().iterator().next().getKey();
+        initFinish = true;
+        log.info("Initializing of policy store is finished at :  " + new Date());
+    }
+
+    /**
+     * Builds a new policy collection from the active policies of the finder modules and replaces
+     * the current collection with it. Policies that have not been changed are not parsed again.
+     *
+     * @param changedPolicyIds identifiers of the changed policies or <code>null</code> if all the
+     *                         policies must be parsed again
+     */
+    private void loadPolicies(Set<String> changedPolicyIds) {
+
+        synchronized (reloadLock) {
+
+            PolicyCollection tempPolicyCollection = createPolicyCollection();
+            Map<String, AbstractPolicy> tempParsedPolicies = new HashMap<String, AbstractPolicy>();
+
+            if (this.finderModules != null && this.finderModules.size() > 0) {
+                // find policy combining algorithm.
+
+                // here we can get policy data store by using EntitlementAdminEngine. But we are not
+                // use it here.  As we need not to have a dependant on EntitlementAdminEngine
+                PolicyDataStore policyDataStore;
+                Map<PolicyDataStore, Properties> dataStoreModules = EntitlementServiceComponent.
+                        getEntitlementConfig().getPolicyDataStore();
+                if (dataStoreModules != null && dataStoreModules.size() > 0) {
+                    policyDataStore = dataStoreModules.entrySet().iterator().next().getKey();
+                } else {
+                    policyDataStore = new DefaultPolicyDataStore();
+                }
+                PolicyCombiningAlgorithm policyCombiningAlgorithm = policyDataStore.getGlobalPolicyAlgorithm();
+
+                tempPolicyCollection.setPolicyCombiningAlgorithm(policyCombiningAlgorithm);
+
+                ExecutorService parserPool = null;
+                if (policyLoadingThreads > 1) {
+                    parserPool = Executors.newFixedThreadPool(policyLoadingThreads);
+                }
+
+                try {
+                    for (PolicyFinderModule finderModule : this.finderModules) {
+                        log.info("Start retrieving policies from " + finderModule + " at : " + new Date());
+                        long startTime = System.currentTimeMillis();
+                        String[] policies = finderModule.getActivePolicies();
+                        AbstractPolicy[] abstractPolicies = new AbstractPolicy[policies.length];
+                        int parsedCount = 0;
+                        for (int i = 0; i < policies.length; i++) {
+                            if (changedPolicyIds != null) {
+                                abstractPolicies[i] = parsedPolicies.get(policies[i]);
+                                if (abstractPolicies[i] != null &&
+                                        changedPolicyIds.contains(abstractPolicies[i].getId().toString())) {
+                                    abstractPolicies[i] = null;
+                                }
+                            }
+                            if (abstractPolicies[i] == null) {
+                                parsedCount++;
+                            }
+                        }
+                        parsePolicies(policies, abstractPolicies, parserPool);
+                        // policies are added in the order that they are returned by the module
+                        for (int i = 0; i < policies.length; i++) {
+                            if (abstractPolicies[i] != null) {
+                                tempPolicyCollection.addPolicy(abstractPolicies[i]);
+                                tempParsedPolicies.put(policies[i], abstractPolicies[i]);
+                            }
+                        }
+                        log.info("Finish retrieving policies from " + finderModule + " at : " + new Date() +
+                                ". Loaded " + policies.length + " policies, parsed " + parsedCount +
+                                " policies in " + (System.currentTimeMillis() - startTime) + " ms");
+                    }
+                } finally {
+                    if (parserPool != null) {
+                        parserPool.shutdown();
+                    }
+                }
             } else {
-                policyDataStore = new DefaultPolicyDataStore();
+                log.warn("No Carbon policy finder modules are registered");
             }
-            policyCombiningAlgorithm = policyDataStore.getGlobalPolicyAlgorithm();
 
-            tempPolicyCollection.setPolicyCombiningAlgorithm(policyCombiningAlgorithm);
+            parsedPolicies = tempParsedPolicies;
+            policyCollection = tempPolicyCollection;
 
-            for (PolicyFinderModule finderModule : this.finderModules) {
-                log.info("Start retrieving policies from " + finderModule + " at : " + new Date());
-                String[] policies = finderModule.getActivePolicies();
-                for (String policy : policies) {
-                    AbstractPolicy abstractPolicy = policyReader.getPolicy(policy);
-                    if (abstractPolicy != null) {
-                        tempPolicyCollection.addPolicy(abstractPolicy);
+            if (changedPolicyIds == null) {
+                policyReferenceCache.clear();
+            } else {
+                for (String policyId : changedPolicyIds) {
+                    try {
+                        policyReferenceCache.remove(new URI(policyId));
+                    } catch (URISyntaxException e) {
+                        // not a policy reference
+                        policyReferenceCache.clear();
                     }
                 }
-                log.info("Finish retrieving policies from " + finderModule + " at : " + new Date());
             }
-        } else {
-            log.warn("No Carbon policy finder modules are registered");
+        }
+    }
+
+    /**
+     * Parses the policies that are not parsed yet. Policies are parsed concurrently, if a thread
+     * pool is given.
+     *
+     * @param policies         policies as Strings
+     * @param abstractPolicies parsed policies. Policies that are not parsed yet are null and
+     *                         replaced with the parsed policy
+     * @param parserPool       thread pool to parse policies or <code>null</code>
+     */
+    private void parsePolicies(final String[] policies, AbstractPolicy[] abstractPolicies,
+                               ExecutorService parserPool) {
 
+        if (parserPool == null) {
+            for (int i = 0; i < policies.length; i++) {
+                if (abstractPolicies[i] == null) {
+                    abstractPolicies[i] = policyReader.getPolicy(policies[i]);
+                }
+            }
+            return;
         }
 
-        policyCollection = tempPolicyCollection;
-        initFinish = true;
-        log.info("Initializing of policy store is finished at :  " + new Date());
+        Map<Integer, Future<AbstractPolicy>> futures = new HashMap<Integer, Future<AbstractPolicy>>();
+        for (int i = 0; i < policies.length; i++) {
+            if (abstractPolicies[i] == null) {
+                final String policy = policies[i];
+                futures.put(i, parserPool.submit(new Callable<AbstractPolicy>() {
+                    @Override
+                    public AbstractPolicy call() throws Exception {
+                        return policyReader.getPolicy(policy);
+                    }
+                }));
+            }
+        }
+
+        for (Map.Entry<Integer, Future<AbstractPolicy>> entry : futures.entrySet()) {
+            try {
+                abstractPolicies[entry.getKey()] = entry.getValue().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while parsing policies", e);
+            } catch (ExecutionException e) {
+                log.error("Error while parsing the policy", e);
+            }
+        }
+    }
+
+    /**
+     * Creates an empty policy collection of the configured type
+     *
+     * @return new PolicyCollection
+     */
+    private PolicyCollection createPolicyCollection() {
+
+        Map<PolicyCollection, Properties> policyCollections = EntitlementServiceComponent.
+                getEntitlementConfig().getPolicyCollections();
+        if (policyCollections != null && policyCollections.size() > 0) {
+            Map.Entry<PolicyCollection, Properties> entry = policyCollections.entrySet().iterator().next();
+            try {
+                PolicyCollection collection = entry.getKey().getClass().newInstance();
+                collection.init(entry.getValue());
+                return collection;
+            } catch (Exception e) {
+                log.error("Error while creating policy collection " + entry.getKey().getClass().getName() +
+                        ". Using default policy collection", e);
+            }
+        }
+        return new SimplePolicyCollection();
+    }
+
+    /**
+     * Schedules the given policies to be reloaded by the background thread. Changes that are received
+     * while a reload is scheduled are merged in to it.
+     *
+     * @param changedPolicyIds identifiers of the changed policies or <code>null</code> if all the
+     *                         policies must be reloaded
+     */
+    private void scheduleReload(Set<String> changedPolicyIds) {
+
+        synchronized (pendingLock) {
+            if (pendingPolicyIds != null) {
+                if (changedPolicyIds == null) {
+                    pendingPolicyIds = null;
+                } else {
+                    pendingPolicyIds.addAll(changedPolicyIds);
+                }
+            }
+            if (reloadScheduled) {
+                return;
+            }
+            reloadScheduled = true;
+        }
+
+        final int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        final String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+
+        reloadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Set<String> policyIds;
+                synchronized (pendingLock) {
+                    policyIds = pendingPolicyIds;
+                    pendingPolicyIds = new HashSet<String>();
+                    reloadScheduled = false;
+                }
+                PrivilegedCarbonContext.startTenantFlow();
+                try {
+                    PrivilegedCarbonContext context = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                    context.setTenantId(tenantId);
+                    context.setTenantDomain(tenantDomain);
+                    loadPolicies(policyIds);
+                    DecisionInvalidationCache.getInstance().invalidateCache();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Policies are reloaded for tenantId : " + tenantId + " Changed policies : " +
+                                (policyIds == null ? "all" : policyIds.toString()));
+                    }
+                } catch (Exception e) {
+                    log.error("Error while reloading policies for tenantId : " + tenantId, e);
+                } finally {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }
+        });
     }
 
     @Override
@@ -176,15 +402,14 @@ public class CarbonPolicyFinder extends org.wso2.balana.finder.PolicyFinderModul
     @Override
     public PolicyFinderResult findPolicy(EvaluationCtx context) {
 
-        if (policyInvalidationCache.isInvalidate()) {
-            init(this.finder);
-            policyReferenceCache.clear();
-            DecisionInvalidationCache.getInstance().invalidateCache();
+        Set<String> invalidatedPolicies = policyInvalidationCache.getInvalidatedPolicies();
+        if (invalidatedPolicies == null || !invalidatedPolicies.isEmpty()) {
+            // current policy collection is used until the changed policies are reloaded
+            scheduleReload(invalidatedPolicies);
             if (log.isDebugEnabled()) {
                 int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
                 log.debug("Invalidation cache message is received. " +
-                        "Re-initialized policy finder module of current node and invalidate decision " +
-                        "caching for tenantId : " + tenantId);
+                        "Reloading policies of current node for tenantId : " + tenantId);
             }
         }
 
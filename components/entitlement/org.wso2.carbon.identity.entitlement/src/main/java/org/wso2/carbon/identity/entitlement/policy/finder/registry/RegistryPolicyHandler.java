@@ -19,6 +19,8 @@
 package org.wso2.carbon.identity.entitlement.policy.finder.registry;
 
 import org.wso2.carbon.identity.entitlement.policy.store.RegistryPolicyStoreManageModule;
+import org.wso2.carbon.registry.core.Collection;
+import org.wso2.carbon.registry.core.RegistryConstants;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.jdbc.handlers.Handler;
 import org.wso2.carbon.registry.core.jdbc.handlers.RequestContext;
@@ -31,16 +33,37 @@ public class RegistryPolicyHandler extends Handler {
     @Override
     public void put(RequestContext requestContext) throws RegistryException {
 
-        RegistryPolicyStoreManageModule.invalidateCache();
+        // policies are stored as child resources of the policy store collection. Therefore
+        // putting the collection itself does not change any policy
+        if (!(requestContext.getResource() instanceof Collection)) {
+            RegistryPolicyStoreManageModule.invalidateCache(getPolicyId(requestContext));
+        }
         super.put(requestContext);
     }
 
     @Override
     public void delete(RequestContext requestContext) throws RegistryException {
 
-        RegistryPolicyStoreManageModule.invalidateCache();
+        RegistryPolicyStoreManageModule.invalidateCache(getPolicyId(requestContext));
         super.delete(requestContext);
     }
 
+    /**
+     * Policy resources are named with the policy id
+     *
+     * @param requestContext registry request context
+     * @return policy id or null if it can not be derived from the resource path
+     */
+    private String getPolicyId(RequestContext requestContext) {
+
+        if (requestContext.getResourcePath() == null) {
+            return null;
+        }
+        String path = requestContext.getResourcePath().getPath();
+        if (path == null || path.endsWith(RegistryConstants.PATH_SEPARATOR)) {
+            return null;
+        }
+        return path.substring(path.lastIndexOf(RegistryConstants.PATH_SEPARATOR) + 1);
+    }
 
 }
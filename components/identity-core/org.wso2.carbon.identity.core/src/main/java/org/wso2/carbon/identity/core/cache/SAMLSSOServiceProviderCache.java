@@ -0,0 +1,138 @@
+/*
+*  Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.identity.core.cache;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.Serializable;
+
+/**
+ * Caches the SAML SSO service providers stored in the registry, keyed by tenant and issuer, along with
+ * the full service provider list of each tenant. Entries are removed whenever a service provider of the
+ * tenant is added or removed, and the removal is propagated to the other nodes of the cluster by the
+ * Carbon caching layer.
+ */
+public class SAMLSSOServiceProviderCache {
+
+    private static final String SAMLSSO_CACHE_MANAGER = "SAMLSSOCacheManager";
+    private static final String CACHE_NAME = "SAMLSSOServiceProviderCache";
+
+    private static SAMLSSOServiceProviderCache instance = new SAMLSSOServiceProviderCache();
+
+    private SAMLSSOServiceProviderCache() {
+    }
+
+    public static SAMLSSOServiceProviderCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param tenantId tenant id
+     * @param issuer   issuer of the service provider
+     * @return cached service provider, or null if it is not in the cache
+     */
+    public SAMLSSOServiceProviderDO getServiceProvider(int tenantId, String issuer) {
+        return (SAMLSSOServiceProviderDO) get(buildKey(tenantId, issuer));
+    }
+
+    public void addServiceProvider(int tenantId, SAMLSSOServiceProviderDO serviceProviderDO) {
+        put(buildKey(tenantId, serviceProviderDO.getIssuer()), serviceProviderDO);
+    }
+
+    /**
+     * @param tenantId tenant id
+     * @return cached service providers of the tenant, or null if they are not in the cache
+     */
+    public SAMLSSOServiceProviderDO[] getServiceProviders(int tenantId) {
+        return (SAMLSSOServiceProviderDO[]) get(String.valueOf(tenantId));
+    }
+
+    public void addServiceProviders(int tenantId, SAMLSSOServiceProviderDO[] serviceProviders) {
+        put(String.valueOf(tenantId), serviceProviders);
+    }
+
+    /**
+     * Removes the service provider and the service provider list of the tenant
+     *
+     * @param tenantId tenant id
+     * @param issuer   issuer of the service provider
+     */
+    public void clearServiceProvider(int tenantId, String issuer) {
+        remove(buildKey(tenantId, issuer));
+        remove(String.valueOf(tenantId));
+    }
+
+    /**
+     * Issuer keys always contain a ':' so they never collide with the tenant id used as the list key
+     */
+    private String buildKey(int tenantId, String issuer) {
+        return tenantId + ":" + issuer;
+    }
+
+    private Serializable get(String key) {
+        try {
+            startSuperTenantFlow();
+            Cache<String, Serializable> cache = getCache();
+            return cache != null ? cache.get(key) : null;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void put(String key, Serializable value) {
+        try {
+            startSuperTenantFlow();
+            Cache<String, Serializable> cache = getCache();
+            if (cache != null) {
+                cache.put(key, value);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void remove(String key) {
+        try {
+            startSuperTenantFlow();
+            Cache<String, Serializable> cache = getCache();
+            if (cache != null && cache.containsKey(key)) {
+                cache.remove(key);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void startSuperTenantFlow() {
+        PrivilegedCarbonContext.startTenantFlow();
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    private Cache<String, Serializable> getCache() {
+        CacheManager cacheManager = Caching.getCacheManagerFactory().getCacheManager(SAMLSSO_CACHE_MANAGER);
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.IdentityRegistryResources;
+import org.wso2.carbon.identity.core.cache.SAMLSSOServiceProviderCache;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.registry.core.Registry;
@@ -260,6 +261,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             log.error("Error While adding Service Provider", e);
             throw new IdentityException("Error while adding Service Provider", e);
         }
+        clearCachedServiceProvider(serviceProviderDO.getIssuer());
 
         if (log.isDebugEnabled()) {
             log.debug("Service Provider " + serviceProviderDO.getIssuer()
@@ -269,6 +271,15 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
     }
 
     public SAMLSSOServiceProviderDO[] getServiceProviders() throws IdentityException {
+        SAMLSSOServiceProviderCache cache = SAMLSSOServiceProviderCache.getInstance();
+        if (registry instanceof UserRegistry) {
+            SAMLSSOServiceProviderDO[] cachedServiceProviders =
+                    cache.getServiceProviders(((UserRegistry) registry).getTenantId());
+            if (cachedServiceProviders != null) {
+                return cachedServiceProviders.clone();
+            }
+        }
+
         SAMLSSOServiceProviderDO[] serviceProvidersList = new SAMLSSOServiceProviderDO[0];
         try {
             if (registry.resourceExists(IdentityRegistryResources.SAML_SSO_SERVICE_PROVIDERS)) {
@@ -285,6 +296,9 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
             log.error("Error reading Service Providers from Registry", e);
             throw new IdentityException("Error reading Service Providers from Registry", e);
         }
+        if (registry instanceof UserRegistry) {
+            cache.addServiceProviders(((UserRegistry) registry).getTenantId(), serviceProvidersList.clone());
+        }
         return serviceProvidersList;
     }
 
@@ -315,6 +329,7 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
                         registry.commitTransaction();
                     }
 
+                    clearCachedServiceProvider(issuer);
                     return true;
 
                 } catch (RegistryException e) {
@@ -348,10 +363,17 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
         String tenantDomain = null;
         try {
             userRegistry = (UserRegistry) registry;
+            SAMLSSOServiceProviderCache cache = SAMLSSOServiceProviderCache.getInstance();
+            serviceProviderDO = cache.getServiceProvider(userRegistry.getTenantId(), issuer);
+            if (serviceProviderDO != null) {
+                return serviceProviderDO;
+            }
+
             tenantDomain = IdentityTenantUtil.getRealmService().getTenantManager().getDomain(userRegistry.getTenantId());
             if (registry.resourceExists(path)) {
                 serviceProviderDO = resourceToObject(registry.get(path));
                 serviceProviderDO.setTenantDomain(tenantDomain);
+                cache.addServiceProvider(userRegistry.getTenantId(), serviceProviderDO);
             }
         } catch (RegistryException e) {
             throw new IdentityException("Error occurred while checking if resource path \'" + path + "\' exists in " +
@@ -364,6 +386,19 @@ public class SAMLSSOServiceProviderDAO extends AbstractDAO<SAMLSSOServiceProvide
         return serviceProviderDO;
     }
 
+    /**
+     * Drops the cached copies of the service provider, on this node and on the rest of the cluster,
+     * once it is changed in the registry
+     *
+     * @param issuer issuer of the service provider
+     */
+    private void clearCachedServiceProvider(String issuer) {
+        if (registry instanceof UserRegistry) {
+            SAMLSSOServiceProviderCache.getInstance().clearServiceProvider(((UserRegistry) registry).getTenantId(),
+                    issuer);
+        }
+    }
+
     private String encodePath(String path) {
         String encodedStr = new String(Base64.encodeBase64(path.getBytes()));
         return encodedStr.replace("=", "");
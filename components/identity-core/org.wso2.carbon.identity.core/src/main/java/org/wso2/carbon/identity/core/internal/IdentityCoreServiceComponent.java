@@ -27,8 +27,10 @@ import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
 import org.wso2.carbon.identity.core.um.listener.IdentityUserMgtListener;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.util.TenantSigningKeyCache;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.security.config.SecurityConfigAdmin;
+import org.wso2.carbon.security.keystore.KeyStoreAdmin;
 import org.wso2.carbon.user.core.listener.UserStoreManagerListener;
 import org.wso2.carbon.user.core.service.RealmService;
 
@@ -71,6 +73,7 @@ public class IdentityCoreServiceComponent {
             IdentityUserMgtListener userMgtListener = new IdentityUserMgtListener();
             ctxt.getBundleContext().registerService(UserStoreManagerListener.class.getName(), userMgtListener, null);
             bundleContext = ctxt.getBundleContext();
+            KeyStoreAdmin.addKeyStoreChangeListener(TenantSigningKeyCache.getInstance());
 
             // Register initialize service To guarantee the activation order. Component which is referring this service will wait until
             // this component activated.
@@ -112,6 +115,7 @@ public class IdentityCoreServiceComponent {
         if (log.isDebugEnabled()) {
             log.debug("Identity Core bundle is deactivated");
         }
+        KeyStoreAdmin.removeKeyStoreChangeListener(TenantSigningKeyCache.getInstance());
     }
 
     protected void setRegistryService(RegistryService registryService) {
@@ -0,0 +1,153 @@
+/*
+*Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Database backed lease used to run a periodic task on a single node of a cluster sharing the
+ * identity database. A node holds the lease of a task until it is released or until the lease
+ * expires, after which any node can take it over.
+ */
+public class ClusterTaskLock {
+
+    private static final Log log = LogFactory.getLog(ClusterTaskLock.class);
+
+    private static final String ACQUIRE_EXISTING_LOCK = "UPDATE IDN_TASK_LOCK SET NODE_ID=?, LOCK_EXPIRY=? " +
+            "WHERE TASK_NAME=? AND (LOCK_EXPIRY<? OR NODE_ID=?)";
+    private static final String ACQUIRE_NEW_LOCK = "INSERT INTO IDN_TASK_LOCK (TASK_NAME, NODE_ID, LOCK_EXPIRY) " +
+            "VALUES (?,?,?)";
+    private static final String RELEASE_LOCK = "UPDATE IDN_TASK_LOCK SET LOCK_EXPIRY=0 WHERE TASK_NAME=? AND " +
+            "NODE_ID=?";
+    // SQL state class of integrity constraint violations, which includes duplicate keys
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    private static final String NODE_ID = generateNodeId();
+
+    private ClusterTaskLock() {
+    }
+
+    /**
+     * Acquires or renews the lease of the task for this node
+     *
+     * @param taskName    name of the task
+     * @param leaseMillis time in milliseconds the lease is held if it is not renewed or released
+     * @return true if this node holds the lease
+     */
+    public static boolean tryAcquire(String taskName, long leaseMillis) {
+
+        long currentTime = System.currentTimeMillis();
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+            prepStmt = connection.prepareStatement(ACQUIRE_EXISTING_LOCK);
+            prepStmt.setString(1, NODE_ID);
+            prepStmt.setLong(2, currentTime + leaseMillis);
+            prepStmt.setString(3, taskName);
+            prepStmt.setLong(4, currentTime);
+            prepStmt.setString(5, NODE_ID);
+            if (prepStmt.executeUpdate() == 1) {
+                connection.commit();
+                return true;
+            }
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+
+            // the task has never been locked before
+            prepStmt = connection.prepareStatement(ACQUIRE_NEW_LOCK);
+            prepStmt.setString(1, taskName);
+            prepStmt.setString(2, NODE_ID);
+            prepStmt.setLong(3, currentTime + leaseMillis);
+            prepStmt.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            if (isDuplicateKey(e)) {
+                // another node holds the lease, or inserted it concurrently
+                if (log.isDebugEnabled()) {
+                    log.debug("Lock of task " + taskName + " is not acquired by node " + NODE_ID, e);
+                }
+            } else {
+                log.error("Error while acquiring the lock of task " + taskName, e);
+            }
+            return false;
+        } catch (IdentityException e) {
+            log.error("Error while acquiring the lock of task " + taskName, e);
+            return false;
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+        }
+    }
+
+    /**
+     * Releases the lease of the task, if it is held by this node
+     *
+     * @param taskName name of the task
+     */
+    public static void release(String taskName) {
+
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        try {
+            connection = IdentityDatabaseUtil.getDBConnection();
+            prepStmt = connection.prepareStatement(RELEASE_LOCK);
+            prepStmt.setString(1, taskName);
+            prepStmt.setString(2, NODE_ID);
+            prepStmt.executeUpdate();
+            connection.commit();
+        } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
+            log.error("Error while releasing the lock of task " + taskName, e);
+        } catch (IdentityException e) {
+            log.error("Error while releasing the lock of task " + taskName, e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+        }
+    }
+
+    /**
+     * @return identifier of this node in the task locks
+     */
+    public static String getNodeId() {
+        return NODE_ID;
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION);
+    }
+
+    private static String generateNodeId() {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            hostName = "localhost";
+        }
+        return hostName + ":" + UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+*  Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.identity.core.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.core.util.KeyStoreManager;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.security.keystore.KeyStoreChangeListener;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.cert.Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the signing key, certificate and certificate thumbprint of each tenant, so that they are
+ * read from the tenant key store once instead of on every token or assertion that is signed.
+ * Objects derived from them, such as signers, can be attached to the tenant through attributes.
+ * All material of a tenant is dropped when one of its key stores is changed on this node, and after the
+ * cache timeout, so that a key store changed on another node of the cluster is read again.
+ */
+public class TenantSigningKeyCache implements KeyStoreChangeListener {
+
+    private static Log log = LogFactory.getLog(TenantSigningKeyCache.class);
+
+    private static final String CACHE_TIMEOUT = "Security.SigningKeyCacheTimeout";
+    private static final long DEFAULT_CACHE_TIMEOUT = 900;
+
+    private static TenantSigningKeyCache instance = new TenantSigningKeyCache();
+
+    private final ConcurrentHashMap<Integer, TenantKeyData> tenantKeyData =
+            new ConcurrentHashMap<Integer, TenantKeyData>();
+    private final long cacheTimeout;
+
+    private TenantSigningKeyCache() {
+        long timeout = DEFAULT_CACHE_TIMEOUT;
+        String timeoutValue = IdentityUtil.getProperty(CACHE_TIMEOUT);
+        if (timeoutValue != null && timeoutValue.trim().length() > 0) {
+            try {
+                timeout = Long.parseLong(timeoutValue.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + timeoutValue + " for " + CACHE_TIMEOUT + ". Using the default value " +
+                        DEFAULT_CACHE_TIMEOUT);
+            }
+        }
+        cacheTimeout = timeout * 1000;
+    }
+
+    public static TenantSigningKeyCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id
+     * @return private key used to sign on behalf of the tenant
+     * @throws IdentityException if the key store of the tenant can not be read
+     */
+    public Key getPrivateKey(String tenantDomain, int tenantId) throws IdentityException {
+
+        TenantKeyData keyData = getTenantKeyData(tenantId);
+        Key privateKey = keyData.privateKey;
+        if (privateKey == null) {
+            try {
+                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+                if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+                    privateKey = keyStoreManager.getDefaultPrivateKey();
+                } else {
+                    privateKey = keyStoreManager.getPrivateKey(getKeyStoreName(tenantDomain), tenantDomain);
+                }
+            } catch (Exception e) {
+                throw new IdentityException("Error while obtaining the private key of tenant " + tenantDomain, e);
+            }
+            keyData.privateKey = privateKey;
+        }
+        return privateKey;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id
+     * @return public certificate matching the private key of the tenant
+     * @throws IdentityException if the key store of the tenant can not be read
+     */
+    public Certificate getCertificate(String tenantDomain, int tenantId) throws IdentityException {
+
+        TenantKeyData keyData = getTenantKeyData(tenantId);
+        Certificate certificate = keyData.certificate;
+        if (certificate == null) {
+            try {
+                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+                if (MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+                    certificate = keyStoreManager.getDefaultPrimaryCertificate();
+                } else {
+                    certificate = keyStoreManager.getKeyStore(getKeyStoreName(tenantDomain))
+                            .getCertificate(tenantDomain);
+                }
+            } catch (Exception e) {
+                throw new IdentityException("Error while obtaining the certificate of tenant " + tenantDomain, e);
+            }
+            keyData.certificate = certificate;
+        }
+        return certificate;
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id
+     * @return SHA-1 digest of the encoded certificate of the tenant
+     * @throws IdentityException if the certificate of the tenant can not be read
+     */
+    public byte[] getCertificateThumbprint(String tenantDomain, int tenantId) throws IdentityException {
+
+        TenantKeyData keyData = getTenantKeyData(tenantId);
+        byte[] thumbprint = keyData.thumbprint;
+        if (thumbprint == null) {
+            Certificate certificate = getCertificate(tenantDomain, tenantId);
+            if (certificate == null) {
+                throw new IdentityException("Certificate of tenant " + tenantDomain + " is not available");
+            }
+            try {
+                thumbprint = MessageDigest.getInstance("SHA-1").digest(certificate.getEncoded());
+            } catch (Exception e) {
+                throw new IdentityException("Error while generating the certificate thumbprint of tenant " +
+                        tenantDomain, e);
+            }
+            keyData.thumbprint = thumbprint;
+        }
+        return thumbprint.clone();
+    }
+
+    /**
+     * @param tenantDomain tenant domain
+     * @param tenantId     tenant id
+     * @param alias        alias of the certificate in the key store of the tenant
+     * @return certificate with the given alias, or null if there is no such certificate
+     * @throws IdentityException if the key store of the tenant can not be read
+     */
+    public Certificate getCertificate(String tenantDomain, int tenantId, String alias) throws IdentityException {
+
+        TenantKeyData keyData = getTenantKeyData(tenantId);
+        Certificate certificate = keyData.certificates.get(alias);
+        if (certificate == null) {
+            try {
+                KeyStoreManager keyStoreManager = KeyStoreManager.getInstance(tenantId);
+                KeyStore keyStore;
+                if (MultitenantConstants.SUPER_TENANT_ID == tenantId) {
+                    keyStore = keyStoreManager.getPrimaryKeyStore();
+                } else {
+                    keyStore = keyStoreManager.getKeyStore(getKeyStoreName(tenantDomain));
+                }
+                certificate = keyStore.getCertificate(alias);
+            } catch (Exception e) {
+                throw new IdentityException("Error while obtaining the certificate " + alias + " of tenant " +
+                        tenantDomain, e);
+            }
+            if (certificate != null) {
+                keyData.certificates.put(alias, certificate);
+            }
+        }
+        return certificate;
+    }
+
+    /**
+     * @param tenantId tenant id
+     * @param name     attribute name
+     * @return object attached to the signing key of the tenant, or null if there is none
+     */
+    public Object getAttribute(int tenantId, String name) {
+        return getTenantKeyData(tenantId).attributes.get(name);
+    }
+
+    /**
+     * Attaches an object derived from the signing key of the tenant, which is dropped along with the key
+     *
+     * @param tenantId tenant id
+     * @param name     attribute name
+     * @param value    attribute value
+     */
+    public void setAttribute(int tenantId, String name, Object value) {
+        getTenantKeyData(tenantId).attributes.put(name, value);
+    }
+
+    /**
+     * Drops all cached material of the tenant
+     *
+     * @param tenantId tenant id
+     */
+    public void clear(int tenantId) {
+        tenantKeyData.remove(tenantId);
+    }
+
+    @Override
+    public void onKeyStoreChange(int tenantId, String keyStoreName) {
+        if (log.isDebugEnabled()) {
+            log.debug("Key store " + keyStoreName + " of tenant " + tenantId + " is changed. Clearing cached " +
+                    "signing keys of the tenant");
+        }
+        clear(tenantId);
+    }
+
+    private TenantKeyData getTenantKeyData(int tenantId) {
+        TenantKeyData keyData = tenantKeyData.get(tenantId);
+        if (keyData != null && keyData.isExpired(cacheTimeout)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cached signing keys of tenant " + tenantId + " are expired");
+            }
+            tenantKeyData.remove(tenantId, keyData);
+            keyData = null;
+        }
+        if (keyData == null) {
+            keyData = new TenantKeyData();
+            TenantKeyData existing = tenantKeyData.putIfAbsent(tenantId, keyData);
+            if (existing != null) {
+                keyData = existing;
+            }
+        }
+        return keyData;
+    }
+
+    private static String getKeyStoreName(String tenantDomain) {
+        return tenantDomain.trim().replace(".", "-") + ".jks";
+    }
+
+    /**
+     * Material of a single tenant. Each value is loaded once; a concurrent load of the same value
+     * only repeats the key store read. The whole object is replaced when the tenant is cleared or the
+     * object is expired.
+     */
+    private static class TenantKeyData {
+
+        private final long createdTime = System.currentTimeMillis();
+        private volatile Key privateKey;
+        private volatile Certificate certificate;
+        private volatile byte[] thumbprint;
+        private final Map<String, Certificate> certificates = new ConcurrentHashMap<String, Certificate>();
+        private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+        boolean isExpired(long timeout) {
+            return timeout > 0 && System.currentTimeMillis() - createdTime >= timeout;
+        }
+    }
+}
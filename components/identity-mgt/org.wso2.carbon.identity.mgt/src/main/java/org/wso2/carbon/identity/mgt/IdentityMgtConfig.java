@@ -24,6 +24,7 @@ import org.wso2.carbon.identity.mgt.password.DefaultPasswordGenerator;
 import org.wso2.carbon.identity.mgt.password.RandomPasswordGenerator;
 import org.wso2.carbon.identity.mgt.policy.PolicyEnforcer;
 import org.wso2.carbon.identity.mgt.policy.PolicyRegistry;
+import org.wso2.carbon.identity.mgt.store.AsyncUserIdentityDataStore;
 import org.wso2.carbon.identity.mgt.store.RegistryRecoveryDataStore;
 import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
 import org.wso2.carbon.identity.mgt.store.UserRecoveryDataStore;
@@ -350,6 +351,25 @@ public class IdentityMgtConfig {
                 this.identityDataStore = new UserStoreBasedIdentityDataStore();
             }
 
+            String asyncStoreEnable = properties.
+                    getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ASYNC_STORE_ENABLE);
+            if (asyncStoreEnable != null && Boolean.parseBoolean(asyncStoreEnable.trim())) {
+                int queueSize = 10000;
+                long flushInterval = 1000;
+                String asyncStoreQueueSize = properties.
+                        getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ASYNC_STORE_QUEUE_SIZE);
+                if (asyncStoreQueueSize != null) {
+                    queueSize = Integer.parseInt(asyncStoreQueueSize.trim());
+                }
+                String asyncStoreFlushInterval = properties.
+                        getProperty(IdentityMgtConstants.PropertyConfig.AUTH_POLICY_ASYNC_STORE_FLUSH_INTERVAL);
+                if (asyncStoreFlushInterval != null) {
+                    flushInterval = Long.parseLong(asyncStoreFlushInterval.trim());
+                }
+                this.identityDataStore = new AsyncUserIdentityDataStore(this.identityDataStore, queueSize,
+                        flushInterval);
+            }
+
             if (this.recoveryDataStore == null) {
                 this.recoveryDataStore = new RegistryRecoveryDataStore();
             }
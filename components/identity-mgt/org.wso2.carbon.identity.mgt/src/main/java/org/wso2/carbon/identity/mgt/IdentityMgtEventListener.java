@@ -348,7 +348,9 @@ public class IdentityMgtEventListener extends AbstractUserOperationEventListener
             if (isUserExistInCurrentDomain) {
                 userIdentityDTO.setFailAttempts();
 
+                boolean accountLocked = false;
                 if (userIdentityDTO.getFailAttempts() >= config.getAuthPolicyMaxLoginAttempts()) {
+                    accountLocked = true;
                         log.info("User, " + userName + " has exceed the max failed login attempts. " +
                                 "User account would be locked");
                     IdentityErrorMsgContext customErrorMessageContext = new IdentityErrorMsgContext(UserCoreConstants.ErrorCode.USER_IS_LOCKED,
@@ -379,7 +381,12 @@ public class IdentityMgtEventListener extends AbstractUserOperationEventListener
                 }
 
                 try {
-                    module.store(userIdentityDTO, userStoreManager);
+                    // locking the account is stored right away, while the failed attempts can be stored later
+                    if (accountLocked) {
+                        module.store(userIdentityDTO, userStoreManager);
+                    } else {
+                        module.storeAsync(userIdentityDTO, userStoreManager);
+                    }
                 } catch (IdentityException e) {
                     throw new UserStoreException("Error while saving user store data for user : "
                             + userName, e);
@@ -394,11 +401,18 @@ public class IdentityMgtEventListener extends AbstractUserOperationEventListener
             // if the account was locked due to account verification process,
             // the unlock the account and reset the number of failedAttempts
             if (userIdentityDTO.isAccountLocked() || userIdentityDTO.getFailAttempts() > 0 || userIdentityDTO.getAccountLock()) {
+                boolean accountLocked = userIdentityDTO.isAccountLocked() || userIdentityDTO.getAccountLock();
                 userIdentityDTO.setAccountLock(false);
                 userIdentityDTO.setFailAttempts(0);
                 userIdentityDTO.setUnlockTime(0);
                 try {
-                    module.store(userIdentityDTO, userStoreManager);
+                    // unlocking the account is stored right away, while resetting the failed attempts can be
+                    // stored later
+                    if (accountLocked) {
+                        module.store(userIdentityDTO, userStoreManager);
+                    } else {
+                        module.storeAsync(userIdentityDTO, userStoreManager);
+                    }
                 } catch (IdentityException e) {
                     throw new UserStoreException("Error while saving user store data for user : "
                             + userName, e);
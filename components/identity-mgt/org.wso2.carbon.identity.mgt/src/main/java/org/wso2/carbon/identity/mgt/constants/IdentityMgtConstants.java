@@ -154,6 +154,12 @@ public class IdentityMgtConstants {
 
         public static final String AUTH_POLICY_ACCOUNT_LOCK_ON_CREATION = "Authentication.Policy.Account.Lock.On.Creation";
 
+        public static final String AUTH_POLICY_ASYNC_STORE_ENABLE = "Authentication.Policy.Async.Store.Enable";
+
+        public static final String AUTH_POLICY_ASYNC_STORE_QUEUE_SIZE = "Authentication.Policy.Async.Store.Queue.Size";
+
+        public static final String AUTH_POLICY_ASYNC_STORE_FLUSH_INTERVAL = "Authentication.Policy.Async.Store.Flush.Interval";
+
         public static final String CHALLENGE_QUESTION_SEPARATOR = "Challenge.Question.Separator";
 
         public static final String EXTENSION_PASSWORD_GENERATOR = "Identity.Mgt.Random.Password.Generator";
@@ -50,11 +50,40 @@ public class UserIdentityClaimsDO implements Serializable {
     private Map<String, String> userIdentityDataMap = new HashMap<String, String>();
     private char[] temporaryPassword = null;
     private String confirmationCode = null;
+    // claims as they are in the identity data store, or null if they are not known
+    private transient Map<String, String> storedUserDataMap = null;
 
     public UserIdentityClaimsDO(String userName) {
         this.userName = userName;
     }
 
+    /**
+     * Creates a copy of the given claims which can be changed independently
+     *
+     * @param userIdentityClaimsDO claims to copy
+     */
+    public UserIdentityClaimsDO(UserIdentityClaimsDO userIdentityClaimsDO) {
+
+        synchronized (userIdentityClaimsDO) {
+            this.userName = userIdentityClaimsDO.userName;
+            this.tenantId = userIdentityClaimsDO.tenantId;
+            this.unlockTime = userIdentityClaimsDO.unlockTime;
+            this.lastLogonTime = userIdentityClaimsDO.lastLogonTime;
+            this.lastFailAttemptTime = userIdentityClaimsDO.lastFailAttemptTime;
+            this.passwordTimeStamp = userIdentityClaimsDO.passwordTimeStamp;
+            this.failedAttempts = userIdentityClaimsDO.failedAttempts;
+            this.accountLock = userIdentityClaimsDO.accountLock;
+            this.passwordChangeRequired = userIdentityClaimsDO.passwordChangeRequired;
+            this.oneTimeLogin = userIdentityClaimsDO.oneTimeLogin;
+            this.userIdentityDataMap = new HashMap<String, String>(userIdentityClaimsDO.userIdentityDataMap);
+            this.temporaryPassword = userIdentityClaimsDO.temporaryPassword;
+            this.confirmationCode = userIdentityClaimsDO.confirmationCode;
+            if (userIdentityClaimsDO.storedUserDataMap != null) {
+                this.storedUserDataMap = new HashMap<String, String>(userIdentityClaimsDO.storedUserDataMap);
+            }
+        }
+    }
+
     public UserIdentityClaimsDO(String userName, Map<String, String> userDataMap) {
 
         this.userName = userName;
@@ -222,6 +251,59 @@ public class UserIdentityClaimsDO implements Serializable {
         userIdentityDataMap.put(claim, value);
     }
 
+    /**
+     * Sets the claims as they are in the identity data store. Claims changed after this are returned by
+     * {@link #getModifiedUserDataMap()}.
+     *
+     * @param storedUserDataMap claims in the identity data store
+     */
+    public synchronized void setStoredUserDataMap(Map<String, String> storedUserDataMap) {
+        this.storedUserDataMap = storedUserDataMap;
+    }
+
+    /**
+     * Records the given claims as written to the identity data store. Claims changed while they were being
+     * written are still returned by {@link #getModifiedUserDataMap()}.
+     *
+     * @param writtenUserDataMap claims written to the identity data store, as they were before writing
+     */
+    public synchronized void addStoredUserData(Map<String, String> writtenUserDataMap) {
+        if (storedUserDataMap == null) {
+            storedUserDataMap = new HashMap<String, String>(writtenUserDataMap);
+        } else {
+            storedUserDataMap.putAll(writtenUserDataMap);
+        }
+    }
+
+    /**
+     * Returns the claims which differ from the identity data store. All the claims are returned if the
+     * stored claims are not known.
+     *
+     * @return modified claims
+     */
+    public synchronized Map<String, String> getModifiedUserDataMap() {
+        if (storedUserDataMap == null) {
+            return new HashMap<String, String>(userIdentityDataMap);
+        }
+        Map<String, String> modifiedUserDataMap = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : userIdentityDataMap.entrySet()) {
+            String storedValue = storedUserDataMap.get(entry.getKey());
+            if (storedValue == null ? entry.getValue() != null || !storedUserDataMap.containsKey(entry.getKey())
+                    : !storedValue.equals(entry.getValue())) {
+                modifiedUserDataMap.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return modifiedUserDataMap;
+    }
+
+    /**
+     * @param claim claim uri
+     * @return true if the claim is known to be not in the identity data store
+     */
+    public synchronized boolean isNewUserDataClaim(String claim) {
+        return storedUserDataMap != null && !storedUserDataMap.containsKey(claim);
+    }
+
     public long getPasswordTimeStamp() {
         return passwordTimeStamp;
     }
@@ -27,6 +27,8 @@ import org.wso2.carbon.identity.mgt.IdentityMgtEventListener;
 import org.wso2.carbon.identity.mgt.RecoveryProcessor;
 import org.wso2.carbon.identity.mgt.constants.IdentityMgtConstants;
 import org.wso2.carbon.identity.mgt.dto.ChallengeQuestionDTO;
+import org.wso2.carbon.identity.mgt.store.AsyncUserIdentityDataStore;
+import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
 import org.wso2.carbon.registry.core.Collection;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
@@ -166,6 +168,10 @@ public class IdentityMgtServiceComponent {
     }
 
     protected void deactivate(ComponentContext context) {
+        UserIdentityDataStore identityDataStore = IdentityMgtConfig.getInstance().getIdentityDataStore();
+        if (identityDataStore instanceof AsyncUserIdentityDataStore) {
+            ((AsyncUserIdentityDataStore) identityDataStore).shutdown();
+        }
         log.debug("Identity Management bundle is de-activated");
     }
 
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.mgt.store;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.mgt.dto.UserIdentityClaimsDO;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.user.core.UserCoreConstants;
+import org.wso2.carbon.user.core.util.UserCoreUtil;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Identity data store which writes the data given to {@link #storeAsync(UserIdentityClaimsDO, UserStoreManager)}
+ * in the background through the configured identity data store. Data queued for a user is replaced by data
+ * queued later, and is kept for the flush interval before it is written. Data given to
+ * {@link #store(UserIdentityClaimsDO, UserStoreManager)} is written right away and replaces the data queued
+ * for the user. Loading the data of a user returns a copy of the queued data, if there is any, from which
+ * all the claims are written when it is stored, since the stored claims may have changed since the data was
+ * loaded.
+ * <p/>
+ * Queued data is only visible to the node which queued it. Other nodes of a cluster read the stored data
+ * until the queued data is written, hence failed login attempts made in parallel on different nodes within
+ * the flush interval may not all be counted towards locking the account.
+ */
+public class AsyncUserIdentityDataStore extends UserIdentityDataStore implements Runnable {
+
+    private static Log log = LogFactory.getLog(AsyncUserIdentityDataStore.class);
+
+    private final UserIdentityDataStore identityDataStore;
+    private final int capacity;
+    private final long flushInterval;
+    private final Map<String, PendingData> pendingData = new LinkedHashMap<String, PendingData>();
+    private final Set<String> writingKeys = new HashSet<String>();
+    private final ExecutorService writer;
+    private boolean shutdown;
+
+    /**
+     * @param identityDataStore identity data store to write the data
+     * @param capacity          maximum number of users with queued data
+     * @param flushInterval     time in milliseconds the data is kept before it is written
+     */
+    public AsyncUserIdentityDataStore(UserIdentityDataStore identityDataStore, int capacity, long flushInterval) {
+        this.identityDataStore = identityDataStore;
+        this.capacity = capacity;
+        this.flushInterval = flushInterval;
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "IdentityDataStoreWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        writer.execute(this);
+    }
+
+    /**
+     * Stops the background writer and writes the queued data
+     */
+    public void shutdown() {
+
+        writer.shutdownNow();
+        List<String> keys;
+        synchronized (this) {
+            // data given later is written by the caller
+            shutdown = true;
+            keys = new ArrayList<String>(pendingData.keySet());
+        }
+        try {
+            for (String key : keys) {
+                write(key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while storing the queued identity data", e);
+        }
+    }
+
+    @Override
+    public String[] getUserIdentityDataClaims() throws IdentityException {
+        return identityDataStore.getUserIdentityDataClaims();
+    }
+
+    @Override
+    public void store(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        String key = getKey(userIdentityDTO.getUserName(), userStoreManager);
+        // the queued data is older than this data, and is not written after it
+        beginWrite(key);
+        try {
+            identityDataStore.store(userIdentityDTO, userStoreManager);
+        } finally {
+            endWrite(key);
+        }
+    }
+
+    @Override
+    public void storeAsync(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+
+        String key = getKey(userIdentityDTO.getUserName(), userStoreManager);
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        // the caller may keep changing its instance while the queued data is written
+        PendingData data = new PendingData(new UserIdentityClaimsDO(userIdentityDTO), userStoreManager,
+                carbonContext.getTenantId(), carbonContext.getTenantDomain());
+        if (!offer(key, data)) {
+            // the queue is full or the writer is stopped, hence the data is written by the caller
+            if (log.isDebugEnabled()) {
+                log.debug("Identity data queue is full. Storing the data of " + userIdentityDTO.getUserName());
+            }
+            store(userIdentityDTO, userStoreManager);
+        }
+    }
+
+    @Override
+    public UserIdentityClaimsDO load(String userName, UserStoreManager userStoreManager) {
+
+        PendingData data = getPendingData(getKey(userName, userStoreManager));
+        if (data != null) {
+            UserIdentityClaimsDO userIdentityDTO = new UserIdentityClaimsDO(data.userIdentityDTO);
+            // the claims stored when the queued data was loaded may have been changed since
+            userIdentityDTO.setStoredUserDataMap(null);
+            return userIdentityDTO;
+        }
+        return identityDataStore.load(userName, userStoreManager);
+    }
+
+    @Override
+    public void remove(String userName, UserStoreManager userStoreManager) throws IdentityException {
+
+        String key = getKey(userName, userStoreManager);
+        beginWrite(key);
+        try {
+            identityDataStore.remove(userName, userStoreManager);
+        } finally {
+            endWrite(key);
+        }
+    }
+
+    @Override
+    public void run() {
+
+        log.debug("Identity data writer is started");
+
+        while (true) {
+            try {
+                for (String key : takeKeys()) {
+                    write(key);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // keep the writer running for the data queued later
+                log.error("Error while storing user identity data", e);
+            }
+        }
+    }
+
+    private void write(String key) throws InterruptedException {
+
+        // the data may have been written by a store after the key was taken
+        PendingData data = takePendingData(key);
+        if (data == null) {
+            return;
+        }
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(data.tenantId);
+            carbonContext.setTenantDomain(data.tenantDomain);
+            identityDataStore.store(data.userIdentityDTO, data.userStoreManager);
+        } catch (IdentityException e) {
+            log.error("Error while storing identity data of user " + data.userIdentityDTO.getUserName(), e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+            endWrite(key);
+        }
+    }
+
+    /**
+     * Removes the queued data of the user and waits until other writes of the user are completed, so that
+     * the data written by the caller is not overwritten by older data
+     */
+    private void beginWrite(String key) throws IdentityException {
+
+        try {
+            synchronized (this) {
+                pendingData.remove(key);
+                waitForWrite(key);
+                writingKeys.add(key);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdentityException("Interrupted while waiting to store identity data", e);
+        }
+    }
+
+    private synchronized void endWrite(String key) {
+
+        writingKeys.remove(key);
+        notifyAll();
+    }
+
+    private synchronized PendingData takePendingData(String key) throws InterruptedException {
+
+        waitForWrite(key);
+        PendingData data = pendingData.remove(key);
+        if (data != null) {
+            writingKeys.add(key);
+        }
+        return data;
+    }
+
+    private synchronized void waitForWrite(String key) throws InterruptedException {
+
+        while (writingKeys.contains(key)) {
+            wait();
+        }
+    }
+
+    private synchronized boolean offer(String key, PendingData data) {
+
+        if (shutdown) {
+            return false;
+        }
+        PendingData existing = pendingData.get(key);
+        if (existing != null) {
+            data.queuedTime = existing.queuedTime;
+            pendingData.put(key, data);
+            return true;
+        }
+        if (pendingData.size() >= capacity) {
+            return false;
+        }
+        pendingData.put(key, data);
+        if (pendingData.size() == 1) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    private synchronized PendingData getPendingData(String key) {
+        return pendingData.get(key);
+    }
+
+    /**
+     * Waits until the oldest data has been kept for the flush interval, and returns the keys of the data
+     * which has been kept for the flush interval
+     */
+    private synchronized List<String> takeKeys() throws InterruptedException {
+
+        while (true) {
+            if (pendingData.isEmpty()) {
+                wait();
+                continue;
+            }
+            long waitTime = pendingData.values().iterator().next().queuedTime + flushInterval -
+                    System.currentTimeMillis();
+            if (waitTime <= 0) {
+                break;
+            }
+            wait(waitTime);
+        }
+        List<String> keys = new ArrayList<String>();
+        long flushTime = System.currentTimeMillis() - flushInterval;
+        for (Map.Entry<String, PendingData> entry : pendingData.entrySet()) {
+            if (entry.getValue().queuedTime > flushTime) {
+                break;
+            }
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+
+    private String getKey(String userName, UserStoreManager userStoreManager) {
+
+        String domainName = ((org.wso2.carbon.user.core.UserStoreManager) userStoreManager).getRealmConfiguration().
+                getUserStoreProperty(UserCoreConstants.RealmConfig.PROPERTY_DOMAIN_NAME);
+        int tenantId;
+        try {
+            tenantId = userStoreManager.getTenantId();
+        } catch (UserStoreException e) {
+            tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        }
+        return tenantId + ":" + domainName + ":" + UserCoreUtil.removeDomainFromName(userName);
+    }
+
+    private static class PendingData {
+
+        private final UserIdentityClaimsDO userIdentityDTO;
+        private final UserStoreManager userStoreManager;
+        private final int tenantId;
+        private final String tenantDomain;
+        private long queuedTime = System.currentTimeMillis();
+
+        private PendingData(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager, int tenantId,
+                            String tenantDomain) {
+            this.userIdentityDTO = userIdentityDTO;
+            this.userStoreManager = userStoreManager;
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+        }
+    }
+}
@@ -32,7 +32,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -69,91 +71,58 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
         }
 
 
-        Map<String, String> data = userIdentityDTO.getUserDataMap();
-
-        for (Map.Entry<String, String> entry : data.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue();
-            if (isExistingUserDataValue(userName, tenantId, key)) {
-                updateUserDataValue(userName, tenantId, key, value);
-            } else {
-                addUserDataValue(userName, tenantId, key, value);
-            }
+        // only the claims changed since they were loaded or stored are written
+        Map<String, String> data = userIdentityDTO.getModifiedUserDataMap();
+        if (data.isEmpty()) {
+            return;
         }
-    }
-
-    private boolean isExistingUserDataValue(String userName, int tenantId, String key) throws IdentityException {
 
+        Map<String, String> newData = new HashMap<String, String>();
         Connection connection = null;
         PreparedStatement prepStmt = null;
-        ResultSet results;
         try {
             connection = JDBCPersistenceManager.getInstance().getDBConnection();
-            prepStmt = connection.prepareStatement(SQLQuery.CHECK_EXIST_USER_DATA);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            results = prepStmt.executeQuery();
-            if (results.next()) {
-                return true;
-            }
-            connection.commit();
-        } catch (SQLException e) {
-            log.error("Error while retrieving user identity data in database", e);
-            throw new IdentityException("Error while retrieving user identity data in database", e);
-        } catch (IdentityException e) {
-            log.error("Error while retrieving user identity data in database", e);
-            throw new IdentityException("Error while retrieving user identity data in database", e);
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
-        return false;
-    }
-
-
-    private void addUserDataValue(String userName, int tenantId, String key, String value) throws IdentityException {
-
-        Connection connection = null;
-        PreparedStatement prepStmt = null;
 
-        try {
-            connection = JDBCPersistenceManager.getInstance().getDBConnection();
-            prepStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
-            prepStmt.setInt(1, tenantId);
-            prepStmt.setString(2, userName);
-            prepStmt.setString(3, key);
-            prepStmt.setString(4, value);
-            prepStmt.execute();
-            connection.commit();
-        } catch (SQLException e) {
-            log.error("Error while persisting user identity data in database", e);
-            throw new IdentityException("Error while persisting user identity data in database", e);
-        } catch (IdentityException e) {
-            log.error("Error while persisting user identity data in database", e);
-            throw new IdentityException("Error while persisting user identity data in database", e);
-        } finally {
-            IdentityDatabaseUtil.closeStatement(prepStmt);
-            IdentityDatabaseUtil.closeConnection(connection);
-        }
-    }
-
-
-    private void updateUserDataValue(String userName, int tenantId, String key, String value) throws IdentityException {
-
-        Connection connection = null;
-        PreparedStatement prepStmt = null;
-
-        try {
-            connection = JDBCPersistenceManager.getInstance().getDBConnection();
+            // claims which exist are updated, and the rest are inserted
+            List<String> updatedKeys = new ArrayList<String>();
             prepStmt = connection.prepareStatement(SQLQuery.UPDATE_USER_DATA);
-            prepStmt.setString(1, value);
-            prepStmt.setInt(2, tenantId);
-            prepStmt.setString(3, userName);
-            prepStmt.setString(4, key);
-            prepStmt.executeUpdate();
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                if (userIdentityDTO.isNewUserDataClaim(entry.getKey())) {
+                    newData.put(entry.getKey(), entry.getValue());
+                } else {
+                    prepStmt.setString(1, entry.getValue());
+                    prepStmt.setInt(2, tenantId);
+                    prepStmt.setString(3, userName);
+                    prepStmt.setString(4, entry.getKey());
+                    prepStmt.addBatch();
+                    updatedKeys.add(entry.getKey());
+                }
+            }
+            if (!updatedKeys.isEmpty()) {
+                int[] updateCounts = prepStmt.executeBatch();
+                for (int i = 0; i < updateCounts.length; i++) {
+                    if (updateCounts[i] == 0) {
+                        newData.put(updatedKeys.get(i), data.get(updatedKeys.get(i)));
+                    }
+                }
+            }
+            IdentityDatabaseUtil.closeStatement(prepStmt);
+            prepStmt = null;
+
+            if (!newData.isEmpty()) {
+                prepStmt = connection.prepareStatement(SQLQuery.STORE_USER_DATA);
+                for (Map.Entry<String, String> entry : newData.entrySet()) {
+                    prepStmt.setInt(1, tenantId);
+                    prepStmt.setString(2, userName);
+                    prepStmt.setString(3, entry.getKey());
+                    prepStmt.setString(4, entry.getValue());
+                    prepStmt.addBatch();
+                }
+                prepStmt.executeBatch();
+            }
             connection.commit();
         } catch (SQLException e) {
+            IdentityDatabaseUtil.rollBack(connection);
             log.error("Error while persisting user identity data in database", e);
             throw new IdentityException("Error while persisting user identity data in database", e);
         } catch (IdentityException e) {
@@ -164,6 +133,8 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
             IdentityDatabaseUtil.closeConnection(connection);
         }
 
+        // only the written values are recorded, since the claims may have been changed while writing them
+        userIdentityDTO.addStoredUserData(data);
     }
 
     @Override
@@ -199,8 +170,10 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
                     log.debug(dataEntry.getKey() + " : " + dataEntry.getValue());
                 }
             }
+            Map<String, String> storedData = new HashMap<String, String>(data);
             dto = new UserIdentityClaimsDO(userName, data);
             dto.setTenantId(tenantId);
+            dto.setStoredUserDataMap(storedData);
             return dto;
         } catch (SQLException e) {
             log.error("Error while reading user identity data", e);
@@ -252,9 +225,6 @@ public class JDBCIdentityDataStore extends InMemoryIdentityDataStore {
      * The primary key is tenantId, userName, DatKey combination
      */
     private static class SQLQuery {
-        public static final String CHECK_EXIST_USER_DATA = "SELECT " + "DATA_VALUE "
-                + "FROM IDN_IDENTITY_USER_DATA "
-                + "WHERE TENANT_ID = ? AND USER_NAME = ? AND DATA_KEY=?";
         public static final String STORE_USER_DATA =
                 "INSERT "
                         + "INTO IDN_IDENTITY_USER_DATA "
@@ -59,6 +59,18 @@ public abstract class UserIdentityDataStore {
     public abstract void store(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
             throws IdentityException;
 
+    /**
+     * Stores data which is not required to be persisted before the calling operation completes, such as
+     * the failed login attempts. The data is stored right away unless the store writes it in the background.
+     *
+     * @param userIdentityDTO
+     * @param userStoreManager
+     */
+    public void storeAsync(UserIdentityClaimsDO userIdentityDTO, UserStoreManager userStoreManager)
+            throws IdentityException {
+        store(userIdentityDTO, userStoreManager);
+    }
+
     /**
      * Loads
      *
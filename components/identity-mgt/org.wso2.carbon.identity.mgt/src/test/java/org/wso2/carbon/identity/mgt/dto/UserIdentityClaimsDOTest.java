@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.identity.mgt.dto;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.identity.mgt.store.UserIdentityDataStore;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class UserIdentityClaimsDOTest extends TestCase {
+
+	public void testAllClaimsModifiedWhenStoredClaimsUnknown() {
+
+		UserIdentityClaimsDO claims = new UserIdentityClaimsDO("user");
+		claims.setFailAttempts(1);
+		claims.setLastLogonTime(1000);
+
+		Map<String, String> modified = claims.getModifiedUserDataMap();
+		assertEquals("unknown stored claims check failed", 2, modified.size());
+		assertFalse("unknown stored claims check failed",
+				claims.isNewUserDataClaim(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS));
+	}
+
+	public void testOnlyChangedClaimsModified() {
+
+		Map<String, String> stored = new HashMap<String, String>();
+		stored.put(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS, "2");
+		stored.put(UserIdentityDataStore.LAST_LOGON_TIME, "1000");
+
+		UserIdentityClaimsDO claims = new UserIdentityClaimsDO("user", new HashMap<String, String>(stored));
+		claims.setStoredUserDataMap(stored);
+		assertTrue("loaded claims check failed", claims.getModifiedUserDataMap().isEmpty());
+
+		claims.setFailAttempts(0);
+		claims.setLastLogonTime(1000);
+		claims.setAccountLock(false);
+
+		Map<String, String> modified = claims.getModifiedUserDataMap();
+		assertEquals("changed claims check failed", 2, modified.size());
+		assertEquals("changed claims check failed", "0", modified.get(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS));
+		assertEquals("changed claims check failed", "false", modified.get(UserIdentityDataStore.ACCOUNT_LOCK));
+		assertFalse("new claim check failed", claims.isNewUserDataClaim(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS));
+		assertTrue("new claim check failed", claims.isNewUserDataClaim(UserIdentityDataStore.ACCOUNT_LOCK));
+	}
+
+	public void testClaimsModifiedDuringStore() {
+
+		Map<String, String> stored = new HashMap<String, String>();
+		stored.put(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS, "1");
+
+		UserIdentityClaimsDO claims = new UserIdentityClaimsDO("user", new HashMap<String, String>(stored));
+		claims.setStoredUserDataMap(stored);
+		claims.setFailAttempts();
+
+		// claims are changed by another request while the modified claims are written
+		Map<String, String> written = claims.getModifiedUserDataMap();
+		claims.setFailAttempts();
+		claims.addStoredUserData(written);
+
+		Map<String, String> modified = claims.getModifiedUserDataMap();
+		assertEquals("modified during store check failed", "3",
+				modified.get(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS));
+
+		claims.addStoredUserData(modified);
+		assertTrue("modified during store check failed", claims.getModifiedUserDataMap().isEmpty());
+	}
+
+	public void testCopyChangedIndependently() {
+
+		Map<String, String> stored = new HashMap<String, String>();
+		stored.put(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS, "1");
+
+		UserIdentityClaimsDO claims = new UserIdentityClaimsDO("user", new HashMap<String, String>(stored));
+		claims.setStoredUserDataMap(stored);
+		UserIdentityClaimsDO copy = new UserIdentityClaimsDO(claims);
+		claims.setFailAttempts();
+
+		assertEquals("copy check failed", "user", copy.getUserName());
+		assertEquals("copy check failed", 1, copy.getFailAttempts());
+		assertEquals("copy check failed", "1", copy.getUserDataMap().get(UserIdentityDataStore.FAIL_LOGIN_ATTEMPTS));
+		assertTrue("copy check failed", copy.getModifiedUserDataMap().isEmpty());
+	}
+
+	public void testClaimsSetDirectlyModified() {
+
+		UserIdentityClaimsDO claims = new UserIdentityClaimsDO("user");
+		claims.setStoredUserDataMap(new HashMap<String, String>());
+		claims.getUserDataMap().put("http://wso2.org/claims/identity/custom", "value");
+
+		assertEquals("direct claim check failed", "value",
+				claims.getModifiedUserDataMap().get("http://wso2.org/claims/identity/custom"));
+	}
+}
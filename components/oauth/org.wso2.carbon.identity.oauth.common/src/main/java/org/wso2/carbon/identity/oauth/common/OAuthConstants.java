@@ -118,6 +118,7 @@ public final class OAuthConstants {
         public final static String TOKEN_STATE_ACTIVE = "ACTIVE";
         public final static String TOKEN_STATE_REVOKED = "REVOKED";
         public final static String TOKEN_STATE_EXPIRED = "EXPIRED";
+        public final static String TOKEN_STATE_INACTIVE = "INACTIVE";
     }
 
     public static class OAuthError {
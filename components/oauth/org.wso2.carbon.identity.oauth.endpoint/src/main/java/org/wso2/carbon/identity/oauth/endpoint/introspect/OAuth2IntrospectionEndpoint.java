@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.identity.oauth.endpoint.introspect;
+
+import org.apache.amber.oauth2.as.response.OAuthASResponse;
+import org.apache.amber.oauth2.common.exception.OAuthSystemException;
+import org.apache.amber.oauth2.common.message.OAuthResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.common.exception.OAuthClientException;
+import org.wso2.carbon.identity.oauth.endpoint.util.EndpointUtil;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
+import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JSON version of the OAuth2 token validation service. A resource server authenticates with its client
+ * credentials and validates a batch of access tokens in one request. Only the clients configured in
+ * OAuth.Introspection.AuthorizedClients of identity.xml can introspect tokens, and only the clients configured
+ * in OAuth.Introspection.ClaimsAuthorizedClients can request the claims of the token owner.
+ * <p/>
+ * Request : {"tokens":[{"token":"...", "token_type":"bearer", "required_claims":["..."]}]}
+ * <br/>
+ * Response : {"results":[{"active":true, "client_id":"...", "username":"...", "scope":"...", "exp":...}]}
+ */
+@Path("/introspect")
+public class OAuth2IntrospectionEndpoint {
+
+    private static final int MAX_TOKENS_PER_REQUEST = 100;
+    private static final String DEFAULT_TOKEN_TYPE = "bearer";
+    private static Log log = LogFactory.getLog(OAuth2IntrospectionEndpoint.class);
+    private static final Set<String> authorizedClients = getClients("OAuth.Introspection.AuthorizedClients");
+    private static final Set<String> claimsAuthorizedClients =
+            getClients("OAuth.Introspection.ClaimsAuthorizedClients");
+
+    @POST
+    @Path("/")
+    @Consumes("application/json")
+    @Produces("application/json")
+    public Response introspect(@Context HttpServletRequest request, String payload) throws OAuthSystemException {
+
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+            carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+
+            String clientId = getAuthenticatedClient(request.getHeader(OAuthConstants.HTTP_REQ_HEADER_AUTHZ));
+            if (clientId == null) {
+                OAuthResponse response = OAuthASResponse.errorResponse(HttpServletResponse.SC_UNAUTHORIZED)
+                        .setError(OAuth2ErrorCodes.INVALID_CLIENT)
+                        .setErrorDescription("Client Authentication failed.").buildJSONMessage();
+                return Response.status(response.getResponseStatus())
+                        .header(OAuthConstants.HTTP_RESP_HEADER_AUTHENTICATE, EndpointUtil.getRealmInfo())
+                        .entity(response.getBody()).build();
+            }
+            if (!authorizedClients.contains(clientId)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client " + clientId + " is not authorized to introspect tokens");
+                }
+                return buildUnauthorizedClientError("Client is not authorized to introspect tokens");
+            }
+
+            OAuth2TokenValidationRequestDTO[] validationRequests;
+            try {
+                validationRequests = buildValidationRequests(payload);
+            } catch (JSONException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Invalid introspection request : " + payload, e);
+                }
+                return buildClientError("Invalid introspection request");
+            }
+            if (validationRequests.length > MAX_TOKENS_PER_REQUEST) {
+                return buildClientError("A request can not introspect more than " + MAX_TOKENS_PER_REQUEST +
+                        " tokens");
+            }
+            if (!claimsAuthorizedClients.contains(clientId) && hasRequiredClaims(validationRequests)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Client " + clientId + " is not authorized to request the claims of a token");
+                }
+                return buildUnauthorizedClientError("Client is not authorized to request claims");
+            }
+
+            OAuth2ClientApplicationDTO[] results =
+                    EndpointUtil.getOAuth2TokenValidationService().findOAuthConsumersIfTokensAreValid(
+                            validationRequests);
+            try {
+                return Response.status(HttpServletResponse.SC_OK)
+                        .header(OAuthConstants.HTTP_RESP_HEADER_CACHE_CONTROL,
+                                OAuthConstants.HTTP_RESP_HEADER_VAL_CACHE_CONTROL_NO_STORE)
+                        .header(OAuthConstants.HTTP_RESP_HEADER_PRAGMA,
+                                OAuthConstants.HTTP_RESP_HEADER_VAL_PRAGMA_NO_CACHE)
+                        .entity(buildResponse(results)).build();
+            } catch (JSONException e) {
+                log.error("Error while building the introspection response", e);
+                OAuthResponse response = OAuthASResponse.errorResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+                        .setError(OAuth2ErrorCodes.SERVER_ERROR)
+                        .setErrorDescription("Error while building the introspection response").buildJSONMessage();
+                return Response.status(response.getResponseStatus()).entity(response.getBody()).build();
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * @return consumer key of the client authenticated by the authorization header, or null if the client
+     * could not be authenticated
+     */
+    private String getAuthenticatedClient(String authorizationHeader) {
+
+        if (authorizationHeader == null) {
+            return null;
+        }
+        try {
+            String[] clientCredentials = EndpointUtil.extractCredentialsFromAuthzHeader(authorizationHeader);
+            if (clientCredentials != null && clientCredentials.length == 2 &&
+                    OAuth2Util.authenticateClient(clientCredentials[0], clientCredentials[1])) {
+                return clientCredentials[0];
+            }
+            return null;
+        } catch (OAuthClientException e) {
+            // malformed credential string is considered as an auth failure.
+            return null;
+        } catch (Exception e) {
+            log.error("Error while authenticating the client", e);
+            return null;
+        }
+    }
+
+    private static Set<String> getClients(String property) {
+
+        String clients = IdentityUtil.getProperty(property);
+        if (clients == null || clients.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> clientIds = new HashSet<String>();
+        for (String clientId : clients.split(",")) {
+            if (!clientId.trim().isEmpty()) {
+                clientIds.add(clientId.trim());
+            }
+        }
+        return Collections.unmodifiableSet(clientIds);
+    }
+
+    private boolean hasRequiredClaims(OAuth2TokenValidationRequestDTO[] validationRequests) {
+
+        for (OAuth2TokenValidationRequestDTO validationRequest : validationRequests) {
+            if (validationRequest.getRequiredClaimURIs() != null &&
+                    validationRequest.getRequiredClaimURIs().length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private OAuth2TokenValidationRequestDTO[] buildValidationRequests(String payload) throws JSONException {
+
+        if (payload == null || payload.trim().isEmpty()) {
+            throw new JSONException("Empty request");
+        }
+        JSONArray tokens = new JSONObject(payload).getJSONArray("tokens");
+        OAuth2TokenValidationRequestDTO[] validationRequests = new OAuth2TokenValidationRequestDTO[tokens.length()];
+        for (int i = 0; i < tokens.length(); i++) {
+            JSONObject token = tokens.getJSONObject(i);
+            OAuth2TokenValidationRequestDTO validationRequest = new OAuth2TokenValidationRequestDTO();
+            OAuth2TokenValidationRequestDTO.OAuth2AccessToken accessToken = validationRequest.new OAuth2AccessToken();
+            accessToken.setIdentifier(token.getString("token"));
+            accessToken.setTokenType(token.optString("token_type", DEFAULT_TOKEN_TYPE));
+            validationRequest.setAccessToken(accessToken);
+
+            JSONArray requiredClaims = token.optJSONArray("required_claims");
+            if (requiredClaims != null) {
+                String[] requiredClaimURIs = new String[requiredClaims.length()];
+                for (int j = 0; j < requiredClaims.length(); j++) {
+                    requiredClaimURIs[j] = requiredClaims.getString(j);
+                }
+                validationRequest.setRequiredClaimURIs(requiredClaimURIs);
+            }
+            validationRequests[i] = validationRequest;
+        }
+        return validationRequests;
+    }
+
+    private String buildResponse(OAuth2ClientApplicationDTO[] results) throws JSONException {
+
+        JSONArray resultArray = new JSONArray();
+        for (OAuth2ClientApplicationDTO result : results) {
+            OAuth2TokenValidationResponseDTO validationResponse = result.getAccessTokenValidationResponse();
+            JSONObject resultObject = new JSONObject();
+            resultObject.put("active", validationResponse.isValid());
+            if (validationResponse.isValid()) {
+                resultObject.put("client_id", result.getConsumerKey());
+                resultObject.put("username", validationResponse.getAuthorizedUser());
+                if (validationResponse.getScope() != null) {
+                    resultObject.put("scope", OAuth2Util.buildScopeString(validationResponse.getScope()));
+                }
+                resultObject.put("exp", validationResponse.getExpiryTime());
+                if (validationResponse.getAuthorizationContextToken() != null) {
+                    resultObject.put("authorization_context_token",
+                            validationResponse.getAuthorizationContextToken().getTokenString());
+                }
+            } else if (validationResponse.getErrorMsg() != null) {
+                resultObject.put("error", validationResponse.getErrorMsg());
+            }
+            resultArray.put(resultObject);
+        }
+        return new JSONObject().put("results", resultArray).toString();
+    }
+
+    private Response buildUnauthorizedClientError(String description) throws OAuthSystemException {
+        OAuthResponse response = OAuthASResponse.errorResponse(HttpServletResponse.SC_FORBIDDEN)
+                .setError(OAuth2ErrorCodes.UNAUTHORIZED_CLIENT)
+                .setErrorDescription(description).buildJSONMessage();
+        return Response.status(response.getResponseStatus()).entity(response.getBody()).build();
+    }
+
+    private Response buildClientError(String description) throws OAuthSystemException {
+        OAuthResponse response = OAuthASResponse.errorResponse(HttpServletResponse.SC_BAD_REQUEST)
+                .setError(OAuth2ErrorCodes.INVALID_REQUEST)
+                .setErrorDescription(description).buildJSONMessage();
+        return Response.status(response.getResponseStatus()).entity(response.getBody()).build();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+*Copyright (c) 2005-2013, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.oauth.endpoint.jwks;
+
+import org.apache.amber.oauth2.as.response.OAuthASResponse;
+import org.apache.amber.oauth2.common.exception.OAuthSystemException;
+import org.apache.amber.oauth2.common.message.OAuthResponse;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.common.OAuth2ErrorCodes;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.token.JWTAccessTokenBuilder;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Response;
+
+/**
+ * Publishes the public keys used to sign the self contained access tokens as a JSON Web Key Set,
+ * so that resource servers can validate the access tokens without calling the validation service.
+ */
+@Path("/jwks")
+public class JwksEndpoint {
+
+    private static Log log = LogFactory.getLog(JwksEndpoint.class);
+
+    @GET
+    @Path("/")
+    @Produces("application/json")
+    public Response getKeySet(@QueryParam("tenantDomain") String tenantDomain) throws OAuthSystemException {
+
+        if (tenantDomain == null || tenantDomain.trim().isEmpty()) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+
+        String response;
+        try {
+            response = JWTAccessTokenBuilder.getJWKS(tenantDomain);
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while building the JSON Web Key Set for tenant " + tenantDomain, e);
+            OAuthResponse errorResponse = OAuthASResponse.errorResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR)
+                    .setError(OAuth2ErrorCodes.SERVER_ERROR)
+                    .setErrorDescription("Error while building the JSON Web Key Set").buildJSONMessage();
+            return Response.status(errorResponse.getResponseStatus()).entity(errorResponse.getBody()).build();
+        }
+
+        return Response.status(HttpServletResponse.SC_OK)
+                .header(OAuthConstants.HTTP_RESP_HEADER_CACHE_CONTROL, "max-age=3600")
+                .entity(response).build();
+    }
+}
@@ -39,6 +39,7 @@ import org.wso2.carbon.identity.oauth.dto.OAuthRevocationResponseDTO;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.RevokedAccessTokenList;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
@@ -419,7 +420,7 @@ public class OAuthAdminService extends AbstractAdmin {
                             OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
                                     OAuth2Util.buildScopeString(accessTokenDO.getScope()));
                             OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                            OAuthUtil.clearOAuthCache(accessTokenDO.getAccessToken());
+                            OAuthUtil.clearOAuthCacheForRevokedToken(accessTokenDO.getAccessToken());
                             AccessTokenDO scopedToken = null;
                             try {
                                 // retrieve latest access token for particular client, user and scope combination if its ACTIVE or EXPIRED
@@ -438,6 +439,7 @@ public class OAuthAdminService extends AbstractAdmin {
                                 //Revoking token from database
                                 try {
                                     tokenMgtDAO.revokeToken(scopedToken.getAccessToken());
+                                    RevokedAccessTokenList.tokenRevoked(scopedToken.getAccessToken());
                                 } catch (IdentityOAuth2Exception e) {
                                     String errorMsg = "Error occurred while revoking " +
                                             "Access Token : " + scopedToken.getAccessToken();
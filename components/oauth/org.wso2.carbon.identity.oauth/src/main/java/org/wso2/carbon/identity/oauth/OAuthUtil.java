@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.xml.security.utils.Base64;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenValidationCache;
 import org.wso2.carbon.identity.oauth.cache.CacheKey;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
 import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
@@ -90,4 +91,17 @@ public final class OAuthUtil {
         }
     }
 
+    /**
+     * Clears the cached copies of an access token which is being revoked, including the copies kept
+     * by the token validation cache of the other nodes
+     *
+     * @param accessToken access token identifier
+     */
+    public static void clearOAuthCacheForRevokedToken(String accessToken) {
+        clearOAuthCache(accessToken);
+        if (OAuthServerConfiguration.getInstance().isCacheEnabled()) {
+            AccessTokenValidationCache.getInstance().revokeAccessToken(accessToken);
+        }
+    }
+
 }
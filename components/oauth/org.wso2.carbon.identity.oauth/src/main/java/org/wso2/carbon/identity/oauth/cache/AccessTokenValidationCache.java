@@ -0,0 +1,456 @@
+/*
+*Copyright (c) 2005-2013, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.oauth.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access token cache used by the token validation. A bounded in-memory tier is kept in front of
+ * the distributed {@link OAuthCache}, so that validating a hot token does not go over the
+ * network. Local entries live at most for the configured local TTL and never beyond the
+ * remaining lifetime of the token. Identifiers that could not be found in the database are
+ * remembered locally for a short time, so that replayed invalid tokens do not reach the
+ * database on every call.
+ * <p/>
+ * Entries are removed from the local tier whenever the matching {@link OAuthCache} entry is
+ * added or cleared on this node. A revoked access token is also recorded in the distributed tier
+ * together with a revocation generation, which each node checks in the background. A node which
+ * finds new revocations drops the revoked tokens from its local tier, or the whole local tier if
+ * it has missed more revocations than are recorded, so a revocation takes effect on the other
+ * nodes within the check interval. Revocations made at the same time on different nodes may
+ * overwrite each other in the distributed tier, in which case the other nodes keep the token for
+ * at most the local TTL.
+ */
+public class AccessTokenValidationCache {
+
+    private static Log log = LogFactory.getLog(AccessTokenValidationCache.class);
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final long DEFAULT_LOCAL_TTL = 30;
+    private static final long DEFAULT_NEGATIVE_TTL = 10;
+    private static final long DEFAULT_REVOCATION_CHECK_INTERVAL = 1;
+    private static final String REVOCATION_GENERATION_KEY = "AccessTokenValidationCache.RevocationGeneration";
+    private static final int RECORDED_REVOCATIONS = 1000;
+    private static final int SEGMENTS = 16;
+
+    private static final AccessTokenValidationCache instance = new AccessTokenValidationCache();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long localTTL;
+    private final long negativeTTL;
+    private final long revocationCheckInterval;
+    /**
+     * local entries put with an older generation are no longer valid
+     */
+    private final AtomicInteger generation = new AtomicInteger();
+    private volatile int sharedGeneration;
+    private final Object revocationLock = new Object();
+    private volatile ScheduledExecutorService revocationChecker;
+
+    private final AtomicLong localHitCount = new AtomicLong();
+    private final AtomicLong distributedHitCount = new AtomicLong();
+    private final AtomicLong negativeHitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong databaseLookupCount = new AtomicLong();
+
+    private AccessTokenValidationCache() {
+        int capacity = getProperty("OAuth.TokenValidationCache.Capacity", DEFAULT_CAPACITY);
+        localTTL = getProperty("OAuth.TokenValidationCache.LocalTTL", DEFAULT_LOCAL_TTL) * 1000;
+        negativeTTL = getProperty("OAuth.TokenValidationCache.NegativeTTL", DEFAULT_NEGATIVE_TTL) * 1000;
+        revocationCheckInterval = getProperty("OAuth.TokenValidationCache.RevocationCheckInterval",
+                DEFAULT_REVOCATION_CHECK_INTERVAL);
+        int segmentCapacity = Math.max(capacity / SEGMENTS, 0);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Token validation cache is initialized with capacity : " + capacity + ", local TTL : " +
+                    localTTL + "ms and negative TTL : " + negativeTTL + "ms");
+        }
+    }
+
+    public static AccessTokenValidationCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the cached access token, looking at the local tier first and then at the
+     * distributed {@link OAuthCache}. A token found in the distributed tier is kept locally.
+     *
+     * @param accessTokenIdentifier access token identifier
+     * @return cached access token or null
+     */
+    public AccessTokenDO getAccessToken(String accessTokenIdentifier) {
+
+        // a revocation made while reading the distributed tier must drop the entry read
+        int currentGeneration = generation.get();
+        LocalEntry entry = getSegment(accessTokenIdentifier).getEntry(accessTokenIdentifier, currentGeneration);
+        if (entry != null && entry.accessTokenDO != null) {
+            localHitCount.incrementAndGet();
+            return entry.accessTokenDO;
+        }
+
+        CacheEntry result = OAuthCache.getInstance().getValueFromCache(new OAuthCacheKey(accessTokenIdentifier));
+        if (result instanceof AccessTokenDO) {
+            distributedHitCount.incrementAndGet();
+            putLocal(accessTokenIdentifier, (AccessTokenDO) result, currentGeneration);
+            return (AccessTokenDO) result;
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param accessTokenIdentifier access token identifier
+     * @return true if the identifier was recently found to be unknown, revoked or expired
+     */
+    public boolean isInvalid(String accessTokenIdentifier) {
+
+        LocalEntry entry = getSegment(accessTokenIdentifier).getEntry(accessTokenIdentifier, generation.get());
+        if (entry != null && entry.accessTokenDO == null) {
+            negativeHitCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the access token to both tiers
+     *
+     * @param accessTokenIdentifier access token identifier
+     * @param accessTokenDO         access token
+     */
+    public void addAccessToken(String accessTokenIdentifier, AccessTokenDO accessTokenDO) {
+        int currentGeneration = generation.get();
+        OAuthCache.getInstance().addToCache(new OAuthCacheKey(accessTokenIdentifier), accessTokenDO);
+        putLocal(accessTokenIdentifier, accessTokenDO, currentGeneration);
+    }
+
+    /**
+     * Remembers locally that the identifier does not belong to a valid token
+     *
+     * @param accessTokenIdentifier access token identifier
+     */
+    public void addInvalidToken(String accessTokenIdentifier) {
+        if (negativeTTL > 0) {
+            startRevocationChecker();
+            getSegment(accessTokenIdentifier).putEntry(accessTokenIdentifier,
+                    new LocalEntry(null, System.currentTimeMillis() + negativeTTL, generation.get()));
+        }
+    }
+
+    /**
+     * Removes the identifier from the local tier
+     *
+     * @param accessTokenIdentifier access token identifier
+     */
+    public void clearLocalEntry(String accessTokenIdentifier) {
+        getSegment(accessTokenIdentifier).removeEntry(accessTokenIdentifier);
+    }
+
+    /**
+     * Removes a revoked access token from the local tier of all the nodes of the cluster
+     *
+     * @param accessTokenIdentifier access token identifier
+     */
+    public void revokeAccessToken(String accessTokenIdentifier) {
+
+        clearLocalEntry(accessTokenIdentifier);
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            setSuperTenant();
+            OAuthCacheKey cacheKey = new OAuthCacheKey(REVOCATION_GENERATION_KEY);
+            synchronized (revocationLock) {
+                RevocationGenerationEntry current = getRevocations(cacheKey);
+                applyRevocations(current);
+                String[] revokedTokens;
+                if (current != null) {
+                    String[] recorded = current.getRevokedTokens();
+                    int kept = Math.min(recorded.length, RECORDED_REVOCATIONS - 1);
+                    revokedTokens = new String[kept + 1];
+                    System.arraycopy(recorded, recorded.length - kept, revokedTokens, 0, kept);
+                } else {
+                    revokedTokens = new String[1];
+                }
+                revokedTokens[revokedTokens.length - 1] = accessTokenIdentifier;
+                // shared value must always be changed, so that the other nodes notice the revocation
+                int valueToCache = sharedGeneration + 1;
+                OAuthCache.getInstance().addToCache(cacheKey, new RevocationGenerationEntry(valueToCache,
+                        revokedTokens));
+                sharedGeneration = valueToCache;
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Records that the token could not be served from the cache and was read from the database
+     */
+    public void recordDatabaseLookup() {
+        databaseLookupCount.incrementAndGet();
+    }
+
+    public long getLocalHitCount() {
+        return localHitCount.get();
+    }
+
+    public long getDistributedHitCount() {
+        return distributedHitCount.get();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getDatabaseLookupCount() {
+        return databaseLookupCount.get();
+    }
+
+    public int getLocalSize() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "AccessTokenValidationCache [localHits=" + getLocalHitCount() + ", distributedHits=" +
+                getDistributedHitCount() + ", negativeHits=" + getNegativeHitCount() + ", misses=" +
+                getMissCount() + ", databaseLookups=" + getDatabaseLookupCount() + ", localSize=" +
+                getLocalSize() + "]";
+    }
+
+    private void putLocal(String accessTokenIdentifier, AccessTokenDO accessTokenDO, int entryGeneration) {
+
+        long ttl = localTTL;
+        if (accessTokenDO.getValidityPeriodInMillis() >= 0) {
+            ttl = Math.min(ttl, OAuth2Util.getAccessTokenExpireMillis(accessTokenDO));
+        }
+        if (ttl > 0) {
+            startRevocationChecker();
+            getSegment(accessTokenIdentifier).putEntry(accessTokenIdentifier,
+                    new LocalEntry(accessTokenDO, System.currentTimeMillis() + ttl, entryGeneration));
+        }
+    }
+
+    private void checkRevocationGeneration() {
+
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            setSuperTenant();
+            synchronized (revocationLock) {
+                applyRevocations(getRevocations(new OAuthCacheKey(REVOCATION_GENERATION_KEY)));
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Drops the tokens revoked on the other nodes from the local tier, or the whole local tier if
+     * the revocations since the last check are not all recorded
+     */
+    private void applyRevocations(RevocationGenerationEntry revocations) {
+
+        int valueInCache = revocations != null ? revocations.getGeneration() : 0;
+        if (valueInCache == sharedGeneration) {
+            return;
+        }
+        int missed = valueInCache - sharedGeneration;
+        if (missed > 0 && missed <= revocations.getRevokedTokens().length) {
+            String[] revokedTokens = revocations.getRevokedTokens();
+            for (int i = revokedTokens.length - missed; i < revokedTokens.length; i++) {
+                clearLocalEntry(revokedTokens[i]);
+            }
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("Access token revocation generation is changed from : " + sharedGeneration +
+                        " to : " + valueInCache + ". Local token validation cache is dropped");
+            }
+            generation.incrementAndGet();
+        }
+        sharedGeneration = valueInCache;
+    }
+
+    private RevocationGenerationEntry getRevocations(OAuthCacheKey cacheKey) {
+        CacheEntry entry = OAuthCache.getInstance().getValueFromCache(cacheKey);
+        if (entry instanceof RevocationGenerationEntry) {
+            return (RevocationGenerationEntry) entry;
+        }
+        return null;
+    }
+
+    private void setSuperTenant() {
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        carbonContext.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        carbonContext.setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+    }
+
+    /**
+     * Starts the background check of the shared revocation generation once entries are kept locally
+     */
+    private void startRevocationChecker() {
+
+        if (revocationChecker != null || revocationCheckInterval <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (revocationChecker != null) {
+                return;
+            }
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "OAuthTokenValidationCacheRevocationCheck");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        checkRevocationGeneration();
+                    } catch (Exception e) {
+                        log.error("Error while checking the access token revocation generation", e);
+                    }
+                }
+            }, revocationCheckInterval, revocationCheckInterval, TimeUnit.SECONDS);
+            revocationChecker = scheduler;
+        }
+    }
+
+    private Segment getSegment(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENTS - 1)];
+    }
+
+    private static long getProperty(String name, long defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for " + name + " : " + value + ". Using default value " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static int getProperty(String name, int defaultValue) {
+        return (int) getProperty(name, (long) defaultValue);
+    }
+
+    private static class LocalEntry {
+
+        private final AccessTokenDO accessTokenDO;
+        private final long expiryTime;
+        private final int generation;
+
+        private LocalEntry(AccessTokenDO accessTokenDO, long expiryTime, int generation) {
+            this.accessTokenDO = accessTokenDO;
+            this.expiryTime = expiryTime;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Revocation generation shared through the distributed tier, with the tokens revoked in the
+     * latest generations. The last token was revoked in the current generation.
+     */
+    private static class RevocationGenerationEntry extends CacheEntry {
+
+        private static final long serialVersionUID = 2875106240167392615L;
+        private final int generation;
+        private final String[] revokedTokens;
+
+        private RevocationGenerationEntry(int generation, String[] revokedTokens) {
+            this.generation = generation;
+            this.revokedTokens = revokedTokens;
+        }
+
+        private int getGeneration() {
+            return generation;
+        }
+
+        private String[] getRevokedTokens() {
+            return revokedTokens;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<String, LocalEntry> {
+
+        private static final long serialVersionUID = -4738417623652361270L;
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        private synchronized LocalEntry getEntry(String key, int generation) {
+            LocalEntry entry = super.get(key);
+            if (entry != null && (entry.expiryTime <= System.currentTimeMillis() || entry.generation != generation)) {
+                super.remove(key);
+                return null;
+            }
+            return entry;
+        }
+
+        private synchronized void putEntry(String key, LocalEntry entry) {
+            if (capacity > 0) {
+                super.put(key, entry);
+            }
+        }
+
+        private synchronized void removeEntry(String key) {
+            super.remove(key);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -38,6 +38,7 @@ public class OAuthCache extends BaseCache<CacheKey, CacheEntry> {
     @Override
     public void addToCache(CacheKey key, CacheEntry entry) {
         super.addToCache(key, entry);
+        clearLocalEntry(key);
     }
 
     @Override
@@ -48,5 +49,16 @@ public class OAuthCache extends BaseCache<CacheKey, CacheEntry> {
     @Override
     public void clearCacheEntry(CacheKey key) {
         super.clearCacheEntry(key);
+        clearLocalEntry(key);
+    }
+
+    /**
+     * Drops the copy kept by the token validation cache on this node, so that it does not outlive
+     * a change made to this cache on this node
+     */
+    private void clearLocalEntry(CacheKey key) {
+        if (key instanceof OAuthCacheKey) {
+            AccessTokenValidationCache.getInstance().clearLocalEntry(((OAuthCacheKey) key).getCacheKeyString());
+        }
     }
 }
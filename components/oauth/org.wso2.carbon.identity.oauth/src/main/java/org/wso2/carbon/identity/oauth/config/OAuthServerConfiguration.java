@@ -103,6 +103,10 @@ public class OAuthServerConfiguration {
     private String consumerDialectURI = "http://wso2.org/claims";
     private String signatureAlgorithm = "SHA256withRSA";
     private String authContextTTL = "15L";
+    // Self contained JWT access tokens
+    private boolean isJWTAccessTokenEnabled = false;
+    private String jwtAccessTokenSignatureAlgorithm = "SHA256withRSA";
+    private long jwtAccessTokenRevocationListRefreshInterval = 60;
     // OpenID Connect configurations
     private String openIDConnectIDTokenBuilderClassName = "org.wso2.carbon.identity.openidconnect.DefaultIDTokenBuilder";
     private String openIDConnectIDTokenCustomClaimsHanlderClassName = "org.wso2.carbon.identity.openidconnect.SAMLAssertionClaimsCallback";
@@ -201,6 +205,9 @@ public class OAuthServerConfiguration {
             // read openid connect configurations
             parseOpenIDConnectConfig(oauthElem);
 
+            // read JWT access token config
+            parseJWTAccessTokenConfig(oauthElem);
+
         } catch (ServerConfigurationException e) {
             log.error("Error when reading the OAuth Configurations. "
                     + "OAuth related functionality might be affected.", e);
@@ -455,6 +462,18 @@ public class OAuthServerConfiguration {
         return authContextTTL;
     }
 
+    public boolean isJWTAccessTokenEnabled() {
+        return isJWTAccessTokenEnabled;
+    }
+
+    public String getJWTAccessTokenSignatureAlgorithm() {
+        return jwtAccessTokenSignatureAlgorithm;
+    }
+
+    public long getJWTAccessTokenRevocationListRefreshInterval() {
+        return jwtAccessTokenRevocationListRefreshInterval;
+    }
+
     public TokenPersistenceProcessor getPersistenceProcessor() throws IdentityOAuth2Exception {
         if (persistenceProcessor == null) {
             synchronized (this) {
@@ -1080,6 +1099,37 @@ public class OAuthServerConfiguration {
         }
     }
 
+    private void parseJWTAccessTokenConfig(OMElement oauthConfigElem) {
+        OMElement jwtAccessTokenConfigElem =
+                oauthConfigElem.getFirstChildWithName(getQNameWithIdentityNS(ConfigElements.JWT_ACCESS_TOKEN));
+        if (jwtAccessTokenConfigElem != null) {
+            OMElement enabledElem =
+                    jwtAccessTokenConfigElem.getFirstChildWithName(getQNameWithIdentityNS(ConfigElements.ENABLED));
+            if (enabledElem != null) {
+                isJWTAccessTokenEnabled = JavaUtils.isTrueExplicitly(enabledElem.getText().trim());
+            }
+            OMElement signatureAlgorithmElem = jwtAccessTokenConfigElem.getFirstChildWithName(
+                    getQNameWithIdentityNS(ConfigElements.SIGNATURE_ALGORITHM));
+            if (signatureAlgorithmElem != null) {
+                jwtAccessTokenSignatureAlgorithm = signatureAlgorithmElem.getText().trim();
+            }
+            OMElement refreshIntervalElem = jwtAccessTokenConfigElem.getFirstChildWithName(
+                    getQNameWithIdentityNS(ConfigElements.JWT_ACCESS_TOKEN_REVOCATION_LIST_REFRESH_INTERVAL));
+            if (refreshIntervalElem != null) {
+                try {
+                    jwtAccessTokenRevocationListRefreshInterval = Long.parseLong(refreshIntervalElem.getText().trim());
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid value for " + ConfigElements.JWT_ACCESS_TOKEN_REVOCATION_LIST_REFRESH_INTERVAL +
+                            " : " + refreshIntervalElem.getText() + ". Using default value " +
+                            jwtAccessTokenRevocationListRefreshInterval);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("JWT access tokens were set to : " + isJWTAccessTokenEnabled);
+        }
+    }
+
     private void parseOpenIDConnectConfig(OMElement oauthConfigElem) {
 
         OMElement openIDConnectConfigElem =
@@ -1180,6 +1230,9 @@ public class OAuthServerConfiguration {
         public static final String ENABLE_ASSERTIONS_USERNAME = "UserName";
         public static final String ENABLE_ACCESS_TOKEN_PARTITIONING = "EnableAccessTokenPartitioning";
         public static final String ACCESS_TOKEN_PARTITIONING_DOMAINS = "AccessTokenPartitioningDomains";
+        // Self contained JWT access tokens
+        public static final String JWT_ACCESS_TOKEN = "JWTAccessToken";
+        public static final String JWT_ACCESS_TOKEN_REVOCATION_LIST_REFRESH_INTERVAL = "RevocationListRefreshInterval";
         // OpenIDConnect configurations
         public static final String OPENID_CONNECT = "OpenIDConnect";
         public static final String OPENID_CONNECT_IDTOKEN_BUILDER = "IDTokenBuilder";
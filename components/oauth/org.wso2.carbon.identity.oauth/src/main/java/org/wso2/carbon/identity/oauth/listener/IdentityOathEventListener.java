@@ -23,6 +23,7 @@ import org.wso2.carbon.identity.oauth.OAuthUtil;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.RevokedAccessTokenList;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.user.core.common.AbstractUserOperationEventListener;
 
@@ -91,7 +92,7 @@ public class IdentityOathEventListener extends AbstractUserOperationEventListene
                 OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser(),
                         OAuth2Util.buildScopeString(accessTokenDO.getScope()));
                 OAuthUtil.clearOAuthCache(accessTokenDO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                OAuthUtil.clearOAuthCache(accessTokenDO.getAccessToken());
+                OAuthUtil.clearOAuthCacheForRevokedToken(accessTokenDO.getAccessToken());
                 AccessTokenDO scopedToken = null;
                 try {
                     // retrieve latest access token for particular client, user and scope combination if its ACTIVE or EXPIRED
@@ -110,6 +111,7 @@ public class IdentityOathEventListener extends AbstractUserOperationEventListene
                     try {
                         //Revoking token from database
                         tokenMgtDAO.revokeToken(scopedToken.getAccessToken());
+                        RevokedAccessTokenList.tokenRevoked(scopedToken.getAccessToken());
                     } catch (IdentityOAuth2Exception e) {
                         String errorMsg = "Error occurred while revoking " +
                                 "Access Token : " + scopedToken.getAccessToken();
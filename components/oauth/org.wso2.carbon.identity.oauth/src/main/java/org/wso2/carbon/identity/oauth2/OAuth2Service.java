@@ -36,6 +36,8 @@ import org.wso2.carbon.identity.oauth2.dto.*;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
 import org.wso2.carbon.identity.oauth2.model.RefreshTokenValidationDataDO;
 import org.wso2.carbon.identity.oauth2.token.AccessTokenIssuer;
+import org.wso2.carbon.identity.oauth2.token.JWTAccessTokenBuilder;
+import org.wso2.carbon.identity.oauth2.token.RevokedAccessTokenList;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.user.api.Claim;
 import org.wso2.carbon.user.core.UserStoreManager;
@@ -230,6 +232,10 @@ public class OAuth2Service extends AbstractAdmin {
                     revokeRespDTO.setErrorMsg("Unauthorized Client");
                     return revokeRespDTO;
                 }
+                if (JWTAccessTokenBuilder.isEnabled() && JWTAccessTokenBuilder.isJWT(revokeRequestDTO.getToken())) {
+                    // self contained access tokens are stored against the token identifier they carry
+                    revokeRequestDTO.setToken(JWTAccessTokenBuilder.getTokenIdentifier(revokeRequestDTO.getToken()));
+                }
                 boolean refreshTokenFirst = false;
                 if (revokeRequestDTO.getToken_type() != null && revokeRequestDTO.equals("refresh_token")) {
                     refreshTokenFirst = true;
@@ -247,8 +253,10 @@ public class OAuth2Service extends AbstractAdmin {
                                 OAuth2Util.buildScopeString(refreshTokenDO.getScope()));
                         org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(
                                 revokeRequestDTO.getConsumerKey(), refreshTokenDO.getAuthorizedUser());
-                        org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(refreshTokenDO.getAccessToken());
+                        org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCacheForRevokedToken(
+                                refreshTokenDO.getAccessToken());
                         tokenMgtDAO.revokeToken(refreshTokenDO.getAccessToken());
+                        RevokedAccessTokenList.tokenRevoked(refreshTokenDO.getAccessToken());
                         addRevokeResponseHeaders(revokeResponseDTO, refreshTokenDO.getAccessToken(),
                                 revokeRequestDTO.getToken(), refreshTokenDO.getAuthorizedUser());
                     } else {
@@ -260,8 +268,10 @@ public class OAuth2Service extends AbstractAdmin {
                                     OAuth2Util.buildScopeString(accessTokenDO.getScope()));
                             org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(
                                     revokeRequestDTO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                            org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(revokeRequestDTO.getToken());
+                            org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCacheForRevokedToken(
+                                    revokeRequestDTO.getToken());
                             tokenMgtDAO.revokeToken(revokeRequestDTO.getToken());
+                            RevokedAccessTokenList.tokenRevoked(revokeRequestDTO.getToken());
                             addRevokeResponseHeaders(revokeResponseDTO, accessTokenDO.getAccessToken(),
                                     accessTokenDO.getRefreshToken(), refreshTokenDO.getAuthorizedUser());
                         }
@@ -275,8 +285,10 @@ public class OAuth2Service extends AbstractAdmin {
                                 OAuth2Util.buildScopeString(accessTokenDO.getScope()));
                         org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(
                                 revokeRequestDTO.getConsumerKey(), accessTokenDO.getAuthzUser());
-                        org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(revokeRequestDTO.getToken());
+                        org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCacheForRevokedToken(
+                                revokeRequestDTO.getToken());
                         tokenMgtDAO.revokeToken(revokeRequestDTO.getToken());
+                        RevokedAccessTokenList.tokenRevoked(revokeRequestDTO.getToken());
                         addRevokeResponseHeaders(revokeResponseDTO, revokeRequestDTO.getToken(),
                                 accessTokenDO.getRefreshToken(), accessTokenDO.getAuthzUser());
                     } else {
@@ -292,8 +304,10 @@ public class OAuth2Service extends AbstractAdmin {
                                     OAuth2Util.buildScopeString(refreshTokenDO.getScope()));
                             org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(
                                     revokeRequestDTO.getConsumerKey(), refreshTokenDO.getAuthorizedUser());
-                            org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCache(refreshTokenDO.getAccessToken());
+                            org.wso2.carbon.identity.oauth.OAuthUtil.clearOAuthCacheForRevokedToken(
+                                    refreshTokenDO.getAccessToken());
                             tokenMgtDAO.revokeToken(refreshTokenDO.getAccessToken());
+                            RevokedAccessTokenList.tokenRevoked(refreshTokenDO.getAccessToken());
                             addRevokeResponseHeaders(revokeResponseDTO, refreshTokenDO.getAccessToken(),
                                     revokeRequestDTO.getToken(), refreshTokenDO.getAuthorizedUser());
                         }
@@ -53,6 +53,23 @@ public class OAuth2TokenValidationService extends AbstractAdmin {
         }
     }
 
+    /**
+     * Validates a batch of access tokens in a single call. Access tokens which are not cached are read
+     * from the database together.
+     *
+     * @param validationReqDTOs validation requests
+     * @return validation responses in the order of the requests
+     */
+    public OAuth2TokenValidationResponseDTO[] validateTokens(OAuth2TokenValidationRequestDTO[] validationReqDTOs) {
+
+        OAuth2ClientApplicationDTO[] appDTOs = findOAuthConsumersIfTokensAreValid(validationReqDTOs);
+        OAuth2TokenValidationResponseDTO[] respDTOs = new OAuth2TokenValidationResponseDTO[appDTOs.length];
+        for (int i = 0; i < appDTOs.length; i++) {
+            respDTOs[i] = appDTOs[i].getAccessTokenValidationResponse();
+        }
+        return respDTOs;
+    }
+
     /**
      * @param validationReqDTO
      * @return
@@ -73,4 +90,34 @@ public class OAuth2TokenValidationService extends AbstractAdmin {
             return appDTO;
         }
     }
+
+    /**
+     * Batch version of {@link #findOAuthConsumerIfTokenIsValid(OAuth2TokenValidationRequestDTO)}
+     *
+     * @param validationReqDTOs validation requests
+     * @return validation results in the order of the requests
+     */
+    public OAuth2ClientApplicationDTO[] findOAuthConsumersIfTokensAreValid(
+            OAuth2TokenValidationRequestDTO[] validationReqDTOs) {
+
+        if (validationReqDTOs == null) {
+            return new OAuth2ClientApplicationDTO[0];
+        }
+        TokenValidationHandler validationHandler = TokenValidationHandler.getInstance();
+
+        try {
+            return validationHandler.findOAuthConsumersIfTokensAreValid(validationReqDTOs);
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error occurred while validating the OAuth2 access tokens", e);
+            OAuth2ClientApplicationDTO[] appDTOs = new OAuth2ClientApplicationDTO[validationReqDTOs.length];
+            for (int i = 0; i < appDTOs.length; i++) {
+                appDTOs[i] = new OAuth2ClientApplicationDTO();
+                OAuth2TokenValidationResponseDTO errRespDTO = new OAuth2TokenValidationResponseDTO();
+                errRespDTO.setValid(false);
+                errRespDTO.setErrorMsg("Server error occurred while validating the OAuth2 access token");
+                appDTOs[i].setAccessTokenValidationResponse(errRespDTO);
+            }
+            return appDTOs;
+        }
+    }
 }
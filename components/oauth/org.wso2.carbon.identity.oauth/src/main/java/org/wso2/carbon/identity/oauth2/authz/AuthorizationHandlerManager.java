@@ -33,6 +33,7 @@ import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.authz.handlers.ResponseTypeHandler;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeReqDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2AuthorizeRespDTO;
+import org.wso2.carbon.identity.oauth2.token.JWTAccessTokenBuilder;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import org.wso2.carbon.utils.CarbonUtils;
 
@@ -149,6 +150,13 @@ public class AuthorizationHandlerManager {
         }
 
         authorizeRespDTO = authzHandler.issue(authzReqMsgCtx);
+        if (JWTAccessTokenBuilder.isEnabled() && authorizeRespDTO.getErrorCode() == null
+                && authorizeRespDTO.getAccessToken() != null) {
+            authorizeRespDTO.setAccessToken(JWTAccessTokenBuilder.buildAccessToken(
+                    authorizeRespDTO.getAccessToken(), authzReqDTO.getConsumerKey(), authzReqDTO.getUsername(),
+                    OAuth2Util.buildScopeString(authzReqMsgCtx.getApprovedScope()),
+                    OAuthConstants.USER_TYPE_FOR_USER_TOKEN, authorizeRespDTO.getValidityPeriod() * 1000));
+        }
         return authorizeRespDTO;
     }
 
@@ -38,6 +38,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
 
@@ -66,7 +67,9 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
         Timestamp refreshTokenIssuedTime = null;
         long refreshTokenValidityPeriodInMillis = 0;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock tokenIssuanceLock = OAuth2Util.getTokenIssuanceLock(consumerKey, authorizedUser, scope);
+        tokenIssuanceLock.lock();
+        try {
 
             // check if valid access token exists in cache
             if (cacheEnabled) {
@@ -295,6 +298,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
             // Add the access token to the cache.
             if (cacheEnabled) {
                 oauthCache.addToCache(cacheKey, accessTokenDO);
+                // token may be validated before it is persisted, hence it is cached against the token as well
+                oauthCache.addToCache(new OAuthCacheKey(accessToken), accessTokenDO);
                 if (log.isDebugEnabled()) {
                     log.debug("Access Token : " + accessToken + " was added to OAuthCache for " +
                             "cache key : " + cacheKey.getCacheKeyString());
@@ -312,6 +317,8 @@ public class TokenResponseTypeHandler extends AbstractResponseTypeHandler {
             respDTO.setScope(accessTokenDO.getScope());
             respDTO.setTokenType(accessTokenDO.getTokenType());
             return respDTO;
+        } finally {
+            tokenIssuanceLock.unlock();
         }
     }
 }
@@ -20,20 +20,37 @@ package org.wso2.carbon.identity.oauth2.dao;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
 
-/**
- *
- */
 public class AuthPersistenceTask implements Runnable {
 
-    private static Log log = LogFactory.getLog(TokenPersistenceTask.class);
+    private static Log log = LogFactory.getLog(AuthPersistenceTask.class);
     private BlockingDeque<AuthContextTokenDO> authContextTokenQueue;
+    private int batchSize;
+    private long batchInterval;
+    private TokenPersistenceStatistics statistics;
 
     public AuthPersistenceTask(BlockingDeque<AuthContextTokenDO> authContextTokenQueue) {
+        this(authContextTokenQueue, 1, 0, new TokenPersistenceStatistics("AuthorizationCodePersistence"));
+    }
+
+    /**
+     * @param authContextTokenQueue queue of the authorization codes to be persisted or removed
+     * @param batchSize             maximum number of codes written in a single batch
+     * @param batchInterval         maximum time in milliseconds to wait for more codes before
+     *                              writing a batch
+     * @param statistics            statistics of the written batches
+     */
+    public AuthPersistenceTask(BlockingDeque<AuthContextTokenDO> authContextTokenQueue, int batchSize,
+                               long batchInterval, TokenPersistenceStatistics statistics) {
         this.authContextTokenQueue = authContextTokenQueue;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.batchInterval = batchInterval;
+        this.statistics = statistics;
     }
 
     @Override
@@ -42,27 +59,49 @@ public class AuthPersistenceTask implements Runnable {
         log.debug("Auth Token context persist consumer is started");
 
         while (true) {
+            List<AuthContextTokenDO> batch = new ArrayList<AuthContextTokenDO>();
+            boolean interrupted = false;
             try {
-                AuthContextTokenDO authContextTokenDO = authContextTokenQueue.take();
-                if (authContextTokenDO != null) {
-                    if (authContextTokenDO.getAuthzCodeDO() == null) {
-                        log.debug("Auth Token Data removing Task is started to run");
-                        TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
-                        tokenMgtDAO.removeAuthzCode(authContextTokenDO.getAuthzCode());
-                    } else {
-                        log.debug("Auth Token Data persisting Task is started to run");
-                        TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
-                        tokenMgtDAO.persistAuthorizationCode(authContextTokenDO.getAuthzCode(),
-                                authContextTokenDO.getConsumerKey(), authContextTokenDO.getCallbackUrl(),
-                                authContextTokenDO.getAuthzCodeDO());
+                batch.add(authContextTokenQueue.take());
+                authContextTokenQueue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.currentTimeMillis() + batchInterval;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
                     }
+                    AuthContextTokenDO authContextTokenDO = authContextTokenQueue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (authContextTokenDO == null) {
+                        break;
+                    }
+                    batch.add(authContextTokenDO);
+                    authContextTokenQueue.drainTo(batch, batchSize - batch.size());
                 }
             } catch (InterruptedException e) {
-                log.error(e);
-            } catch (IdentityOAuth2Exception e) {
-                log.error(e);
+                interrupted = true;
+            }
+
+            if (!batch.isEmpty()) {
+                long start = System.currentTimeMillis();
+                try {
+                    TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
+                    tokenMgtDAO.persistAuthorizationCodes(batch);
+                } catch (Exception e) {
+                    log.error("Error occurred while persisting a batch of " + batch.size() + " authorization codes", e);
+                }
+                long flushTime = System.currentTimeMillis() - start;
+                statistics.recordFlush(batch.size(), flushTime);
+                if (log.isDebugEnabled()) {
+                    log.debug("Auth Token batch of " + batch.size() + " written in " + flushTime + "ms. " +
+                            authContextTokenQueue.size() + " codes are in the queue. " + statistics);
+                }
             }
 
+            if (interrupted) {
+                log.debug("Auth Token context persist consumer is stopped");
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 
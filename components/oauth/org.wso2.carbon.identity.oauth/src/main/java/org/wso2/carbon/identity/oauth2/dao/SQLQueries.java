@@ -81,6 +81,15 @@ public class SQLQueries {
             "USER_TYPE, REFRESH_TOKEN FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN=? AND" +
             " (TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED')";
 
+    /**
+     * Prefix of the bulk lookup query. The IN clause with one parameter per access token is appended
+     * by the caller
+     */
+    public static final String RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKENS = "SELECT ACCESS_TOKEN, CONSUMER_KEY, " +
+            "AUTHZ_USER, TOKEN_SCOPE, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, " +
+            "REFRESH_TOKEN_VALIDITY_PERIOD, USER_TYPE, REFRESH_TOKEN FROM IDN_OAUTH2_ACCESS_TOKEN WHERE " +
+            "(TOKEN_STATE='ACTIVE' OR TOKEN_STATE='EXPIRED') AND ACCESS_TOKEN IN (";
+
 //    public static final String VALIDATE_REFRESH_TOKEN = "SELECT ACCESS_TOKEN, AUTHZ_USER, " +
 //            "TOKEN_SCOPE, TOKEN_STATE FROM IDN_OAUTH2_ACCESS_TOKEN " +
 //            "WHERE CONSUMER_KEY = ? AND REFRESH_TOKEN = ?";
@@ -92,7 +101,29 @@ public class SQLQueries {
             " TOKEN_STATE_ID=? WHERE ACCESS_TOKEN=?";
 
     public static final String REVOKE_ACCESS_TOKEN = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET TOKEN_STATE=?," +
-            " TOKEN_STATE_ID=? WHERE ACCESS_TOKEN=?";
+            " TOKEN_STATE_ID=?, TIME_REVOKED=? WHERE ACCESS_TOKEN=?";
+
+    public static final String RETRIEVE_REVOKED_ACCESS_TOKENS = "SELECT ACCESS_TOKEN, TIME_CREATED, " +
+            "VALIDITY_PERIOD FROM IDN_OAUTH2_ACCESS_TOKEN WHERE TIME_REVOKED > ?";
+
+    public static final String RETRIEVE_ACCESS_TOKENS_FOR_CLEANUP = "SELECT ACCESS_TOKEN, TIME_CREATED, " +
+            "VALIDITY_PERIOD, REFRESH_TOKEN_TIME_CREATED, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_STATE FROM " +
+            "IDN_OAUTH2_ACCESS_TOKEN WHERE TIME_CREATED < ? AND (TIME_CREATED > ? OR (TIME_CREATED = ? AND " +
+            "ACCESS_TOKEN > ?)) ORDER BY TIME_CREATED, ACCESS_TOKEN";
+
+    public static final String ARCHIVE_ACCESS_TOKEN = "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN_AUDIT " +
+            "(ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY, AUTHZ_USER, USER_TYPE, TIME_CREATED, " +
+            "REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE, TOKEN_STATE, " +
+            "TOKEN_STATE_ID, TIME_DELETED) SELECT ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY, AUTHZ_USER, USER_TYPE, " +
+            "TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE, " +
+            "TOKEN_STATE, TOKEN_STATE_ID, ? FROM IDN_OAUTH2_ACCESS_TOKEN WHERE ACCESS_TOKEN=?";
+
+    public static final String REMOVE_EXPIRED_ACCESS_TOKEN = "DELETE FROM IDN_OAUTH2_ACCESS_TOKEN " +
+            "WHERE ACCESS_TOKEN=?";
+
+    public static final String RETRIEVE_AUTHZ_CODES_FOR_CLEANUP = "SELECT AUTHORIZATION_CODE, TIME_CREATED, " +
+            "VALIDITY_PERIOD FROM IDN_OAUTH2_AUTHORIZATION_CODE WHERE TIME_CREATED < ? AND (TIME_CREATED > ? OR " +
+            "(TIME_CREATED = ? AND AUTHORIZATION_CODE > ?)) ORDER BY TIME_CREATED, AUTHORIZATION_CODE";
 
     public static final String REVOKE_REFRESH_TOKEN = "UPDATE IDN_OAUTH2_ACCESS_TOKEN SET TOKEN_STATE=?," +
             " TOKEN_STATE_ID=? WHERE REFRESH_TOKEN=?";
@@ -0,0 +1,333 @@
+/*
+*Copyright (c) 2005-2013, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.oauth2.dao;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.persistence.JDBCPersistenceManager;
+import org.wso2.carbon.identity.core.util.ClusterTaskLock;
+import org.wso2.carbon.identity.core.util.IdentityDatabaseUtil;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically removes expired and inactive access tokens and expired authorization codes.
+ * Rows are scanned in chunks ordered by their creation time and each chunk is deleted in its own
+ * short transaction, so that token issuance is not blocked by long running deletes. In a cluster
+ * only the node holding the cleanup lock runs the task.
+ */
+public final class TokenCleanUpService {
+
+    private static final int NUM_THREADS = 1;
+    private static final String TASK_NAME = "OAuthTokenCleanUp";
+    private static Log log = LogFactory.getLog(TokenCleanUpService.class);
+
+    private final ScheduledExecutorService scheduler;
+    private final long initialDelay;
+    private final long delayBetweenRuns;
+
+    /**
+     * @param initialDelay     delay of the first run in minutes
+     * @param delayBetweenRuns delay between two runs in minutes
+     */
+    public TokenCleanUpService(long initialDelay, long delayBetweenRuns) {
+        this.initialDelay = initialDelay;
+        this.delayBetweenRuns = delayBetweenRuns;
+        this.scheduler = Executors.newScheduledThreadPool(NUM_THREADS);
+    }
+
+    /**
+     * @return true if the token cleanup is enabled in identity.xml
+     */
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(IdentityUtil.getProperty("OAuth.TokenCleanup.Enable"));
+    }
+
+    /**
+     * @return delay between two cleanup runs in minutes as configured in identity.xml
+     */
+    public static long getCleanUpPeriod() {
+        return getLongProperty("OAuth.TokenCleanup.Interval", 60);
+    }
+
+    public void activateCleanUp() {
+        scheduler.scheduleWithFixedDelay(new TokenCleanUpTask(), initialDelay, delayBetweenRuns, TimeUnit.MINUTES);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static long getLongProperty(String name, long defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null && value.trim().length() > 0) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + name + ". Using the default value " + defaultValue);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class TokenCleanUpTask implements Runnable {
+
+        private final int chunkSize = (int) getLongProperty("OAuth.TokenCleanup.ChunkSize", 1000);
+        private final long chunkPause = getLongProperty("OAuth.TokenCleanup.ChunkPause", 100);
+        private final long safePeriod = getLongProperty("OAuth.TokenCleanup.SafePeriod", 60) * 60 * 1000;
+        private final boolean archive = Boolean.parseBoolean(IdentityUtil.getProperty("OAuth.TokenCleanup.Archive"));
+        private final long leasePeriod = getCleanUpPeriod() * 60 * 1000;
+
+        public void run() {
+
+            if (!ClusterTaskLock.tryAcquire(TASK_NAME, leasePeriod)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("OAuth token cleanup task is running on another node");
+                }
+                return;
+            }
+            log.debug("Start running the OAuth token cleanup task.");
+            try {
+                int tokenCount = 0;
+                for (String table : getAccessTokenTables()) {
+                    tokenCount += cleanUpAccessTokens(table);
+                }
+                int codeCount = cleanUpAuthorizationCodes();
+                if (log.isDebugEnabled()) {
+                    log.debug("OAuth token cleanup task removed " + tokenCount + " access tokens and " + codeCount +
+                            " authorization codes");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error while running the OAuth token cleanup task", e);
+            } finally {
+                ClusterTaskLock.release(TASK_NAME);
+            }
+        }
+
+        private Set<String> getAccessTokenTables() throws IdentityOAuth2Exception {
+            Set<String> tables = new LinkedHashSet<String>();
+            tables.add(OAuthConstants.ACCESS_TOKEN_STORE_TABLE);
+            if (OAuth2Util.checkAccessTokenPartitioningEnabled()) {
+                for (String mapping : OAuth2Util.getAvailableUserStoreDomainMappings().values()) {
+                    tables.add(OAuthConstants.ACCESS_TOKEN_STORE_TABLE + "_" + mapping);
+                }
+            }
+            return tables;
+        }
+
+        private int cleanUpAccessTokens(String table) throws IdentityException, SQLException,
+                InterruptedException {
+
+            String selectSql = SQLQueries.RETRIEVE_ACCESS_TOKENS_FOR_CLEANUP;
+            String deleteSql = SQLQueries.REMOVE_EXPIRED_ACCESS_TOKEN;
+            String archiveSql = SQLQueries.ARCHIVE_ACCESS_TOKEN;
+            if (!OAuthConstants.ACCESS_TOKEN_STORE_TABLE.equals(table)) {
+                String fromClause = "FROM " + OAuthConstants.ACCESS_TOKEN_STORE_TABLE + " ";
+                selectSql = selectSql.replace(fromClause, "FROM " + table + " ");
+                deleteSql = deleteSql.replace(fromClause, "FROM " + table + " ");
+                archiveSql = archiveSql.replace(fromClause, "FROM " + table + " ");
+            }
+
+            Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            long now = System.currentTimeMillis();
+            Timestamp lastTimeCreated = new Timestamp(0);
+            String lastToken = "";
+            int count = 0;
+            boolean hasMore = true;
+            while (hasMore) {
+                List<String> expiredTokens = new ArrayList<String>();
+                Connection connection = null;
+                PreparedStatement prepStmt = null;
+                ResultSet resultSet = null;
+                int rows = 0;
+                try {
+                    connection = JDBCPersistenceManager.getInstance().getDBConnection();
+                    prepStmt = connection.prepareStatement(selectSql);
+                    prepStmt.setMaxRows(chunkSize);
+                    prepStmt.setTimestamp(1, new Timestamp(now - safePeriod), utcCalendar);
+                    prepStmt.setTimestamp(2, lastTimeCreated, utcCalendar);
+                    prepStmt.setTimestamp(3, lastTimeCreated, utcCalendar);
+                    prepStmt.setString(4, lastToken);
+                    resultSet = prepStmt.executeQuery();
+                    while (resultSet.next() && rows < chunkSize) {
+                        rows++;
+                        lastToken = resultSet.getString(1);
+                        lastTimeCreated = resultSet.getTimestamp(2, utcCalendar);
+                        long validityPeriod = resultSet.getLong(3);
+                        Timestamp refreshTokenTimeCreated = resultSet.getTimestamp(4, utcCalendar);
+                        long refreshTokenValidityPeriod = resultSet.getLong(5);
+                        String tokenState = resultSet.getString(6);
+
+                        if (isAccessTokenRemovable(now, lastTimeCreated, validityPeriod, refreshTokenTimeCreated,
+                                refreshTokenValidityPeriod, tokenState)) {
+                            expiredTokens.add(lastToken);
+                        }
+                    }
+                    connection.commit();
+                    IdentityDatabaseUtil.closeAllConnections(null, resultSet, prepStmt);
+                    resultSet = null;
+                    prepStmt = null;
+
+                    if (!expiredTokens.isEmpty()) {
+                        if (archive) {
+                            prepStmt = connection.prepareStatement(archiveSql);
+                            Timestamp timeDeleted = new Timestamp(now);
+                            for (String token : expiredTokens) {
+                                prepStmt.setTimestamp(1, timeDeleted, utcCalendar);
+                                prepStmt.setString(2, token);
+                                prepStmt.addBatch();
+                            }
+                            prepStmt.executeBatch();
+                            IdentityDatabaseUtil.closeStatement(prepStmt);
+                        }
+                        prepStmt = connection.prepareStatement(deleteSql);
+                        for (String token : expiredTokens) {
+                            prepStmt.setString(1, token);
+                            prepStmt.addBatch();
+                        }
+                        prepStmt.executeBatch();
+                        connection.commit();
+                        count += expiredTokens.size();
+                    }
+                } catch (SQLException e) {
+                    IdentityDatabaseUtil.rollBack(connection);
+                    throw e;
+                } finally {
+                    IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+                }
+                hasMore = rows == chunkSize && pauseAndRenewLease();
+            }
+            return count;
+        }
+
+        private int cleanUpAuthorizationCodes() throws IdentityException, SQLException, InterruptedException {
+
+            Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            long now = System.currentTimeMillis();
+            Timestamp lastTimeCreated = new Timestamp(0);
+            String lastCode = "";
+            int count = 0;
+            boolean hasMore = true;
+            while (hasMore) {
+                List<String> expiredCodes = new ArrayList<String>();
+                Connection connection = null;
+                PreparedStatement prepStmt = null;
+                ResultSet resultSet = null;
+                int rows = 0;
+                try {
+                    connection = JDBCPersistenceManager.getInstance().getDBConnection();
+                    prepStmt = connection.prepareStatement(SQLQueries.RETRIEVE_AUTHZ_CODES_FOR_CLEANUP);
+                    prepStmt.setMaxRows(chunkSize);
+                    prepStmt.setTimestamp(1, new Timestamp(now - safePeriod), utcCalendar);
+                    prepStmt.setTimestamp(2, lastTimeCreated, utcCalendar);
+                    prepStmt.setTimestamp(3, lastTimeCreated, utcCalendar);
+                    prepStmt.setString(4, lastCode);
+                    resultSet = prepStmt.executeQuery();
+                    while (resultSet.next() && rows < chunkSize) {
+                        rows++;
+                        lastCode = resultSet.getString(1);
+                        lastTimeCreated = resultSet.getTimestamp(2, utcCalendar);
+                        long validityPeriod = resultSet.getLong(3);
+                        if (validityPeriod >= 0 && lastTimeCreated.getTime() + validityPeriod + safePeriod < now) {
+                            expiredCodes.add(lastCode);
+                        }
+                    }
+                    connection.commit();
+                    IdentityDatabaseUtil.closeAllConnections(null, resultSet, prepStmt);
+                    resultSet = null;
+                    prepStmt = null;
+
+                    if (!expiredCodes.isEmpty()) {
+                        prepStmt = connection.prepareStatement(SQLQueries.REMOVE_AUTHZ_CODE);
+                        for (String code : expiredCodes) {
+                            prepStmt.setString(1, code);
+                            prepStmt.addBatch();
+                        }
+                        prepStmt.executeBatch();
+                        connection.commit();
+                        count += expiredCodes.size();
+                    }
+                } catch (SQLException e) {
+                    IdentityDatabaseUtil.rollBack(connection);
+                    throw e;
+                } finally {
+                    IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+                }
+                hasMore = rows == chunkSize && pauseAndRenewLease();
+            }
+            return count;
+        }
+
+        /**
+         * Active and expired tokens are kept while their refresh token can still be used. Revoked and
+         * inactive tokens are kept until the access token would have expired, as self contained access
+         * tokens are checked against the revoked tokens until then. Tokens which never expire are kept.
+         */
+        private boolean isAccessTokenRemovable(long now, Timestamp timeCreated, long validityPeriod,
+                                               Timestamp refreshTokenTimeCreated, long refreshTokenValidityPeriod,
+                                               String tokenState) {
+
+            if (validityPeriod < 0) {
+                return false;
+            }
+            long expiryTime = timeCreated.getTime() + validityPeriod;
+            if (OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE.equals(tokenState) ||
+                    OAuthConstants.TokenStates.TOKEN_STATE_EXPIRED.equals(tokenState)) {
+                if (refreshTokenTimeCreated != null) {
+                    if (refreshTokenValidityPeriod < 0) {
+                        return false;
+                    }
+                    expiryTime = Math.max(expiryTime, refreshTokenTimeCreated.getTime() + refreshTokenValidityPeriod);
+                }
+            }
+            return expiryTime + safePeriod < now;
+        }
+
+        private boolean pauseAndRenewLease() throws InterruptedException {
+            if (chunkPause > 0) {
+                Thread.sleep(chunkPause);
+            }
+            if (!ClusterTaskLock.tryAcquire(TASK_NAME, leasePeriod)) {
+                log.warn("OAuth token cleanup task lost its lock. Stopping the current run");
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -52,17 +52,28 @@ public class TokenMgtDAO {
 
     private static int maxPoolSize = 100;
 
+    private static int maxQueueSize = 10000;
+
+    private static int batchSize = 100;
+
+    private static long batchInterval = 0;
+
     private boolean enablePersist = true;
 
-    private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue
-            = new LinkedBlockingDeque<AccessContextTokenDO>();
+    private static BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+
+    private static BlockingDeque<AuthContextTokenDO> authContextTokenQueue;
 
-    private static BlockingDeque<AuthContextTokenDO> authContextTokenQueue
-            = new LinkedBlockingDeque<AuthContextTokenDO>();
+    private static final TokenPersistenceStatistics accessTokenPersistenceStatistics =
+            new TokenPersistenceStatistics("AccessTokenPersistence");
+
+    private static final TokenPersistenceStatistics authzCodePersistenceStatistics =
+            new TokenPersistenceStatistics("AuthorizationCodePersistence");
 
     private static final Log log = LogFactory.getLog(TokenMgtDAO.class);
 
     private static final String IDN_OAUTH2_ACCESS_TOKEN = "IDN_OAUTH2_ACCESS_TOKEN";
+    private static final int MAX_TOKENS_PER_QUERY = 100;
 
     static {
 
@@ -74,23 +85,81 @@ public class TokenMgtDAO {
         } catch (Exception e) {
         }
 
+        try {
+            maxQueueSize =
+                    Integer.parseInt(IdentityUtil.getProperty("OAuth.TokenPersistence.Queue.Capacity"));
+        } catch (Exception e) {
+        }
+
+        try {
+            batchSize =
+                    Integer.parseInt(IdentityUtil.getProperty("OAuth.TokenPersistence.Queue.BatchSize"));
+        } catch (Exception e) {
+        }
+
+        try {
+            batchInterval = Long.parseLong(IdentityUtil.getProperty("OAuth.TokenPersistence.Queue.FlushInterval"));
+        } catch (Exception e) {
+        }
+
+        if (maxQueueSize > 0) {
+            accessContextTokenQueue = new LinkedBlockingDeque<AccessContextTokenDO>(maxQueueSize);
+            authContextTokenQueue = new LinkedBlockingDeque<AuthContextTokenDO>(maxQueueSize);
+        } else {
+            accessContextTokenQueue = new LinkedBlockingDeque<AccessContextTokenDO>();
+            authContextTokenQueue = new LinkedBlockingDeque<AuthContextTokenDO>();
+        }
+
         if (maxPoolSize > 0) {
             log.info("Thread pool size for session persistent consumer : " + maxPoolSize);
+            if (log.isDebugEnabled()) {
+                log.debug("Token persistence queue capacity : " + maxQueueSize + ", batch size : " +
+                        batchSize + ", flush interval : " + batchInterval + "ms");
+            }
 
             ExecutorService threadPool = Executors.newFixedThreadPool(maxPoolSize);
 
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue));
+                threadPool.execute(new TokenPersistenceTask(accessContextTokenQueue, batchSize, batchInterval,
+                        accessTokenPersistenceStatistics));
             }
 
             threadPool = Executors.newFixedThreadPool(maxPoolSize);
 
             for (int i = 0; i < maxPoolSize; i++) {
-                threadPool.execute(new AuthPersistenceTask(authContextTokenQueue));
+                threadPool.execute(new AuthPersistenceTask(authContextTokenQueue, batchSize, batchInterval,
+                        authzCodePersistenceStatistics));
             }
         }
     }
 
+    /**
+     * @return statistics of the asynchronous access token persistence
+     */
+    public static TokenPersistenceStatistics getAccessTokenPersistenceStatistics() {
+        return accessTokenPersistenceStatistics;
+    }
+
+    /**
+     * @return statistics of the asynchronous authorization code persistence
+     */
+    public static TokenPersistenceStatistics getAuthzCodePersistenceStatistics() {
+        return authzCodePersistenceStatistics;
+    }
+
+    /**
+     * @return number of access tokens waiting to be persisted or removed
+     */
+    public static int getAccessTokenQueueSize() {
+        return accessContextTokenQueue.size();
+    }
+
+    /**
+     * @return number of authorization codes waiting to be persisted or removed
+     */
+    public static int getAuthzCodeQueueSize() {
+        return authContextTokenQueue.size();
+    }
 
     public TokenMgtDAO() {
         try {
@@ -112,11 +181,16 @@ public class TokenMgtDAO {
             return;
         }
 
+        if (maxPoolSize > 0 &&
+                authContextTokenQueue.offerLast(new AuthContextTokenDO(authzCode, consumerKey, callbackUrl,
+                        authzCodeDO))) {
+            return;
+        }
         if (maxPoolSize > 0) {
-            authContextTokenQueue.push(new AuthContextTokenDO(authzCode, consumerKey, callbackUrl, authzCodeDO));
-        } else {
-            persistAuthorizationCode(authzCode, consumerKey, callbackUrl, authzCodeDO);
+            // queue is full, persist in the caller thread to push back on the producers
+            authzCodePersistenceStatistics.recordCallerRuns();
         }
+        persistAuthorizationCode(authzCode, consumerKey, callbackUrl, authzCodeDO);
     }
 
     public void persistAuthorizationCode(String authzCode, String consumerKey, String callbackUrl,
@@ -131,14 +205,7 @@ public class TokenMgtDAO {
         try {
             connection = JDBCPersistenceManager.getInstance().getDBConnection();
             prepStmt = connection.prepareStatement(SQLQueries.STORE_AUTHORIZATION_CODE);
-            prepStmt.setString(1, persistenceProcessor.getProcessedAuthzCode(authzCode));
-            prepStmt.setString(2, persistenceProcessor.getProcessedClientId(consumerKey));
-            prepStmt.setString(3, callbackUrl);
-            prepStmt.setString(4, OAuth2Util.buildScopeString(authzCodeDO.getScope()));
-            prepStmt.setString(5, authzCodeDO.getAuthorizedUser().toLowerCase());
-            prepStmt.setTimestamp(6, authzCodeDO.getIssuedTime(),
-                                  Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-            prepStmt.setLong(7, authzCodeDO.getValidityPeriod());
+            setAuthorizationCodeParameters(prepStmt, authzCode, consumerKey, callbackUrl, authzCodeDO);
             prepStmt.execute();
             connection.commit();
         } catch (IdentityException e) {
@@ -164,32 +231,10 @@ public class TokenMgtDAO {
         }
 
         PreparedStatement prepStmt = null;
-        String accessTokenStoreTable = "IDN_OAUTH2_ACCESS_TOKEN";
-        if (userStoreDomain != null) {
-            accessTokenStoreTable = accessTokenStoreTable + "_" + userStoreDomain;
-        }
-        String sql = "INSERT INTO " +
-                     accessTokenStoreTable +
-                     " (ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY, AUTHZ_USER, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
-                     "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE, TOKEN_STATE, USER_TYPE) " +
-                     "VALUES (?,?,?,?,?,?,?,?,?,?,?)";
+        String sql = getStoreAccessTokenSQL(getAccessTokenStoreTable(userStoreDomain));
         try {
             prepStmt = connection.prepareStatement(sql);
-            prepStmt.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
-            if (accessTokenDO.getRefreshToken() != null) {
-                prepStmt.setString(2, persistenceProcessor.getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
-            } else {
-                prepStmt.setString(2, accessTokenDO.getRefreshToken());
-            }
-            prepStmt.setString(3, persistenceProcessor.getProcessedClientId(consumerKey));
-            prepStmt.setString(4, accessTokenDO.getAuthzUser().toLowerCase());
-            prepStmt.setTimestamp(5, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-            prepStmt.setTimestamp(6, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-            prepStmt.setLong(7, accessTokenDO.getValidityPeriodInMillis());
-            prepStmt.setLong(8, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
-            prepStmt.setString(9, OAuth2Util.buildScopeString(accessTokenDO.getScope()));
-            prepStmt.setString(10, accessTokenDO.getTokenState());
-            prepStmt.setString(11, accessTokenDO.getTokenType());
+            setAccessTokenParameters(prepStmt, accessToken, consumerKey, accessTokenDO);
             prepStmt.execute();
             connection.commit();
         } catch (SQLIntegrityConstraintViolationException e) {
@@ -214,12 +259,16 @@ public class TokenMgtDAO {
         if (!enablePersist) {
             return;
         }
+        if (maxPoolSize > 0 &&
+                accessContextTokenQueue.offerLast(new AccessContextTokenDO(accessToken, consumerKey, accessTokenDO
+                        , userStoreDomain))) {
+            return;
+        }
         if (maxPoolSize > 0) {
-            accessContextTokenQueue.push(new AccessContextTokenDO(accessToken, consumerKey, accessTokenDO
-                    , userStoreDomain));
-        } else {
-            persistAccessToken(accessToken, consumerKey, accessTokenDO, userStoreDomain);
+            // queue is full, persist in the caller thread to push back on the producers
+            accessTokenPersistenceStatistics.recordCallerRuns();
         }
+        persistAccessToken(accessToken, consumerKey, accessTokenDO, userStoreDomain);
     }
 
     public boolean persistAccessToken(String accessToken, String consumerKey,
@@ -242,6 +291,213 @@ public class TokenMgtDAO {
         }
     }
 
+    private String getAccessTokenStoreTable(String userStoreDomain) {
+        String accessTokenStoreTable = IDN_OAUTH2_ACCESS_TOKEN;
+        if (userStoreDomain != null) {
+            accessTokenStoreTable = accessTokenStoreTable + "_" + userStoreDomain;
+        }
+        return accessTokenStoreTable;
+    }
+
+    private String getStoreAccessTokenSQL(String accessTokenStoreTable) {
+        return "INSERT INTO " +
+               accessTokenStoreTable +
+               " (ACCESS_TOKEN, REFRESH_TOKEN, CONSUMER_KEY, AUTHZ_USER, TIME_CREATED, REFRESH_TOKEN_TIME_CREATED, " +
+               "VALIDITY_PERIOD, REFRESH_TOKEN_VALIDITY_PERIOD, TOKEN_SCOPE, TOKEN_STATE, USER_TYPE) " +
+               "VALUES (?,?,?,?,?,?,?,?,?,?,?)";
+    }
+
+    private void setAccessTokenParameters(PreparedStatement prepStmt, String accessToken, String consumerKey,
+                                          AccessTokenDO accessTokenDO) throws SQLException, IdentityOAuth2Exception {
+
+        prepStmt.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
+        if (accessTokenDO.getRefreshToken() != null) {
+            prepStmt.setString(2, persistenceProcessor.getProcessedRefreshToken(accessTokenDO.getRefreshToken()));
+        } else {
+            prepStmt.setString(2, accessTokenDO.getRefreshToken());
+        }
+        prepStmt.setString(3, persistenceProcessor.getProcessedClientId(consumerKey));
+        prepStmt.setString(4, accessTokenDO.getAuthzUser().toLowerCase());
+        prepStmt.setTimestamp(5, accessTokenDO.getIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        prepStmt.setTimestamp(6, accessTokenDO.getRefreshTokenIssuedTime(), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        prepStmt.setLong(7, accessTokenDO.getValidityPeriodInMillis());
+        prepStmt.setLong(8, accessTokenDO.getRefreshTokenValidityPeriodInMillis());
+        prepStmt.setString(9, OAuth2Util.buildScopeString(accessTokenDO.getScope()));
+        prepStmt.setString(10, accessTokenDO.getTokenState());
+        prepStmt.setString(11, accessTokenDO.getTokenType());
+    }
+
+    private void setAuthorizationCodeParameters(PreparedStatement prepStmt, String authzCode, String consumerKey,
+                                                String callbackUrl, AuthzCodeDO authzCodeDO)
+            throws SQLException, IdentityOAuth2Exception {
+
+        prepStmt.setString(1, persistenceProcessor.getProcessedAuthzCode(authzCode));
+        prepStmt.setString(2, persistenceProcessor.getProcessedClientId(consumerKey));
+        prepStmt.setString(3, callbackUrl);
+        prepStmt.setString(4, OAuth2Util.buildScopeString(authzCodeDO.getScope()));
+        prepStmt.setString(5, authzCodeDO.getAuthorizedUser().toLowerCase());
+        prepStmt.setTimestamp(6, authzCodeDO.getIssuedTime(),
+                              Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        prepStmt.setLong(7, authzCodeDO.getValidityPeriod());
+    }
+
+    /**
+     * Persists and removes the given access tokens as a single group commit. Inserts and deletes
+     * are grouped by the access token table and sent as JDBC batches. If the batch fails, every
+     * token is persisted or removed individually so that a single bad token does not drop the
+     * rest of the batch.
+     *
+     * @param accessContextTokenDOs access tokens to be persisted or removed
+     */
+    public void persistAccessTokens(List<AccessContextTokenDO> accessContextTokenDOs) {
+
+        if (!enablePersist || accessContextTokenDOs == null || accessContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        try {
+            Map<String, List<AccessContextTokenDO>> inserts = new LinkedHashMap<String, List<AccessContextTokenDO>>();
+            Map<String, List<AccessContextTokenDO>> deletes = new LinkedHashMap<String, List<AccessContextTokenDO>>();
+            for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+                if (accessContextTokenDO.getAccessTokenDO() == null) {
+                    String userStoreDomain = null;
+                    if (OAuth2Util.checkAccessTokenPartitioningEnabled() &&
+                            OAuth2Util.checkUserNameAssertionEnabled()) {
+                        userStoreDomain = OAuth2Util.getUserStoreDomainFromAccessToken(
+                                accessContextTokenDO.getAccessToken());
+                    }
+                    addToGroup(deletes, getAccessTokenStoreTable(userStoreDomain), accessContextTokenDO);
+                } else {
+                    addToGroup(inserts, getAccessTokenStoreTable(accessContextTokenDO.getUserStoreDomain()),
+                            accessContextTokenDO);
+                }
+            }
+
+            connection = JDBCPersistenceManager.getInstance().getDBConnection();
+            for (Map.Entry<String, List<AccessContextTokenDO>> entry : inserts.entrySet()) {
+                prepStmt = connection.prepareStatement(getStoreAccessTokenSQL(entry.getKey()));
+                for (AccessContextTokenDO accessContextTokenDO : entry.getValue()) {
+                    setAccessTokenParameters(prepStmt, accessContextTokenDO.getAccessToken(),
+                            accessContextTokenDO.getConsumerKey(), accessContextTokenDO.getAccessTokenDO());
+                    prepStmt.addBatch();
+                }
+                prepStmt.executeBatch();
+                IdentityDatabaseUtil.closeStatement(prepStmt);
+                prepStmt = null;
+            }
+            for (Map.Entry<String, List<AccessContextTokenDO>> entry : deletes.entrySet()) {
+                prepStmt = connection.prepareStatement("DELETE FROM " + entry.getKey() + " WHERE ACCESS_TOKEN = ? ");
+                for (AccessContextTokenDO accessContextTokenDO : entry.getValue()) {
+                    prepStmt.setString(1, persistenceProcessor.getProcessedAccessTokenIdentifier(
+                            accessContextTokenDO.getAccessToken()));
+                    prepStmt.addBatch();
+                }
+                prepStmt.executeBatch();
+                IdentityDatabaseUtil.closeStatement(prepStmt);
+                prepStmt = null;
+            }
+            connection.commit();
+            return;
+        } catch (Exception e) {
+            log.error("Error occurred while persisting a batch of " + accessContextTokenDOs.size() +
+                    " access tokens. Retrying them one by one", e);
+            IdentityDatabaseUtil.rollBack(connection);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, null, prepStmt);
+        }
+
+        for (AccessContextTokenDO accessContextTokenDO : accessContextTokenDOs) {
+            try {
+                if (accessContextTokenDO.getAccessTokenDO() == null) {
+                    removeAccessToken(accessContextTokenDO.getAccessToken());
+                } else {
+                    persistAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
+                            accessContextTokenDO.getAccessTokenDO(), accessContextTokenDO.getUserStoreDomain());
+                }
+            } catch (IdentityException e) {
+                log.error("Error occurred while persisting access token " + accessContextTokenDO.getAccessToken(), e);
+            }
+        }
+    }
+
+    /**
+     * Persists and removes the given authorization codes as a single group commit, falling back
+     * to individual writes if the batch fails.
+     *
+     * @param authContextTokenDOs authorization codes to be persisted or removed
+     */
+    public void persistAuthorizationCodes(List<AuthContextTokenDO> authContextTokenDOs) {
+
+        if (!enablePersist || authContextTokenDOs == null || authContextTokenDOs.isEmpty()) {
+            return;
+        }
+
+        Connection connection = null;
+        PreparedStatement insertStmt = null;
+        PreparedStatement deleteStmt = null;
+        try {
+            connection = JDBCPersistenceManager.getInstance().getDBConnection();
+            for (AuthContextTokenDO authContextTokenDO : authContextTokenDOs) {
+                if (authContextTokenDO.getAuthzCodeDO() == null) {
+                    if (deleteStmt == null) {
+                        deleteStmt = connection.prepareStatement(SQLQueries.REMOVE_AUTHZ_CODE);
+                    }
+                    deleteStmt.setString(1, persistenceProcessor.getPreprocessedAuthzCode(
+                            authContextTokenDO.getAuthzCode()));
+                    deleteStmt.addBatch();
+                } else {
+                    if (insertStmt == null) {
+                        insertStmt = connection.prepareStatement(SQLQueries.STORE_AUTHORIZATION_CODE);
+                    }
+                    setAuthorizationCodeParameters(insertStmt, authContextTokenDO.getAuthzCode(),
+                            authContextTokenDO.getConsumerKey(), authContextTokenDO.getCallbackUrl(),
+                            authContextTokenDO.getAuthzCodeDO());
+                    insertStmt.addBatch();
+                }
+            }
+            // codes are inserted before the removals, as a code may be issued and consumed within a batch
+            if (insertStmt != null) {
+                insertStmt.executeBatch();
+            }
+            if (deleteStmt != null) {
+                deleteStmt.executeBatch();
+            }
+            connection.commit();
+            return;
+        } catch (Exception e) {
+            log.error("Error occurred while persisting a batch of " + authContextTokenDOs.size() +
+                    " authorization codes. Retrying them one by one", e);
+            IdentityDatabaseUtil.rollBack(connection);
+        } finally {
+            IdentityDatabaseUtil.closeStatement(deleteStmt);
+            IdentityDatabaseUtil.closeAllConnections(connection, null, insertStmt);
+        }
+
+        for (AuthContextTokenDO authContextTokenDO : authContextTokenDOs) {
+            try {
+                if (authContextTokenDO.getAuthzCodeDO() == null) {
+                    removeAuthzCode(authContextTokenDO.getAuthzCode());
+                } else {
+                    persistAuthorizationCode(authContextTokenDO.getAuthzCode(), authContextTokenDO.getConsumerKey(),
+                            authContextTokenDO.getCallbackUrl(), authContextTokenDO.getAuthzCodeDO());
+                }
+            } catch (IdentityOAuth2Exception e) {
+                log.error("Error occurred while persisting authorization code " + authContextTokenDO.getAuthzCode(), e);
+            }
+        }
+    }
+
+    private <T> void addToGroup(Map<String, List<T>> groups, String key, T value) {
+        List<T> group = groups.get(key);
+        if (group == null) {
+            group = new ArrayList<T>();
+            groups.put(key, group);
+        }
+        group.add(value);
+    }
+
     public AccessTokenDO retrieveLatestAccessToken(String consumerKey, String userName,
                                                    String userStoreDomain, String scope,
                                                    boolean includeExpiredTokens)
@@ -449,11 +705,13 @@ public class TokenMgtDAO {
     }
 
     public void cleanUpAuthzCode(String authzCode) throws IdentityOAuth2Exception {
+        if (maxPoolSize > 0 && authContextTokenQueue.offerLast(new AuthContextTokenDO(authzCode, null, null, null))) {
+            return;
+        }
         if (maxPoolSize > 0) {
-            authContextTokenQueue.push(new AuthContextTokenDO(authzCode, null, null, null));
-        } else {
-            removeAuthzCode(authzCode);
+            authzCodePersistenceStatistics.recordCallerRuns();
         }
+        removeAuthzCode(authzCode);
     }
 
     public void removeAuthzCode(String authzCode) throws IdentityOAuth2Exception {
@@ -579,11 +837,14 @@ public class TokenMgtDAO {
     }
 
     public void cleanUpAccessToken(String accessToken) throws IdentityOAuth2Exception {
+        if (maxPoolSize > 0 &&
+                accessContextTokenQueue.offerLast(new AccessContextTokenDO(accessToken, null, null, null))) {
+            return;
+        }
         if (maxPoolSize > 0) {
-            accessContextTokenQueue.push(new AccessContextTokenDO(accessToken, null, null, null));
-        } else {
-            removeAccessToken(accessToken);
+            accessTokenPersistenceStatistics.recordCallerRuns();
         }
+        removeAccessToken(accessToken);
     }
 
     public void removeAccessToken(String accessToken) throws IdentityOAuth2Exception {
@@ -683,6 +944,121 @@ public class TokenMgtDAO {
     }
 
 
+    /**
+     * Retrieves the active and expired access tokens of the given identifiers with one query per access token
+     * table, each reading up to {@link #MAX_TOKENS_PER_QUERY} tokens
+     *
+     * @param accessTokenIdentifiers access token identifiers
+     * @return active and expired access tokens keyed by their identifier. Unknown, revoked and inactive tokens
+     * are not included
+     * @throws IdentityOAuth2Exception
+     */
+    public Map<String, AccessTokenDO> retrieveAccessTokens(Collection<String> accessTokenIdentifiers)
+            throws IdentityOAuth2Exception {
+
+        Map<String, AccessTokenDO> accessTokens = new HashMap<String, AccessTokenDO>();
+        if (accessTokenIdentifiers == null || accessTokenIdentifiers.isEmpty()) {
+            return accessTokens;
+        }
+
+        // group the tokens by the table they are stored in
+        Map<String, List<String>> tokensByDomain = new HashMap<String, List<String>>();
+        boolean partitioned = OAuth2Util.checkAccessTokenPartitioningEnabled() &&
+                OAuth2Util.checkUserNameAssertionEnabled();
+        for (String accessTokenIdentifier : new LinkedHashSet<String>(accessTokenIdentifiers)) {
+            String userStoreDomain = "";
+            if (partitioned) {
+                userStoreDomain = OAuth2Util.getUserStoreDomainFromAccessToken(accessTokenIdentifier);
+                if (userStoreDomain == null) {
+                    userStoreDomain = "";
+                }
+            }
+            List<String> tokens = tokensByDomain.get(userStoreDomain);
+            if (tokens == null) {
+                tokens = new ArrayList<String>();
+                tokensByDomain.put(userStoreDomain, tokens);
+            }
+            tokens.add(accessTokenIdentifier);
+        }
+
+        Connection connection = null;
+        try {
+            connection = JDBCPersistenceManager.getInstance().getDBConnection();
+            for (Map.Entry<String, List<String>> entry : tokensByDomain.entrySet()) {
+                String sql = SQLQueries.RETRIEVE_ACTIVE_EXPIRED_ACCESS_TOKENS;
+                if (StringUtils.isNotEmpty(entry.getKey())) {
+                    sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN, IDN_OAUTH2_ACCESS_TOKEN + "_" + entry.getKey());
+                }
+                List<String> tokens = entry.getValue();
+                for (int i = 0; i < tokens.size(); i += MAX_TOKENS_PER_QUERY) {
+                    retrieveAccessTokens(connection, sql,
+                            tokens.subList(i, Math.min(i + MAX_TOKENS_PER_QUERY, tokens.size())), accessTokens);
+                }
+            }
+        } catch (IdentityException e) {
+            String errorMsg = "Error when getting an Identity Persistence Store instance";
+            throw new IdentityOAuth2Exception(errorMsg, e);
+        } catch (SQLException e) {
+            throw new IdentityOAuth2Exception("Error when retrieving Access Tokens", e);
+        } finally {
+            IdentityDatabaseUtil.closeConnection(connection);
+        }
+        return accessTokens;
+    }
+
+    private void retrieveAccessTokens(Connection connection, String sqlPrefix, List<String> accessTokenIdentifiers,
+                                      Map<String, AccessTokenDO> accessTokens)
+            throws SQLException, IdentityOAuth2Exception {
+
+        // processed identifiers as stored in the database, mapped to the identifiers of the request
+        Map<String, String> identifiers = new HashMap<String, String>();
+        for (String accessTokenIdentifier : accessTokenIdentifiers) {
+            identifiers.put(persistenceProcessor.getProcessedAccessTokenIdentifier(accessTokenIdentifier),
+                    accessTokenIdentifier);
+        }
+        StringBuilder sql = new StringBuilder(sqlPrefix);
+        for (int i = 0; i < identifiers.size(); i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(")");
+
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        try {
+            prepStmt = connection.prepareStatement(sql.toString());
+            int index = 1;
+            for (String processedIdentifier : identifiers.keySet()) {
+                prepStmt.setString(index++, processedIdentifier);
+            }
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                String accessTokenIdentifier = identifiers.get(resultSet.getString(1));
+                if (accessTokenIdentifier == null) {
+                    continue;
+                }
+                String consumerKey = persistenceProcessor.getPreprocessedClientId(resultSet.getString(2));
+                String authorizedUser = resultSet.getString(3);
+                String[] scope = OAuth2Util.buildScopeArray(resultSet.getString(4));
+                Timestamp issuedTime = resultSet.getTimestamp(5,
+                                                              Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                Timestamp refreshTokenIssuedTime = resultSet.getTimestamp(6,
+                                                                          Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+                long validityPeriodInMillis = resultSet.getLong(7);
+                long refreshTokenValidityPeriodMillis = resultSet.getLong(8);
+                String tokenType = resultSet.getString(9);
+                String refreshToken = resultSet.getString(10);
+                AccessTokenDO dataDO = new AccessTokenDO(consumerKey, authorizedUser, scope, issuedTime,
+                        refreshTokenIssuedTime, validityPeriodInMillis, refreshTokenValidityPeriodMillis, tokenType);
+                dataDO.setAccessToken(accessTokenIdentifier);
+                dataDO.setRefreshToken(refreshToken);
+                accessTokens.put(accessTokenIdentifier, dataDO);
+            }
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(null, resultSet, prepStmt);
+        }
+    }
+
+
     /**
      * Sets state of access token
      *
@@ -726,7 +1102,10 @@ public class TokenMgtDAO {
 		PreparedStatement prepStmt = null;
 		try {
 
-			String sql = SQLQueries.UPDATE_TOKE_STATE;
+			// the revocation time is recorded for the revoked access token lists to be reloaded from
+			boolean revoked = OAuthConstants.TokenStates.TOKEN_STATE_REVOKED.equals(tokenState) ||
+			                  OAuthConstants.TokenStates.TOKEN_STATE_INACTIVE.equals(tokenState);
+			String sql = revoked ? SQLQueries.REVOKE_ACCESS_TOKEN : SQLQueries.UPDATE_TOKE_STATE;
 			if (StringUtils.isNotEmpty(userStoreDomain)) {
 				sql = sql.replace(IDN_OAUTH2_ACCESS_TOKEN,
 				                  IDN_OAUTH2_ACCESS_TOKEN + "_" + userStoreDomain);
@@ -734,7 +1113,11 @@ public class TokenMgtDAO {
 			prepStmt = connection.prepareStatement(sql);
 			prepStmt.setString(1, tokenState);
 			prepStmt.setString(2, tokenStateId);
-            prepStmt.setString(3, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
+			int tokenIndex = 3;
+			if (revoked) {
+				prepStmt.setLong(tokenIndex++, System.currentTimeMillis());
+			}
+            prepStmt.setString(tokenIndex, persistenceProcessor.getProcessedAccessTokenIdentifier(accessToken));
 			prepStmt.executeUpdate();
 		} catch (SQLException e) {
 			throw new IdentityOAuth2Exception("Error while updating Access Token : " +
@@ -767,7 +1150,8 @@ public class TokenMgtDAO {
             ps = connection.prepareStatement(sqlQuery);
             ps.setString(1, OAuthConstants.TokenStates.TOKEN_STATE_REVOKED);
             ps.setString(2, UUID.randomUUID().toString());
-            ps.setString(3, persistenceProcessor.getProcessedAccessTokenIdentifier(token));
+            ps.setLong(3, System.currentTimeMillis());
+            ps.setString(4, persistenceProcessor.getProcessedAccessTokenIdentifier(token));
             int count = ps.executeUpdate();
             if (log.isDebugEnabled()) {
                 log.debug("Number of rows being updated : " + count);
@@ -783,6 +1167,48 @@ public class TokenMgtDAO {
         }
     }
 
+    /**
+     * Retrieves the access tokens revoked or made inactive after the given time
+     *
+     * @param revokedAfter time in milliseconds after which the returned tokens were revoked
+     * @return token identifiers against the time in milliseconds the tokens expire at
+     * @throws IdentityOAuth2Exception if failed to read the tokens
+     */
+    public Map<String, Long> getRevokedAccessTokens(long revokedAfter) throws IdentityOAuth2Exception {
+
+        Map<String, Long> revokedTokens = new HashMap<String, Long>();
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        ResultSet resultSet = null;
+        try {
+            connection = JDBCPersistenceManager.getInstance().getDBConnection();
+            prepStmt = connection.prepareStatement(SQLQueries.RETRIEVE_REVOKED_ACCESS_TOKENS);
+            prepStmt.setLong(1, revokedAfter);
+            resultSet = prepStmt.executeQuery();
+            while (resultSet.next()) {
+                String accessToken = persistenceProcessor.getPreprocessedAccessTokenIdentifier(
+                        resultSet.getString(1));
+                long issuedTime = resultSet.getTimestamp(2,
+                        Calendar.getInstance(TimeZone.getTimeZone("UTC"))).getTime();
+                long validityPeriodInMillis = resultSet.getLong(3);
+                long expiryTime = validityPeriodInMillis < 0 ? Long.MAX_VALUE : issuedTime + validityPeriodInMillis;
+                revokedTokens.put(accessToken, expiryTime);
+            }
+            connection.commit();
+        } catch (IdentityException e) {
+            String errorMsg = "Error when getting an Identity Persistence Store instance.";
+            log.error(errorMsg, e);
+            throw new IdentityOAuth2Exception(errorMsg, e);
+        } catch (SQLException e) {
+            log.error("Error when executing the SQL : " + SQLQueries.RETRIEVE_REVOKED_ACCESS_TOKENS);
+            log.error(e.getMessage(), e);
+            throw new IdentityOAuth2Exception("Error when retrieving the revoked access tokens", e);
+        } finally {
+            IdentityDatabaseUtil.closeAllConnections(connection, resultSet, prepStmt);
+        }
+        return revokedTokens;
+    }
+
     /**
      * This method is to list the application authorized by OAuth resource owners
      *
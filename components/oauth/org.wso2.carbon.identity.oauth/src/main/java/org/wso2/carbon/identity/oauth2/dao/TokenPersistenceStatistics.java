@@ -0,0 +1,104 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.identity.oauth2.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the batches written by the token and authorization code persistence tasks
+ */
+public class TokenPersistenceStatistics {
+
+    private final String name;
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong itemCount = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong totalFlushTime = new AtomicLong();
+    private final AtomicLong maxFlushTime = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+
+    TokenPersistenceStatistics(String name) {
+        this.name = name;
+    }
+
+    void recordFlush(int batchSize, long flushTimeMillis) {
+        flushCount.incrementAndGet();
+        itemCount.addAndGet(batchSize);
+        totalFlushTime.addAndGet(flushTimeMillis);
+        updateMax(maxBatchSize, batchSize);
+        updateMax(maxFlushTime, flushTimeMillis);
+    }
+
+    void recordCallerRuns() {
+        callerRunsCount.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getItemCount() {
+        return itemCount.get();
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    public double getAverageBatchSize() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : (double) itemCount.get() / flushes;
+    }
+
+    public long getMaxFlushTimeMillis() {
+        return maxFlushTime.get();
+    }
+
+    public double getAverageFlushTimeMillis() {
+        long flushes = flushCount.get();
+        return flushes == 0 ? 0 : (double) totalFlushTime.get() / flushes;
+    }
+
+    /**
+     * @return number of items written by the requesting thread because the queue was full
+     */
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + " : flushes=" + getFlushCount() + ", items=" + getItemCount() + ", averageBatchSize=" +
+                getAverageBatchSize() + ", maxBatchSize=" + getMaxBatchSize() + ", averageFlushTime=" +
+                getAverageFlushTimeMillis() + "ms, maxFlushTime=" + getMaxFlushTimeMillis() + "ms, callerRuns=" +
+                getCallerRunsCount();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+}
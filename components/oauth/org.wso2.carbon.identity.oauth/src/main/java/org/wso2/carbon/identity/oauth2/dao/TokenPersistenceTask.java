@@ -19,20 +19,37 @@ package org.wso2.carbon.identity.oauth2.dao;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.base.IdentityException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.TimeUnit;
 
-/**
- *
- */
 public class TokenPersistenceTask implements Runnable {
 
     private static Log log = LogFactory.getLog(TokenPersistenceTask.class);
     private BlockingDeque<AccessContextTokenDO> accessContextTokenQueue;
+    private int batchSize;
+    private long batchInterval;
+    private TokenPersistenceStatistics statistics;
 
     public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue) {
+        this(accessContextTokenQueue, 1, 0, new TokenPersistenceStatistics("AccessTokenPersistence"));
+    }
+
+    /**
+     * @param accessContextTokenQueue queue of the tokens to be persisted or removed
+     * @param batchSize               maximum number of tokens written in a single batch
+     * @param batchInterval           maximum time in milliseconds to wait for more tokens before
+     *                                writing a batch
+     * @param statistics              statistics of the written batches
+     */
+    public TokenPersistenceTask(BlockingDeque<AccessContextTokenDO> accessContextTokenQueue, int batchSize,
+                                long batchInterval, TokenPersistenceStatistics statistics) {
         this.accessContextTokenQueue = accessContextTokenQueue;
+        this.batchSize = batchSize > 0 ? batchSize : 1;
+        this.batchInterval = batchInterval;
+        this.statistics = statistics;
     }
 
     @Override
@@ -41,29 +58,49 @@ public class TokenPersistenceTask implements Runnable {
         log.debug("Access Token context persist consumer is started");
 
         while (true) {
-            AccessContextTokenDO accessContextTokenDO = null;
+            List<AccessContextTokenDO> batch = new ArrayList<AccessContextTokenDO>();
+            boolean interrupted = false;
             try {
-                accessContextTokenDO =  accessContextTokenQueue.take();
-                if (accessContextTokenDO != null) {
-                    if (accessContextTokenDO.getAccessToken() == null) {
-                        log.debug("Access Token Data removing Task is started to run");
-                        TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
-                        tokenMgtDAO.removeAccessToken(accessContextTokenDO.getAccessToken());
-                    } else {
-                        log.debug("Access Token Data persisting Task is started to run");
-                        TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
-                        tokenMgtDAO.persistAccessToken(accessContextTokenDO.getAccessToken(), accessContextTokenDO.getConsumerKey(),
-                                accessContextTokenDO.getAccessTokenDO(), accessContextTokenDO.getUserStoreDomain());
+                batch.add(accessContextTokenQueue.take());
+                accessContextTokenQueue.drainTo(batch, batchSize - batch.size());
+                long deadline = System.currentTimeMillis() + batchInterval;
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
                     }
+                    AccessContextTokenDO accessContextTokenDO = accessContextTokenQueue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (accessContextTokenDO == null) {
+                        break;
+                    }
+                    batch.add(accessContextTokenDO);
+                    accessContextTokenQueue.drainTo(batch, batchSize - batch.size());
                 }
             } catch (InterruptedException e) {
-                log.error("Error occurred while persisting access token " +
-                        accessContextTokenDO.getAccessToken(), e);
-            } catch (IdentityException e) {
-                log.error("Error occurred while persisting access token " +
-                        accessContextTokenDO.getAccessToken(), e);
+                interrupted = true;
+            }
+
+            if (!batch.isEmpty()) {
+                long start = System.currentTimeMillis();
+                try {
+                    TokenMgtDAO tokenMgtDAO = new TokenMgtDAO();
+                    tokenMgtDAO.persistAccessTokens(batch);
+                } catch (Exception e) {
+                    log.error("Error occurred while persisting a batch of " + batch.size() + " access tokens", e);
+                }
+                long flushTime = System.currentTimeMillis() - start;
+                statistics.recordFlush(batch.size(), flushTime);
+                if (log.isDebugEnabled()) {
+                    log.debug("Access Token batch of " + batch.size() + " written in " + flushTime + "ms. " +
+                            accessContextTokenQueue.size() + " tokens are in the queue. " + statistics);
+                }
             }
 
+            if (interrupted) {
+                log.debug("Access Token context persist consumer is stopped");
+                Thread.currentThread().interrupt();
+                return;
+            }
         }
     }
 }
@@ -26,6 +26,7 @@ import org.wso2.carbon.identity.application.mgt.ApplicationManagementService;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.OAuth2Service;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
+import org.wso2.carbon.identity.oauth2.dao.TokenCleanUpService;
 
 /**
  * @scr.component name="identity.oauth2.component" immediate="true"
@@ -39,6 +40,7 @@ import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 public class OAuth2ServiceComponent {
     private static Log log = LogFactory.getLog(OAuth2ServiceComponent.class);
     private static BundleContext bundleContext;
+    private TokenCleanUpService tokenCleanUpService;
 
     protected void activate(ComponentContext context) {
         //Registering OAuth2Service as a OSGIService
@@ -49,11 +51,26 @@ public class OAuth2ServiceComponent {
         bundleContext.registerService(OAuthServerConfiguration.class.getName(), oauthServerConfig, null);
         OAuth2TokenValidationService tokenValidationService = new OAuth2TokenValidationService();
         bundleContext.registerService(OAuth2TokenValidationService.class.getName(), tokenValidationService, null);
+        if (TokenCleanUpService.isEnabled()) {
+            long cleanUpPeriod = TokenCleanUpService.getCleanUpPeriod();
+            tokenCleanUpService = new TokenCleanUpService(cleanUpPeriod, cleanUpPeriod);
+            tokenCleanUpService.activateCleanUp();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Identity OAuth bundle is activated");
         }
     }
 
+    protected void deactivate(ComponentContext context) {
+        if (tokenCleanUpService != null) {
+            tokenCleanUpService.shutdown();
+            tokenCleanUpService = null;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Identity OAuth bundle is deactivated");
+        }
+    }
+
     /**
      * Set Application management service implementation
      *
@@ -211,6 +211,15 @@ public class AccessTokenIssuer {
                     "" + "user-name=" + userName + " to application=" + applicationName);
         }
 
+        if (JWTAccessTokenBuilder.isEnabled() && !tokenRespDTO.isError() && tokenRespDTO.getAccessToken() != null) {
+            String userType = authzGrantHandler.isOfTypeApplicationUser() ?
+                    OAuthConstants.USER_TYPE_FOR_USER_TOKEN : OAuthConstants.USER_TYPE_FOR_APPLICATION_TOKEN;
+            tokenRespDTO.setAccessToken(JWTAccessTokenBuilder.buildAccessToken(tokenRespDTO.getAccessToken(),
+                    tokenReqDTO.getClientId(), tokReqMsgCtx.getAuthorizedUser(),
+                    OAuth2Util.buildScopeString(tokReqMsgCtx.getScope()), userType,
+                    tokenRespDTO.getExpiresInMillis()));
+        }
+
         if (tokReqMsgCtx.getScope() != null && OIDCAuthzServerUtil.isOIDCAuthzRequest(tokReqMsgCtx.getScope())) {
             IDTokenBuilder builder = OAuthServerConfiguration.getInstance().getOpenIDConnectIDTokenBuilder();
             tokenRespDTO.setIDToken(builder.buildIDToken(tokReqMsgCtx, tokenRespDTO));
@@ -0,0 +1,275 @@
+/*
+*Copyright (c) 2005-2013, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.oauth2.token;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.ReadOnlyJWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.common.OAuthConstants;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.math.BigInteger;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPublicKey;
+import java.sql.Timestamp;
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Builds and validates self contained access tokens. The token issued to the client is a JWT
+ * signed with the key of the user's tenant, carrying the client id, user, scope and lifetime of
+ * the access token. The opaque access token stored in the database is carried as the JWT ID,
+ * so that the database, caches and revocation keep working on the opaque identifier while
+ * resource servers can validate the JWT with the published keys alone.
+ */
+public class JWTAccessTokenBuilder {
+
+    private static final Log log = LogFactory.getLog(JWTAccessTokenBuilder.class);
+
+    private static final String CLIENT_ID = "client_id";
+    private static final String SCOPE = "scope";
+    private static final String USER_TYPE = "user_type";
+
+    private static final Base64 base64Url = new Base64(0, null, true);
+
+    private JWTAccessTokenBuilder() {
+    }
+
+    /**
+     * @return true if self contained JWT access tokens are issued
+     */
+    public static boolean isEnabled() {
+        return OAuthServerConfiguration.getInstance().isJWTAccessTokenEnabled();
+    }
+
+    /**
+     * @param token access token as sent by the client
+     * @return true if the token is in the JWT compact serialization
+     */
+    public static boolean isJWT(String token) {
+        if (token == null) {
+            return false;
+        }
+        int first = token.indexOf('.');
+        int last = token.lastIndexOf('.');
+        return first > 0 && last > first + 1 && token.indexOf('.', first + 1) == last;
+    }
+
+    /**
+     * Builds the signed JWT for the given access token
+     *
+     * @param tokenIdentifier        opaque access token identifier
+     * @param consumerKey            client id
+     * @param authorizedUser         authorized user
+     * @param scope                  scope string
+     * @param userType               user type of the token
+     * @param validityPeriodInMillis remaining lifetime of the token, negative or Long.MAX_VALUE if infinite
+     * @return serialized JWT
+     * @throws IdentityOAuth2Exception if the token can not be signed
+     */
+    public static String buildAccessToken(String tokenIdentifier, String consumerKey, String authorizedUser,
+                                          String scope, String userType, long validityPeriodInMillis)
+            throws IdentityOAuth2Exception {
+
+        String tenantDomain = MultitenantUtils.getTenantDomain(authorizedUser);
+        int tenantId = OAuth2Util.getTenantId(tenantDomain);
+        long currentTime = System.currentTimeMillis();
+
+        JWTClaimsSet claimsSet = new JWTClaimsSet();
+        claimsSet.setIssuer(OAuthServerConfiguration.getInstance().getOpenIDConnectIDTokenIssuerIdentifier());
+        claimsSet.setSubject(authorizedUser);
+        claimsSet.setJWTID(tokenIdentifier);
+        claimsSet.setIssueTime(new Date(currentTime));
+        if (validityPeriodInMillis >= 0 && validityPeriodInMillis < Long.MAX_VALUE - currentTime) {
+            claimsSet.setExpirationTime(new Date(currentTime + validityPeriodInMillis));
+        }
+        claimsSet.setClaim(CLIENT_ID, consumerKey);
+        claimsSet.setClaim(SCOPE, scope);
+        claimsSet.setClaim(USER_TYPE, userType);
+
+        try {
+            String keyId = getKeyId(tenantDomain, tenantId);
+            JWSHeader header = new JWSHeader(getSignatureAlgorithm());
+            header.setKeyID(keyId);
+            header.setX509CertThumbprint(new Base64URL(keyId));
+            SignedJWT signedJWT = new SignedJWT(header, claimsSet);
+            signedJWT.sign(OAuth2Util.getTenantSigner(tenantDomain, tenantId));
+            return signedJWT.serialize();
+        } catch (IdentityOAuth2Exception e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IdentityOAuth2Exception("Error while signing the access token for tenant " + tenantDomain, e);
+        }
+    }
+
+    /**
+     * Validates the signature and issuer of the JWT access token and checks it against the
+     * revoked tokens. Expiry is left to the caller, as for the opaque access tokens.
+     *
+     * @param token serialized JWT
+     * @return access token carried by the JWT, or null if the JWT is not valid or revoked
+     */
+    public static AccessTokenDO validateAccessToken(String token) {
+
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            ReadOnlyJWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+            String authorizedUser = claimsSet.getSubject();
+            if (authorizedUser == null || claimsSet.getJWTID() == null || claimsSet.getIssueTime() == null) {
+                log.debug("JWT access token does not carry the subject, JWT ID or issued time");
+                return null;
+            }
+            String issuer = OAuthServerConfiguration.getInstance().getOpenIDConnectIDTokenIssuerIdentifier();
+            if (issuer != null && !issuer.equals(claimsSet.getIssuer())) {
+                log.debug("JWT access token is issued by " + claimsSet.getIssuer());
+                return null;
+            }
+
+            String tenantDomain = MultitenantUtils.getTenantDomain(authorizedUser);
+            int tenantId = OAuth2Util.getTenantId(tenantDomain);
+            Certificate certificate = OAuth2Util.getTenantCertificate(tenantDomain, tenantId);
+            if (!signedJWT.verify(new RSASSAVerifier((RSAPublicKey) certificate.getPublicKey()))) {
+                log.debug("Signature validation failed for the JWT access token");
+                return null;
+            }
+
+            String tokenIdentifier = claimsSet.getJWTID();
+            if (RevokedAccessTokenList.getInstance().isRevoked(tokenIdentifier)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("JWT access token with ID " + tokenIdentifier + " is revoked");
+                }
+                return null;
+            }
+
+            long issuedTime = claimsSet.getIssueTime().getTime();
+            // same representation as an infinite validity period configured in seconds
+            long validityPeriodInMillis = -1000;
+            if (claimsSet.getExpirationTime() != null) {
+                validityPeriodInMillis = claimsSet.getExpirationTime().getTime() - issuedTime;
+            }
+            Object scope = claimsSet.getClaim(SCOPE);
+            Object userType = claimsSet.getClaim(USER_TYPE);
+            Object consumerKey = claimsSet.getClaim(CLIENT_ID);
+
+            AccessTokenDO accessTokenDO = new AccessTokenDO(consumerKey != null ? consumerKey.toString() : null,
+                    authorizedUser, OAuth2Util.buildScopeArray(scope != null ? scope.toString() : null),
+                    new Timestamp(issuedTime), new Timestamp(issuedTime), validityPeriodInMillis,
+                    validityPeriodInMillis, userType != null ? userType.toString() : null);
+            accessTokenDO.setAccessToken(tokenIdentifier);
+            accessTokenDO.setTokenState(OAuthConstants.TokenStates.TOKEN_STATE_ACTIVE);
+            accessTokenDO.setTenantID(tenantId);
+            return accessTokenDO;
+        } catch (ParseException e) {
+            log.debug("Error while parsing the JWT access token", e);
+        } catch (JOSEException e) {
+            log.debug("Error while verifying the JWT access token", e);
+        } catch (Exception e) {
+            log.error("Error while validating the JWT access token", e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the opaque access token identifier carried by the JWT, without validating the JWT
+     *
+     * @param token serialized JWT
+     * @return access token identifier, or the given token if it is not a JWT
+     */
+    public static String getTokenIdentifier(String token) {
+        if (!isJWT(token)) {
+            return token;
+        }
+        try {
+            String tokenIdentifier = SignedJWT.parse(token).getJWTClaimsSet().getJWTID();
+            return tokenIdentifier != null ? tokenIdentifier : token;
+        } catch (ParseException e) {
+            log.debug("Error while parsing the JWT access token", e);
+            return token;
+        }
+    }
+
+    /**
+     * Returns the JSON Web Key Set with the public key used to sign the access tokens of the tenant
+     *
+     * @param tenantDomain tenant domain
+     * @return JSON Web Key Set
+     * @throws IdentityOAuth2Exception if the key of the tenant can not be read
+     */
+    public static String getJWKS(String tenantDomain) throws IdentityOAuth2Exception {
+
+        try {
+            int tenantId = OAuth2Util.getTenantId(tenantDomain);
+            Certificate certificate = OAuth2Util.getTenantCertificate(tenantDomain, tenantId);
+            RSAPublicKey publicKey = (RSAPublicKey) certificate.getPublicKey();
+            StringBuilder jwks = new StringBuilder();
+            jwks.append("{\"keys\":[{\"kty\":\"RSA\",\"use\":\"sig\"");
+            jwks.append(",\"alg\":\"").append(getSignatureAlgorithm().getName()).append("\"");
+            jwks.append(",\"kid\":\"").append(getKeyId(tenantDomain, tenantId)).append("\"");
+            jwks.append(",\"n\":\"").append(encode(publicKey.getModulus())).append("\"");
+            jwks.append(",\"e\":\"").append(encode(publicKey.getPublicExponent())).append("\"");
+            jwks.append(",\"x5c\":[\"").append(new String(Base64.encodeBase64(certificate.getEncoded())))
+                    .append("\"]}]}");
+            return jwks.toString();
+        } catch (IdentityOAuth2Exception e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IdentityOAuth2Exception("Error while reading the public key of tenant " + tenantDomain, e);
+        }
+    }
+
+    private static JWSAlgorithm getSignatureAlgorithm() throws IdentityOAuth2Exception {
+        String signatureAlgorithm = OAuthServerConfiguration.getInstance().getJWTAccessTokenSignatureAlgorithm();
+        if ("SHA256withRSA".equals(signatureAlgorithm)) {
+            return JWSAlgorithm.RS256;
+        } else if ("SHA384withRSA".equals(signatureAlgorithm)) {
+            return JWSAlgorithm.RS384;
+        } else if ("SHA512withRSA".equals(signatureAlgorithm)) {
+            return JWSAlgorithm.RS512;
+        }
+        // tenant key stores only hold RSA keys, so EC and HMAC algorithms can not be used here
+        throw new IdentityOAuth2Exception("Unsupported signature algorithm for JWT access tokens : " +
+                signatureAlgorithm);
+    }
+
+    private static String getKeyId(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
+        return new String(base64Url.encode(OAuth2Util.getTenantCertificateThumbprint(tenantDomain, tenantId)));
+    }
+
+    private static String encode(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return new String(base64Url.encode(bytes));
+    }
+}
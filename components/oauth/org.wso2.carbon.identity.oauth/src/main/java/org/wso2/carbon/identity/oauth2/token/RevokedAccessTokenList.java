@@ -0,0 +1,187 @@
+/*
+*Copyright (c) 2005-2013, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.identity.oauth2.token;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
+import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
+import org.wso2.carbon.identity.oauth2.dao.TokenMgtDAO;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Identifiers of the access tokens that are revoked before they expire. Self contained JWT access
+ * tokens are validated without reading the token from the database, so this list is consulted
+ * instead. Tokens revoked on this node are added immediately, and the tokens revoked since the
+ * last reload are periodically read from the database to pick up the tokens revoked on other nodes.
+ */
+public class RevokedAccessTokenList {
+
+    private static final Log log = LogFactory.getLog(RevokedAccessTokenList.class);
+
+    // time in milliseconds by which a reload reads back before the previous reload, to pick up the
+    // revocations committed late or recorded by nodes whose clocks are behind
+    private static final long REVOCATION_TIME_TOLERANCE = 60 * 1000;
+
+    private static volatile RevokedAccessTokenList instance;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<String, Long>();
+    private long lastRefreshTime = -1;
+
+    private RevokedAccessTokenList() {
+    }
+
+    public static RevokedAccessTokenList getInstance() {
+        if (instance == null) {
+            synchronized (RevokedAccessTokenList.class) {
+                if (instance == null) {
+                    RevokedAccessTokenList revokedAccessTokenList = new RevokedAccessTokenList();
+                    revokedAccessTokenList.startRefresh();
+                    instance = revokedAccessTokenList;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Adds a token revoked on this node, if self contained access tokens are issued
+     *
+     * @param tokenIdentifier access token identifier
+     */
+    public static void tokenRevoked(String tokenIdentifier) {
+        if (OAuthServerConfiguration.getInstance().isJWTAccessTokenEnabled()) {
+            getInstance().addRevokedToken(tokenIdentifier);
+        }
+    }
+
+    /**
+     * @param tokenIdentifier access token identifier
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(String tokenIdentifier) {
+        Long expiryTime = revokedTokens.get(tokenIdentifier);
+        return expiryTime != null && expiryTime > System.currentTimeMillis();
+    }
+
+    /**
+     * @param tokenIdentifier access token identifier
+     * @param expiryTime      time in milliseconds after which the token need not be remembered
+     */
+    public void addRevokedToken(String tokenIdentifier, long expiryTime) {
+        revokedTokens.put(tokenIdentifier, expiryTime);
+    }
+
+    /**
+     * Adds a token whose issued time is not known. It is remembered until any token issued now
+     * would have expired.
+     *
+     * @param tokenIdentifier access token identifier
+     */
+    public void addRevokedToken(String tokenIdentifier) {
+        long maxValidityPeriod = getMaxValidityPeriod();
+        addRevokedToken(tokenIdentifier, maxValidityPeriod < 0 ? Long.MAX_VALUE :
+                System.currentTimeMillis() + maxValidityPeriod * 1000);
+    }
+
+    public int size() {
+        return revokedTokens.size();
+    }
+
+    /**
+     * Reads the tokens revoked since the previous reload from the database and forgets the ones that
+     * have expired. The first reload reads the tokens revoked within the maximum validity period.
+     */
+    public synchronized void refresh() {
+
+        long now = System.currentTimeMillis();
+        long revokedAfter;
+        if (lastRefreshTime < 0) {
+            long maxValidityPeriod = getMaxValidityPeriod();
+            revokedAfter = maxValidityPeriod < 0 ? 0 : now - maxValidityPeriod * 1000;
+        } else {
+            revokedAfter = lastRefreshTime - REVOCATION_TIME_TOLERANCE;
+        }
+
+        try {
+            revokedTokens.putAll(new TokenMgtDAO().getRevokedAccessTokens(revokedAfter));
+            lastRefreshTime = now;
+        } catch (IdentityOAuth2Exception e) {
+            log.error("Error while reloading the revoked access tokens", e);
+        }
+
+        Iterator<Map.Entry<String, Long>> iterator = revokedTokens.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() <= now) {
+                iterator.remove();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Revoked access token list is reloaded. " + revokedTokens.size() + " tokens are revoked");
+        }
+    }
+
+    /**
+     * @return maximum validity period of the access tokens in seconds, or a negative value if
+     * tokens may never expire
+     */
+    private long getMaxValidityPeriod() {
+        OAuthServerConfiguration config = OAuthServerConfiguration.getInstance();
+        if (config.getUserAccessTokenValidityPeriodInSeconds() < 0 ||
+                config.getApplicationAccessTokenValidityPeriodInSeconds() < 0) {
+            return -1;
+        }
+        return Math.max(config.getUserAccessTokenValidityPeriodInSeconds(),
+                config.getApplicationAccessTokenValidityPeriodInSeconds());
+    }
+
+    private void startRefresh() {
+
+        long interval = OAuthServerConfiguration.getInstance().getJWTAccessTokenRevocationListRefreshInterval();
+        if (interval <= 0) {
+            refresh();
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "OAuthRevokedAccessTokenListRefresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (Exception e) {
+                    log.error("Error while refreshing the revoked access token list", e);
+                }
+            }
+        }, 0, interval, TimeUnit.SECONDS);
+    }
+}
@@ -49,6 +49,7 @@ import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 import java.sql.Timestamp;
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 public abstract class AbstractAuthorizationGrantHandler implements AuthorizationGrantHandler {
 
@@ -110,7 +111,9 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
         Timestamp refreshTokenIssuedTime = null;
         long refreshTokenValidityPeriodInMillis = 0;
 
-        synchronized ((consumerKey + ":" + authorizedUser + ":" + scope).intern()) {
+        Lock tokenIssuanceLock = OAuth2Util.getTokenIssuanceLock(consumerKey, authorizedUser, scope);
+        tokenIssuanceLock.lock();
+        try {
             // check if valid access token exists in cache
             if (cacheEnabled) {
 
@@ -356,6 +359,8 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
             //update cache with newly added token
             if (cacheEnabled) {
                 oauthCache.addToCache(cacheKey, accessTokenDO);
+                // token may be validated before it is persisted, hence it is cached against the token as well
+                oauthCache.addToCache(new OAuthCacheKey(accessToken), accessTokenDO);
                 if (log.isDebugEnabled()) {
                     log.debug("Access token was added to OAuthCache for cache key : " +
                             cacheKey.getCacheKeyString());
@@ -378,6 +383,8 @@ public abstract class AbstractAuthorizationGrantHandler implements Authorization
             }
             tokenRespDTO.setAuthorizedScopes(scope);
             return tokenRespDTO;
+        } finally {
+            tokenIssuanceLock.unlock();
         }
     }
 
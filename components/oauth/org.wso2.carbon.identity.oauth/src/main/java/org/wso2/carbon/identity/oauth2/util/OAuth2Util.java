@@ -18,11 +18,17 @@
 
 package org.wso2.carbon.identity.oauth2.util;
 
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.model.OAuthAppDO;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.util.TenantSigningKeyCache;
 import org.wso2.carbon.identity.oauth.IdentityOAuthAdminException;
 import org.wso2.carbon.identity.oauth.cache.CacheEntry;
 import org.wso2.carbon.identity.oauth.cache.OAuthCache;
@@ -40,10 +46,14 @@ import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
+import java.security.Key;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateKey;
 import java.sql.Timestamp;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Utility methods for OAuth 2.0 implementation
@@ -55,7 +65,36 @@ public class OAuth2Util {
     private static OAuthCache cache = OAuthCache.getInstance();
     private static long timestampSkew = OAuthServerConfiguration.getInstance().getTimeStampSkewInSeconds() * 1000;
     private static ThreadLocal<Integer> clientTenatId = new ThreadLocal<Integer>();
+    private static final int DEFAULT_TOKEN_ISSUANCE_LOCK_STRIPES = 1024;
+    private static StripedLock tokenIssuanceLock;
+    private static final String JWS_SIGNER = "OAuth.JWSSigner";
+
+    static {
+        int stripes = DEFAULT_TOKEN_ISSUANCE_LOCK_STRIPES;
+        String stripesProperty = IdentityUtil.getProperty("OAuth.TokenIssuanceLockStripes");
+        if (stripesProperty != null) {
+            try {
+                stripes = Integer.parseInt(stripesProperty.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value for OAuth.TokenIssuanceLockStripes : " + stripesProperty +
+                        ". Using default value " + DEFAULT_TOKEN_ISSUANCE_LOCK_STRIPES);
+            }
+        }
+        tokenIssuanceLock = new StripedLock(stripes);
+    }
 
+    /**
+     * Returns the lock that serializes the token issuance for the given client, user and scope.
+     * Locks are striped, so their number is bounded regardless of the number of users and scopes.
+     *
+     * @param consumerKey    client id
+     * @param authorizedUser authorized user
+     * @param scope          scope string
+     * @return token issuance lock
+     */
+    public static Lock getTokenIssuanceLock(String consumerKey, String authorizedUser, String scope) {
+        return tokenIssuanceLock.getLock(consumerKey, authorizedUser, scope);
+    }
 
     /**
      * @return
@@ -497,4 +536,100 @@ public class OAuth2Util {
         return getTenantId(domainName);
     }
 
+    /**
+     * Returns the private key of the tenant used to sign the tokens issued for the tenant
+     *
+     * @param tenantDomain tenant domain, super tenant if null
+     * @param tenantId     tenant id, resolved from the tenant domain if 0
+     * @return private key of the tenant
+     * @throws IdentityOAuth2Exception if the key store of the tenant can not be read
+     */
+    public static Key getTenantPrivateKey(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
+
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        if (tenantId == 0) {
+            tenantId = getTenantId(tenantDomain);
+        }
+        try {
+            return TenantSigningKeyCache.getInstance().getPrivateKey(tenantDomain, tenantId);
+        } catch (IdentityException e) {
+            throw new IdentityOAuth2Exception(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the public certificate of the tenant used to verify the tokens issued for the tenant
+     *
+     * @param tenantDomain tenant domain, super tenant if null
+     * @param tenantId     tenant id, resolved from the tenant domain if 0
+     * @return public certificate of the tenant
+     * @throws Exception if the key store of the tenant can not be loaded
+     */
+    public static Certificate getTenantCertificate(String tenantDomain, int tenantId) throws Exception {
+
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        if (tenantId == 0) {
+            tenantId = getTenantId(tenantDomain);
+        }
+        return TenantSigningKeyCache.getInstance().getCertificate(tenantDomain, tenantId);
+    }
+
+    /**
+     * Returns the SHA-1 thumbprint of the public certificate of the tenant
+     *
+     * @param tenantDomain tenant domain, super tenant if null
+     * @param tenantId     tenant id, resolved from the tenant domain if 0
+     * @return SHA-1 digest of the encoded certificate
+     * @throws IdentityOAuth2Exception if the certificate of the tenant can not be read
+     */
+    public static byte[] getTenantCertificateThumbprint(String tenantDomain, int tenantId)
+            throws IdentityOAuth2Exception {
+
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        if (tenantId == 0) {
+            tenantId = getTenantId(tenantDomain);
+        }
+        try {
+            return TenantSigningKeyCache.getInstance().getCertificateThumbprint(tenantDomain, tenantId);
+        } catch (IdentityException e) {
+            throw new IdentityOAuth2Exception(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the RSA signer of the tenant. The signer is created once per signing key and reused
+     * by all threads, until the key store of the tenant is changed.
+     *
+     * @param tenantDomain tenant domain, super tenant if null
+     * @param tenantId     tenant id, resolved from the tenant domain if 0
+     * @return signer holding the private key of the tenant
+     * @throws IdentityOAuth2Exception if the private key of the tenant can not be read
+     */
+    public static JWSSigner getTenantSigner(String tenantDomain, int tenantId) throws IdentityOAuth2Exception {
+
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        if (tenantId == 0) {
+            tenantId = getTenantId(tenantDomain);
+        }
+        TenantSigningKeyCache keyCache = TenantSigningKeyCache.getInstance();
+        JWSSigner signer = (JWSSigner) keyCache.getAttribute(tenantId, JWS_SIGNER);
+        if (signer == null) {
+            Key privateKey = getTenantPrivateKey(tenantDomain, tenantId);
+            if (!(privateKey instanceof RSAPrivateKey)) {
+                throw new IdentityOAuth2Exception("RSA private key is not available for tenant " + tenantDomain);
+            }
+            signer = new RSASSASigner((RSAPrivateKey) privateKey);
+            keyCache.setAttribute(tenantId, JWS_SIGNER, signer);
+        }
+        return signer;
+    }
+
 }
@@ -0,0 +1,68 @@
+/*
+*  Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.identity.oauth2.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by an unbounded set of keys. A key is mapped to one of the stripes
+ * by its hash, so unrelated keys may share a lock but the memory used does not grow with the
+ * number of keys. Keys are given as their parts, so that no key string has to be built per call.
+ */
+public class StripedLock {
+
+    private final Lock[] locks;
+    private final int mask;
+
+    /**
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public StripedLock(int stripes) {
+        int size = 1;
+        while (size < stripes && size < (1 << 16)) {
+            size <<= 1;
+        }
+        locks = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Returns the lock for the key made of the given parts
+     *
+     * @param parts parts of the key, may contain null
+     * @return lock of the key
+     */
+    public Lock getLock(String... parts) {
+        int hash = 1;
+        for (String part : parts) {
+            hash = 31 * hash + (part == null ? 0 : part.hashCode());
+        }
+        // spread the higher bits, as only the lower bits are used to select the stripe
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return locks[hash & mask];
+    }
+
+    public int getStripes() {
+        return locks.length;
+    }
+}
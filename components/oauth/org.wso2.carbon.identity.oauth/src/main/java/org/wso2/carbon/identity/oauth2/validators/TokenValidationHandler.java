@@ -20,10 +20,7 @@ package org.wso2.carbon.identity.oauth2.validators;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.identity.oauth.cache.CacheEntry;
-import org.wso2.carbon.identity.oauth.cache.CacheKey;
-import org.wso2.carbon.identity.oauth.cache.OAuthCache;
-import org.wso2.carbon.identity.oauth.cache.OAuthCacheKey;
+import org.wso2.carbon.identity.oauth.cache.AccessTokenValidationCache;
 import org.wso2.carbon.identity.oauth.common.OAuthConstants;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
@@ -33,10 +30,13 @@ import org.wso2.carbon.identity.oauth2.dto.OAuth2ClientApplicationDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationRequestDTO;
 import org.wso2.carbon.identity.oauth2.dto.OAuth2TokenValidationResponseDTO;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.token.JWTAccessTokenBuilder;
 import org.wso2.carbon.identity.oauth2.util.OAuth2Util;
 
 import java.util.Hashtable;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles the token validation by invoking the proper validation handler by looking at the token
@@ -134,6 +134,70 @@ public class TokenValidationHandler {
      */
     public OAuth2ClientApplicationDTO findOAuthConsumerIfTokenIsValid(OAuth2TokenValidationRequestDTO requestDTO)
             throws IdentityOAuth2Exception {
+        return findOAuthConsumerIfTokenIsValid(requestDTO, null);
+    }
+
+    /**
+     * Validates a batch of access tokens. Access tokens which are neither self contained nor cached are
+     * read from the database together, instead of one query per token.
+     *
+     * @param requestDTOs validation requests
+     * @return validation results in the order of the requests
+     * @throws IdentityOAuth2Exception if the access tokens could not be read from the database
+     */
+    public OAuth2ClientApplicationDTO[] findOAuthConsumersIfTokensAreValid(OAuth2TokenValidationRequestDTO[] requestDTOs)
+            throws IdentityOAuth2Exception {
+
+        boolean cacheEnabled = OAuthServerConfiguration.getInstance().isCacheEnabled();
+        AccessTokenValidationCache validationCache = cacheEnabled ? AccessTokenValidationCache.getInstance() : null;
+        Set<String> uncachedTokens = new LinkedHashSet<String>();
+        for (OAuth2TokenValidationRequestDTO requestDTO : requestDTOs) {
+            if (requestDTO == null || requestDTO.getAccessToken() == null) {
+                continue;
+            }
+            String accessTokenIdentifier = requestDTO.getAccessToken().getIdentifier();
+            if (accessTokenIdentifier == null ||
+                    (JWTAccessTokenBuilder.isEnabled() && JWTAccessTokenBuilder.isJWT(accessTokenIdentifier))) {
+                continue;
+            }
+            if (cacheEnabled && (validationCache.isInvalid(accessTokenIdentifier) ||
+                    validationCache.getAccessToken(accessTokenIdentifier) != null)) {
+                continue;
+            }
+            uncachedTokens.add(accessTokenIdentifier);
+        }
+        Map<String, AccessTokenDO> retrievedTokens = tokenMgtDAO.retrieveAccessTokens(uncachedTokens);
+        // tokens not found in the database are known to be invalid without another lookup
+        for (String accessTokenIdentifier : uncachedTokens) {
+            if (!retrievedTokens.containsKey(accessTokenIdentifier)) {
+                retrievedTokens.put(accessTokenIdentifier, null);
+            }
+        }
+
+        OAuth2ClientApplicationDTO[] clientApps = new OAuth2ClientApplicationDTO[requestDTOs.length];
+        for (int i = 0; i < requestDTOs.length; i++) {
+            if (requestDTOs[i] == null) {
+                OAuth2ClientApplicationDTO clientApp = new OAuth2ClientApplicationDTO();
+                OAuth2TokenValidationResponseDTO responseDTO = new OAuth2TokenValidationResponseDTO();
+                responseDTO.setValid(false);
+                responseDTO.setErrorMsg("Invalid token validation request");
+                clientApp.setAccessTokenValidationResponse(responseDTO);
+                clientApps[i] = clientApp;
+            } else {
+                clientApps[i] = findOAuthConsumerIfTokenIsValid(requestDTOs[i], retrievedTokens);
+            }
+        }
+        return clientApps;
+    }
+
+    /**
+     * @param requestDTO      validation request
+     * @param retrievedTokens access tokens already read from the database, with a null value for tokens
+     *                        which were not found. Other cache misses are read from the database
+     */
+    private OAuth2ClientApplicationDTO findOAuthConsumerIfTokenIsValid(OAuth2TokenValidationRequestDTO requestDTO,
+                                                                       Map<String, AccessTokenDO> retrievedTokens)
+            throws IdentityOAuth2Exception {
 
         OAuth2ClientApplicationDTO clientApp = new OAuth2ClientApplicationDTO();
         OAuth2TokenValidationResponseDTO responseDTO = new OAuth2TokenValidationResponseDTO();
@@ -174,24 +238,52 @@ public class TokenValidationHandler {
 
         AccessTokenDO accessTokenDO = null;
 
+        // Self contained access tokens are validated with the signing key, without the cache or the database
+        boolean selfContained = JWTAccessTokenBuilder.isEnabled() && JWTAccessTokenBuilder.isJWT(accessTokenIdentifier);
+        if (selfContained) {
+            accessTokenDO = JWTAccessTokenBuilder.validateAccessToken(accessTokenIdentifier);
+            if (accessTokenDO == null) {
+                responseDTO.setValid(false);
+                responseDTO.setErrorMsg("Invalid input. Access token validation failed");
+                clientApp.setAccessTokenValidationResponse(responseDTO);
+                return clientApp;
+            }
+        }
+
         boolean cacheHit = false;
+        boolean cacheEnabled = !selfContained && OAuthServerConfiguration.getInstance().isCacheEnabled();
+        AccessTokenValidationCache validationCache = null;
         // Check the cache, if caching is enabled.
-        if (OAuthServerConfiguration.getInstance().isCacheEnabled()) {
-            OAuthCache oauthCache = OAuthCache.getInstance();
-            CacheKey cacheKey = new OAuthCacheKey(requestDTO.getAccessToken().getIdentifier());
-            CacheEntry result = oauthCache.getValueFromCache(cacheKey);
-            // cache hit, do the type check.
-            if (result instanceof AccessTokenDO) {
-                accessTokenDO = (AccessTokenDO) result;
-                cacheHit = true;
+        if (cacheEnabled) {
+            validationCache = AccessTokenValidationCache.getInstance();
+            if (validationCache.isInvalid(accessTokenIdentifier)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Access Token : " + accessTokenIdentifier + " is known to be invalid");
+                }
+                responseDTO.setValid(false);
+                responseDTO.setErrorMsg("Invalid input. Access token validation failed");
+                clientApp.setAccessTokenValidationResponse(responseDTO);
+                return clientApp;
             }
+            accessTokenDO = validationCache.getAccessToken(accessTokenIdentifier);
+            cacheHit = accessTokenDO != null;
         }
         // Cache miss, load the access token info from the database.
         if (accessTokenDO == null) {
-            accessTokenDO = tokenMgtDAO.retrieveAccessToken(accessTokenIdentifier, false);
+            if (cacheEnabled) {
+                validationCache.recordDatabaseLookup();
+            }
+            if (retrievedTokens != null && retrievedTokens.containsKey(accessTokenIdentifier)) {
+                accessTokenDO = retrievedTokens.get(accessTokenIdentifier);
+            } else {
+                accessTokenDO = tokenMgtDAO.retrieveAccessToken(accessTokenIdentifier, true);
+            }
 
             // No data retrieved due to invalid input.
             if (accessTokenDO == null) {
+                if (cacheEnabled) {
+                    validationCache.addInvalidToken(accessTokenIdentifier);
+                }
                 responseDTO.setValid(false);
                 responseDTO.setErrorMsg("Invalid input. Access token validation failed");
                 clientApp.setAccessTokenValidationResponse(responseDTO);
@@ -209,6 +301,9 @@ public class TokenValidationHandler {
                 if (log.isDebugEnabled()) {
                         log.debug("Access Token : " + accessTokenIdentifier + " has expired");
                     }
+                if (cacheEnabled) {
+                    validationCache.addInvalidToken(accessTokenIdentifier);
+                }
                 responseDTO.setValid(false);
                 responseDTO.setErrorMsg("Access token has expired");
                 clientApp.setAccessTokenValidationResponse(responseDTO);
@@ -217,10 +312,8 @@ public class TokenValidationHandler {
         }
 
         // Add the token back to the cache in the case of a cache miss
-        if (OAuthServerConfiguration.getInstance().isCacheEnabled() && !cacheHit) {
-            OAuthCache oauthCache = OAuthCache.getInstance();
-            CacheKey cacheKey = new OAuthCacheKey(accessTokenIdentifier);
-            oauthCache.addToCache(cacheKey, accessTokenDO);
+        if (cacheEnabled && !cacheHit) {
+            validationCache.addAccessToken(accessTokenIdentifier, accessTokenDO);
             if (log.isDebugEnabled()) {
                 log.debug("Access Token Info object was added back to the cache.");
             }
@@ -51,10 +51,12 @@ import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class KeyStoreAdmin {
 
     private static Log log = LogFactory.getLog(KeyStoreAdmin.class);
+    private static List<KeyStoreChangeListener> changeListeners = new CopyOnWriteArrayList<KeyStoreChangeListener>();
     private Registry registry = null;
     private int tenantId;
     private boolean includeCert = false;
@@ -64,6 +66,14 @@ public class KeyStoreAdmin {
         this.tenantId = tenantId;
     }
 
+    public static void addKeyStoreChangeListener(KeyStoreChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void removeKeyStoreChangeListener(KeyStoreChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
     public boolean isIncludeCert() {
         return includeCert;
     }
@@ -231,6 +241,7 @@ public class KeyStoreAdmin {
 
             resource.setContent(content);
             registry.put(path, resource);
+            notifyKeyStoreChange(filename);
         } catch (SecurityConfigException e) {
             throw e;
         } catch (Exception e) {
@@ -300,6 +311,7 @@ public class KeyStoreAdmin {
                         " is already in use and can't be deleted");
             }
             registry.delete(path);
+            notifyKeyStoreChange(keyStoreName);
         } catch (RegistryException e) {
             log.error(e.getMessage(), e);
             throw new SecurityConfigException(e.getMessage(), e);
@@ -337,6 +349,7 @@ public class KeyStoreAdmin {
             ks.setCertificateEntry(fileName, cert);
 
             keyMan.updateKeyStore(keyStoreName, ks);
+            notifyKeyStoreChange(keyStoreName);
 
         } catch (SecurityConfigException e) {
             throw e;
@@ -379,6 +392,7 @@ public class KeyStoreAdmin {
             ks.setCertificateEntry(alias, cert);
 
             keyMan.updateKeyStore(keyStoreName, ks);
+            notifyKeyStoreChange(keyStoreName);
 
             return alias;
 
@@ -407,6 +421,7 @@ public class KeyStoreAdmin {
 
             ks.deleteEntry(alias);
             keyMan.updateKeyStore(keyStoreName, ks);
+            notifyKeyStoreChange(keyStoreName);
         } catch (SecurityConfigException e) {
             throw e;
         } catch (Exception e) {
@@ -629,6 +644,16 @@ public class KeyStoreAdmin {
         return bytes;
     }
 
+    private void notifyKeyStoreChange(String keyStoreName) {
+        for (KeyStoreChangeListener listener : changeListeners) {
+            try {
+                listener.onKeyStoreChange(tenantId, keyStoreName);
+            } catch (RuntimeException e) {
+                log.error("Error while notifying the change of key store " + keyStoreName, e);
+            }
+        }
+    }
+
     /**
      * This method is used to generate the file name of the pub. cert of a tenant
      *
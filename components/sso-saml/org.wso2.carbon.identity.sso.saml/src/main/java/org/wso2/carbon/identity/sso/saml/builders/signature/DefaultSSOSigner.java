@@ -57,6 +57,7 @@ public class DefaultSSOSigner implements SSOSigner {
 
     @Override
     public void init() throws IdentityException {
+        org.apache.xml.security.Init.init();
     }
 
     @Override
@@ -111,7 +112,6 @@ public class DefaultSSOSigner implements SSOSigner {
 
             marshaller.marshall(assertion);
 
-            org.apache.xml.security.Init.init();
             Signer.signObjects(signatureList);
             return assertion;
         } catch (Exception e) {
@@ -155,7 +155,6 @@ public class DefaultSSOSigner implements SSOSigner {
 
             marshaller.marshall(response);
 
-            org.apache.xml.security.Init.init();
             Signer.signObjects(signatureList);
             return response;
 
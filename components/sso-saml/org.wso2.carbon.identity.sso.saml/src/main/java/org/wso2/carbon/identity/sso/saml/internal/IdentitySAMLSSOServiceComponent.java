@@ -23,9 +23,11 @@ import org.osgi.service.component.ComponentContext;
 import org.osgi.service.http.HttpService;
 import org.wso2.carbon.identity.authenticator.saml2.sso.common.Util;
 import org.wso2.carbon.identity.base.IdentityConstants;
+import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.sso.saml.SSOServiceProviderConfigManager;
 import org.wso2.carbon.identity.sso.saml.admin.FileBasedConfigManager;
+import org.wso2.carbon.identity.sso.saml.logout.LogoutRequestSender;
 import org.wso2.carbon.identity.sso.saml.servlet.SAMLSSOProviderServlet;
 import org.wso2.carbon.identity.sso.saml.util.SAMLSSOUtil;
 import org.wso2.carbon.registry.core.service.RegistryService;
@@ -101,6 +103,12 @@ public class IdentitySAMLSSOServiceComponent {
 
             SAMLSSOUtil.setResponseBuilder(IdentityUtil.getProperty("SSOService.SAMLSSOResponseBuilder"));
 
+            try {
+                SAMLSSOUtil.initSSOExtensions();
+            } catch (IdentityException e) {
+                log.error("Error while initializing the SAML SSO signer, encrypter and signature validator", e);
+            }
+
             log.debug("Single logout retry count is set to " + SAMLSSOUtil.getSingleLogoutRetryCount());
             log.debug("Single logout retry interval is set to " +
                     SAMLSSOUtil.getSingleLogoutRetryInterval() + " in seconds.");
@@ -132,6 +140,7 @@ public class IdentitySAMLSSOServiceComponent {
 
     protected void deactivate(ComponentContext ctxt) {
         SAMLSSOUtil.setBundleContext(null);
+        LogoutRequestSender.getInstance().shutdown();
         if (log.isDebugEnabled()) {
             log.info("Identity SAML SSO bundle is deactivated");
         }
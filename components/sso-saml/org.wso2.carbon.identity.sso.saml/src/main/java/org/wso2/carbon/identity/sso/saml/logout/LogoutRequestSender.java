@@ -20,17 +20,23 @@ package org.wso2.carbon.identity.sso.saml.logout;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpEntity;
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
-import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.ssl.SSLSocketFactory;
-import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.identity.base.IdentityException;
+import org.wso2.carbon.identity.core.util.IdentityUtil;
 import org.wso2.carbon.identity.sso.saml.dto.SingleLogoutRequestDTO;
 import org.wso2.carbon.identity.sso.saml.util.SAMLSSOUtil;
 
@@ -38,35 +44,60 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class is used to send logout requests to each and every session participant. It follows a fire and
  * forget approach where the task of sending each and every logout request is submitted to a threadpool
  * as a job. This class implements a singleton, because it is expensive to create thread pool for each
  * and every object.
+ * <p/>
+ * Logout requests are sent with a shared HTTP client which keeps the connections to the session participants
+ * alive. A failed request is scheduled again with an exponential backoff instead of blocking a thread, and
+ * the session participants which keep failing are skipped for a while. Only a limited number of requests
+ * to a session participant are sent at a time, so that a slow session participant cannot hold every thread
+ * of the pool and delay the logout requests of the others.
  */
 public class LogoutRequestSender {
 
     private static Log log = LogFactory.getLog(LogoutRequestSender.class);
 
-    private static ExecutorService threadPool = Executors.newFixedThreadPool(2);
+    private static final int MAX_BACKOFF_MULTIPLIER = 16;
 
     private static LogoutRequestSender instance = new LogoutRequestSender();
 
+    private final ScheduledExecutorService threadPool;
+    private final CloseableHttpClient httpClient;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+    private final SingleLogoutStatistics statistics = new SingleLogoutStatistics();
+    private final int failureThreshold;
+    private final long openPeriod;
+    private final int maxRequestsPerEndpoint;
+
     /**
      * A private constructor since we are implementing a singleton here
      */
     private LogoutRequestSender() {
-
+        int threadPoolSize = getIntProperty("SSOService.SingleLogout.ThreadPoolSize", 10);
+        threadPool = new ScheduledThreadPoolExecutor(threadPoolSize);
+        // a session participant must leave threads to the others, unless there is only one thread
+        int maxRequests = getIntProperty("SSOService.SingleLogout.MaxRequestsPerEndpoint", threadPoolSize / 2);
+        maxRequestsPerEndpoint = Math.max(1, Math.min(maxRequests, threadPoolSize - 1));
+        failureThreshold = getIntProperty("SSOService.SingleLogout.CircuitBreaker.FailureThreshold", 5);
+        openPeriod = getIntProperty("SSOService.SingleLogout.CircuitBreaker.OpenPeriod", 60000);
+        httpClient = createHttpClient();
     }
 
     /**
@@ -84,12 +115,13 @@ public class LogoutRequestSender {
      *
      * @param singleLogoutRequestDTOs Array of SingleLogoutRequestDTO representing all the session participants
      */
-    public void sendLogoutRequests(org.wso2.carbon.identity.sso.saml.dto.SingleLogoutRequestDTO[] singleLogoutRequestDTOs) {
+    public void sendLogoutRequests(SingleLogoutRequestDTO[] singleLogoutRequestDTOs) {
         if (singleLogoutRequestDTOs == null) {
             return;
         }
         // For each logoutReq, create a new task and submit it to the thread pool.
         for (SingleLogoutRequestDTO reqDTO : singleLogoutRequestDTOs) {
+            statistics.recordRequest();
             threadPool.submit(new LogoutReqSenderTask(reqDTO));
             if (log.isDebugEnabled()) {
                 log.debug("A logoutReqSenderTask is assigned to the thread pool");
@@ -99,43 +131,229 @@ public class LogoutRequestSender {
     }
 
     /**
-     * This method is used to derive the port from the assertion consumer URL.
-     *
-     * @param assertionConsumerURL Assertion Consumer URL
-     * @return Port, if mentioned in the URL, or else 443 as the default value
-     * @throws MalformedURLException when the ACS is malformed.
+     * @return statistics of the logout requests sent since the server started
      */
-    private int derivePortFromAssertionConsumerURL(String assertionConsumerURL)
-            throws URISyntaxException {
-        int port = 443;    // use 443 as the default port
+    public SingleLogoutStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Stops sending the pending logout requests and closes the pooled connections
+     */
+    public void shutdown() {
+        threadPool.shutdownNow();
         try {
-            URI uri = new URI(assertionConsumerURL);
-            if (uri.getPort() != -1) {    // if the port is mentioned in the URL
-                port = uri.getPort();
-            } else if ("http".equals(uri.getScheme())) {  // if it is using http
-                port = 80;
+            httpClient.close();
+        } catch (IOException e) {
+            log.error("Error while closing the single logout HTTP client", e);
+        }
+    }
+
+    private CloseableHttpClient createHttpClient() {
+
+        RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+        try {
+            TrustManager easyTrustManager = new X509TrustManager() {
+                public void checkClientTrusted(
+                        java.security.cert.X509Certificate[] x509Certificates,
+                        String s)
+                        throws java.security.cert.CertificateException {
+                }
+
+                public void checkServerTrusted(
+                        java.security.cert.X509Certificate[] x509Certificates,
+                        String s)
+                        throws java.security.cert.CertificateException {
+                }
+
+                public java.security.cert.X509Certificate[] getAcceptedIssuers() {
+                    return null;
+                }
+            };
+
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{easyTrustManager}, null);
+            registryBuilder.register("https", new SSLConnectionSocketFactory(sslContext,
+                    SSLConnectionSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER));
+        } catch (GeneralSecurityException e) {
+            log.error("Error registering the EasySSLProtocolSocketFactory", e);
+        }
+        Registry<ConnectionSocketFactory> registry = registryBuilder.build();
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(getIntProperty("SSOService.SingleLogout.MaxConnections", 100));
+        connectionManager.setDefaultMaxPerRoute(getIntProperty("SSOService.SingleLogout.MaxConnectionsPerEndpoint", 10));
+
+        int timeout = getIntProperty("SSOService.SingleLogout.Timeout", 10000);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeout)
+                .setConnectionRequestTimeout(timeout)
+                .setSocketTimeout(timeout).build();
+
+        // session cookies of the session participants are set per request, they must not be shared
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableCookieManagement()
+                .build();
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = IdentityUtil.getProperty(name);
+        if (value != null && value.trim().length() > 0) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value " + value + " for " + name + ". Using the default value " + defaultValue);
             }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Session participants are identified by the scheme, host and port of their assertion consumer URL
+     */
+    private Endpoint getEndpoint(String assertionConsumerURL) {
+        String endpoint = assertionConsumerURL;
+        try {
+            URI uri = new URI(assertionConsumerURL);
+            endpoint = uri.getScheme() + "://" + uri.getAuthority();
         } catch (URISyntaxException e) {
-            log.error("Error deriving port from the assertion consumer url", e);
-            throw e;
+            log.error("Error deriving the endpoint from the assertion consumer url", e);
+        }
+        Endpoint endpointState = endpoints.get(endpoint);
+        if (endpointState == null) {
+            endpointState = new Endpoint();
+            Endpoint existing = endpoints.putIfAbsent(endpoint, endpointState);
+            if (existing != null) {
+                endpointState = existing;
+            }
+        }
+        return endpointState;
+    }
+
+    /**
+     * State of a session participant.
+     * <p/>
+     * Counts the consecutive failures of the session participant. Once the failure threshold is reached,
+     * the session participant is not called until the open period is over. A single failure after that
+     * opens the circuit again, while a success closes it.
+     * <p/>
+     * Counts the requests being sent to the session participant. A request over the limit waits without a
+     * thread until a request to the session participant completes, and is then submitted to the pool again.
+     */
+    private class Endpoint {
+
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long openUntil;
+        private final Queue<LogoutReqSenderTask> waitingTasks = new LinkedList<LogoutReqSenderTask>();
+        private int inFlightRequests;
+
+        boolean allowRequest() {
+            return System.currentTimeMillis() >= openUntil;
+        }
+
+        void recordSuccess() {
+            consecutiveFailures.set(0);
+        }
+
+        void recordFailure() {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                openUntil = System.currentTimeMillis() + openPeriod;
+            }
+        }
+
+        /**
+         * @param task task which sends a request to the session participant
+         * @return true if the task can send the request now, false if the task is queued until a request
+         * to the session participant completes
+         */
+        synchronized boolean tryAcquire(LogoutReqSenderTask task) {
+            if (inFlightRequests < maxRequestsPerEndpoint) {
+                inFlightRequests++;
+                return true;
+            }
+            waitingTasks.add(task);
+            return false;
+        }
+
+        void release() {
+            LogoutReqSenderTask next;
+            synchronized (this) {
+                inFlightRequests--;
+                next = waitingTasks.poll();
+            }
+            if (next != null) {
+                threadPool.submit(next);
+            }
         }
-        return port;
     }
 
     /**
      * This class is used to model a single logout request that is being sent to a session participant.
      * It will send the logout req. to the session participant in its 'run' method when this job is
-     * submitted to the thread pool.
+     * submitted to the thread pool. A failed attempt schedules the same task again.
      */
     private class LogoutReqSenderTask implements Runnable {
 
-        private SingleLogoutRequestDTO logoutReqDTO;
+        private final SingleLogoutRequestDTO logoutReqDTO;
+        private final long dispatchTime = System.currentTimeMillis();
+        private int attemptCount = 0;
 
         public LogoutReqSenderTask(SingleLogoutRequestDTO logoutReqDTO) {
             this.logoutReqDTO = logoutReqDTO;
         }
 
         public void run() {
+
+            Endpoint endpoint = getEndpoint(logoutReqDTO.getAssertionConsumerURL());
+            if (endpoint.allowRequest()) {
+                if (!endpoint.tryAcquire(this)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Single logout request to " + logoutReqDTO.getAssertionConsumerURL() +
+                                " waits for the requests being sent to the session participant");
+                    }
+                    return;
+                }
+                attemptCount++;
+                boolean sent;
+                try {
+                    sent = send();
+                } finally {
+                    endpoint.release();
+                }
+                if (sent) {
+                    endpoint.recordSuccess();
+                    statistics.recordSuccess(System.currentTimeMillis() - dispatchTime);
+                    return;
+                }
+                endpoint.recordFailure();
+            } else {
+                attemptCount++;
+                statistics.recordCircuitOpen();
+                if (log.isDebugEnabled()) {
+                    log.debug("Single logout request is not sent to " + logoutReqDTO.getAssertionConsumerURL() +
+                            " since it failed repeatedly");
+                }
+            }
+
+            if (attemptCount < SAMLSSOUtil.getSingleLogoutRetryCount()) {
+                long delay = SAMLSSOUtil.getSingleLogoutRetryInterval() *
+                        Math.min(1L << (attemptCount - 1), MAX_BACKOFF_MULTIPLIER);
+                log.info("Sending single log out request again with retry count " + attemptCount +
+                        " after waiting for " + delay + " milli seconds to " + logoutReqDTO.getAssertionConsumerURL());
+                statistics.recordRetry();
+                threadPool.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } else {
+                statistics.recordFailure();
+                log.error("Single logout failed after retrying " + SAMLSSOUtil.getSingleLogoutRetryCount() +
+                        " times to " + logoutReqDTO.getAssertionConsumerURL());
+            }
+        }
+
+        private boolean send() {
+
             List<NameValuePair> logoutReqParams = new ArrayList<NameValuePair>();
             // set the logout request
             logoutReqParams.add(new BasicNameValuePair("SAMLRequest", logoutReqDTO.getLogoutResponse()));
@@ -148,104 +366,42 @@ public class LogoutRequestSender {
                 }
             }
 
+            CloseableHttpResponse response = null;
             try {
-                int port = derivePortFromAssertionConsumerURL(logoutReqDTO.getAssertionConsumerURL());
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(logoutReqParams, "UTF-8");
                 HttpPost httpPost = new HttpPost(logoutReqDTO.getAssertionConsumerURL());
-                httpPost.setEntity(entity);
+                httpPost.setEntity(new UrlEncodedFormEntity(logoutReqParams, "UTF-8"));
                 httpPost.addHeader("Cookie", "JSESSIONID=" + logoutReqDTO.getRpSessionId());
-                TrustManager easyTrustManager = new X509TrustManager() {
-                    public void checkClientTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                    }
-
-                    public void checkServerTrusted(
-                            java.security.cert.X509Certificate[] x509Certificates,
-                            String s)
-                            throws java.security.cert.CertificateException {
-                    }
-
-                    public java.security.cert.X509Certificate[] getAcceptedIssuers() {
-                        return null;
-                    }
-                };
-
-                SSLContext sslContext = SSLContext.getInstance("TLS");
-                sslContext.init(null, new TrustManager[]{easyTrustManager}, null);
-                SSLSocketFactory sf = new SSLSocketFactory(sslContext);
-                sf.setHostnameVerifier(SSLSocketFactory.ALLOW_ALL_HOSTNAME_VERIFIER);
-                Scheme httpsScheme = new Scheme("https", sf, port);
-
-                HttpClient httpClient = new DefaultHttpClient();
-                httpClient.getConnectionManager().getSchemeRegistry().register(httpsScheme);
-
-                HttpResponse response = null;
-                boolean isSuccessfullyLogout = false;
-                for (int currentRetryCount = 0; currentRetryCount < SAMLSSOUtil.getSingleLogoutRetryCount(); currentRetryCount++) {
-                    int statusCode = 0;
-
-                    //Completely consume the previous response before retrying
-                    if (response != null) {
-                        HttpEntity httpEntity = response.getEntity();
-                        if (httpEntity != null && httpEntity.isStreaming()) {
-                            InputStream instream = httpEntity.getContent();
-                            if (instream != null)
-                                instream.close();
-                        }
-                    }
-
-                    // send the logout request as a POST
-                    try {
-                        response = httpClient.execute(httpPost);
-                        statusCode = response.getStatusLine().getStatusCode();
-                    } catch (IOException e) {
-                        // ignore this exception since retrying is enabled if response is null.
-                    }
-                    if (response != null && SAMLSSOUtil.isHttpSuccessStatusCode(statusCode)) {
-                        log.info("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
-                                " is returned with " + HttpStatus.getStatusText(response.getStatusLine().getStatusCode()));
-                        isSuccessfullyLogout = true;
-                        break;
-                    } else {
-                        if (statusCode != 0) {
-                            log.warn("Failed single logout response from " +
-                                    logoutReqDTO.getAssertionConsumerURL() + " with status code " +
-                                    HttpStatus.getStatusText(statusCode));
-                        }
-                        try {
-                            synchronized (Thread.currentThread()) {
-                                Thread.currentThread().wait(SAMLSSOUtil.getSingleLogoutRetryInterval());
-                            }
-                            log.info("Sending single log out request again with retry count " +
-                                    (currentRetryCount + 1) + " after waiting for " +
-                                    SAMLSSOUtil.getSingleLogoutRetryInterval() + " milli seconds to " +
-                                    logoutReqDTO.getAssertionConsumerURL());
-                        } catch (InterruptedException e) {
-                            //Todo: handle this in better way.
-                        }
-                    }
 
+                // send the logout request as a POST
+                response = httpClient.execute(httpPost);
+                int statusCode = response.getStatusLine().getStatusCode();
+                // completely consume the response, so that the connection can be reused
+                EntityUtils.consume(response.getEntity());
+                if (SAMLSSOUtil.isHttpSuccessStatusCode(statusCode)) {
+                    log.info("single logout request is sent to : " + logoutReqDTO.getAssertionConsumerURL() +
+                            " is returned with " + HttpStatus.getStatusText(statusCode));
+                    return true;
                 }
-                if (!isSuccessfullyLogout) {
-                    log.error("Single logout failed after retrying " + SAMLSSOUtil.getSingleLogoutRetryCount() +
-                            " times with time interval " + SAMLSSOUtil.getSingleLogoutRetryInterval() + " in milli seconds.");
-                }
-
+                log.warn("Failed single logout response from " + logoutReqDTO.getAssertionConsumerURL() +
+                        " with status code " + HttpStatus.getStatusText(statusCode));
             } catch (IOException e) {
-                log.error("Error sending logout requests to : " +
-                        logoutReqDTO.getAssertionConsumerURL(), e);
-            } catch (GeneralSecurityException e) {
-                log.error("Error registering the EasySSLProtocolSocketFactory", e);
+                log.warn("Error sending logout requests to : " + logoutReqDTO.getAssertionConsumerURL() + " : " +
+                        e.getMessage());
+                if (log.isDebugEnabled()) {
+                    log.debug("Error sending logout requests to : " + logoutReqDTO.getAssertionConsumerURL(), e);
+                }
             } catch (RuntimeException e) {
                 log.error("Runtime exception occurred.", e);
-            } catch (URISyntaxException e) {
-                log.error("Error deriving port from the assertion consumer url", e);
+            } finally {
+                if (response != null) {
+                    try {
+                        response.close();
+                    } catch (IOException e) {
+                        log.debug("Error while closing the single logout response", e);
+                    }
+                }
             }
+            return false;
         }
     }
-
-
 }
-
@@ -0,0 +1,106 @@
+/*
+*  Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.identity.sso.saml.logout;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the back channel logout requests sent to the session participants
+ */
+public class SingleLogoutStatistics {
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong circuitOpenCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    void recordRequest() {
+        requestCount.incrementAndGet();
+    }
+
+    void recordSuccess(long latencyMillis) {
+        successCount.incrementAndGet();
+        totalLatency.addAndGet(latencyMillis);
+        long current;
+        while (latencyMillis > (current = maxLatency.get())) {
+            if (maxLatency.compareAndSet(current, latencyMillis)) {
+                break;
+            }
+        }
+    }
+
+    void recordFailure() {
+        failureCount.incrementAndGet();
+    }
+
+    void recordRetry() {
+        retryCount.incrementAndGet();
+    }
+
+    void recordCircuitOpen() {
+        circuitOpenCount.incrementAndGet();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    /**
+     * @return number of logout requests which were not delivered after all the retries
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * @return number of attempts skipped because the circuit of the session participant was open
+     */
+    public long getCircuitOpenCount() {
+        return circuitOpenCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds from dispatching a logout request until it was delivered
+     */
+    public double getAverageLatencyMillis() {
+        long successes = successCount.get();
+        return successes == 0 ? 0 : (double) totalLatency.get() / successes;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatency.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleLogout : requests=" + getRequestCount() + ", succeeded=" + getSuccessCount() + ", failed=" +
+                getFailureCount() + ", retries=" + getRetryCount() + ", circuitOpen=" + getCircuitOpenCount() +
+                ", averageLatency=" + getAverageLatencyMillis() + "ms, maxLatency=" + getMaxLatencyMillis() + "ms";
+    }
+}
@@ -48,7 +48,6 @@ import org.w3c.dom.ls.LSOutput;
 import org.w3c.dom.ls.LSSerializer;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.context.RegistryType;
-import org.wso2.carbon.core.util.KeyStoreManager;
 import org.wso2.carbon.identity.application.common.IdentityApplicationManagementException;
 import org.wso2.carbon.identity.application.common.model.ClaimMapping;
 import org.wso2.carbon.identity.application.common.model.FederatedAuthenticatorConfig;
@@ -60,6 +59,7 @@ import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.core.model.SAMLSSOServiceProviderDO;
 import org.wso2.carbon.identity.core.persistence.IdentityPersistenceManager;
 import org.wso2.carbon.identity.core.util.IdentityUtil;
+import org.wso2.carbon.identity.core.util.TenantSigningKeyCache;
 import org.wso2.carbon.identity.sso.saml.SAMLSSOConstants;
 import org.wso2.carbon.identity.sso.saml.SSOServiceProviderConfigManager;
 import org.wso2.carbon.identity.sso.saml.builders.DefaultResponseBuilder;
@@ -90,7 +90,6 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
 import java.net.*;
-import java.security.KeyStore;
 import java.util.*;
 import java.util.zip.*;
 
@@ -133,9 +132,9 @@ public class SAMLSSOUtil {
     private static long singleLogoutRetryInterval = 60000;
     private static String responseBuilderClassName = null;
     private static SAMLAssertionBuilder samlAssertionBuilder = null;
-    private static SSOEncrypter ssoEncrypter = null;
-    private static SSOSigner ssoSigner = null;
-    private static SAML2HTTPRedirectSignatureValidator samlHTTPRedirectSignatureValidator = null;
+    private static volatile SSOEncrypter ssoEncrypter = null;
+    private static volatile SSOSigner ssoSigner = null;
+    private static volatile SAML2HTTPRedirectSignatureValidator samlHTTPRedirectSignatureValidator = null;
     private static ThreadLocal tenantDomainInThreadLocal = new ThreadLocal();
 
     public static boolean isSaaSApplication() {
@@ -503,25 +502,9 @@ public class SAMLSSOUtil {
                                                    X509Credential cred) throws IdentityException {
 
         doBootstrap();
+        SSOSigner signer = getSSOSigner();
         try {
-
-            synchronized (Runtime.getRuntime().getClass()) {
-                ssoSigner = (SSOSigner) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAMLSSOSigner").trim()).newInstance();
-                ssoSigner.init();
-            }
-
-            return ssoSigner.doSignResponse(response, signatureAlgorithm, cred);
-
-        } catch (ClassNotFoundException e) {
-            throw new IdentityException("Class not found: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-        } catch (InstantiationException e) {
-            throw new IdentityException("Error while instantiating class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-        } catch (IllegalAccessException e) {
-            throw new IdentityException("Illegal access to class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
+            return signer.doSignResponse(response, signatureAlgorithm, cred);
         } catch (Exception e) {
             throw new IdentityException("Error while signing the SAML Response message.", e);
         }
@@ -531,58 +514,9 @@ public class SAMLSSOUtil {
     public static Assertion setSignature(Assertion assertion, String signatureAlgorithm,
                                          X509Credential cred) throws IdentityException {
         doBootstrap();
+        SSOSigner signer = getSSOSigner();
         try {
-
-            synchronized (Runtime.getRuntime().getClass()) {
-                ssoSigner = (SSOSigner) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAMLSSOSigner").trim()).newInstance();
-                ssoSigner.init();
-            }
-
-            return ssoSigner.doSetSignature(assertion, signatureAlgorithm, cred);
-//            Signature signature = (Signature) buildXMLObject(Signature.DEFAULT_ELEMENT_NAME);
-//            signature.setSigningCredential(cred);
-//            signature.setSignatureAlgorithm(signatureAlgorithm);
-//            signature.setCanonicalizationAlgorithm(Canonicalizer.ALGO_ID_C14N_EXCL_OMIT_COMMENTS);
-//
-//            try {
-//                KeyInfo keyInfo = (KeyInfo) buildXMLObject(KeyInfo.DEFAULT_ELEMENT_NAME);
-//                X509Data data = (X509Data) buildXMLObject(X509Data.DEFAULT_ELEMENT_NAME);
-//                X509Certificate cert = (X509Certificate) buildXMLObject(X509Certificate.DEFAULT_ELEMENT_NAME);
-//                String value = org.apache.xml.security.utils.Base64.encode(cred
-//                        .getEntityCertificate().getEncoded());
-//                cert.setValue(value);
-//                data.getX509Certificates().add(cert);
-//                keyInfo.getX509Datas().add(data);
-//                signature.setKeyInfo(keyInfo);
-//            } catch (CertificateEncodingException e) {
-//                throw new IdentityException("errorGettingCert");
-//            }
-//
-//            assertion.setSignature(signature);
-//
-//            List<Signature> signatureList = new ArrayList<Signature>();
-//            signatureList.add(signature);
-//
-//            // Marshall and Sign
-//            MarshallerFactory marshallerFactory = org.opensaml.xml.Configuration
-//                    .getMarshallerFactory();
-//            Marshaller marshaller = marshallerFactory.getMarshaller(assertion);
-//
-//            marshaller.marshall(assertion);
-//
-//            org.apache.xml.security.Init.init();
-//            Signer.signObjects(signatureList);
-//            return assertion;
-        } catch (ClassNotFoundException e) {
-            throw new IdentityException("Class not found: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-        } catch (InstantiationException e) {
-            throw new IdentityException("Error while instantiating class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-        } catch (IllegalAccessException e) {
-            throw new IdentityException("Illegal access to class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
+            return signer.doSetSignature(assertion, signatureAlgorithm, cred);
         } catch (Exception e) {
             throw new IdentityException("Error while signing the SAML Response message.", e);
         }
@@ -591,44 +525,12 @@ public class SAMLSSOUtil {
     public static EncryptedAssertion setEncryptedAssertion(Assertion assertion, String encryptionAlgorithm,
                                                            String alias, String domainName) throws IdentityException {
         doBootstrap();
+        SSOEncrypter encrypter = getSSOEncrypter();
         try {
             X509Credential cred = SAMLSSOUtil.getX509CredentialImplForTenant(domainName, alias);
-
-            synchronized (Runtime.getRuntime().getClass()) {
-                ssoEncrypter = (SSOEncrypter) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAMLSSOEncrypter").trim()).newInstance();
-                ssoEncrypter.init();
-            }
-            return ssoEncrypter.doEncryptedAssertion(assertion, cred, alias, encryptionAlgorithm);
-//
-//            Credential symmetricCredential = SecurityHelper.getSimpleCredential(
-//                    SecurityHelper.generateSymmetricKey(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES256));
-//
-//            EncryptionParameters encParams = new EncryptionParameters();
-//            encParams.setAlgorithm(EncryptionConstants.ALGO_ID_BLOCKCIPHER_AES256);
-//            encParams.setEncryptionCredential(symmetricCredential);
-//
-//            KeyEncryptionParameters keyEncryptionParameters = new KeyEncryptionParameters();
-//            keyEncryptionParameters.setAlgorithm(EncryptionConstants.ALGO_ID_KEYTRANSPORT_RSA15);
-//            keyEncryptionParameters.setEncryptionCredential(cred);
-//
-//            Encrypter encrypter = new Encrypter(encParams, keyEncryptionParameters);
-//            encrypter.setKeyPlacement(Encrypter.KeyPlacement.INLINE);
-//
-//            EncryptedAssertion encrypted = encrypter.encrypt(assertion);
-////            response.getEncryptedAssertions().add(encrypted);
-//            return encrypted;
-        } catch (ClassNotFoundException e) {
-            throw new IdentityException("Class not found: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOEncrypter"), e);
-        } catch (InstantiationException e) {
-            throw new IdentityException("Error while instantiating class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOEncrypter"), e);
-        } catch (IllegalAccessException e) {
-            throw new IdentityException("Illegal access to class: "
-                    + IdentityUtil.getProperty("SSOService.SAMLSSOEncrypter"), e);
+            return encrypter.doEncryptedAssertion(assertion, cred, alias, encryptionAlgorithm);
         } catch (Exception e) {
-            throw new IdentityException("Error while signing the SAML Response message.", e);
+            throw new IdentityException("Error while encrypting the SAML Assertion.", e);
         }
     }
 
@@ -741,22 +643,13 @@ public class SAMLSSOUtil {
             throw new IdentitySAML2SSOException(errorMsg, e);
         }
 
-        KeyStoreManager keyStoreManager;
-        // get an instance of the corresponding Key Store Manager instance
-        keyStoreManager = KeyStoreManager.getInstance(tenantId);
-
         X509CredentialImpl credentialImpl = null;
-        KeyStore keyStore;
 
         try {
-            if (tenantId != -1234) {// for tenants, load private key from their generated key store
-                keyStore = keyStoreManager.getKeyStore(generateKSNameFromDomainName(tenantDomain));
-            } else { // for super tenant, load the default pub. cert using the
-                // config. in carbon.xml
-                keyStore = keyStoreManager.getPrimaryKeyStore();
-            }
-            java.security.cert.X509Certificate cert =
-                    (java.security.cert.X509Certificate) keyStore.getCertificate(alias);
+            // for tenants the certificate is loaded from their generated key store, and for super tenant
+            // from the primary key store configured in carbon.xml. Certificates are cached per tenant and alias.
+            java.security.cert.X509Certificate cert = (java.security.cert.X509Certificate)
+                    TenantSigningKeyCache.getInstance().getCertificate(tenantDomain, tenantId, alias);
             credentialImpl = new X509CredentialImpl(cert);
 
         } catch (Exception e) {
@@ -848,16 +741,9 @@ public class SAMLSSOUtil {
      */
     public static boolean validateDeflateSignature(String queryString, String issuer,
                                                    String alias, String domainName) throws IdentityException {
+        SAML2HTTPRedirectSignatureValidator signatureValidator = getSAML2HTTPRedirectSignatureValidator();
         try {
-
-            synchronized (Runtime.getRuntime().getClass()) {
-                samlHTTPRedirectSignatureValidator = (SAML2HTTPRedirectSignatureValidator) Class.forName(IdentityUtil.getProperty(
-                        "SSOService.SAML2HTTPRedirectSignatureValidator").trim()).newInstance();
-                samlHTTPRedirectSignatureValidator.init();
-            }
-
-            return samlHTTPRedirectSignatureValidator.validateSignature(queryString, issuer,
-                    alias, domainName);
+            return signatureValidator.validateSignature(queryString, issuer, alias, domainName);
 
         } catch (SecurityException e) {
             log.error("Error validating deflate signature", e);
@@ -866,15 +752,6 @@ public class SAMLSSOUtil {
             log.warn("Signature validation failed for the SAML Message : Failed to construct the X509CredentialImpl for the alias " +
                     alias);
             return false;
-        } catch (ClassNotFoundException e) {
-            throw new IdentityException("Class not found: "
-                    + IdentityUtil.getProperty("SSOService.SAML2HTTPRedirectSignatureValidator"), e);
-        } catch (InstantiationException e) {
-            throw new IdentityException("Error while instantiating class: "
-                    + IdentityUtil.getProperty("SSOService.SAML2HTTPRedirectSignatureValidator"), e);
-        } catch (IllegalAccessException e) {
-            throw new IdentityException("Illegal access to class: "
-                    + IdentityUtil.getProperty("SSOService.SAML2HTTPRedirectSignatureValidator"), e);
         }
     }
 
@@ -893,16 +770,10 @@ public class SAMLSSOUtil {
         boolean isSignatureValid = false;
 
         if (request.getSignature() != null) {
+            SSOSigner signer = getSSOSigner();
             try {
                 X509Credential cred = SAMLSSOUtil.getX509CredentialImplForTenant(domainName, alias);
-
-                synchronized (Runtime.getRuntime().getClass()) {
-                    ssoSigner = (SSOSigner) Class.forName(IdentityUtil.getProperty(
-                            "SSOService.SAMLSSOSigner").trim()).newInstance();
-                    ssoSigner.init();
-                }
-
-                return ssoSigner.doValidateXMLSignature(request, cred, alias);
+                return signer.doValidateXMLSignature(request, cred, alias);
             } catch (IdentitySAML2SSOException ignore) {
                 log.warn("Signature validation failed for the SAML Message : Failed to construct the X509CredentialImpl for the alias " +
                         alias);
@@ -910,15 +781,6 @@ public class SAMLSSOUtil {
             } catch (IdentityException ignore) {
                 log.warn("Signature Validation Failed for the SAML Assertion : Signature is invalid.");
                 log.debug(ignore);
-            } catch (ClassNotFoundException e) {
-                throw new IdentityException("Class not found: "
-                        + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-            } catch (InstantiationException e) {
-                throw new IdentityException("Error while instantiating class: "
-                        + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
-            } catch (IllegalAccessException e) {
-                throw new IdentityException("Illegal access to class: "
-                        + IdentityUtil.getProperty("SSOService.SAMLSSOSigner"), e);
             } catch (Exception e) {
 
             }
@@ -951,6 +813,9 @@ public class SAMLSSOUtil {
             spDO = persistenceManager.getServiceProvider(registry, authnReqDTO.getIssuer());
         }
 
+        // the service provider may be shared through the cache, so the index is overridden on a local copy
+        String spAttributeConsumingServiceIndex = spDO.getAttributeConsumingServiceIndex();
+
         if (!authnReqDTO.isIdPInitSSO()) {
 
             AuthnRequestImpl request = null;
@@ -966,7 +831,7 @@ public class SAMLSSOUtil {
             if (request.getAttributeConsumingServiceIndex() == null) {
                 if (authnReqDTO.getAttributeConsumingServiceIndex() != 0) {
                     index = authnReqDTO.getAttributeConsumingServiceIndex();
-                    spDO.setAttributeConsumingServiceIndex(String.valueOf(index));
+                    spAttributeConsumingServiceIndex = String.valueOf(index);
                 } else {
                     return null; // not requesting for attributes
                 }
@@ -976,7 +841,7 @@ public class SAMLSSOUtil {
         } else {
             index = authnReqDTO.getAttributeConsumingServiceIndex();
             if (index != 0) {
-                spDO.setAttributeConsumingServiceIndex(String.valueOf(index));
+                spAttributeConsumingServiceIndex = String.valueOf(index);
             }
 
         }
@@ -986,9 +851,9 @@ public class SAMLSSOUtil {
          * IMPORTANT : checking if the consumer index in the request matches the
 		 * given id to the SP
 		 */
-        if (spDO.getAttributeConsumingServiceIndex() == null ||
-                "".equals(spDO.getAttributeConsumingServiceIndex()) ||
-                index != Integer.parseInt(spDO.getAttributeConsumingServiceIndex())) {
+        if (spAttributeConsumingServiceIndex == null ||
+                "".equals(spAttributeConsumingServiceIndex) ||
+                index != Integer.parseInt(spAttributeConsumingServiceIndex)) {
             log.debug("Invalid AttributeConsumingServiceIndex in AuthnRequest");
             return null;
         }
@@ -1044,6 +909,87 @@ public class SAMLSSOUtil {
         SAMLSSOUtil.singleLogoutRetryInterval = singleLogoutRetryInterval;
     }
 
+    /**
+     * Creates the signer, the encrypter and the redirect binding signature validator configured in
+     * identity.xml. It is called when the bundle is activated, and the single instance of each is shared
+     * by concurrent requests, hence the configured implementations must be thread safe.
+     *
+     * @throws IdentityException if an extension could not be created
+     */
+    public static void initSSOExtensions() throws IdentityException {
+        synchronized (SAMLSSOUtil.class) {
+            ssoSigner = null;
+            ssoEncrypter = null;
+            samlHTTPRedirectSignatureValidator = null;
+        }
+        getSSOSigner();
+        getSSOEncrypter();
+        getSAML2HTTPRedirectSignatureValidator();
+    }
+
+    private static SSOSigner getSSOSigner() throws IdentityException {
+        SSOSigner signer = ssoSigner;
+        if (signer == null) {
+            synchronized (SAMLSSOUtil.class) {
+                if (ssoSigner == null) {
+                    SSOSigner newSigner = (SSOSigner) createSSOExtension("SSOService.SAMLSSOSigner");
+                    newSigner.init();
+                    ssoSigner = newSigner;
+                }
+                signer = ssoSigner;
+            }
+        }
+        return signer;
+    }
+
+    private static SSOEncrypter getSSOEncrypter() throws IdentityException {
+        SSOEncrypter encrypter = ssoEncrypter;
+        if (encrypter == null) {
+            synchronized (SAMLSSOUtil.class) {
+                if (ssoEncrypter == null) {
+                    SSOEncrypter newEncrypter = (SSOEncrypter) createSSOExtension("SSOService.SAMLSSOEncrypter");
+                    newEncrypter.init();
+                    ssoEncrypter = newEncrypter;
+                }
+                encrypter = ssoEncrypter;
+            }
+        }
+        return encrypter;
+    }
+
+    private static SAML2HTTPRedirectSignatureValidator getSAML2HTTPRedirectSignatureValidator()
+            throws IdentityException {
+        SAML2HTTPRedirectSignatureValidator validator = samlHTTPRedirectSignatureValidator;
+        if (validator == null) {
+            synchronized (SAMLSSOUtil.class) {
+                if (samlHTTPRedirectSignatureValidator == null) {
+                    SAML2HTTPRedirectSignatureValidator newValidator = (SAML2HTTPRedirectSignatureValidator)
+                            createSSOExtension("SSOService.SAML2HTTPRedirectSignatureValidator");
+                    newValidator.init();
+                    samlHTTPRedirectSignatureValidator = newValidator;
+                }
+                validator = samlHTTPRedirectSignatureValidator;
+            }
+        }
+        return validator;
+    }
+
+    private static Object createSSOExtension(String property) throws IdentityException {
+        String className = IdentityUtil.getProperty(property);
+        if (className == null || className.trim().length() == 0) {
+            throw new IdentityException(property + " is not configured");
+        }
+        try {
+            return Class.forName(className.trim()).newInstance();
+        } catch (ClassNotFoundException e) {
+            throw new IdentityException("Class not found: " + className, e);
+        } catch (InstantiationException e) {
+            throw new IdentityException("Error while instantiating class: " + className, e);
+        } catch (IllegalAccessException e) {
+            throw new IdentityException("Illegal access to class: " + className, e);
+        }
+    }
+
     public static ResponseBuilder getResponseBuilder() {
         if (responseBuilderClassName == null || "".equals(responseBuilderClassName)) {
             return new DefaultResponseBuilder();
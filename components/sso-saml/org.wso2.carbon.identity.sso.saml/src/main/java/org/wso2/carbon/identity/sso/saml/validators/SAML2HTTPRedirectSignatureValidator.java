@@ -20,6 +20,9 @@ package org.wso2.carbon.identity.sso.saml.validators;
 import org.wso2.carbon.identity.base.IdentityException;
 import org.wso2.carbon.identity.sso.saml.exception.IdentitySAML2SSOException;
 
+/**
+ * Validates the signature of SAML messages sent with the HTTP Redirect binding
+ */
 public interface SAML2HTTPRedirectSignatureValidator {
 
     public void init() throws IdentityException;
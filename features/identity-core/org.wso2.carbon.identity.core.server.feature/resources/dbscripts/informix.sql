@@ -66,6 +66,7 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 			TOKEN_SCOPE LVARCHAR(2048),
 			TOKEN_STATE LVARCHAR(25) DEFAULT 'ACTIVE',
 			TOKEN_STATE_ID LVARCHAR (255) DEFAULT 'NONE',
+			TIME_REVOKED BIGINT,
 			PRIMARY KEY (ACCESS_TOKEN),
             FOREIGN KEY (CONSUMER_KEY) REFERENCES IDN_OAUTH_CONSUMER_APPS(CONSUMER_KEY) ON DELETE CASCADE,
             UNIQUE (CONSUMER_KEY,AUTHZ_USER,USER_TYPE,TOKEN_SCOPE,TOKEN_STATE,TOKEN_STATE_ID) CONSTRAINT CON_APP_KEY
@@ -73,6 +74,33 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 
 CREATE INDEX IDX_AT_CK_AU ON IDN_OAUTH2_ACCESS_TOKEN(CONSUMER_KEY, AUTHZ_USER, TOKEN_STATE, USER_TYPE);
 
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN);
+
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED);
+
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN LVARCHAR(255),
+			REFRESH_TOKEN LVARCHAR(255),
+			CONSUMER_KEY LVARCHAR(255),
+			AUTHZ_USER LVARCHAR(100),
+			USER_TYPE LVARCHAR (25),
+			TIME_CREATED DATETIME YEAR TO SECOND,
+			REFRESH_TOKEN_TIME_CREATED DATETIME YEAR TO SECOND,
+			VALIDITY_PERIOD BIGINT,
+			REFRESH_TOKEN_VALIDITY_PERIOD BIGINT,
+			TOKEN_SCOPE LVARCHAR(2048),
+			TOKEN_STATE LVARCHAR(25),
+			TOKEN_STATE_ID LVARCHAR (255),
+			TIME_DELETED DATETIME YEAR TO SECOND
+);
+
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME LVARCHAR (100) NOT NULL,
+			NODE_ID LVARCHAR (255),
+			LOCK_EXPIRY BIGINT,
+			PRIMARY KEY (TASK_NAME)
+);
+
 CREATE TABLE IDN_OAUTH2_SCOPE (
             SCOPE_ID SERIAL UNIQUE,
             SCOPE_KEY LVARCHAR(100) NOT NULL,
@@ -179,6 +207,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             PRIMARY KEY (SESSION_ID, SESSION_TYPE)
 );
 
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE);
+
 CREATE TABLE SP_APP (
             ID INTEGER SERIAL UNIQUE,
             TENANT_ID INTEGER NOT NULL,
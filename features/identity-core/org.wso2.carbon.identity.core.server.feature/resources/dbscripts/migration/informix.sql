@@ -0,0 +1,30 @@
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN);
+
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN LVARCHAR(255),
+			REFRESH_TOKEN LVARCHAR(255),
+			CONSUMER_KEY LVARCHAR(255),
+			AUTHZ_USER LVARCHAR(100),
+			USER_TYPE LVARCHAR (25),
+			TIME_CREATED DATETIME YEAR TO SECOND,
+			REFRESH_TOKEN_TIME_CREATED DATETIME YEAR TO SECOND,
+			VALIDITY_PERIOD BIGINT,
+			REFRESH_TOKEN_VALIDITY_PERIOD BIGINT,
+			TOKEN_SCOPE LVARCHAR(2048),
+			TOKEN_STATE LVARCHAR(25),
+			TOKEN_STATE_ID LVARCHAR (255),
+			TIME_DELETED DATETIME YEAR TO SECOND
+);
+
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME LVARCHAR (100) NOT NULL,
+			NODE_ID LVARCHAR (255),
+			LOCK_EXPIRY BIGINT,
+			PRIMARY KEY (TASK_NAME)
+);
+
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE);
+
+ALTER TABLE IDN_OAUTH2_ACCESS_TOKEN ADD TIME_REVOKED BIGINT;
+
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED);
@@ -0,0 +1,30 @@
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN);
+
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN VARCHAR(255),
+			REFRESH_TOKEN VARCHAR(255),
+			CONSUMER_KEY VARCHAR(512),
+			AUTHZ_USER VARCHAR(255),
+			USER_TYPE VARCHAR (25),
+			TIME_CREATED DATETIME,
+			REFRESH_TOKEN_TIME_CREATED DATETIME,
+			VALIDITY_PERIOD BIGINT,
+			REFRESH_TOKEN_VALIDITY_PERIOD BIGINT,
+			TOKEN_SCOPE VARCHAR(2048),
+			TOKEN_STATE VARCHAR(25),
+			TOKEN_STATE_ID VARCHAR (256),
+			TIME_DELETED DATETIME
+);
+
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME VARCHAR (100) NOT NULL,
+			NODE_ID VARCHAR (255),
+			LOCK_EXPIRY BIGINT,
+			PRIMARY KEY (TASK_NAME)
+);
+
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE);
+
+ALTER TABLE IDN_OAUTH2_ACCESS_TOKEN ADD TIME_REVOKED BIGINT;
+
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED);
@@ -0,0 +1,31 @@
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN)
+/
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN VARCHAR2 (255),
+			REFRESH_TOKEN VARCHAR2 (255),
+			CONSUMER_KEY VARCHAR2 (255),
+			AUTHZ_USER VARCHAR2 (255),
+			USER_TYPE VARCHAR (25),
+			TIME_CREATED TIMESTAMP,
+			REFRESH_TOKEN_TIME_CREATED TIMESTAMP,
+			VALIDITY_PERIOD NUMBER(19),
+			REFRESH_TOKEN_VALIDITY_PERIOD NUMBER(19),
+			TOKEN_SCOPE VARCHAR2 (2048),
+			TOKEN_STATE VARCHAR2 (25),
+			TOKEN_STATE_ID VARCHAR (256),
+			TIME_DELETED TIMESTAMP
+)
+/
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME VARCHAR2 (100) NOT NULL,
+			NODE_ID VARCHAR2 (255),
+			LOCK_EXPIRY NUMBER(19),
+			PRIMARY KEY (TASK_NAME)
+)
+/
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE)
+/
+ALTER TABLE IDN_OAUTH2_ACCESS_TOKEN ADD TIME_REVOKED NUMBER(19)
+/
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED)
+/
@@ -65,6 +65,7 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 			TOKEN_SCOPE VARCHAR(25),
 			TOKEN_STATE VARCHAR(25) DEFAULT 'ACTIVE',
 			TOKEN_STATE_ID VARCHAR (255) DEFAULT 'NONE',
+			TIME_REVOKED BIGINT,
 			PRIMARY KEY (ACCESS_TOKEN),
             FOREIGN KEY (CONSUMER_KEY) REFERENCES IDN_OAUTH_CONSUMER_APPS(CONSUMER_KEY) ON DELETE CASCADE,
             CONSTRAINT CON_APP_KEY UNIQUE (CONSUMER_KEY,AUTHZ_USER,USER_TYPE,TOKEN_SCOPE,TOKEN_STATE,TOKEN_STATE_ID)
@@ -72,6 +73,33 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 
 CREATE INDEX IDX_AT_CK_AU ON IDN_OAUTH2_ACCESS_TOKEN(CONSUMER_KEY, AUTHZ_USER, TOKEN_STATE, USER_TYPE);
 
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN);
+
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED);
+
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN VARCHAR(255),
+			REFRESH_TOKEN VARCHAR(255),
+			CONSUMER_KEY VARCHAR(255),
+			AUTHZ_USER VARCHAR(100),
+			USER_TYPE VARCHAR (25),
+			TIME_CREATED TIMESTAMP DEFAULT 0,
+			REFRESH_TOKEN_TIME_CREATED TIMESTAMP DEFAULT 0,
+			VALIDITY_PERIOD BIGINT,
+			REFRESH_TOKEN_VALIDITY_PERIOD BIGINT,
+			TOKEN_SCOPE VARCHAR(25),
+			TOKEN_STATE VARCHAR(25),
+			TOKEN_STATE_ID VARCHAR (255),
+			TIME_DELETED TIMESTAMP DEFAULT 0
+)ENGINE INNODB;
+
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME VARCHAR (100) NOT NULL,
+			NODE_ID VARCHAR (255),
+			LOCK_EXPIRY BIGINT,
+			PRIMARY KEY (TASK_NAME)
+)ENGINE INNODB;
+
 CREATE TABLE IF NOT EXISTS IDN_OAUTH2_SCOPE (
             SCOPE_ID INT(11) NOT NULL AUTO_INCREMENT,
             SCOPE_KEY VARCHAR(100) NOT NULL,
@@ -180,6 +208,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
 		        PRIMARY KEY (SESSION_ID, SESSION_TYPE)
 )ENGINE INNODB;
 
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE);
+
 CREATE TABLE IF NOT EXISTS SP_APP (
             ID INTEGER NOT NULL AUTO_INCREMENT,
             TENANT_ID INTEGER NOT NULL,
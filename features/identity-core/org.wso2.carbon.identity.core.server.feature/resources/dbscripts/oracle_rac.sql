@@ -60,12 +60,40 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 			TOKEN_SCOPE VARCHAR2 (2048),
 			TOKEN_STATE VARCHAR2 (25) DEFAULT 'ACTIVE',
 			TOKEN_STATE_ID VARCHAR (256) DEFAULT 'NONE',
+			TIME_REVOKED NUMBER(19),
 			PRIMARY KEY (ACCESS_TOKEN),
             FOREIGN KEY (CONSUMER_KEY) REFERENCES IDN_OAUTH_CONSUMER_APPS(CONSUMER_KEY) ON DELETE CASCADE,
             CONSTRAINT CON_APP_KEY UNIQUE (CONSUMER_KEY,AUTHZ_USER,USER_TYPE,TOKEN_SCOPE,TOKEN_STATE,TOKEN_STATE_ID))
 /
 CREATE INDEX IDX_AT_CK_AU ON IDN_OAUTH2_ACCESS_TOKEN(CONSUMER_KEY, AUTHZ_USER, TOKEN_STATE, USER_TYPE)
 /
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN)
+/
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED)
+/
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN VARCHAR2 (255),
+			REFRESH_TOKEN VARCHAR2 (255),
+			CONSUMER_KEY VARCHAR2 (255),
+			AUTHZ_USER VARCHAR2 (255),
+			USER_TYPE VARCHAR (25),
+			TIME_CREATED TIMESTAMP,
+			REFRESH_TOKEN_TIME_CREATED TIMESTAMP,
+			VALIDITY_PERIOD NUMBER(19),
+			REFRESH_TOKEN_VALIDITY_PERIOD NUMBER(19),
+			TOKEN_SCOPE VARCHAR2 (2048),
+			TOKEN_STATE VARCHAR2 (25),
+			TOKEN_STATE_ID VARCHAR (256),
+			TIME_DELETED TIMESTAMP
+)
+/
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME VARCHAR2 (100) NOT NULL,
+			NODE_ID VARCHAR2 (255),
+			LOCK_EXPIRY NUMBER(19),
+			PRIMARY KEY (TASK_NAME)
+)
+/
 CREATE TABLE IDN_OAUTH2_SCOPE (
             SCOPE_ID INTEGER,
             SCOPE_KEY VARCHAR2 (100) NOT NULL,
@@ -223,6 +251,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
             PRIMARY KEY (SESSION_ID, SESSION_TYPE)
 )
 /
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE)
+/
 CREATE TABLE SP_APP (
             ID INTEGER,
             TENANT_ID INTEGER NOT NULL,
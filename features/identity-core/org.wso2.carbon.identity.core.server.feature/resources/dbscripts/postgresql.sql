@@ -71,6 +71,7 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 			TOKEN_SCOPE VARCHAR(2048),
 			TOKEN_STATE VARCHAR(25) DEFAULT 'ACTIVE',
 			TOKEN_STATE_ID VARCHAR (255) DEFAULT 'NONE',
+			TIME_REVOKED BIGINT,
 			PRIMARY KEY (ACCESS_TOKEN),
             FOREIGN KEY (CONSUMER_KEY) REFERENCES IDN_OAUTH_CONSUMER_APPS(CONSUMER_KEY) ON DELETE CASCADE,
             CONSTRAINT CON_APP_KEY UNIQUE (CONSUMER_KEY,AUTHZ_USER,USER_TYPE,TOKEN_SCOPE,TOKEN_STATE,TOKEN_STATE_ID)
@@ -78,6 +79,35 @@ CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN (
 
 CREATE INDEX IDX_AT_CK_AU ON IDN_OAUTH2_ACCESS_TOKEN(CONSUMER_KEY, AUTHZ_USER, TOKEN_STATE, USER_TYPE);
 
+CREATE INDEX IDX_AT_TC ON IDN_OAUTH2_ACCESS_TOKEN(TIME_CREATED, ACCESS_TOKEN);
+
+CREATE INDEX IDX_AT_TR ON IDN_OAUTH2_ACCESS_TOKEN(TIME_REVOKED);
+
+DROP TABLE IF EXISTS IDN_OAUTH2_ACCESS_TOKEN_AUDIT;
+CREATE TABLE IDN_OAUTH2_ACCESS_TOKEN_AUDIT (
+			ACCESS_TOKEN VARCHAR(255),
+			REFRESH_TOKEN VARCHAR(255),
+			CONSUMER_KEY VARCHAR(255),
+			AUTHZ_USER VARCHAR(100),
+			USER_TYPE VARCHAR (25),
+			TIME_CREATED TIMESTAMP,
+			REFRESH_TOKEN_TIME_CREATED TIMESTAMP,
+			VALIDITY_PERIOD BIGINT,
+			REFRESH_TOKEN_VALIDITY_PERIOD BIGINT,
+			TOKEN_SCOPE VARCHAR(2048),
+			TOKEN_STATE VARCHAR(25),
+			TOKEN_STATE_ID VARCHAR (255),
+			TIME_DELETED TIMESTAMP
+);
+
+DROP TABLE IF EXISTS IDN_TASK_LOCK;
+CREATE TABLE IDN_TASK_LOCK (
+			TASK_NAME VARCHAR (100) NOT NULL,
+			NODE_ID VARCHAR (255),
+			LOCK_EXPIRY BIGINT,
+			PRIMARY KEY (TASK_NAME)
+);
+
 DROP TABLE IF EXISTS IDN_OAUTH2_SCOPE;
 DROP SEQUENCE IF EXISTS IDN_OAUTH2_SCOPE_PK_SEQ;
 CREATE SEQUENCE IDN_OAUTH2_SCOPE_PK_SEQ;
@@ -204,6 +234,8 @@ CREATE TABLE IDN_AUTH_SESSION_STORE (
 		PRIMARY KEY (SESSION_ID, SESSION_TYPE)
 	);
 
+CREATE INDEX IDX_AUTH_SESSION_TC ON IDN_AUTH_SESSION_STORE(TIME_CREATED, SESSION_ID, SESSION_TYPE);
+
 DROP TABLE IF EXISTS SP_APP;
 DROP SEQUENCE IF EXISTS SP_APP_SEQ;
 CREATE SEQUENCE SP_APP_SEQ;